@@ -17,7 +17,12 @@ import javax.servlet.ServletContext;
 import org.knowm.sundial.exceptions.SundialSchedulerException;
 import org.quartz.builders.CronTriggerBuilder;
 import org.quartz.builders.SimpleTriggerBuilder;
+import org.quartz.core.AcquisitionMetrics;
+import org.quartz.core.DispatchDelayMetrics;
+import org.quartz.core.ExtendedScheduler;
+import org.quartz.core.FireLatenessMetrics;
 import org.quartz.core.JobExecutionContext;
+import org.quartz.core.RateLimiter;
 import org.quartz.core.Scheduler;
 import org.quartz.core.SchedulerFactory;
 import org.quartz.exceptions.SchedulerException;
@@ -92,6 +97,46 @@ public class SundialJobScheduler {
     }
   }
 
+  /**
+   * Starts the Sundial Scheduler, acquiring triggers in batches that adapt to the load
+   *
+   * @param threadPoolSize
+   * @param annotatedJobsPackageName A comma(,) or colon(:) can be used to specify multiple packages
+   *     to scan for Jobs.
+   * @param maxBatchSize the most triggers acquired at once
+   * @param maxBatchTimeWindow the most milliseconds a trigger may fire early to share a batch
+   * @see SchedulerFactory#setAdaptiveBatching(int, long)
+   */
+  public static void startScheduler(
+      int threadPoolSize,
+      String annotatedJobsPackageName,
+      int maxBatchSize,
+      long maxBatchTimeWindow)
+      throws SundialSchedulerException {
+
+    SchedulerFactory schedulerFactory = new SchedulerFactory();
+    schedulerFactory.setThreadPoolSize(threadPoolSize);
+    schedulerFactory.setPackageName(annotatedJobsPackageName);
+    schedulerFactory.setAdaptiveBatching(maxBatchSize, maxBatchTimeWindow);
+    startScheduler(schedulerFactory);
+  }
+
+  /**
+   * Starts the Sundial Scheduler
+   *
+   * @param schedulerFactory factory to create the scheduler, with the settings applied
+   */
+  public static void startScheduler(SchedulerFactory schedulerFactory)
+      throws SundialSchedulerException {
+
+    try {
+      createScheduler(schedulerFactory);
+      getScheduler().start();
+    } catch (SchedulerException e) {
+      throw new SundialSchedulerException("COULD NOT START SUNDIAL SCHEDULER!!!", e);
+    }
+  }
+
   /**
    * Creates the Sundial Scheduler
    *
@@ -147,6 +192,52 @@ public class SundialJobScheduler {
     return scheduler;
   }
 
+  /** Gets the underlying Quartz scheduler, with what it adds to the Quartz interface */
+  private static ExtendedScheduler getExtendedScheduler() {
+
+    return (ExtendedScheduler) getScheduler();
+  }
+
+  /**
+   * Gets the counts of trigger acquisitions and the batch sizes they used
+   *
+   * @return
+   */
+  public static AcquisitionMetrics getAcquisitionMetrics() {
+
+    return getExtendedScheduler().getAcquisitionMetrics();
+  }
+
+  /**
+   * Gets the lateness with which triggers were fired
+   *
+   * @return
+   */
+  public static FireLatenessMetrics getFireLatenessMetrics() {
+
+    return getExtendedScheduler().getFireLatenessMetrics();
+  }
+
+  /**
+   * Gets the limits on how often jobs may start, and the counts of starts deferred and dropped
+   *
+   * @return
+   */
+  public static RateLimiter getRateLimiter() {
+
+    return getExtendedScheduler().getRateLimiter();
+  }
+
+  /**
+   * Gets the delays of jobs between the firing of their triggers and their dispatch, per priority
+   *
+   * @return
+   */
+  public static DispatchDelayMetrics getDispatchDelayMetrics() {
+
+    return getExtendedScheduler().getDispatchDelayMetrics();
+  }
+
   public static void toggleGlobalLock() {
 
     globalLock = !globalLock;
@@ -482,6 +573,25 @@ public class SundialJobScheduler {
     }
   }
 
+  /**
+   * Adds many Jobs, each with its Triggers, in one batch. Replaces matching existing Jobs and
+   * Triggers. When bootstrapping thousands of them this is much faster than calling addJob and
+   * addCronTrigger or addSimpleTrigger for each.
+   *
+   * @param triggersAndJobs the Jobs (see JobBuilder), each with the list of its Triggers (see
+   *     CronTriggerBuilder and SimpleTriggerBuilder)
+   */
+  public static void scheduleJobs(Map<JobDetail, List<OperableTrigger>> triggersAndJobs)
+      throws SundialSchedulerException {
+
+    try {
+      getExtendedScheduler().scheduleJobs(triggersAndJobs, true);
+    } catch (SchedulerException e) {
+      logger.error("ERROR SCHEDULING JOBS!!!", e);
+      throw new SundialSchedulerException("ERROR SCHEDULING JOBS!!!", e);
+    }
+  }
+
   /**
    * Removes a Trigger matching the the given Trigger Name
    *
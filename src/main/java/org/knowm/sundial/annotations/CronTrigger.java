@@ -15,5 +15,16 @@ public @interface CronTrigger {
 
   boolean isConcurrencyAllowed() default false;
 
+  // in milliseconds, 0 for no spread, -1 for the scheduler's setting
+  long fireTimeSpread() default -1;
+
+  // starts per second, 0 for no limit of the job's own
+  double rateLimit() default 0;
+
+  int rateLimitBurst() default 1;
+
+  // the bulkhead of a BulkheadThreadPool to run in, empty for the default
+  String bulkhead() default "";
+
   String[] jobDataMap() default {};
 }
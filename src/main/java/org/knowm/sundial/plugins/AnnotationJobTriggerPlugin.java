@@ -10,6 +10,7 @@ import java.util.TimeZone;
 import org.knowm.sundial.Job;
 import org.knowm.sundial.annotations.CronTrigger;
 import org.knowm.sundial.annotations.SimpleTrigger;
+import org.quartz.builders.JobBuilder;
 import org.quartz.core.Scheduler;
 import org.quartz.exceptions.SchedulerException;
 import org.quartz.jobs.JobDataMap;
@@ -84,12 +85,18 @@ public class AnnotationJobTriggerPlugin implements SchedulerPlugin {
             addToJobDataMap(jobDataMap, cronTrigger.jobDataMap());
           }
 
-          JobDetail jobDetail =
+          JobBuilder jobBuilder =
               newJobBuilder(jobClass)
                   .withIdentity(jobClass.getSimpleName())
                   .isConcurrencyAllowed(cronTrigger.isConcurrencyAllowed())
-                  .usingJobData(jobDataMap)
-                  .build();
+                  .usingJobData(jobDataMap);
+          if (cronTrigger.rateLimit() > 0) {
+            jobBuilder.withRateLimit(cronTrigger.rateLimit(), cronTrigger.rateLimitBurst());
+          }
+          if (cronTrigger.bulkhead().length() > 0) {
+            jobBuilder.withBulkhead(cronTrigger.bulkhead());
+          }
+          JobDetail jobDetail = jobBuilder.build();
           OperableTrigger trigger;
           try {
             trigger = buildCronTrigger(cronTrigger, jobClass.getSimpleName());
@@ -108,12 +115,18 @@ public class AnnotationJobTriggerPlugin implements SchedulerPlugin {
             addToJobDataMap(jobDataMap, simpleTrigger.jobDataMap());
           }
 
-          JobDetail job =
+          JobBuilder jobBuilder =
               newJobBuilder(jobClass)
                   .withIdentity(jobClass.getSimpleName())
                   .isConcurrencyAllowed(simpleTrigger.isConcurrencyAllowed())
-                  .usingJobData(jobDataMap)
-                  .build();
+                  .usingJobData(jobDataMap);
+          if (simpleTrigger.rateLimit() > 0) {
+            jobBuilder.withRateLimit(simpleTrigger.rateLimit(), simpleTrigger.rateLimitBurst());
+          }
+          if (simpleTrigger.bulkhead().length() > 0) {
+            jobBuilder.withBulkhead(simpleTrigger.bulkhead());
+          }
+          JobDetail job = jobBuilder.build();
           OperableTrigger trigger;
           try {
             trigger = buildSimpleTrigger(simpleTrigger, jobClass.getSimpleName());
@@ -142,6 +155,7 @@ public class AnnotationJobTriggerPlugin implements SchedulerPlugin {
           .withIdentity(jobName + "-Trigger")
           .forJob(jobName)
           .withPriority(Trigger.DEFAULT_PRIORITY)
+          .withFireTimeSpread(cronTrigger.fireTimeSpread())
           .build();
 
     } else {
@@ -158,6 +172,7 @@ public class AnnotationJobTriggerPlugin implements SchedulerPlugin {
         .withIdentity(jobName + "-Trigger")
         .forJob(jobName)
         .withPriority(Trigger.DEFAULT_PRIORITY)
+        .withFireTimeSpread(simpleTrigger.fireTimeSpread())
         .build();
   }
 
@@ -10,15 +10,31 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.quartz.classloading.CascadingClassLoadHelper;
+import org.quartz.core.AcquisitionMetrics;
+import org.quartz.core.BatchJobStore;
+import org.quartz.core.Clock;
+import org.quartz.core.DispatchDelayMetrics;
+import org.quartz.core.ExtendedScheduler;
+import org.quartz.core.FireLatenessMetrics;
 import org.quartz.core.Calendar;
 import org.quartz.core.JobExecutionContext;
+import org.quartz.core.JobStore;
 import org.quartz.core.QuartzSchedulerResources;
 import org.quartz.core.QuartzSchedulerThread;
-import org.quartz.core.Scheduler;
+import org.quartz.core.RateLimiter;
 import org.quartz.core.SchedulerSignaler;
 import org.quartz.core.SchedulerSignalerImpl;
+import org.quartz.core.ShutdownAwareJobStore;
 import org.quartz.exceptions.JobExecutionException;
 import org.quartz.exceptions.JobPersistenceException;
 import org.quartz.exceptions.ObjectAlreadyExistsException;
@@ -29,6 +45,7 @@ import org.quartz.jobs.JobDataMap;
 import org.quartz.jobs.JobDetail;
 import org.quartz.jobs.JobFactory;
 import org.quartz.jobs.SimpleJobFactory;
+import org.quartz.listeners.BatchSchedulerListener;
 import org.quartz.listeners.JobListener;
 import org.quartz.listeners.ListenerManager;
 import org.quartz.listeners.ListenerManagerImpl;
@@ -36,6 +53,7 @@ import org.quartz.listeners.SchedulerListener;
 import org.quartz.listeners.SchedulerListenerSupport;
 import org.quartz.listeners.TriggerListener;
 import org.quartz.plugins.SchedulerPlugin;
+import org.quartz.triggers.AbstractTrigger;
 import org.quartz.triggers.OperableTrigger;
 import org.quartz.triggers.Trigger;
 import org.quartz.triggers.Trigger.CompletedExecutionInstruction;
@@ -50,16 +68,19 @@ import org.slf4j.LoggerFactory;
  *
  * @author James House
  */
-public class QuartzScheduler implements Scheduler {
+public class QuartzScheduler implements ExtendedScheduler {
 
   /*
    * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~ Data members.
    * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
    */
 
+  /** the least number of triggers per thread when preparing a batch in parallel */
+  private static final int PREPARE_BATCH_SIZE = 2048;
+
   private final QuartzSchedulerResources quartzSchedulerResources;
 
-  private final QuartzSchedulerThread quartzSchedulerThread;
+  private final QuartzSchedulerThread[] quartzSchedulerThreads;
 
   private ThreadGroup threadGroup;
 
@@ -80,6 +101,9 @@ public class QuartzScheduler implements Scheduler {
 
   private ErrorLoggingScheduleListener errLogger = null;
 
+  /** the threads preparing large batches of triggers, created on first use */
+  private ThreadPoolExecutor triggerPreparer = null;
+
   private final SchedulerSignaler signaler;
 
   private final Random random = new Random();
@@ -114,21 +138,28 @@ public class QuartzScheduler implements Scheduler {
       addInternalJobListener((JobListener) quartzSchedulerResources.getJobStore());
     }
 
-    this.quartzSchedulerThread = new QuartzSchedulerThread(this, quartzSchedulerResources);
+    int threadCount = quartzSchedulerResources.getSchedulerThreadCount();
+    this.quartzSchedulerThreads = new QuartzSchedulerThread[threadCount];
+    for (int i = 0; i < threadCount; i++) {
+      quartzSchedulerThreads[i] =
+          new QuartzSchedulerThread(this, quartzSchedulerResources, i, threadCount);
+    }
 
     jobMgr = new ExecutingJobsManager();
     addInternalJobListener(jobMgr);
     errLogger = new ErrorLoggingScheduleListener();
     addInternalSchedulerListener(errLogger);
 
-    signaler = new SchedulerSignalerImpl(this, this.quartzSchedulerThread);
+    signaler = new SchedulerSignalerImpl(this, this.quartzSchedulerThreads);
 
     cascadingClassLoadHelper.initialize();
   }
 
   public void initialize() throws SchedulerException {
 
-    this.quartzSchedulerThread.start();
+    for (QuartzSchedulerThread quartzSchedulerThread : quartzSchedulerThreads) {
+      quartzSchedulerThread.start();
+    }
   }
 
   /*
@@ -186,12 +217,14 @@ public class QuartzScheduler implements Scheduler {
     }
 
     if (initialStart == null) {
-      initialStart = new Date();
+      initialStart = Clock.getClock().now();
       quartzSchedulerResources.getJobStore().schedulerStarted();
       startPlugins();
     }
 
-    this.quartzSchedulerThread.togglePause(false);
+    for (QuartzSchedulerThread quartzSchedulerThread : quartzSchedulerThreads) {
+      quartzSchedulerThread.togglePause(false);
+    }
 
     logger.info("Scheduler started.");
 
@@ -231,16 +264,23 @@ public class QuartzScheduler implements Scheduler {
   @Override
   public void standby() {
 
-    this.quartzSchedulerThread.togglePause(true);
+    for (QuartzSchedulerThread quartzSchedulerThread : quartzSchedulerThreads) {
+      quartzSchedulerThread.togglePause(true);
+    }
     logger.info("Scheduler paused.");
     notifySchedulerListenersInStandbyMode();
   }
 
-  /** Reports whether the <code>Scheduler</code> is paused. */
+  /** Reports whether the <code>Scheduler</code> is paused, that is, whether all its threads are. */
   @Override
   public boolean isInStandbyMode() {
 
-    return this.quartzSchedulerThread.isPaused();
+    for (QuartzSchedulerThread quartzSchedulerThread : quartzSchedulerThreads) {
+      if (!quartzSchedulerThread.isPaused()) {
+        return false;
+      }
+    }
+    return true;
   }
 
   public Class getJobStoreClass() {
@@ -285,7 +325,9 @@ public class QuartzScheduler implements Scheduler {
 
     standby();
 
-    this.quartzSchedulerThread.halt();
+    for (QuartzSchedulerThread quartzSchedulerThread : quartzSchedulerThreads) {
+      quartzSchedulerThread.halt();
+    }
 
     notifySchedulerListenersShuttingdown();
 
@@ -307,13 +349,22 @@ public class QuartzScheduler implements Scheduler {
 
     logger.info("Threadpool shutting down...");
     quartzSchedulerResources.getThreadPool().shutdown();
+    shutdownTriggerPreparer();
 
     // Scheduler thread may have be waiting for the fire time of an acquired
-    // trigger and need time to release the trigger once halted, so make sure
-    // the thread is dead before continuing to shutdown the job store.
-    try {
-      this.quartzSchedulerThread.join();
-    } catch (InterruptedException ignore) {
+    // trigger and need time to release the trigger once halted, and it vetoes
+    // the jobs its preparation threads left, so make sure the thread is dead
+    // before continuing to shutdown the job store.
+    for (QuartzSchedulerThread quartzSchedulerThread : quartzSchedulerThreads) {
+      try {
+        quartzSchedulerThread.join();
+      } catch (InterruptedException ignore) {
+      }
+    }
+
+    JobStore jobStore = quartzSchedulerResources.getJobStore();
+    if (jobStore instanceof ShutdownAwareJobStore) {
+      ((ShutdownAwareJobStore) jobStore).shutdown();
     }
 
     closed = true;
@@ -414,21 +465,7 @@ public class QuartzScheduler implements Scheduler {
       throw new SchedulerException("Trigger does not reference given job!");
     }
 
-    trig.validate();
-
-    Calendar cal = null;
-    if (trigger.getCalendarName() != null) {
-      cal = quartzSchedulerResources.getJobStore().retrieveCalendar(trigger.getCalendarName());
-      if (cal == null) {
-        throw new SchedulerException("Calendar not found: " + trigger.getCalendarName());
-      }
-    }
-    Date ft = trig.computeFirstFireTime(cal);
-
-    if (ft == null) {
-      throw new SchedulerException(
-          "Based on configured schedule, the given trigger will never fire.");
-    }
+    Date ft = prepareTrigger(trig);
 
     quartzSchedulerResources.getJobStore().storeJobAndTrigger(jobDetail, trig);
     notifySchedulerListenersJobAdded(jobDetail);
@@ -456,13 +493,209 @@ public class QuartzScheduler implements Scheduler {
 
     OperableTrigger trig = trigger;
 
+    Date ft = prepareTrigger(trig);
+
+    quartzSchedulerResources.getJobStore().storeTrigger(trig, false);
+    notifySchedulerThread(trigger.getNextFireTime().getTime());
+    notifySchedulerListenersScheduled(trigger);
+
+    return ft;
+  }
+
+  @Override
+  public void scheduleJobs(Map<JobDetail, List<OperableTrigger>> triggersAndJobs, boolean replace)
+      throws SchedulerException {
+
+    validateState();
+
+    if (triggersAndJobs == null) {
+      throw new SchedulerException("Jobs and triggers cannot be null");
+    }
+
+    List<JobDetail> jobDetails = new ArrayList<JobDetail>(triggersAndJobs.size());
+    List<OperableTrigger> triggers = new ArrayList<OperableTrigger>();
+    for (Map.Entry<JobDetail, List<OperableTrigger>> entry : triggersAndJobs.entrySet()) {
+      JobDetail jobDetail = entry.getKey();
+      if (jobDetail == null) {
+        throw new SchedulerException("JobDetail cannot be null");
+      }
+      if (jobDetail.getName() == null) {
+        throw new SchedulerException("Job's key cannot be null");
+      }
+      if (jobDetail.getJobClass() == null) {
+        throw new SchedulerException("Job's class cannot be null");
+      }
+      if (entry.getValue() == null) {
+        throw new SchedulerException("Trigger list of job " + jobDetail.getName() + " is null");
+      }
+      for (OperableTrigger trigger : entry.getValue()) {
+        if (trigger == null) {
+          throw new SchedulerException("Trigger cannot be null");
+        }
+        if (trigger.getJobName() == null) {
+          trigger.setJobName(jobDetail.getName());
+        } else if (!trigger.getJobName().equals(jobDetail.getName())) {
+          throw new SchedulerException(
+              "Trigger " + trigger.getName() + " does not reference job " + jobDetail.getName());
+        }
+        triggers.add(trigger);
+      }
+      jobDetails.add(jobDetail);
+    }
+
+    prepareTriggers(triggers);
+
+    JobStore jobStore = quartzSchedulerResources.getJobStore();
+    if (jobStore instanceof BatchJobStore) {
+      ((BatchJobStore) jobStore).storeJobsAndTriggers(triggersAndJobs, replace);
+    } else {
+      for (Map.Entry<JobDetail, List<OperableTrigger>> entry : triggersAndJobs.entrySet()) {
+        jobStore.storeJob(entry.getKey(), replace);
+        for (OperableTrigger trigger : entry.getValue()) {
+          jobStore.storeTrigger(trigger, replace);
+        }
+      }
+    }
+
+    long earliestFireTime = Long.MAX_VALUE;
+    for (OperableTrigger trigger : triggers) {
+      earliestFireTime = Math.min(earliestFireTime, trigger.getNextFireTime().getTime());
+    }
+    if (!triggers.isEmpty()) {
+      notifySchedulerThread(earliestFireTime);
+    }
+    notifySchedulerListenersJobsScheduled(jobDetails, new ArrayList<Trigger>(triggers));
+  }
+
+  /**
+   * Validate the given triggers and compute their first fire times. Large batches are split among
+   * the calling thread and the scheduler's preparation threads, as computing the first fire time of
+   * a cron trigger is costly.
+   */
+  private void prepareTriggers(final List<OperableTrigger> triggers) throws SchedulerException {
+
+    int tasks =
+        Math.min(
+            Runtime.getRuntime().availableProcessors(),
+            (triggers.size() + PREPARE_BATCH_SIZE - 1) / PREPARE_BATCH_SIZE);
+    if (tasks <= 1) {
+      for (OperableTrigger trigger : triggers) {
+        prepareTrigger(trigger);
+      }
+      return;
+    }
+
+    ExecutorService executor = getTriggerPreparer();
+    List<Future<Void>> futures = new ArrayList<Future<Void>>(tasks - 1);
+    int chunkSize = (triggers.size() + tasks - 1) / tasks;
+    // the calling thread takes the first chunk
+    for (int from = chunkSize; from < triggers.size(); from += chunkSize) {
+      final List<OperableTrigger> chunk =
+          triggers.subList(from, Math.min(from + chunkSize, triggers.size()));
+      futures.add(
+          executor.submit(
+              new Callable<Void>() {
+
+                @Override
+                public Void call() throws SchedulerException {
+
+                  for (OperableTrigger trigger : chunk) {
+                    prepareTrigger(trigger);
+                  }
+                  return null;
+                }
+              }));
+    }
+    SchedulerException failure = null;
+    try {
+      for (OperableTrigger trigger : triggers.subList(0, chunkSize)) {
+        prepareTrigger(trigger);
+      }
+    } catch (SchedulerException e) {
+      failure = e;
+    }
+    // wait for the other chunks in any case, so none is still running once this returns
+    for (Future<Void> future : futures) {
+      try {
+        future.get();
+      } catch (ExecutionException e) {
+        if (failure == null) {
+          failure =
+              (e.getCause() instanceof SchedulerException)
+                  ? (SchedulerException) e.getCause()
+                  : new SchedulerException("Could not prepare the triggers.", e.getCause());
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new SchedulerException("Interrupted while preparing the triggers.", e);
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /**
+   * Get the threads preparing large batches of triggers, one per processor at most. They end after
+   * a minute without work, so a scheduler that schedules batches rarely does not keep them.
+   */
+  private synchronized ExecutorService getTriggerPreparer() {
+
+    if (triggerPreparer == null) {
+      int threads = Runtime.getRuntime().availableProcessors();
+      final AtomicInteger threadNumber = new AtomicInteger();
+      triggerPreparer =
+          new ThreadPoolExecutor(
+              threads,
+              threads,
+              60L,
+              TimeUnit.SECONDS,
+              new LinkedBlockingQueue<Runnable>(),
+              new ThreadFactory() {
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+
+                  Thread thread =
+                      new Thread(
+                          getSchedulerThreadGroup(),
+                          runnable,
+                          quartzSchedulerResources.getThreadName()
+                              + "-TriggerPreparer-"
+                              + threadNumber.incrementAndGet());
+                  thread.setDaemon(quartzSchedulerResources.getMakeSchedulerThreadDaemon());
+                  return thread;
+                }
+              });
+      triggerPreparer.allowCoreThreadTimeOut(true);
+    }
+    return triggerPreparer;
+  }
+
+  private synchronized void shutdownTriggerPreparer() {
+
+    if (triggerPreparer != null) {
+      triggerPreparer.shutdown();
+    }
+  }
+
+  /**
+   * Validate a trigger and compute its first fire time.
+   *
+   * @return the first fire time
+   * @throws SchedulerException if the trigger is invalid, its calendar does not exist or it will
+   *     never fire.
+   */
+  private Date prepareTrigger(OperableTrigger trig) throws SchedulerException {
+
     trig.validate();
+    applyFireTimeSpread(trig);
 
     Calendar cal = null;
-    if (trigger.getCalendarName() != null) {
-      cal = quartzSchedulerResources.getJobStore().retrieveCalendar(trigger.getCalendarName());
+    if (trig.getCalendarName() != null) {
+      cal = quartzSchedulerResources.getJobStore().retrieveCalendar(trig.getCalendarName());
       if (cal == null) {
-        throw new SchedulerException("Calendar not found: " + trigger.getCalendarName());
+        throw new SchedulerException("Calendar not found: " + trig.getCalendarName());
       }
     }
     Date ft = trig.computeFirstFireTime(cal);
@@ -471,12 +704,15 @@ public class QuartzScheduler implements Scheduler {
       throw new SchedulerException(
           "Based on configured schedule, the given trigger will never fire.");
     }
+    return ft;
+  }
 
-    quartzSchedulerResources.getJobStore().storeTrigger(trig, false);
-    notifySchedulerThread(trigger.getNextFireTime().getTime());
-    notifySchedulerListenersScheduled(trigger);
+  /** Give a trigger without a fire time spread of its own the scheduler's. */
+  private void applyFireTimeSpread(OperableTrigger trig) {
 
-    return ft;
+    if (trig instanceof AbstractTrigger && ((AbstractTrigger) trig).getFireTimeSpread() < 0) {
+      ((AbstractTrigger) trig).setFireTimeSpread(quartzSchedulerResources.getFireTimeSpread());
+    }
   }
 
   /**
@@ -489,8 +725,8 @@ public class QuartzScheduler implements Scheduler {
 
     validateState();
 
+    // a job without triggers changes no fire time, so the scheduler thread is not signaled
     quartzSchedulerResources.getJobStore().storeJob(jobDetail, true);
-    notifySchedulerThread(0L);
     notifySchedulerListenersJobAdded(jobDetail);
   }
 
@@ -505,7 +741,6 @@ public class QuartzScheduler implements Scheduler {
     }
     boolean result = quartzSchedulerResources.getJobStore().removeJob(jobKey);
     if (result) {
-      notifySchedulerThread(0L);
       notifySchedulerListenersJobDeleted(jobKey);
     }
   }
@@ -515,8 +750,9 @@ public class QuartzScheduler implements Scheduler {
 
     validateState();
 
+    // removing a trigger brings no fire time forward, so the scheduler thread is not signaled; if
+    // it holds the trigger, the store declines to fire it
     if (quartzSchedulerResources.getJobStore().removeTrigger(triggerKey)) {
-      notifySchedulerThread(0L);
       notifySchedulerListenersUnscheduled(triggerKey);
     }
   }
@@ -542,6 +778,7 @@ public class QuartzScheduler implements Scheduler {
       trig.setJobName(oldTrigger.getJobName());
     }
     trig.validate();
+    applyFireTimeSpread(trig);
 
     Calendar cal = null;
     if (newTrigger.getCalendarName() != null) {
@@ -587,7 +824,7 @@ public class QuartzScheduler implements Scheduler {
         simpleTriggerBuilder()
             .withIdentity(jobKey + "-trigger")
             .forJob(jobKey)
-            .startAt(new Date())
+            .startAt(Clock.getClock().now())
             .build();
 
     //    OperableTrigger operableTrigger = TriggerBuilder.newTriggerBuilder().withIdentity(jobKey +
@@ -936,6 +1173,35 @@ public class QuartzScheduler implements Scheduler {
     }
   }
 
+  private void notifySchedulerListenersJobsScheduled(
+      List<JobDetail> jobDetails, List<Trigger> triggers) {
+
+    // build a list of all scheduler listeners that are to be notified...
+    List<SchedulerListener> schedListeners = buildSchedulerListenerList();
+
+    // notify all scheduler listeners, once for the batch if they can be
+    for (SchedulerListener sl : schedListeners) {
+      try {
+        if (sl instanceof BatchSchedulerListener) {
+          ((BatchSchedulerListener) sl).jobsScheduled(jobDetails, triggers);
+        } else {
+          for (JobDetail jobDetail : jobDetails) {
+            sl.jobAdded(jobDetail);
+          }
+          for (Trigger trigger : triggers) {
+            sl.jobScheduled(trigger);
+          }
+        }
+      } catch (Exception e) {
+        logger.error(
+            "Error while notifying SchedulerListener of "
+                + triggers.size()
+                + " scheduled triggers.",
+            e);
+      }
+    }
+  }
+
   private void notifySchedulerListenersUnscheduled(String triggerKey) {
 
     // build a list of all scheduler listeners that are to be notified...
@@ -1107,6 +1373,30 @@ public class QuartzScheduler implements Scheduler {
     return this.cascadingClassLoadHelper;
   }
 
+  @Override
+  public AcquisitionMetrics getAcquisitionMetrics() {
+
+    return quartzSchedulerResources.getAcquisitionMetrics();
+  }
+
+  @Override
+  public FireLatenessMetrics getFireLatenessMetrics() {
+
+    return quartzSchedulerResources.getFireLatenessMetrics();
+  }
+
+  @Override
+  public RateLimiter getRateLimiter() {
+
+    return quartzSchedulerResources.getRateLimiter();
+  }
+
+  @Override
+  public DispatchDelayMetrics getDispatchDelayMetrics() {
+
+    return quartzSchedulerResources.getDispatchDelayMetrics();
+  }
+
   /** Get the names of all the <code>{@link org.quartz.jobs.Job}s</code> in the matching groups. */
   @Override
   public Set<String> getJobKeys() throws SchedulerException {
@@ -1130,6 +1420,12 @@ class ErrorLoggingScheduleListener extends SchedulerListenerSupport {
   /** Constructor */
   ErrorLoggingScheduleListener() {}
 
+  @Override
+  public void jobsScheduled(List<JobDetail> jobDetails, List<Trigger> triggers) {
+
+    // not interested
+  }
+
   @Override
   public void schedulerError(String msg, SchedulerException cause) {
 
@@ -137,6 +137,10 @@ public class CronTriggerBuilder extends TriggerBuilder {
     return (CronTriggerBuilder) super.withPriority(priority);
   }
 
+  public CronTriggerBuilder withFireTimeSpread(long fireTimeSpread) {
+    return (CronTriggerBuilder) super.withFireTimeSpread(fireTimeSpread);
+  }
+
   public CronTriggerBuilder modifiedByCalendar(String calendarName) {
     return (CronTriggerBuilder) super.modifiedByCalendar(calendarName);
   }
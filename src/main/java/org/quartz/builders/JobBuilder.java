@@ -1,6 +1,9 @@
 package org.quartz.builders;
 
 import java.util.UUID;
+import org.quartz.core.BulkheadThreadPool;
+import org.quartz.core.RateLimitPolicy;
+import org.quartz.core.RateLimiter;
 import org.quartz.jobs.Job;
 import org.quartz.jobs.JobDataMap;
 import org.quartz.jobs.JobDetail;
@@ -35,6 +38,10 @@ public class JobBuilder {
   private Class<? extends Job> jobClass = NoOpJob.class;
   private boolean durability = true;
   private boolean isConcurrencyAllowed = false;
+  private double rateLimit = 0;
+  private int rateLimitBurst = 1;
+  private RateLimitPolicy rateLimitPolicy = null;
+  private String bulkhead = null;
 
   private JobDataMap jobDataMap = new JobDataMap();
 
@@ -80,6 +87,23 @@ public class JobBuilder {
     job.setName(key);
     job.setIsConcurrencyAllowed(isConcurrencyAllowed);
 
+    if (rateLimit > 0) {
+      // a copy, so that a map passed to usingJobData is left as it is
+      jobDataMap = new JobDataMap(jobDataMap);
+      jobDataMap.put(RateLimiter.RATE_LIMIT_KEY, rateLimit);
+      jobDataMap.put(RateLimiter.RATE_LIMIT_BURST_KEY, rateLimitBurst);
+      if (rateLimitPolicy != null) {
+        jobDataMap.put(RateLimiter.RATE_LIMIT_POLICY_KEY, rateLimitPolicy.name());
+      }
+    }
+
+    if (bulkhead != null) {
+      if (rateLimit <= 0) {
+        jobDataMap = new JobDataMap(jobDataMap);
+      }
+      jobDataMap.put(BulkheadThreadPool.BULKHEAD_KEY, bulkhead);
+    }
+
     if (!jobDataMap.isEmpty()) {
       job.setJobDataMap(jobDataMap);
     }
@@ -142,6 +166,61 @@ public class JobBuilder {
     return this;
   }
 
+  /**
+   * Limit how often the Job may start, on top of any limit of the scheduler. Starts beyond the
+   * limit are deferred or dropped as the scheduler's policy says.
+   *
+   * @param permitsPerSecond the starts per second
+   * @param burst the starts in a row permitted after a quiet spell, at least 1
+   * @return the updated JobBuilder
+   * @see RateLimiter
+   */
+  public JobBuilder withRateLimit(double permitsPerSecond, int burst) {
+
+    if (!(permitsPerSecond > 0)) {
+      throw new IllegalArgumentException("Rate limit must be positive.");
+    }
+    if (burst < 1) {
+      throw new IllegalArgumentException("Rate limit burst must be at least 1.");
+    }
+    this.rateLimit = permitsPerSecond;
+    this.rateLimitBurst = burst;
+    return this;
+  }
+
+  /**
+   * Limit how often the Job may start, on top of any limit of the scheduler.
+   *
+   * @param permitsPerSecond the starts per second
+   * @param burst the starts in a row permitted after a quiet spell, at least 1
+   * @param policy whether starts beyond a limit are deferred or dropped
+   * @return the updated JobBuilder
+   * @see RateLimiter
+   */
+  public JobBuilder withRateLimit(double permitsPerSecond, int burst, RateLimitPolicy policy) {
+
+    withRateLimit(permitsPerSecond, burst);
+    this.rateLimitPolicy = policy;
+    return this;
+  }
+
+  /**
+   * Run the Job in the given bulkhead of a <code>BulkheadThreadPool</code>, apart from the jobs of
+   * the other bulkheads.
+   *
+   * @param bulkhead the name of the bulkhead
+   * @return the updated JobBuilder
+   * @see BulkheadThreadPool
+   */
+  public JobBuilder withBulkhead(String bulkhead) {
+
+    if (bulkhead == null || bulkhead.trim().length() == 0) {
+      throw new IllegalArgumentException("Bulkhead name cannot be empty.");
+    }
+    this.bulkhead = bulkhead;
+    return this;
+  }
+
   /**
    * Set the JobDetail's {@link JobDataMap}
    *
@@ -179,6 +179,10 @@ public class SimpleTriggerBuilder extends TriggerBuilder {
     return (SimpleTriggerBuilder) super.withPriority(priority);
   }
 
+  public SimpleTriggerBuilder withFireTimeSpread(long fireTimeSpread) {
+    return (SimpleTriggerBuilder) super.withFireTimeSpread(fireTimeSpread);
+  }
+
   public SimpleTriggerBuilder modifiedByCalendar(String calendarName) {
     return (SimpleTriggerBuilder) super.modifiedByCalendar(calendarName);
   }
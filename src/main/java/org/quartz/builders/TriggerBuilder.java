@@ -3,7 +3,9 @@ package org.quartz.builders;
 import java.util.Date;
 import java.util.UUID;
 import org.quartz.core.Calendar;
+import org.quartz.core.Clock;
 import org.quartz.jobs.JobDataMap;
+import org.quartz.triggers.AbstractTrigger;
 import org.quartz.triggers.OperableTrigger;
 import org.quartz.triggers.Trigger;
 
@@ -30,9 +32,10 @@ public abstract class TriggerBuilder {
 
   private String name;
   private String description;
-  private Date startTime = new Date();
+  private Date startTime = Clock.getClock().now();
   private Date endTime;
   private int priority = Trigger.DEFAULT_PRIORITY;
+  private long fireTimeSpread = -1L;
   private String calendarName;
   private String jobName;
   private JobDataMap jobDataMap = new JobDataMap();
@@ -69,6 +72,9 @@ public abstract class TriggerBuilder {
       operableTrigger.setJobName(jobName);
     }
     operableTrigger.setPriority(priority);
+    if (operableTrigger instanceof AbstractTrigger) {
+      ((AbstractTrigger) operableTrigger).setFireTimeSpread(fireTimeSpread);
+    }
     operableTrigger.setStartTime(startTime);
 
     if (!jobDataMap.isEmpty()) {
@@ -118,6 +124,21 @@ public abstract class TriggerBuilder {
     return this;
   }
 
+  /**
+   * Spread the Trigger's fire times over a window: it fires late by a stable offset within the
+   * window, derived from its name, so that many Triggers with the same schedule do not all fire in
+   * the same moment.
+   *
+   * @param fireTimeSpread the window in milliseconds, 0 for no spread, -1 for the scheduler's
+   *     setting
+   * @return the updated TriggerBuilder
+   */
+  public TriggerBuilder withFireTimeSpread(long fireTimeSpread) {
+
+    this.fireTimeSpread = fireTimeSpread;
+    return this;
+  }
+
   /**
    * Set the name of the {@link Calendar} that should be applied to this Trigger's schedule.
    *
@@ -138,7 +159,7 @@ public abstract class TriggerBuilder {
    */
   public TriggerBuilder startNow() {
 
-    this.startTime = new Date();
+    this.startTime = Clock.getClock().now();
     return this;
   }
 
@@ -0,0 +1,105 @@
+package org.quartz.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the trigger acquisitions of the <code>{@link QuartzSchedulerThread}</code>s of a
+ * scheduler, and the batch sizes they actually used. With adaptive batching it also shows the
+ * batch size limit and time window the threads currently work with.
+ */
+public class AcquisitionMetrics {
+
+  private final AtomicLong acquisitions = new AtomicLong();
+
+  private final AtomicLong acquiredTriggers = new AtomicLong();
+
+  private final AtomicInteger largestBatchSize = new AtomicInteger();
+
+  private volatile int lastBatchSize;
+
+  private volatile int batchSizeLimit;
+
+  private volatile long batchTimeWindow;
+
+  /**
+   * Record one acquisition.
+   *
+   * @param acquired the number of triggers acquired
+   * @param maxCount the largest number of triggers that could have been acquired
+   * @param timeWindow the time window the triggers were acquired with
+   */
+  void recordAcquisition(int acquired, int maxCount, long timeWindow) {
+
+    acquisitions.incrementAndGet();
+    acquiredTriggers.addAndGet(acquired);
+    lastBatchSize = acquired;
+    batchSizeLimit = maxCount;
+    batchTimeWindow = timeWindow;
+    int largest = largestBatchSize.get();
+    while (acquired > largest && !largestBatchSize.compareAndSet(largest, acquired)) {
+      largest = largestBatchSize.get();
+    }
+  }
+
+  /** @return the number of acquisitions, including those that found no trigger */
+  public long getAcquisitionCount() {
+
+    return acquisitions.get();
+  }
+
+  /** @return the number of triggers acquired in all */
+  public long getAcquiredTriggerCount() {
+
+    return acquiredTriggers.get();
+  }
+
+  /** @return the average number of triggers per acquisition */
+  public double getAverageBatchSize() {
+
+    long count = acquisitions.get();
+    return (count == 0) ? 0 : (double) acquiredTriggers.get() / count;
+  }
+
+  /** @return the number of triggers of the last acquisition */
+  public int getLastBatchSize() {
+
+    return lastBatchSize;
+  }
+
+  /** @return the most triggers acquired at once */
+  public int getLargestBatchSize() {
+
+    return largestBatchSize.get();
+  }
+
+  /** @return the largest batch the last acquisition asked for */
+  public int getBatchSizeLimit() {
+
+    return batchSizeLimit;
+  }
+
+  /** @return the time window of the last acquisition, in milliseconds */
+  public long getBatchTimeWindow() {
+
+    return batchTimeWindow;
+  }
+
+  @Override
+  public String toString() {
+
+    return "AcquisitionMetrics [acquisitions="
+        + getAcquisitionCount()
+        + ", acquiredTriggers="
+        + getAcquiredTriggerCount()
+        + ", averageBatchSize="
+        + getAverageBatchSize()
+        + ", largestBatchSize="
+        + getLargestBatchSize()
+        + ", batchSizeLimit="
+        + getBatchSizeLimit()
+        + ", batchTimeWindow="
+        + getBatchTimeWindow()
+        + "]";
+  }
+}
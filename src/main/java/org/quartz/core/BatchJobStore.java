@@ -0,0 +1,30 @@
+package org.quartz.core;
+
+import java.util.List;
+import java.util.Map;
+import org.quartz.exceptions.JobPersistenceException;
+import org.quartz.exceptions.ObjectAlreadyExistsException;
+import org.quartz.jobs.JobDetail;
+import org.quartz.triggers.OperableTrigger;
+
+/**
+ * A <code>{@link JobStore}</code> that stores a batch of jobs and triggers at once, for <code>
+ * scheduleJobs</code>. The scheduler stores the batch one job and trigger at a time in any other
+ * store.
+ */
+public interface BatchJobStore extends JobStore {
+
+  /**
+   * Store the given jobs and their triggers, taking the store's lock once rather than once per
+   * trigger. If <code>replace</code> is <code>false</code> and any of the jobs or triggers exists,
+   * nothing is stored.
+   *
+   * @param triggersAndJobs the jobs to store, each with the (possibly empty) list of its triggers
+   * @param replace If <code>true</code>, existing jobs and triggers with the same names are
+   *     over-written.
+   * @throws ObjectAlreadyExistsException if a job or trigger exists and replace is <code>false
+   *     </code>.
+   */
+  void storeJobsAndTriggers(Map<JobDetail, List<OperableTrigger>> triggersAndJobs, boolean replace)
+      throws ObjectAlreadyExistsException, JobPersistenceException;
+}
@@ -0,0 +1,355 @@
+package org.quartz.core;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.quartz.exceptions.SchedulerConfigException;
+import org.quartz.jobs.JobDataMap;
+import org.quartz.jobs.JobDetail;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A <code>{@link ThreadPool}</code> divided into named bulkheads, so that the jobs of one cannot
+ * take the threads of another. Each bulkhead has threads reserved for it alone, and may borrow
+ * from the shared threads up to its maximum; a job runs in the bulkhead named in its <code>
+ * JobDataMap</code> under {@link #BULKHEAD_KEY}, or in the {@link #DEFAULT_BULKHEAD}.
+ *
+ * <p>A job whose bulkhead is full waits in a queue of that bulkhead, rather than blocking the
+ * thread handing it over, so that a bulkhead flooded with jobs does not hold up the jobs of the
+ * others. <code>blockForAvailableThreads</code> counts only the places jobs can start in.
+ */
+public class BulkheadThreadPool implements ThreadPool {
+
+  /** The <code>JobDataMap</code> key of the name of a job's bulkhead. */
+  public static final String BULKHEAD_KEY = "sundial.bulkhead";
+
+  /** The bulkhead of jobs that name none, or one the pool does not have. */
+  public static final String DEFAULT_BULKHEAD = "default";
+
+  private final int sharedThreads;
+
+  /** guarded by lock; fixed once initialized */
+  private final Map<String, Bulkhead> bulkheads = new LinkedHashMap<String, Bulkhead>();
+
+  /** guarded by lock */
+  private int sharedInUse = 0;
+
+  private final Object lock = new Object();
+
+  private final SynchronousQueue<Start> handoff = new SynchronousQueue<Start>();
+
+  private final AtomicLong threadNumber = new AtomicLong();
+
+  private String threadNamePrefix = "Quartz_Scheduler_Worker";
+
+  private boolean initialized = false;
+
+  private volatile boolean isShutdown = false;
+
+  private final Logger log = LoggerFactory.getLogger(getClass());
+
+  /**
+   * Create a pool with the given shared threads, and a default bulkhead that may use all of them.
+   *
+   * @param sharedThreads the threads any bulkhead may borrow
+   */
+  public BulkheadThreadPool(int sharedThreads) {
+
+    this.sharedThreads = sharedThreads;
+    bulkheads.put(DEFAULT_BULKHEAD, new Bulkhead(0, sharedThreads));
+  }
+
+  /**
+   * Add a bulkhead, or change the default one; before initialization.
+   *
+   * @param name the name jobs select it by
+   * @param reservedThreads the threads only its jobs may use
+   * @param maxThreads the most of its jobs running at once, reserved and borrowed threads
+   *     together, at most the reserved and the shared threads
+   */
+  public void addBulkhead(String name, int reservedThreads, int maxThreads) {
+
+    if (name == null || name.trim().length() == 0) {
+      throw new IllegalArgumentException("Bulkhead name cannot be empty.");
+    }
+    if (reservedThreads < 0 || maxThreads < Math.max(1, reservedThreads)) {
+      throw new IllegalArgumentException(
+          "Bulkhead threads must be 0 <= reserved <= max, and max > 0.");
+    }
+    if (maxThreads > reservedThreads + sharedThreads) {
+      throw new IllegalArgumentException(
+          "Bulkhead max cannot exceed its reserved threads plus the shared threads.");
+    }
+    synchronized (lock) {
+      if (initialized) {
+        throw new IllegalStateException("Bulkheads cannot be added once initialized.");
+      }
+      bulkheads.put(name, new Bulkhead(reservedThreads, maxThreads));
+    }
+  }
+
+  /** Set the prefix of the thread names; has no effect after initialization. */
+  public void setThreadNamePrefix(String threadNamePrefix) {
+
+    this.threadNamePrefix = threadNamePrefix;
+  }
+
+  /** @return the number of threads, the shared ones and those reserved for the bulkheads */
+  @Override
+  public int getPoolSize() {
+
+    synchronized (lock) {
+      int size = sharedThreads;
+      for (Bulkhead bulkhead : bulkheads.values()) {
+        size += bulkhead.reserved;
+      }
+      return size;
+    }
+  }
+
+  /** @return the number of jobs of the given bulkhead running */
+  public int getRunningCount(String bulkheadName) {
+
+    synchronized (lock) {
+      Bulkhead bulkhead = bulkheads.get(bulkheadName);
+      return bulkhead == null ? 0 : bulkhead.running;
+    }
+  }
+
+  /** @return the number of jobs of the given bulkhead waiting for it to have room */
+  public int getWaitingCount(String bulkheadName) {
+
+    synchronized (lock) {
+      Bulkhead bulkhead = bulkheads.get(bulkheadName);
+      return bulkhead == null ? 0 : bulkhead.waiting.size();
+    }
+  }
+
+  @Override
+  public void initialize() throws SchedulerConfigException {
+
+    int size = getPoolSize();
+    if (size <= 0) {
+      throw new SchedulerConfigException("Thread count must be > 0");
+    }
+    synchronized (lock) {
+      if (initialized) {
+        return;
+      }
+      for (Map.Entry<String, Bulkhead> entry : bulkheads.entrySet()) {
+        if (entry.getValue().max < 1) {
+          throw new SchedulerConfigException("Bulkhead " + entry.getKey() + " has no threads");
+        }
+      }
+      initialized = true;
+    }
+    for (int i = 0; i < size; i++) {
+      new Thread(threadNamePrefix + "-" + threadNumber.incrementAndGet()) {
+
+        @Override
+        public void run() {
+
+          workLoop();
+        }
+      }.start();
+    }
+  }
+
+  /**
+   * Hand the given job to an idle thread if its bulkhead has room, or else queue it in the
+   * bulkhead, to run as soon as the bulkhead has room; never blocks for long.
+   */
+  @Override
+  public boolean runInThread(JobRunShell runnable) {
+
+    if (runnable == null) {
+      return false;
+    }
+    Start start;
+    synchronized (lock) {
+      Bulkhead bulkhead = getBulkhead(runnable.getJobDetail());
+      if (isShutdown) {
+        new Thread(runnable, "WorkerThread-LastJob").start();
+        return true;
+      }
+      if (!canStart(bulkhead)) {
+        bulkhead.waiting.addLast(runnable);
+        return true;
+      }
+      start = take(bulkhead, runnable);
+    }
+    while (true) {
+      try {
+        // with the room taken, a thread is idle or on its way back to the queue
+        if (handoff.offer(start, 500L, TimeUnit.MILLISECONDS)) {
+          return true;
+        }
+      } catch (InterruptedException ignore) {
+      }
+      if (isShutdown) {
+        new Thread(start, "WorkerThread-LastJob").start();
+        return true;
+      }
+    }
+  }
+
+  /** Block until a job of some bulkhead can start. @return the number that can start at once */
+  @Override
+  public int blockForAvailableThreads() {
+
+    synchronized (lock) {
+      while (getStartableCount() < 1 && !isShutdown) {
+        try {
+          lock.wait(500L);
+        } catch (InterruptedException ignore) {
+        }
+      }
+      return getStartableCount();
+    }
+  }
+
+  /** Let the threads end once idle. Jobs in progress, and those waiting, will complete. */
+  @Override
+  public void shutdown() {
+
+    isShutdown = true;
+  }
+
+  private Bulkhead getBulkhead(JobDetail jobDetail) {
+
+    JobDataMap jobDataMap = jobDetail == null ? null : jobDetail.getJobDataMap();
+    Object name = jobDataMap == null ? null : jobDataMap.get(BULKHEAD_KEY);
+    Bulkhead bulkhead = name == null ? null : bulkheads.get(name.toString());
+    if (bulkhead == null && name != null) {
+      log.warn("No bulkhead " + name + " for job " + jobDetail.getName() + "; using the default.");
+    }
+    return bulkhead == null ? bulkheads.get(DEFAULT_BULKHEAD) : bulkhead;
+  }
+
+  /** guarded by lock */
+  private boolean canStart(Bulkhead bulkhead) {
+
+    return bulkhead.running < bulkhead.reserved
+        || (bulkhead.running < bulkhead.max && sharedInUse < sharedThreads);
+  }
+
+  /** guarded by lock */
+  private int getStartableCount() {
+
+    int startable = 0;
+    for (Bulkhead bulkhead : bulkheads.values()) {
+      startable += Math.max(0, bulkhead.reserved - bulkhead.running);
+    }
+    return startable + sharedThreads - sharedInUse;
+  }
+
+  /** Take room in the bulkhead for the job; guarded by lock. */
+  private Start take(Bulkhead bulkhead, JobRunShell runnable) {
+
+    if (bulkhead.running >= bulkhead.reserved) {
+      sharedInUse++;
+    }
+    bulkhead.running++;
+    return new Start(bulkhead, runnable);
+  }
+
+  /**
+   * Give back the room of a job that ended, and take it for a waiting job, of the same bulkhead
+   * first; guarded by lock.
+   *
+   * @return the waiting job to run next, or null
+   */
+  private Start releaseAndTakeNext(Bulkhead ended) {
+
+    ended.running--;
+    if (ended.running >= ended.reserved) {
+      sharedInUse--;
+    }
+    lock.notifyAll();
+    if (!ended.waiting.isEmpty() && canStart(ended)) {
+      return take(ended, ended.waiting.removeFirst());
+    }
+    for (Bulkhead bulkhead : bulkheads.values()) {
+      if (!bulkhead.waiting.isEmpty() && canStart(bulkhead)) {
+        return take(bulkhead, bulkhead.waiting.removeFirst());
+      }
+    }
+    return null;
+  }
+
+  private void workLoop() {
+
+    while (true) {
+      Start start;
+      try {
+        start = handoff.poll(500L, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException ignore) {
+        continue;
+      }
+      if (start == null) {
+        if (isShutdown) {
+          log.debug("WorkerThread is shut down.");
+          return;
+        }
+        continue;
+      }
+      start.run();
+    }
+  }
+
+  /**
+   * A job with the room taken for it in its bulkhead. Running it also runs the waiting jobs the
+   * room passes on to as it ends.
+   */
+  private final class Start implements Runnable {
+
+    private final Bulkhead bulkhead;
+
+    private final JobRunShell runnable;
+
+    Start(Bulkhead bulkhead, JobRunShell runnable) {
+
+      this.bulkhead = bulkhead;
+      this.runnable = runnable;
+    }
+
+    @Override
+    public void run() {
+
+      Start start = this;
+      while (start != null) {
+        try {
+          start.runnable.run();
+        } catch (Throwable exceptionInRunnable) {
+          log.error("Error while executing the Runnable: ", exceptionInRunnable);
+        } finally {
+          synchronized (lock) {
+            start = releaseAndTakeNext(start.bulkhead);
+          }
+        }
+      }
+    }
+  }
+
+  /** The room of a bulkhead, and the jobs waiting for it. Guarded by lock. */
+  private static final class Bulkhead {
+
+    private final int reserved;
+
+    private final int max;
+
+    private int running = 0;
+
+    private final LinkedList<JobRunShell> waiting = new LinkedList<JobRunShell>();
+
+    Bulkhead(int reserved, int max) {
+
+      this.reserved = reserved;
+      this.max = max;
+    }
+  }
+}
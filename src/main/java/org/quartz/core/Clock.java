@@ -0,0 +1,73 @@
+package org.quartz.core;
+
+import java.util.Date;
+
+/**
+ * The source of the current time for the scheduler, its job stores and its triggers, and of the
+ * waits of the <code>{@link QuartzSchedulerThread}</code>s for fire times. The default is the
+ * system clock; a <code>{@link VirtualClock}</code> instead lets a schedule run in simulated time,
+ * as fast as the jobs allow.
+ *
+ * <p>The clock is one for the whole process, since triggers compute their fire times on their own,
+ * without a scheduler at hand. Set it before any trigger or scheduler is created.
+ */
+public abstract class Clock {
+
+  /** The system clock, <code>System.currentTimeMillis()</code>. */
+  public static final Clock SYSTEM_CLOCK =
+      new Clock() {
+
+        @Override
+        public long currentTimeMillis() {
+
+          return System.currentTimeMillis();
+        }
+
+        @Override
+        public void waitUntil(Object monitor, long time) throws InterruptedException {
+
+          long waitTime = time - System.currentTimeMillis();
+          if (waitTime > 0) {
+            monitor.wait(waitTime);
+          }
+        }
+      };
+
+  private static volatile Clock clock = SYSTEM_CLOCK;
+
+  /** Get the clock in use. */
+  public static Clock getClock() {
+
+    return clock;
+  }
+
+  /**
+   * Set the clock to use, or <code>SYSTEM_CLOCK</code> to go back to the system clock.
+   *
+   * @param clock
+   */
+  public static void setClock(Clock clock) {
+
+    if (clock == null) {
+      throw new IllegalArgumentException("Clock cannot be null.");
+    }
+    Clock.clock = clock;
+  }
+
+  /** @return the current time in milliseconds */
+  public abstract long currentTimeMillis();
+
+  /** @return the current time */
+  public Date now() {
+
+    return new Date(currentTimeMillis());
+  }
+
+  /**
+   * Wait on the given monitor, which the caller holds, until it is notified or the clock has
+   * reached the given time. May return early, so callers check the time again.
+   *
+   * @param time the time in milliseconds
+   */
+  public abstract void waitUntil(Object monitor, long time) throws InterruptedException;
+}
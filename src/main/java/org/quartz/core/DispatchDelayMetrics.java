@@ -0,0 +1,79 @@
+package org.quartz.core;
+
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Records, per trigger priority, how long the jobs of fired triggers waited in the dispatch queue
+ * of pipelined dispatch before a preparation thread handed them to the thread pool, in
+ * microseconds. Each priority has a histogram of its own, kept like the lateness of fires in a
+ * <code>{@link FireLatenessMetrics}</code>, so that the delay of urgent work can be told apart
+ * from the delay of the rest when the thread pool is saturated.
+ */
+public class DispatchDelayMetrics {
+
+  private final ConcurrentMap<Integer, FireLatenessMetrics> histograms =
+      new ConcurrentHashMap<Integer, FireLatenessMetrics>();
+
+  /**
+   * Record the delay of one job.
+   *
+   * @param priority the priority of the job's trigger
+   * @param delayNanos how long the job waited in the queue, in nanoseconds
+   */
+  void recordDelay(int priority, long delayNanos) {
+
+    FireLatenessMetrics histogram = histograms.get(priority);
+    if (histogram == null) {
+      histogram = new FireLatenessMetrics();
+      FireLatenessMetrics existing = histograms.putIfAbsent(priority, histogram);
+      if (existing != null) {
+        histogram = existing;
+      }
+    }
+    histogram.recordLateness(delayNanos);
+  }
+
+  /** @return the priorities of the jobs recorded, in ascending order */
+  public SortedSet<Integer> getPriorities() {
+
+    return new TreeSet<Integer>(histograms.keySet());
+  }
+
+  /**
+   * Get the histogram of the delays of the jobs of the given priority, in which the fire count is
+   * the number of jobs and the lateness is their delay.
+   *
+   * @return the histogram, empty if no job of the priority was recorded
+   */
+  public FireLatenessMetrics getDelayMetrics(int priority) {
+
+    FireLatenessMetrics histogram = histograms.get(priority);
+    return histogram == null ? new FireLatenessMetrics() : histogram;
+  }
+
+  @Override
+  public String toString() {
+
+    StringBuilder sb = new StringBuilder("DispatchDelayMetrics [");
+    for (int priority : getPriorities()) {
+      FireLatenessMetrics histogram = histograms.get(priority);
+      if (sb.charAt(sb.length() - 1) != '[') {
+        sb.append(", ");
+      }
+      sb.append("priority ")
+          .append(priority)
+          .append(": jobs=")
+          .append(histogram.getFireCount())
+          .append(", p50Micros=")
+          .append(histogram.getLatenessPercentileMicros(0.5))
+          .append(", p99Micros=")
+          .append(histogram.getLatenessPercentileMicros(0.99))
+          .append(", maxMicros=")
+          .append(histogram.getMaxLatenessMicros());
+    }
+    return sb.append("]").toString();
+  }
+}
@@ -0,0 +1,492 @@
+package org.quartz.core;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.quartz.exceptions.SchedulerConfigException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A <code>{@link ThreadPool}</code> that sizes itself between a minimum and a maximum number of
+ * threads. It starts with the minimum, and starts another thread whenever a job has waited the
+ * growth delay without a thread freeing up for it; a thread idle for the keep-alive time retires,
+ * down to the minimum. Up to the maximum number of jobs run at once, and jobs are handed to the
+ * threads as in the <code>{@link HandoffThreadPool}</code>.
+ *
+ * <p>With auto-tuning, the pool also measures how many jobs arrive per second and how long they
+ * run, and every tuning interval sets a target size by Little's law: the mean number of jobs
+ * running is their arrival rate times their mean service time. The target, with some headroom, is
+ * started ahead of demand and kept from retiring. The recent decisions are kept for inspection.
+ */
+public class ElasticThreadPool implements ThreadPool {
+
+  /** the target size over the mean number of jobs running, so jobs rarely wait at the mean load */
+  private static final double HEADROOM = 1.25;
+
+  private static final int MAX_DECISIONS = 100;
+
+  private final int minThreads;
+
+  private final int maxThreads;
+
+  private long keepAlive = 60000L;
+
+  private long growthDelay = 10L;
+
+  private boolean autoTuning = false;
+
+  private long tuningInterval = 1000L;
+
+  private String threadNamePrefix = "Quartz_Scheduler_Worker";
+
+  /** the free places for running jobs, of the maximum */
+  private final Semaphore permits;
+
+  private final SynchronousQueue<JobRunShell> handoff = new SynchronousQueue<JobRunShell>();
+
+  private final AtomicInteger size = new AtomicInteger();
+
+  private final AtomicInteger largestSize = new AtomicInteger();
+
+  private final AtomicLong threadNumber = new AtomicLong();
+
+  private final AtomicLong grownCount = new AtomicLong();
+
+  private final AtomicLong retiredCount = new AtomicLong();
+
+  private volatile int targetSize;
+
+  /** the jobs arrived, completed, and their run time, since the last tuning */
+  private final AtomicLong arrivals = new AtomicLong();
+
+  private final AtomicLong completions = new AtomicLong();
+
+  private final AtomicLong serviceNanos = new AtomicLong();
+
+  /** guarded by decisions */
+  private long tunedAt;
+
+  /** guarded by decisions */
+  private double meanServiceMillis = 0;
+
+  private final LinkedList<TuningDecision> decisions = new LinkedList<TuningDecision>();
+
+  private volatile boolean isShutdown = false;
+
+  private final Logger log = LoggerFactory.getLogger(getClass());
+
+  /**
+   * @param minThreads the threads kept even when idle
+   * @param maxThreads the most threads, and jobs running at once
+   */
+  public ElasticThreadPool(int minThreads, int maxThreads) {
+
+    this.minThreads = minThreads;
+    this.maxThreads = maxThreads;
+    this.permits = new Semaphore(Math.max(0, maxThreads));
+    this.targetSize = minThreads;
+  }
+
+  /** Set how long, in milliseconds, a thread may be idle before it retires; 60 s by default. */
+  public void setKeepAlive(long keepAliveMillis) {
+
+    if (keepAliveMillis < 0) {
+      throw new IllegalArgumentException("Keep alive cannot be negative.");
+    }
+    this.keepAlive = keepAliveMillis;
+  }
+
+  /**
+   * Set how long, in milliseconds, a job waits for a thread to free up before the pool starts
+   * another; 10 ms by default.
+   */
+  public void setGrowthDelay(long growthDelayMillis) {
+
+    if (growthDelayMillis < 0) {
+      throw new IllegalArgumentException("Growth delay cannot be negative.");
+    }
+    this.growthDelay = growthDelayMillis;
+  }
+
+  /**
+   * Size the pool by the measured arrival rate and service time of the jobs, every tuning interval.
+   * Call before <code>initialize</code>.
+   *
+   * @param tuningIntervalMillis the interval, in milliseconds, over which they are measured
+   */
+  public void setAutoTuning(long tuningIntervalMillis) {
+
+    if (tuningIntervalMillis < 1) {
+      throw new IllegalArgumentException("Tuning interval must be positive.");
+    }
+    this.autoTuning = true;
+    this.tuningInterval = tuningIntervalMillis;
+  }
+
+  /** Set the prefix of the thread names. */
+  public void setThreadNamePrefix(String threadNamePrefix) {
+
+    this.threadNamePrefix = threadNamePrefix;
+  }
+
+  /** @return the current number of threads */
+  @Override
+  public int getPoolSize() {
+
+    return size.get();
+  }
+
+  public int getMinThreads() {
+
+    return minThreads;
+  }
+
+  public int getMaxThreads() {
+
+    return maxThreads;
+  }
+
+  /** @return the largest number of threads the pool had at once */
+  public int getLargestPoolSize() {
+
+    return largestSize.get();
+  }
+
+  /** @return the size auto-tuning last aimed for, or the minimum without it */
+  public int getTargetSize() {
+
+    return targetSize;
+  }
+
+  /** @return the number of threads started beyond the minimum */
+  public long getGrownCount() {
+
+    return grownCount.get();
+  }
+
+  /** @return the number of threads retired for idleness */
+  public long getRetiredCount() {
+
+    return retiredCount.get();
+  }
+
+  /** @return the recent decisions of auto-tuning, oldest first */
+  public List<TuningDecision> getTuningDecisions() {
+
+    synchronized (decisions) {
+      return new ArrayList<TuningDecision>(decisions);
+    }
+  }
+
+  @Override
+  public void initialize() throws SchedulerConfigException {
+
+    if (minThreads < 0 || maxThreads <= 0 || minThreads > maxThreads) {
+      throw new SchedulerConfigException("Thread counts must be 0 <= min <= max and max > 0");
+    }
+    synchronized (decisions) {
+      if (tunedAt != 0) {
+        return;
+      }
+      tunedAt = System.nanoTime();
+    }
+    for (int i = 0; i < minThreads; i++) {
+      size.incrementAndGet();
+      startWorker(null);
+    }
+    largestSize.set(minThreads);
+  }
+
+  /**
+   * Hand the given job to an idle thread, or to a new one if none frees up within the growth delay,
+   * blocking while the maximum of jobs are running. If the pool shuts down meanwhile, the job runs
+   * in a new thread of its own.
+   */
+  @Override
+  public boolean runInThread(JobRunShell runnable) {
+
+    if (runnable == null) {
+      return false;
+    }
+    arrivals.incrementAndGet();
+    if (autoTuning) {
+      maybeTune();
+    }
+    if (!acquirePermit()) {
+      runInLastJobThread(runnable);
+      return true;
+    }
+    if (handoff.offer(runnable)) {
+      return true;
+    }
+    if (growthDelay > 0) {
+      try {
+        if (handoff.offer(runnable, growthDelay, TimeUnit.MILLISECONDS)) {
+          return true;
+        }
+      } catch (InterruptedException ignore) {
+      }
+    }
+    while (!tryGrow(runnable)) {
+      // at the maximum, with the permit, a thread is on its way back to the queue
+      try {
+        if (handoff.offer(runnable, 500L, TimeUnit.MILLISECONDS)) {
+          return true;
+        }
+      } catch (InterruptedException ignore) {
+      }
+      if (isShutdown) {
+        permits.release();
+        runInLastJobThread(runnable);
+        return true;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int blockForAvailableThreads() {
+
+    if (acquirePermit()) {
+      permits.release();
+    }
+    return permits.availablePermits();
+  }
+
+  /** Let the threads end once idle. Jobs currently in progress will complete. */
+  @Override
+  public void shutdown() {
+
+    isShutdown = true;
+  }
+
+  /** @return true once a permit is taken, false if the pool shut down first */
+  private boolean acquirePermit() {
+
+    while (!isShutdown) {
+      try {
+        // the timeout only bounds how late a shutdown is noticed
+        if (permits.tryAcquire(500L, TimeUnit.MILLISECONDS)) {
+          return true;
+        }
+      } catch (InterruptedException ignore) {
+      }
+    }
+    return false;
+  }
+
+  /** Start a thread for the given job, or an idle one for null, unless at the maximum. */
+  private boolean tryGrow(JobRunShell firstJob) {
+
+    while (true) {
+      int current = size.get();
+      if (current >= maxThreads || isShutdown) {
+        return false;
+      }
+      if (size.compareAndSet(current, current + 1)) {
+        grownCount.incrementAndGet();
+        int largest = largestSize.get();
+        while (current + 1 > largest && !largestSize.compareAndSet(largest, current + 1)) {
+          largest = largestSize.get();
+        }
+        startWorker(firstJob);
+        return true;
+      }
+    }
+  }
+
+  /** Take a thread off the count if there are more than the floor. @return whether it retires */
+  private boolean tryRetire() {
+
+    int floor = autoTuning ? Math.max(minThreads, targetSize) : minThreads;
+    while (true) {
+      int current = size.get();
+      if (current <= floor) {
+        return false;
+      }
+      if (size.compareAndSet(current, current - 1)) {
+        retiredCount.incrementAndGet();
+        return true;
+      }
+    }
+  }
+
+  private void startWorker(final JobRunShell firstJob) {
+
+    Thread worker =
+        new Thread(threadNamePrefix + "-" + threadNumber.incrementAndGet()) {
+
+          @Override
+          public void run() {
+
+            workLoop(firstJob);
+          }
+        };
+    worker.start();
+  }
+
+  private void workLoop(JobRunShell firstJob) {
+
+    JobRunShell runnable = firstJob;
+    long idleSince = System.nanoTime();
+    while (true) {
+      if (runnable != null) {
+        long start = System.nanoTime();
+        try {
+          runnable.run();
+        } catch (Throwable exceptionInRunnable) {
+          log.error("Error while executing the Runnable: ", exceptionInRunnable);
+        } finally {
+          idleSince = System.nanoTime();
+          serviceNanos.addAndGet(idleSince - start);
+          completions.incrementAndGet();
+          permits.release();
+        }
+      }
+      try {
+        // a short poll, to notice a shutdown and measure idleness
+        runnable = handoff.poll(Math.min(500L, Math.max(1L, keepAlive)), TimeUnit.MILLISECONDS);
+      } catch (InterruptedException ignore) {
+        runnable = null;
+        continue;
+      }
+      if (runnable == null) {
+        if (isShutdown) {
+          size.decrementAndGet();
+          return;
+        }
+        if (autoTuning) {
+          maybeTune();
+        }
+        if (System.nanoTime() - idleSince >= keepAlive * 1000000L && tryRetire()) {
+          return;
+        }
+      }
+    }
+  }
+
+  private void runInLastJobThread(JobRunShell runnable) {
+
+    new Thread(runnable, "WorkerThread-LastJob").start();
+  }
+
+  /** Set the target size, if a tuning interval has passed since the last time. */
+  private void maybeTune() {
+
+    long now = System.nanoTime();
+    int target;
+    synchronized (decisions) {
+      if (now - tunedAt < tuningInterval * 1000000L) {
+        return;
+      }
+      double seconds = (now - tunedAt) / 1e9;
+      tunedAt = now;
+      double arrivalRate = arrivals.getAndSet(0) / seconds;
+      long completed = completions.getAndSet(0);
+      long busyNanos = serviceNanos.getAndSet(0);
+      // without completions, such as while long jobs run, the last service time still holds
+      if (completed > 0) {
+        meanServiceMillis = busyNanos / 1e6 / completed;
+      }
+      // Little's law: the mean number of jobs running is their arrival rate times their run time
+      double meanRunning = arrivalRate * meanServiceMillis / 1000;
+      target =
+          (int) Math.max(minThreads, Math.min(maxThreads, Math.ceil(meanRunning * HEADROOM)));
+      decisions.addLast(
+          new TuningDecision(
+              System.currentTimeMillis(), arrivalRate, meanServiceMillis, size.get(), target));
+      if (decisions.size() > MAX_DECISIONS) {
+        decisions.removeFirst();
+      }
+      if (target != targetSize) {
+        log.debug(
+            "Tuned the target size from "
+                + targetSize
+                + " to "
+                + target
+                + " threads, for "
+                + arrivalRate
+                + " jobs/s of "
+                + meanServiceMillis
+                + " ms");
+      }
+      targetSize = target;
+    }
+    // start the threads of the target ahead of demand
+    while (size.get() < target && tryGrow(null)) {}
+  }
+
+  /** A decision of auto-tuning: the load it measured, and the size it aimed for. */
+  public static final class TuningDecision {
+
+    private final long time;
+
+    private final double arrivalRate;
+
+    private final double meanServiceMillis;
+
+    private final int poolSize;
+
+    private final int targetSize;
+
+    TuningDecision(
+        long time, double arrivalRate, double meanServiceMillis, int poolSize, int targetSize) {
+
+      this.time = time;
+      this.arrivalRate = arrivalRate;
+      this.meanServiceMillis = meanServiceMillis;
+      this.poolSize = poolSize;
+      this.targetSize = targetSize;
+    }
+
+    /** @return when the decision was made, in milliseconds since the epoch */
+    public long getTime() {
+
+      return time;
+    }
+
+    /** @return the jobs that arrived per second over the tuning interval */
+    public double getArrivalRate() {
+
+      return arrivalRate;
+    }
+
+    /** @return the mean time the jobs ran, in milliseconds */
+    public double getMeanServiceMillis() {
+
+      return meanServiceMillis;
+    }
+
+    /** @return the number of threads when the decision was made */
+    public int getPoolSize() {
+
+      return poolSize;
+    }
+
+    /** @return the size aimed for */
+    public int getTargetSize() {
+
+      return targetSize;
+    }
+
+    @Override
+    public String toString() {
+
+      return "TuningDecision [arrivalRate="
+          + arrivalRate
+          + ", meanServiceMillis="
+          + meanServiceMillis
+          + ", poolSize="
+          + poolSize
+          + ", targetSize="
+          + targetSize
+          + "]";
+    }
+  }
+}
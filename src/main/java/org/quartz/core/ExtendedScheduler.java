@@ -0,0 +1,45 @@
+package org.quartz.core;
+
+import java.util.List;
+import java.util.Map;
+import org.quartz.exceptions.SchedulerException;
+import org.quartz.jobs.JobDetail;
+import org.quartz.triggers.OperableTrigger;
+
+/**
+ * A <code>{@link Scheduler}</code> that also schedules jobs in batches, and reports the metrics and
+ * limits of its firing. The schedulers the <code>{@link SchedulerFactory}</code> creates are ones.
+ */
+public interface ExtendedScheduler extends Scheduler {
+
+  /**
+   * Add the given jobs to the Scheduler, each with its list of triggers, in one batch: the triggers
+   * are validated and their first fire times computed in parallel, a <code>{@link BatchJobStore}
+   * </code> stores everything at once, and the scheduler thread and the <code>SchedulerListener
+   * </code>s are notified once. This is much faster than calling <code>scheduleJob</code> for many
+   * triggers.
+   *
+   * <p>Triggers that do not reference any <code>Job</code> are set to reference the one they are
+   * listed with.
+   *
+   * @param replace If <code>true</code>, existing jobs and triggers with the same names are
+   *     replaced; otherwise nothing is stored if any of them exists, unless the <code>JobStore
+   *     </code> is not a <code>BatchJobStore</code> and stores them one at a time.
+   * @throws SchedulerException if any Job or Trigger cannot be added to the Scheduler, or there is
+   *     an internal Scheduler error.
+   */
+  void scheduleJobs(Map<JobDetail, List<OperableTrigger>> triggersAndJobs, boolean replace)
+      throws SchedulerException;
+
+  /** Get the counts of trigger acquisitions and the batch sizes they used. */
+  AcquisitionMetrics getAcquisitionMetrics();
+
+  /** Get the lateness with which triggers were fired. */
+  FireLatenessMetrics getFireLatenessMetrics();
+
+  /** Get the limits on how often jobs may start, and the counts of starts deferred and dropped. */
+  RateLimiter getRateLimiter();
+
+  /** Get the delays of jobs between the firing of their triggers and dispatch, per priority. */
+  DispatchDelayMetrics getDispatchDelayMetrics();
+}
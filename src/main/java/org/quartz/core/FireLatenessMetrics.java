@@ -0,0 +1,129 @@
+package org.quartz.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records how late the <code>{@link QuartzSchedulerThread}</code>s of a scheduler fire triggers,
+ * measured from each trigger's scheduled fire time to the moment the thread hands it on to be
+ * fired, in microseconds. The lateness is kept in a histogram with buckets of about 3% of their
+ * value, from which percentiles are read. A trigger fired early counts as not late at all.
+ *
+ * <p>Outside of precision mode the lateness is measured on the wall clock, so it is a whole number
+ * of milliseconds.
+ */
+public class FireLatenessMetrics {
+
+  /** values below this many microseconds get a bucket each, above it 32 buckets per power of 2 */
+  private static final int LINEAR_BUCKETS = 64;
+
+  private static final int SUB_BUCKETS = 32;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(LINEAR_BUCKETS + 58 * SUB_BUCKETS);
+
+  private final AtomicLong count = new AtomicLong();
+
+  private final AtomicLong totalMicros = new AtomicLong();
+
+  private final AtomicLong maxMicros = new AtomicLong();
+
+  /**
+   * Record the lateness of one fire.
+   *
+   * @param latenessNanos how late the trigger fired, in nanoseconds
+   */
+  void recordLateness(long latenessNanos) {
+
+    long micros = Math.max(0L, latenessNanos / 1000L);
+    buckets.incrementAndGet(bucketOf(micros));
+    count.incrementAndGet();
+    totalMicros.addAndGet(micros);
+    long max = maxMicros.get();
+    while (micros > max && !maxMicros.compareAndSet(max, micros)) {
+      max = maxMicros.get();
+    }
+  }
+
+  private static int bucketOf(long micros) {
+
+    if (micros < LINEAR_BUCKETS) {
+      return (int) micros;
+    }
+    int shift = (63 - Long.numberOfLeadingZeros(micros)) - 5;
+    return LINEAR_BUCKETS + (shift - 1) * SUB_BUCKETS + (int) (micros >> shift) - SUB_BUCKETS;
+  }
+
+  /** @return the largest value that falls into the given bucket */
+  private static long upperBoundOf(int bucket) {
+
+    if (bucket < LINEAR_BUCKETS) {
+      return bucket;
+    }
+    int shift = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + 1;
+    long sub = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+    return ((sub + 1) << shift) - 1;
+  }
+
+  /** @return the number of fires recorded */
+  public long getFireCount() {
+
+    return count.get();
+  }
+
+  /** @return the average lateness, in microseconds */
+  public double getAverageLatenessMicros() {
+
+    long fires = count.get();
+    return (fires == 0) ? 0 : (double) totalMicros.get() / fires;
+  }
+
+  /** @return the largest lateness, in microseconds */
+  public long getMaxLatenessMicros() {
+
+    return maxMicros.get();
+  }
+
+  /**
+   * Get the lateness that the given fraction of all fires stayed within, to about 3%.
+   *
+   * @param percentile the fraction of fires, e.g. <code>0.99</code>
+   * @return the lateness, in microseconds, or 0 if nothing has been recorded
+   */
+  public long getLatenessPercentileMicros(double percentile) {
+
+    if (percentile < 0 || percentile > 1) {
+      throw new IllegalArgumentException("Percentile must be between 0 and 1.");
+    }
+    long fires = count.get();
+    if (fires == 0) {
+      return 0;
+    }
+    long rank = Math.max(1L, (long) Math.ceil(percentile * fires));
+    long seen = 0;
+    for (int i = 0; i < buckets.length(); i++) {
+      seen += buckets.get(i);
+      if (seen >= rank) {
+        return Math.min(upperBoundOf(i), maxMicros.get());
+      }
+    }
+    return maxMicros.get();
+  }
+
+  @Override
+  public String toString() {
+
+    return "FireLatenessMetrics [fires="
+        + getFireCount()
+        + ", averageMicros="
+        + getAverageLatenessMicros()
+        + ", p50Micros="
+        + getLatenessPercentileMicros(0.5)
+        + ", p99Micros="
+        + getLatenessPercentileMicros(0.99)
+        + ", p999Micros="
+        + getLatenessPercentileMicros(0.999)
+        + ", maxMicros="
+        + getMaxLatenessMicros()
+        + "]";
+  }
+}
@@ -0,0 +1,109 @@
+package org.quartz.core;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import org.quartz.builders.CronTriggerBuilder;
+import org.quartz.triggers.Trigger;
+
+/**
+ * Reports the peak number of triggers that fire at once, to see how far a fire time spread
+ * flattens the herds of triggers firing in the same moment. Fires count as at once when they fall
+ * within a window of each other, such as the time their jobs take to run.
+ *
+ * <p>Run with <code>main</code> to compare a number of triggers with the same cron expression,
+ * without and with a spread; arguments are optional: [triggers] [cron expression] [spread
+ * milliseconds] [window milliseconds] [hours].
+ */
+public class FireTimeSpreadReport {
+
+  private FireTimeSpreadReport() {}
+
+  /**
+   * Get the largest number of fires of the given triggers, between the given times, that fall
+   * within a window of each other.
+   *
+   * @param window the milliseconds within which fires count as at once, at least 1
+   */
+  public static int getPeakConcurrentFires(
+      Collection<? extends Trigger> triggers, Date from, Date to, long window) {
+
+    if (window < 1) {
+      throw new IllegalArgumentException("Window must be at least 1 ms.");
+    }
+    long[] fireTimes = getFireTimes(triggers, from, to);
+    Arrays.sort(fireTimes);
+    int peak = 0;
+    int first = 0;
+    for (int last = 0; last < fireTimes.length; last++) {
+      while (fireTimes[last] - fireTimes[first] >= window) {
+        first++;
+      }
+      peak = Math.max(peak, last - first + 1);
+    }
+    return peak;
+  }
+
+  private static long[] getFireTimes(Collection<? extends Trigger> triggers, Date from, Date to) {
+
+    List<Long> fireTimes = new ArrayList<Long>();
+    for (Trigger trigger : triggers) {
+      Date fireTime = trigger.getFireTimeAfter(new Date(from.getTime() - 1));
+      while (fireTime != null && fireTime.before(to)) {
+        fireTimes.add(fireTime.getTime());
+        fireTime = trigger.getFireTimeAfter(fireTime);
+      }
+    }
+    long[] times = new long[fireTimes.size()];
+    for (int i = 0; i < times.length; i++) {
+      times[i] = fireTimes.get(i);
+    }
+    return times;
+  }
+
+  public static void main(String[] args) throws ParseException {
+
+    int triggerCount = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+    String cronExpression = args.length > 1 ? args[1] : "0 * * * * ?";
+    long spread = args.length > 2 ? Long.parseLong(args[2]) : 20000L;
+    long window = args.length > 3 ? Long.parseLong(args[3]) : 1000L;
+    int hours = args.length > 4 ? Integer.parseInt(args[4]) : 1;
+
+    Date from = Clock.getClock().now();
+    Date to = new Date(from.getTime() + hours * 3600000L);
+    List<Trigger> unspread = new ArrayList<Trigger>();
+    List<Trigger> spreadOut = new ArrayList<Trigger>();
+    for (int i = 0; i < triggerCount; i++) {
+      unspread.add(
+          CronTriggerBuilder.cronTriggerBuilder(cronExpression)
+              .withIdentity("trigger-" + i)
+              .startAt(from)
+              .build());
+      spreadOut.add(
+          CronTriggerBuilder.cronTriggerBuilder(cronExpression)
+              .withIdentity("trigger-" + i)
+              .startAt(from)
+              .withFireTimeSpread(spread)
+              .build());
+    }
+
+    System.out.println(
+        triggerCount
+            + " triggers on '"
+            + cronExpression
+            + "' over "
+            + hours
+            + " h, peak fires within "
+            + window
+            + " ms of each other: "
+            + getPeakConcurrentFires(unspread, from, to, window)
+            + " without spread, "
+            + getPeakConcurrentFires(spreadOut, from, to, window)
+            + " with a "
+            + spread
+            + " ms spread");
+  }
+}
@@ -0,0 +1,161 @@
+package org.quartz.core;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reaches <code>java.util.concurrent.ForkJoinPool</code>, which needs Java 7, by reflection, so
+ * that the rest of the scheduler still builds and runs on Java 6.
+ */
+final class ForkJoinPools {
+
+  private static final Class<?> POOL = load("java.util.concurrent.ForkJoinPool");
+
+  private static final Class<?> THREAD_FACTORY =
+      load("java.util.concurrent.ForkJoinPool$ForkJoinWorkerThreadFactory");
+
+  private static final Class<?> MANAGED_BLOCKER =
+      load("java.util.concurrent.ForkJoinPool$ManagedBlocker");
+
+  private ForkJoinPools() {}
+
+  /** @return whether this Java has a ForkJoinPool */
+  static boolean isAvailable() {
+
+    return POOL != null && THREAD_FACTORY != null && MANAGED_BLOCKER != null;
+  }
+
+  /**
+   * Create a pool of the given parallelism, whose worker threads are named with the prefix and a
+   * number, and run the tasks forked on them last in, first out.
+   */
+  static ExecutorService newPool(int parallelism, final String threadNamePrefix) {
+
+    try {
+      final Object defaultFactory = POOL.getField("defaultForkJoinWorkerThreadFactory").get(null);
+      final Method newThread = THREAD_FACTORY.getMethod("newThread", POOL);
+      final AtomicLong threadNumber = new AtomicLong();
+      Object factory =
+          newProxy(
+              THREAD_FACTORY,
+              new InvocationHandler() {
+
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+                  if (!method.getName().equals("newThread")) {
+                    return invokeObjectMethod(proxy, method, args);
+                  }
+                  Thread thread = (Thread) call(newThread, defaultFactory, args);
+                  if (thread != null) {
+                    thread.setName(threadNamePrefix + "-" + threadNumber.incrementAndGet());
+                  }
+                  return thread;
+                }
+              });
+      return (ExecutorService)
+          POOL.getConstructor(
+                  int.class, THREAD_FACTORY, Thread.UncaughtExceptionHandler.class, boolean.class)
+              .newInstance(parallelism, factory, null, false);
+    } catch (InvocationTargetException e) {
+      throw unchecked(e.getCause());
+    } catch (Exception e) {
+      throw new IllegalStateException("Could not create a ForkJoinPool.", e);
+    }
+  }
+
+  /** @return the number of tasks the workers of the pool took from the queues of others */
+  static long getStealCount(ExecutorService pool) {
+
+    try {
+      return (Long) POOL.getMethod("getStealCount").invoke(pool);
+    } catch (Exception e) {
+      throw new IllegalStateException("Could not read the steal count of a ForkJoinPool.", e);
+    }
+  }
+
+  /** Run the blocker through <code>ForkJoinPool.managedBlock</code>. */
+  static void managedBlock(final ForkJoinThreadPool.Blocker blocker) throws InterruptedException {
+
+    Object managedBlocker =
+        newProxy(
+            MANAGED_BLOCKER,
+            new InvocationHandler() {
+
+              @Override
+              public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+                if (method.getName().equals("block")) {
+                  return blocker.block();
+                }
+                if (method.getName().equals("isReleasable")) {
+                  return blocker.isReleasable();
+                }
+                return invokeObjectMethod(proxy, method, args);
+              }
+            });
+    Method managedBlock;
+    try {
+      managedBlock = POOL.getMethod("managedBlock", MANAGED_BLOCKER);
+    } catch (NoSuchMethodException e) {
+      throw new IllegalStateException("Could not find ForkJoinPool.managedBlock.", e);
+    }
+    try {
+      call(managedBlock, null, managedBlocker);
+    } catch (InterruptedException e) {
+      throw e;
+    } catch (Throwable t) {
+      throw unchecked(t);
+    }
+  }
+
+  private static Object call(Method method, Object target, Object... args) throws Throwable {
+
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+
+  private static Object newProxy(Class<?> type, InvocationHandler handler) {
+
+    return Proxy.newProxyInstance(
+        ForkJoinPools.class.getClassLoader(), new Class<?>[] {type}, handler);
+  }
+
+  private static Object invokeObjectMethod(Object proxy, Method method, Object[] args) {
+
+    if (method.getName().equals("equals")) {
+      return proxy == args[0];
+    }
+    if (method.getName().equals("hashCode")) {
+      return System.identityHashCode(proxy);
+    }
+    return proxy.getClass().getName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+  }
+
+  private static RuntimeException unchecked(Throwable t) {
+
+    if (t instanceof RuntimeException) {
+      return (RuntimeException) t;
+    }
+    if (t instanceof Error) {
+      throw (Error) t;
+    }
+    return new IllegalStateException(t);
+  }
+
+  private static Class<?> load(String className) {
+
+    try {
+      return Class.forName(className);
+    } catch (ClassNotFoundException e) {
+      return null;
+    }
+  }
+}
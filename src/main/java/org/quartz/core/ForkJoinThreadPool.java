@@ -0,0 +1,190 @@
+package org.quartz.core;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.quartz.exceptions.SchedulerConfigException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A <code>{@link ThreadPool}</code> that runs jobs on the work-stealing workers of a <code>
+ * java.util.concurrent.ForkJoinPool</code>, for CPU-bound jobs that split their work. A job can
+ * fork tasks in <code>doRun</code>, or hand callables to {@link #getExecutorService()}, and they
+ * run on the same workers: a worker with nothing to do steals the queued tasks of the busy ones, so
+ * a job needs no executor of its own, and the workers stay busy as long as any job has work left.
+ *
+ * <p>As many jobs run at once as the pool's parallelism. A job that blocks, on I/O or a lock,
+ * should do so through {@link #managedBlock(Blocker)}, so that the pool makes up for the blocked
+ * worker with another, rather than losing parallelism; <code>Thread.sleep</code> or <code>
+ * Object.wait</code> would hold the worker for the whole time.
+ *
+ * <p>Needs Java 7 or later.
+ */
+public class ForkJoinThreadPool implements ThreadPool {
+
+  /**
+   * A blocking action, as <code>ForkJoinPool.ManagedBlocker</code>, that code built for Java 6 can
+   * implement.
+   */
+  public interface Blocker {
+
+    /**
+     * Block, for example until a lock is taken or a queue has an element.
+     *
+     * @return true if no more blocking is needed
+     */
+    boolean block() throws InterruptedException;
+
+    /** @return true if blocking is not needed */
+    boolean isReleasable();
+  }
+
+  private final int parallelism;
+
+  private final Semaphore permits;
+
+  private String threadNamePrefix = "Quartz_Scheduler_Worker";
+
+  private volatile ExecutorService pool = null;
+
+  private volatile boolean isShutdown = false;
+
+  private final Logger log = LoggerFactory.getLogger(getClass());
+
+  /** @param parallelism the number of workers, and of jobs that may run at once */
+  public ForkJoinThreadPool(int parallelism) {
+
+    this.parallelism = parallelism;
+    this.permits = new Semaphore(Math.max(0, parallelism));
+  }
+
+  /**
+   * Run the blocker so that, on a worker of a fork/join pool, the pool can add a worker while this
+   * one blocks; elsewhere, just run it.
+   */
+  public static void managedBlock(Blocker blocker) throws InterruptedException {
+
+    if (ForkJoinPools.isAvailable()) {
+      ForkJoinPools.managedBlock(blocker);
+    } else {
+      while (!blocker.isReleasable() && !blocker.block()) {}
+    }
+  }
+
+  /** @return the number of workers, and of jobs that may run at once */
+  @Override
+  public int getPoolSize() {
+
+    return parallelism;
+  }
+
+  /** Set the prefix of the worker thread names; has no effect after initialization. */
+  public void setThreadNamePrefix(String threadNamePrefix) {
+
+    this.threadNamePrefix = threadNamePrefix;
+  }
+
+  /**
+   * @return the <code>ForkJoinPool</code> the jobs run in, for them to run work on in parallel, or
+   *     null before initialization
+   */
+  public ExecutorService getExecutorService() {
+
+    return pool;
+  }
+
+  /** @return an estimate of the number of tasks the workers stole from one another */
+  public long getStealCount() {
+
+    ExecutorService pool = this.pool;
+    return pool == null ? 0L : ForkJoinPools.getStealCount(pool);
+  }
+
+  @Override
+  public synchronized void initialize() throws SchedulerConfigException {
+
+    if (pool != null) {
+      return;
+    }
+    if (parallelism <= 0) {
+      throw new SchedulerConfigException("Parallelism must be > 0");
+    }
+    if (!ForkJoinPools.isAvailable()) {
+      throw new SchedulerConfigException("ForkJoinThreadPool needs Java 7 or later");
+    }
+    pool = ForkJoinPools.newPool(parallelism, threadNamePrefix);
+  }
+
+  /**
+   * Run the given job on a worker once fewer jobs than the parallelism are running, blocking until
+   * then. If the pool shuts down meanwhile, the job runs on a thread of its own.
+   */
+  @Override
+  public boolean runInThread(final JobRunShell runnable) {
+
+    if (runnable == null) {
+      return false;
+    }
+    if (acquirePermit()) {
+      try {
+        pool.execute(
+            new Runnable() {
+
+              @Override
+              public void run() {
+
+                try {
+                  runnable.run();
+                } catch (Throwable exceptionInRunnable) {
+                  log.error("Error while executing the Runnable: ", exceptionInRunnable);
+                } finally {
+                  permits.release();
+                }
+              }
+            });
+        return true;
+      } catch (RejectedExecutionException e) {
+        // shut down since the permit was taken
+        permits.release();
+      }
+    }
+    new Thread(runnable, "WorkerThread-LastJob").start();
+    return true;
+  }
+
+  @Override
+  public int blockForAvailableThreads() {
+
+    if (acquirePermit()) {
+      permits.release();
+    }
+    return permits.availablePermits();
+  }
+
+  /** @return true once a permit is taken, false if the pool shut down first */
+  private boolean acquirePermit() {
+
+    while (!isShutdown) {
+      try {
+        // the timeout only bounds how late a shutdown is noticed
+        if (permits.tryAcquire(500L, TimeUnit.MILLISECONDS)) {
+          return true;
+        }
+      } catch (InterruptedException ignore) {
+      }
+    }
+    return false;
+  }
+
+  /** Take no more jobs. Jobs in progress, and the tasks they forked, will complete. */
+  @Override
+  public synchronized void shutdown() {
+
+    isShutdown = true;
+    if (pool != null) {
+      pool.shutdown();
+    }
+  }
+}
@@ -0,0 +1,205 @@
+package org.quartz.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import org.quartz.exceptions.SchedulerConfigException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A <code>{@link ThreadPool}</code> with a fixed number of threads that hands jobs to them without
+ * a monitor: a semaphore counts the idle threads, and the jobs pass through a lock-free synchronous
+ * queue, straight to an idle thread waiting on it. Unlike the <code>{@link SimpleThreadPool}
+ * </code>, <code>runInThread</code> and <code>blockForAvailableThreads</code> contend on no lock
+ * and wake as soon as a thread frees up, instead of polling.
+ */
+public class HandoffThreadPool implements ThreadPool {
+
+  private final int count;
+
+  private final Semaphore idleThreads;
+
+  private final SynchronousQueue<JobRunShell> handoff = new SynchronousQueue<JobRunShell>();
+
+  private final List<Thread> workers = new ArrayList<Thread>();
+
+  private int prio = Thread.NORM_PRIORITY;
+
+  private boolean makeThreadsDaemons = false;
+
+  private String threadNamePrefix = "Quartz_Scheduler_Worker";
+
+  private volatile boolean isShutdown = false;
+
+  private final Logger log = LoggerFactory.getLogger(getClass());
+
+  /** @param count the number of worker threads */
+  public HandoffThreadPool(int count) {
+
+    this.count = count;
+    this.idleThreads = new Semaphore(Math.max(0, count));
+  }
+
+  @Override
+  public int getPoolSize() {
+
+    return count;
+  }
+
+  /** Set the thread priority of the worker threads; has no effect after initialization. */
+  public void setThreadPriority(int prio) {
+
+    this.prio = prio;
+  }
+
+  public int getThreadPriority() {
+
+    return prio;
+  }
+
+  /** Set whether the worker threads are daemons; has no effect after initialization. */
+  public void setMakeThreadsDaemons(boolean makeThreadsDaemons) {
+
+    this.makeThreadsDaemons = makeThreadsDaemons;
+  }
+
+  /** Set the prefix of the worker thread names; has no effect after initialization. */
+  public void setThreadNamePrefix(String threadNamePrefix) {
+
+    this.threadNamePrefix = threadNamePrefix;
+  }
+
+  @Override
+  public synchronized void initialize() throws SchedulerConfigException {
+
+    if (!workers.isEmpty()) {
+      return;
+    }
+    if (count <= 0) {
+      throw new SchedulerConfigException("Thread count must be > 0");
+    }
+    if (prio <= 0 || prio > 9) {
+      throw new SchedulerConfigException("Thread priority must be > 0 and <= 9");
+    }
+    for (int i = 1; i <= count; i++) {
+      Thread worker =
+          new Thread(threadNamePrefix + "-" + i) {
+
+            @Override
+            public void run() {
+
+              workLoop();
+            }
+          };
+      worker.setPriority(prio);
+      worker.setDaemon(makeThreadsDaemons);
+      workers.add(worker);
+      worker.start();
+    }
+  }
+
+  /**
+   * Hand the given job to the next idle thread, blocking until there is one. If the pool shuts
+   * down meanwhile, the job runs in a new thread of its own.
+   */
+  @Override
+  public boolean runInThread(JobRunShell runnable) {
+
+    if (runnable == null) {
+      return false;
+    }
+    if (!acquireIdleThread()) {
+      runInLastJobThread(runnable);
+      return true;
+    }
+    while (true) {
+      try {
+        // the idle thread may be on its way back to the queue
+        if (handoff.offer(runnable, 500L, TimeUnit.MILLISECONDS)) {
+          return true;
+        }
+      } catch (InterruptedException ignore) {
+      }
+      // the workers end as the pool shuts down
+      if (isShutdown) {
+        runInLastJobThread(runnable);
+        return true;
+      }
+    }
+  }
+
+  private void runInLastJobThread(JobRunShell runnable) {
+
+    Thread lastJob = new Thread(runnable, "WorkerThread-LastJob");
+    lastJob.setPriority(prio);
+    lastJob.setDaemon(makeThreadsDaemons);
+    lastJob.start();
+  }
+
+  @Override
+  public int blockForAvailableThreads() {
+
+    if (acquireIdleThread()) {
+      idleThreads.release();
+    }
+    return idleThreads.availablePermits();
+  }
+
+  /** @return true once an idle thread is taken, false if the pool shut down first */
+  private boolean acquireIdleThread() {
+
+    while (!isShutdown) {
+      try {
+        // the timeout only bounds how late a shutdown is noticed
+        if (idleThreads.tryAcquire(500L, TimeUnit.MILLISECONDS)) {
+          return true;
+        }
+      } catch (InterruptedException ignore) {
+      }
+    }
+    return false;
+  }
+
+  private void workLoop() {
+
+    while (true) {
+      JobRunShell runnable;
+      try {
+        runnable = handoff.poll(500L, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException ignore) {
+        continue;
+      }
+      if (runnable == null) {
+        if (isShutdown) {
+          log.debug("WorkerThread is shut down.");
+          return;
+        }
+        continue;
+      }
+      try {
+        runnable.run();
+      } catch (Throwable exceptionInRunnable) {
+        log.error("Error while executing the Runnable: ", exceptionInRunnable);
+      } finally {
+        // repair the thread in case the runnable mucked it up...
+        if (Thread.currentThread().getPriority() != prio) {
+          Thread.currentThread().setPriority(prio);
+        }
+        idleThreads.release();
+      }
+    }
+  }
+
+  /**
+   * Let the worker threads end once idle. Jobs currently in progress, and jobs already handed over,
+   * will complete.
+   */
+  @Override
+  public void shutdown() {
+
+    isShutdown = true;
+  }
+}
@@ -0,0 +1,1429 @@
+package org.quartz.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.sql.DataSource;
+import org.quartz.exceptions.JobPersistenceException;
+import org.quartz.exceptions.ObjectAlreadyExistsException;
+import org.quartz.exceptions.SchedulerConfigException;
+import org.quartz.exceptions.SchedulerException;
+import org.quartz.jobs.JobDetail;
+import org.quartz.triggers.OperableTrigger;
+import org.quartz.triggers.Trigger;
+import org.quartz.triggers.Trigger.CompletedExecutionInstruction;
+import org.quartz.triggers.Trigger.TriggerTimeComparator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A <code>{@link JobStore}</code> that keeps its jobs and triggers in a relational database,
+ * reached through a <code>DataSource</code>.
+ *
+ * <p>Jobs and triggers are stored with Java serialization in two tables, <code>
+ * &lt;prefix&gt;JOBS</code> and <code>&lt;prefix&gt;TRIGGERS</code>, which are created at
+ * initialization if they do not exist. The next fire time and state of a trigger are columns of
+ * their own, indexed together, so <code>acquireNextTriggers</code> is a single range query over
+ * the waiting triggers that are due. The rows found are claimed with one batch of conditional
+ * updates, which only succeed for triggers still waiting; on databases that support it (PostgreSQL,
+ * MySQL 8, MariaDB 10.6, Oracle) the query also reads with <code>FOR UPDATE SKIP LOCKED</code>, so
+ * schedulers sharing the tables pass over the rows another one is claiming instead of queueing
+ * behind its lock. <code>triggersFired</code> reads all the fired triggers and their jobs
+ * with one query each and writes them back in one batch.
+ *
+ * <p>Completions that change nothing in the store, those of jobs that allow concurrent execution,
+ * are not written at all. The others are queued and written in batches, in one transaction, by
+ * whichever thread finds no other one writing: by the scheduler thread before every acquisition,
+ * by a worker completing a job that does not allow concurrent execution (so the job is unblocked
+ * right away) or queueing one completion too many, and on shutdown.
+ *
+ * <p>Everything in the jobs' and triggers' <code>JobDataMap</code>s must be serializable. The
+ * tables use <code>BLOB</code> columns; for databases without that type (PostgreSQL), create the
+ * tables beforehand with <code>BYTEA</code> columns instead, see {@link #getCreateStatements()}.
+ */
+public class JdbcJobStore implements BatchJobStore, TimeOrderedJobStore, ShutdownAwareJobStore {
+
+  /*
+   * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~ Data members.
+   * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+   */
+
+  /** the most names bound to one <code>IN</code> list */
+  private static final int IN_LIST_SIZE = 256;
+
+  /** the most completions queued before the thread queueing one writes them */
+  private static final int COMPLETION_BATCH_SIZE = 256;
+
+  private final DataSource dataSource;
+
+  private String tablePrefix = "SUNDIAL_";
+
+  private String instanceId = "sundial";
+
+  /** whether to claim rows with SKIP LOCKED, detected from the database if not set */
+  private Boolean skipLocked = null;
+
+  private long misfireThreshold = 5000L;
+
+  private String jobsTable;
+
+  private String triggersTable;
+
+  private String acquireSql;
+
+  private final ConcurrentHashMap<String, Calendar> calendarsByName =
+      new ConcurrentHashMap<String, Calendar>(25);
+
+  /** the completions not written yet */
+  private final ConcurrentLinkedQueue<Completion> completions =
+      new ConcurrentLinkedQueue<Completion>();
+
+  private final AtomicInteger pendingCompletions = new AtomicInteger();
+
+  /** held by the thread writing completions */
+  private final ReentrantLock completionLock = new ReentrantLock();
+
+  private SchedulerSignaler signaler;
+
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  /*
+   * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~ Constructors.
+   * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+   */
+
+  /**
+   * Create a new <code>JdbcJobStore</code>.
+   *
+   * @param dataSource the database holding the jobs and triggers, preferably a connection pool
+   */
+  public JdbcJobStore(DataSource dataSource) {
+
+    this.dataSource = dataSource;
+  }
+
+  /*
+   * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~ Interface.
+   * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+   */
+
+  public String getTablePrefix() {
+
+    return tablePrefix;
+  }
+
+  /**
+   * The prefix of the names of the store's tables and indexes. Call before initialization.
+   *
+   * @param tablePrefix
+   */
+  public void setTablePrefix(String tablePrefix) {
+
+    this.tablePrefix = tablePrefix;
+  }
+
+  public String getInstanceId() {
+
+    return instanceId;
+  }
+
+  /**
+   * The name of this scheduler among those sharing the tables. Triggers it acquired and jobs it
+   * blocked are marked with it, and released again when a scheduler of the same name initializes
+   * the store. Call before initialization.
+   *
+   * @param instanceId
+   */
+  public void setInstanceId(String instanceId) {
+
+    this.instanceId = instanceId;
+  }
+
+  /**
+   * Whether acquisition reads with <code>FOR UPDATE SKIP LOCKED</code>. By default this is decided
+   * from the database's product name and version. Call before initialization.
+   *
+   * @param skipLocked
+   */
+  public void setSkipLocked(boolean skipLocked) {
+
+    this.skipLocked = skipLocked;
+  }
+
+  public long getMisfireThreshold() {
+
+    return misfireThreshold;
+  }
+
+  /** @see RAMJobStore#setMisfireThreshold(long) */
+  public void setMisfireThreshold(long misfireThreshold) {
+
+    if (misfireThreshold < 1) {
+      throw new IllegalArgumentException("Misfirethreashold must be larger than 0");
+    }
+    this.misfireThreshold = misfireThreshold;
+  }
+
+  /** @return the statements creating the store's tables and indexes, with the configured prefix */
+  public List<String> getCreateStatements() {
+
+    List<String> statements = new ArrayList<String>();
+    statements.add(
+        "CREATE TABLE "
+            + tablePrefix
+            + "JOBS (JOB_NAME VARCHAR(200) NOT NULL, BLOCKED_BY VARCHAR(200),"
+            + " JOB_DETAIL BLOB NOT NULL, PRIMARY KEY (JOB_NAME))");
+    statements.add(
+        "CREATE TABLE "
+            + tablePrefix
+            + "TRIGGERS (TRIGGER_NAME VARCHAR(200) NOT NULL, JOB_NAME VARCHAR(200) NOT NULL,"
+            + " NEXT_FIRE_TIME BIGINT, PRIORITY INTEGER NOT NULL, STATE SMALLINT NOT NULL,"
+            + " ACQUIRED_BY VARCHAR(200), TRIGGER_DETAIL BLOB NOT NULL,"
+            + " PRIMARY KEY (TRIGGER_NAME))");
+    statements.add(
+        "CREATE INDEX "
+            + tablePrefix
+            + "IDX_TRIGGERS_NFT ON "
+            + tablePrefix
+            + "TRIGGERS (STATE, NEXT_FIRE_TIME, PRIORITY DESC)");
+    statements.add(
+        "CREATE INDEX "
+            + tablePrefix
+            + "IDX_TRIGGERS_JOB ON "
+            + tablePrefix
+            + "TRIGGERS (JOB_NAME)");
+    return statements;
+  }
+
+  /** Create the tables if missing, and release what a previous run of this instance held. */
+  @Override
+  public void initialize(SchedulerSignaler signaler) throws SchedulerConfigException {
+
+    this.signaler = signaler;
+    jobsTable = tablePrefix + "JOBS";
+    triggersTable = tablePrefix + "TRIGGERS";
+
+    Connection c = null;
+    try {
+      c = dataSource.getConnection();
+      c.setAutoCommit(false);
+      DatabaseMetaData metaData = c.getMetaData();
+      if (skipLocked == null) {
+        skipLocked = supportsSkipLocked(metaData);
+      }
+      if (!tableExists(metaData, triggersTable)) {
+        Statement statement = c.createStatement();
+        try {
+          for (String sql : getCreateStatements()) {
+            statement.executeUpdate(sql);
+          }
+        } finally {
+          statement.close();
+        }
+      }
+      update(
+          c,
+          "UPDATE "
+              + triggersTable
+              + " SET STATE = ?, ACQUIRED_BY = NULL WHERE STATE = ? AND ACQUIRED_BY = ?",
+          TriggerWrapper.STATE_WAITING,
+          TriggerWrapper.STATE_ACQUIRED,
+          instanceId);
+      update(
+          c,
+          "UPDATE "
+              + triggersTable
+              + " SET STATE = ? WHERE STATE = ? AND JOB_NAME IN (SELECT JOB_NAME FROM "
+              + jobsTable
+              + " WHERE BLOCKED_BY = ?)",
+          TriggerWrapper.STATE_WAITING,
+          TriggerWrapper.STATE_BLOCKED,
+          instanceId);
+      update(c, "UPDATE " + jobsTable + " SET BLOCKED_BY = NULL WHERE BLOCKED_BY = ?", instanceId);
+      c.commit();
+    } catch (SQLException e) {
+      throw new SchedulerConfigException("Could not initialize the JdbcJobStore.", e);
+    } finally {
+      close(c);
+    }
+
+    acquireSql =
+        "SELECT TRIGGER_NAME, TRIGGER_DETAIL FROM "
+            + triggersTable
+            + " WHERE STATE = ? AND NEXT_FIRE_TIME <= ?"
+            // in the order of the index, so the database reads no more rows than returned
+            + " ORDER BY STATE, NEXT_FIRE_TIME, PRIORITY DESC"
+            + (skipLocked ? " FOR UPDATE SKIP LOCKED" : "");
+
+    logger.info("JdbcJobStore initialized, SKIP LOCKED " + (skipLocked ? "on." : "off."));
+  }
+
+  @Override
+  public void schedulerStarted() throws SchedulerException {
+
+    // nothing to do
+  }
+
+  /** Write the pending completions. */
+  @Override
+  public void shutdown() {
+
+    completionLock.lock();
+    try {
+      writeCompletions(drainCompletions());
+    } catch (JobPersistenceException e) {
+      logger.error("Could not write the pending job completions on shutdown.", e);
+    } finally {
+      completionLock.unlock();
+    }
+  }
+
+  /**
+   * @return the next fire time of the earliest waiting trigger in milliseconds, or <code>
+   *     Long.MAX_VALUE</code> if no trigger is waiting.
+   */
+  @Override
+  public long getEarliestNextFireTime() throws JobPersistenceException {
+
+    Connection c = begin();
+    try {
+      PreparedStatement ps =
+          c.prepareStatement(
+              "SELECT MIN(NEXT_FIRE_TIME) FROM " + triggersTable + " WHERE STATE = ?");
+      try {
+        ps.setInt(1, TriggerWrapper.STATE_WAITING);
+        ResultSet rs = ps.executeQuery();
+        rs.next();
+        long earliest = rs.getLong(1);
+        return rs.wasNull() ? Long.MAX_VALUE : earliest;
+      } finally {
+        ps.close();
+      }
+    } catch (SQLException e) {
+      throw new JobPersistenceException("Could not read the earliest next fire time.", e);
+    } finally {
+      close(c);
+    }
+  }
+
+  @Override
+  public void storeJobAndTrigger(JobDetail newJob, OperableTrigger newTrigger)
+      throws JobPersistenceException {
+
+    Map<JobDetail, List<OperableTrigger>> triggersAndJobs =
+        Collections.singletonMap(newJob, Collections.singletonList(newTrigger));
+    storeJobsAndTriggers(triggersAndJobs, false);
+  }
+
+  @Override
+  public void storeJobsAndTriggers(
+      Map<JobDetail, List<OperableTrigger>> triggersAndJobs, boolean replace)
+      throws JobPersistenceException {
+
+    // serialize before the transaction, so it is held for the writing only
+    List<String> jobNames = new ArrayList<String>(triggersAndJobs.size());
+    List<byte[]> jobBytes = new ArrayList<byte[]>(triggersAndJobs.size());
+    List<OperableTrigger> triggers = new ArrayList<OperableTrigger>();
+    List<byte[]> triggerBytes = new ArrayList<byte[]>();
+    for (Map.Entry<JobDetail, List<OperableTrigger>> entry : triggersAndJobs.entrySet()) {
+      jobNames.add(entry.getKey().getName());
+      jobBytes.add(serialize(entry.getKey()));
+      for (OperableTrigger trigger : entry.getValue()) {
+        triggers.add(trigger);
+        triggerBytes.add(serialize(trigger));
+      }
+    }
+    List<String> triggerNames = new ArrayList<String>(triggers.size());
+    for (OperableTrigger trigger : triggers) {
+      triggerNames.add(trigger.getName());
+    }
+
+    Connection c = begin();
+    try {
+      Set<String> existingJobs = selectBlockedBy(c, jobNames).keySet();
+      Set<String> existingTriggers = selectTriggerJobs(c, triggerNames).keySet();
+      if (!replace) {
+        for (JobDetail job : triggersAndJobs.keySet()) {
+          if (existingJobs.contains(job.getName())) {
+            throw new ObjectAlreadyExistsException(job);
+          }
+        }
+        for (OperableTrigger trigger : triggers) {
+          if (existingTriggers.contains(trigger.getName())) {
+            throw new ObjectAlreadyExistsException(trigger);
+          }
+        }
+      }
+
+      Batch updateJobs =
+          new Batch(c, "UPDATE " + jobsTable + " SET JOB_DETAIL = ? WHERE JOB_NAME = ?");
+      Batch insertJobs =
+          new Batch(c, "INSERT INTO " + jobsTable + " (JOB_NAME, JOB_DETAIL) VALUES (?, ?)");
+      Batch deleteTriggers =
+          new Batch(c, "DELETE FROM " + triggersTable + " WHERE TRIGGER_NAME = ?");
+      Batch insertTriggers = insertTriggersBatch(c);
+      try {
+        for (int i = 0; i < jobNames.size(); i++) {
+          if (existingJobs.contains(jobNames.get(i))) {
+            PreparedStatement ps = updateJobs.statement();
+            ps.setBytes(1, jobBytes.get(i));
+            ps.setString(2, jobNames.get(i));
+            ps.addBatch();
+          } else {
+            PreparedStatement ps = insertJobs.statement();
+            ps.setString(1, jobNames.get(i));
+            ps.setBytes(2, jobBytes.get(i));
+            ps.addBatch();
+          }
+        }
+        updateJobs.execute();
+        insertJobs.execute();
+
+        Set<String> referencedJobs = new LinkedHashSet<String>();
+        for (OperableTrigger trigger : triggers) {
+          referencedJobs.add(trigger.getJobName());
+          if (existingTriggers.contains(trigger.getName())) {
+            deleteTriggers.statement().setString(1, trigger.getName());
+            deleteTriggers.statement().addBatch();
+          }
+        }
+        deleteTriggers.execute();
+
+        Map<String, String> blockedBy = selectBlockedBy(c, referencedJobs);
+        for (int i = 0; i < triggers.size(); i++) {
+          OperableTrigger trigger = triggers.get(i);
+          if (!blockedBy.containsKey(trigger.getJobName())) {
+            throw new JobPersistenceException(
+                "The job (" + trigger.getJobName() + ") referenced by the trigger does not exist.");
+          }
+          boolean blocked = blockedBy.get(trigger.getJobName()) != null;
+          addInsertTrigger(insertTriggers, trigger, triggerBytes.get(i), blocked);
+        }
+        insertTriggers.execute();
+      } finally {
+        updateJobs.close();
+        insertJobs.close();
+        deleteTriggers.close();
+        insertTriggers.close();
+      }
+      c.commit();
+    } catch (SQLException e) {
+      throw new JobPersistenceException("Could not store the jobs and triggers.", e);
+    } finally {
+      close(c);
+    }
+  }
+
+  @Override
+  public void storeJob(JobDetail newJob, boolean replaceExisting)
+      throws JobPersistenceException {
+
+    byte[] bytes = serialize(newJob);
+
+    Connection c = begin();
+    try {
+      boolean exists = !selectBlockedBy(c, Collections.singleton(newJob.getName())).isEmpty();
+      if (exists && !replaceExisting) {
+        throw new ObjectAlreadyExistsException(newJob);
+      }
+      if (exists) {
+        update(
+            c,
+            "UPDATE " + jobsTable + " SET JOB_DETAIL = ? WHERE JOB_NAME = ?",
+            bytes,
+            newJob.getName());
+      } else {
+        update(
+            c,
+            "INSERT INTO " + jobsTable + " (JOB_NAME, JOB_DETAIL) VALUES (?, ?)",
+            newJob.getName(),
+            bytes);
+      }
+      c.commit();
+    } catch (SQLException e) {
+      throw new JobPersistenceException("Could not store job " + newJob.getName(), e);
+    } finally {
+      close(c);
+    }
+  }
+
+  @Override
+  public boolean removeJob(String jobKey) throws JobPersistenceException {
+
+    Connection c = begin();
+    try {
+      int removed = update(c, "DELETE FROM " + triggersTable + " WHERE JOB_NAME = ?", jobKey);
+      removed += update(c, "DELETE FROM " + jobsTable + " WHERE JOB_NAME = ?", jobKey);
+      c.commit();
+      return removed > 0;
+    } catch (SQLException e) {
+      throw new JobPersistenceException("Could not remove job " + jobKey, e);
+    } finally {
+      close(c);
+    }
+  }
+
+  @Override
+  public JobDetail retrieveJob(String jobKey) throws JobPersistenceException {
+
+    Connection c = begin();
+    try {
+      Map<String, JobDetail> jobs = selectJobs(c, Collections.singleton(jobKey));
+      c.commit();
+      return jobs.get(jobKey);
+    } catch (SQLException e) {
+      throw new JobPersistenceException("Could not retrieve job " + jobKey, e);
+    } finally {
+      close(c);
+    }
+  }
+
+  @Override
+  public void storeTrigger(OperableTrigger newTrigger, boolean replaceExisting)
+      throws JobPersistenceException {
+
+    byte[] bytes = serialize(newTrigger);
+
+    Connection c = begin();
+    try {
+      boolean exists =
+          !selectTriggerJobs(c, Collections.singleton(newTrigger.getName())).isEmpty();
+      if (exists && !replaceExisting) {
+        throw new ObjectAlreadyExistsException(newTrigger);
+      }
+      if (exists) {
+        update(c, "DELETE FROM " + triggersTable + " WHERE TRIGGER_NAME = ?", newTrigger.getName());
+      }
+      insertTrigger(c, newTrigger, bytes);
+      c.commit();
+    } catch (SQLException e) {
+      throw new JobPersistenceException("Could not store trigger " + newTrigger.getName(), e);
+    } finally {
+      close(c);
+    }
+  }
+
+  @Override
+  public boolean removeTrigger(String triggerKey) throws JobPersistenceException {
+
+    Connection c = begin();
+    try {
+      int removed =
+          update(c, "DELETE FROM " + triggersTable + " WHERE TRIGGER_NAME = ?", triggerKey);
+      c.commit();
+      return removed > 0;
+    } catch (SQLException e) {
+      throw new JobPersistenceException("Could not remove trigger " + triggerKey, e);
+    } finally {
+      close(c);
+    }
+  }
+
+  @Override
+  public boolean replaceTrigger(String triggerKey, OperableTrigger newTrigger)
+      throws JobPersistenceException {
+
+    byte[] bytes = serialize(newTrigger);
+
+    Connection c = begin();
+    try {
+      Map<String, String> jobNames = selectTriggerJobs(c, Collections.singleton(triggerKey));
+      if (jobNames.isEmpty()) {
+        return false;
+      }
+      if (!jobNames.get(triggerKey).equals(newTrigger.getJobName())) {
+        throw new JobPersistenceException(
+            "New trigger is not related to the same job as the old trigger.");
+      }
+      update(c, "DELETE FROM " + triggersTable + " WHERE TRIGGER_NAME = ?", triggerKey);
+      // the old trigger comes back with the rollback if this fails
+      insertTrigger(c, newTrigger, bytes);
+      c.commit();
+      return true;
+    } catch (SQLException e) {
+      throw new JobPersistenceException("Could not replace trigger " + triggerKey, e);
+    } finally {
+      close(c);
+    }
+  }
+
+  @Override
+  public OperableTrigger retrieveTrigger(String triggerKey) throws JobPersistenceException {
+
+    Connection c = begin();
+    try {
+      PreparedStatement ps =
+          c.prepareStatement(
+              "SELECT TRIGGER_DETAIL FROM " + triggersTable + " WHERE TRIGGER_NAME = ?");
+      try {
+        ps.setString(1, triggerKey);
+        ResultSet rs = ps.executeQuery();
+        OperableTrigger trigger = rs.next() ? (OperableTrigger) deserialize(rs.getBytes(1)) : null;
+        c.commit();
+        return trigger;
+      } finally {
+        ps.close();
+      }
+    } catch (SQLException e) {
+      throw new JobPersistenceException("Could not retrieve trigger " + triggerKey, e);
+    } finally {
+      close(c);
+    }
+  }
+
+  @Override
+  public Calendar retrieveCalendar(String calName) {
+
+    Calendar cal = calendarsByName.get(calName);
+    if (cal != null) {
+      return (Calendar) cal.clone();
+    }
+    return null;
+  }
+
+  @Override
+  public List<Trigger> getTriggersForJob(String jobKey) throws JobPersistenceException {
+
+    Connection c = begin();
+    try {
+      PreparedStatement ps =
+          c.prepareStatement("SELECT TRIGGER_DETAIL FROM " + triggersTable + " WHERE JOB_NAME = ?");
+      try {
+        ps.setString(1, jobKey);
+        ResultSet rs = ps.executeQuery();
+        List<Trigger> triggers = new ArrayList<Trigger>();
+        while (rs.next()) {
+          triggers.add((Trigger) deserialize(rs.getBytes(1)));
+        }
+        c.commit();
+        return triggers;
+      } finally {
+        ps.close();
+      }
+    } catch (SQLException e) {
+      throw new JobPersistenceException("Could not retrieve the triggers of job " + jobKey, e);
+    } finally {
+      close(c);
+    }
+  }
+
+  @Override
+  public Set<String> getJobKeys() throws JobPersistenceException {
+
+    Connection c = begin();
+    try {
+      PreparedStatement ps = c.prepareStatement("SELECT JOB_NAME FROM " + jobsTable);
+      try {
+        ResultSet rs = ps.executeQuery();
+        Set<String> jobKeys = new HashSet<String>();
+        while (rs.next()) {
+          jobKeys.add(rs.getString(1));
+        }
+        c.commit();
+        return jobKeys;
+      } finally {
+        ps.close();
+      }
+    } catch (SQLException e) {
+      throw new JobPersistenceException("Could not retrieve the job names.", e);
+    } finally {
+      close(c);
+    }
+  }
+
+  /**
+   * Find the due triggers with one range query and claim them with one batch of updates. Misfired
+   * triggers have their misfire instruction applied on the way, and are acquired if they are still
+   * due.
+   */
+  @Override
+  public List<OperableTrigger> acquireNextTriggers(long noLaterThan, int maxCount, long timeWindow)
+      throws JobPersistenceException {
+
+    flushCompletions();
+
+    long misfireTime = Clock.getClock().currentTimeMillis() - misfireThreshold;
+    List<OperableTrigger> candidates = new ArrayList<OperableTrigger>();
+    List<OperableTrigger> misfired = new ArrayList<OperableTrigger>();
+
+    Connection c = begin();
+    try {
+      PreparedStatement ps = c.prepareStatement(acquireSql);
+      try {
+        ps.setMaxRows(maxCount);
+        ps.setInt(1, TriggerWrapper.STATE_WAITING);
+        ps.setLong(2, noLaterThan + timeWindow);
+        ResultSet rs = ps.executeQuery();
+        while (rs.next()) {
+          OperableTrigger trigger = (OperableTrigger) deserialize(rs.getBytes(2));
+          if (applyMisfire(trigger, misfireTime)) {
+            misfired.add(trigger);
+            Date nextFireTime = trigger.getNextFireTime();
+            if (nextFireTime == null || nextFireTime.getTime() > noLaterThan + timeWindow) {
+              continue;
+            }
+          }
+          candidates.add(trigger);
+        }
+      } finally {
+        ps.close();
+      }
+
+      if (!misfired.isEmpty()) {
+        Batch updateMisfired =
+            new Batch(
+                c,
+                "UPDATE "
+                    + triggersTable
+                    + " SET NEXT_FIRE_TIME = ?, STATE = ?, TRIGGER_DETAIL = ?"
+                    + " WHERE TRIGGER_NAME = ? AND STATE = ?");
+        try {
+          for (OperableTrigger trigger : misfired) {
+            PreparedStatement update = updateMisfired.statement();
+            setNextFireTime(update, 1, trigger);
+            update.setInt(
+                2,
+                trigger.getNextFireTime() == null
+                    ? TriggerWrapper.STATE_COMPLETE
+                    : TriggerWrapper.STATE_WAITING);
+            update.setBytes(3, serialize(trigger));
+            update.setString(4, trigger.getName());
+            update.setInt(5, TriggerWrapper.STATE_WAITING);
+            update.addBatch();
+          }
+          updateMisfired.execute();
+        } finally {
+          updateMisfired.close();
+        }
+      }
+
+      List<OperableTrigger> acquired = new ArrayList<OperableTrigger>(candidates.size());
+      if (!candidates.isEmpty()) {
+        Batch claim =
+            new Batch(
+                c,
+                "UPDATE "
+                    + triggersTable
+                    + " SET STATE = ?, ACQUIRED_BY = ? WHERE TRIGGER_NAME = ? AND STATE = ?");
+        try {
+          for (OperableTrigger trigger : candidates) {
+            PreparedStatement update = claim.statement();
+            update.setInt(1, TriggerWrapper.STATE_ACQUIRED);
+            update.setString(2, instanceId);
+            update.setString(3, trigger.getName());
+            update.setInt(4, TriggerWrapper.STATE_WAITING);
+            update.addBatch();
+          }
+          int[] counts = claim.execute();
+          for (int i = 0; i < counts.length; i++) {
+            // another scheduler may have claimed the trigger since it was read
+            if (counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO) {
+              acquired.add(candidates.get(i));
+            }
+          }
+        } finally {
+          claim.close();
+        }
+      }
+      c.commit();
+
+      Collections.sort(acquired, new TriggerTimeComparator());
+      return acquired;
+    } catch (SQLException e) {
+      throw new JobPersistenceException("Could not acquire the next triggers.", e);
+    } finally {
+      close(c);
+    }
+  }
+
+  @Override
+  public void releaseAcquiredTrigger(OperableTrigger trigger) throws JobPersistenceException {
+
+    Connection c = begin();
+    try {
+      update(
+          c,
+          "UPDATE "
+              + triggersTable
+              + " SET STATE = ?, ACQUIRED_BY = NULL WHERE TRIGGER_NAME = ? AND STATE = ?",
+          TriggerWrapper.STATE_WAITING,
+          trigger.getName(),
+          TriggerWrapper.STATE_ACQUIRED);
+      c.commit();
+    } catch (SQLException e) {
+      throw new JobPersistenceException("Could not release trigger " + trigger.getName(), e);
+    } finally {
+      close(c);
+    }
+  }
+
+  @Override
+  public List<TriggerFiredResult> triggersFired(List<OperableTrigger> triggers)
+      throws JobPersistenceException {
+
+    List<String> triggerNames = new ArrayList<String>(triggers.size());
+    for (OperableTrigger trigger : triggers) {
+      triggerNames.add(trigger.getName());
+    }
+
+    Connection c = begin();
+    try {
+      // the triggers as they are now, they may have been replaced or removed since acquired
+      Map<String, OperableTrigger> acquired = selectAcquiredTriggers(c, triggerNames);
+      Set<String> jobNames = new HashSet<String>();
+      for (OperableTrigger trigger : acquired.values()) {
+        jobNames.add(trigger.getJobName());
+      }
+      Map<String, JobDetail> jobs = selectJobs(c, jobNames);
+
+      List<TriggerFiredResult> results = new ArrayList<TriggerFiredResult>();
+      Set<String> blockedJobs = new HashSet<String>();
+      Batch updateFired =
+          new Batch(
+              c,
+              "UPDATE "
+                  + triggersTable
+                  + " SET NEXT_FIRE_TIME = ?, STATE = ?, ACQUIRED_BY = NULL, TRIGGER_DETAIL = ?"
+                  + " WHERE TRIGGER_NAME = ?");
+      Batch blockTriggers =
+          new Batch(
+              c,
+              "UPDATE " + triggersTable + " SET STATE = ? WHERE JOB_NAME = ? AND STATE = ?");
+      Batch blockJobs =
+          new Batch(c, "UPDATE " + jobsTable + " SET BLOCKED_BY = ? WHERE JOB_NAME = ?");
+      try {
+        for (String triggerName : triggerNames) {
+          OperableTrigger trigger = acquired.get(triggerName);
+          JobDetail job = (trigger != null) ? jobs.get(trigger.getJobName()) : null;
+          if (job == null) {
+            continue;
+          }
+          Calendar cal = null;
+          if (trigger.getCalendarName() != null) {
+            cal = retrieveCalendar(trigger.getCalendarName());
+            if (cal == null) {
+              continue;
+            }
+          }
+          boolean blocking = !job.isConcurrencyAllowed();
+          if (blocking && !blockedJobs.add(job.getName())) {
+            // a second trigger of a job already fired in this batch waits for it to complete
+            PreparedStatement ps = updateFired.statement();
+            setNextFireTime(ps, 1, trigger);
+            ps.setInt(2, TriggerWrapper.STATE_BLOCKED);
+            ps.setBytes(3, serialize(trigger));
+            ps.setString(4, triggerName);
+            ps.addBatch();
+            continue;
+          }
+
+          Date prevFireTime = trigger.getPreviousFireTime();
+          trigger.triggered(cal);
+          trigger.setFireInstanceId(getFiredTriggerRecordId());
+
+          PreparedStatement ps = updateFired.statement();
+          setNextFireTime(ps, 1, trigger);
+          ps.setInt(2, blocking ? TriggerWrapper.STATE_BLOCKED : TriggerWrapper.STATE_WAITING);
+          ps.setBytes(3, serialize(trigger));
+          ps.setString(4, triggerName);
+          ps.addBatch();
+          if (blocking) {
+            ps = blockTriggers.statement();
+            ps.setInt(1, TriggerWrapper.STATE_BLOCKED);
+            ps.setString(2, job.getName());
+            ps.setInt(3, TriggerWrapper.STATE_WAITING);
+            ps.addBatch();
+            ps = blockJobs.statement();
+            ps.setString(1, instanceId);
+            ps.setString(2, job.getName());
+            ps.addBatch();
+          }
+
+          results.add(
+              new TriggerFiredResult(
+                  new TriggerFiredBundle(
+                      job,
+                      trigger,
+                      cal,
+                      false,
+                      Clock.getClock().now(),
+                      trigger.getPreviousFireTime(),
+                      prevFireTime,
+                      trigger.getNextFireTime())));
+        }
+        updateFired.execute();
+        blockTriggers.execute();
+        blockJobs.execute();
+      } finally {
+        updateFired.close();
+        blockTriggers.close();
+        blockJobs.close();
+      }
+      c.commit();
+      return results;
+    } catch (SQLException e) {
+      throw new JobPersistenceException("Could not fire the acquired triggers.", e);
+    } finally {
+      close(c);
+    }
+  }
+
+  /**
+   * Queue the completion. The completion of a job that does not allow concurrent execution, which
+   * unblocks the job, is written right away together with the others queued, unless another thread
+   * is writing already. The others wait for the next acquisition, or until enough of them are
+   * queued. Completions of jobs that allow concurrent execution and change nothing are not written.
+   */
+  @Override
+  public void triggeredJobComplete(
+      OperableTrigger trigger, JobDetail jobDetail, CompletedExecutionInstruction triggerInstCode)
+      throws JobPersistenceException {
+
+    if (triggerInstCode == CompletedExecutionInstruction.NOOP
+        && jobDetail.isConcurrencyAllowed()) {
+      return;
+    }
+    completions.add(new Completion(trigger, jobDetail, triggerInstCode));
+    if (pendingCompletions.incrementAndGet() >= COMPLETION_BATCH_SIZE
+        || !jobDetail.isConcurrencyAllowed()) {
+      flushCompletions();
+    }
+  }
+
+  @Override
+  public void setThreadPoolSize(final int poolSize) {
+
+    //
+  }
+
+  /** Write the queued completions, unless another thread is writing them. */
+  private void flushCompletions() throws JobPersistenceException {
+
+    // checked again after unlocking, so a completion queued meanwhile is not left behind
+    while (!completions.isEmpty() && completionLock.tryLock()) {
+      try {
+        writeCompletions(drainCompletions());
+      } finally {
+        completionLock.unlock();
+      }
+    }
+  }
+
+  private List<Completion> drainCompletions() {
+
+    List<Completion> drained = new ArrayList<Completion>();
+    Completion completion;
+    while ((completion = completions.poll()) != null) {
+      drained.add(completion);
+    }
+    pendingCompletions.addAndGet(-drained.size());
+    return drained;
+  }
+
+  /** Write completions in one transaction, one batch per kind of change. Hold completionLock. */
+  private void writeCompletions(List<Completion> drained) throws JobPersistenceException {
+
+    if (drained.isEmpty()) {
+      return;
+    }
+
+    Connection c = begin();
+    try {
+      Batch unblockJobs =
+          new Batch(c, "UPDATE " + jobsTable + " SET BLOCKED_BY = NULL WHERE JOB_NAME = ?");
+      Batch unblockTriggers =
+          new Batch(
+              c,
+              "UPDATE " + triggersTable + " SET STATE = ? WHERE JOB_NAME = ? AND STATE = ?");
+      Batch setTriggerStates =
+          new Batch(c, "UPDATE " + triggersTable + " SET STATE = ? WHERE TRIGGER_NAME = ?");
+      Batch setJobTriggerStates =
+          new Batch(c, "UPDATE " + triggersTable + " SET STATE = ? WHERE JOB_NAME = ?");
+      Batch deleteTriggers =
+          new Batch(c, "DELETE FROM " + triggersTable + " WHERE TRIGGER_NAME = ?");
+      // unless rescheduled by the job meanwhile, see RAMJobStore
+      Batch deleteCompletedTriggers =
+          new Batch(
+              c,
+              "DELETE FROM "
+                  + triggersTable
+                  + " WHERE TRIGGER_NAME = ? AND NEXT_FIRE_TIME IS NULL");
+      try {
+        for (Completion completion : drained) {
+          String triggerName = completion.trigger.getName();
+          String jobName = completion.jobDetail.getName();
+          if (!completion.jobDetail.isConcurrencyAllowed()) {
+            PreparedStatement ps = unblockJobs.statement();
+            ps.setString(1, jobName);
+            ps.addBatch();
+            ps = unblockTriggers.statement();
+            ps.setInt(1, TriggerWrapper.STATE_WAITING);
+            ps.setString(2, jobName);
+            ps.setInt(3, TriggerWrapper.STATE_BLOCKED);
+            ps.addBatch();
+          }
+          switch (completion.instruction) {
+            case DELETE_TRIGGER:
+              Batch delete =
+                  completion.trigger.getNextFireTime() == null
+                      ? deleteCompletedTriggers
+                      : deleteTriggers;
+              delete.statement().setString(1, triggerName);
+              delete.statement().addBatch();
+              break;
+            case SET_TRIGGER_COMPLETE:
+              addStateChange(setTriggerStates, triggerName, TriggerWrapper.STATE_COMPLETE);
+              break;
+            case SET_TRIGGER_ERROR:
+              logger.info("Trigger " + triggerName + " set to ERROR state.");
+              addStateChange(setTriggerStates, triggerName, TriggerWrapper.STATE_ERROR);
+              break;
+            case SET_ALL_JOB_TRIGGERS_ERROR:
+              logger.info(
+                  "All triggers of Job "
+                      + completion.trigger.getJobName()
+                      + " set to ERROR state.");
+              addStateChange(
+                  setJobTriggerStates,
+                  completion.trigger.getJobName(),
+                  TriggerWrapper.STATE_ERROR);
+              break;
+            case SET_ALL_JOB_TRIGGERS_COMPLETE:
+              addStateChange(
+                  setJobTriggerStates,
+                  completion.trigger.getJobName(),
+                  TriggerWrapper.STATE_COMPLETE);
+              break;
+            default:
+              break;
+          }
+        }
+        unblockJobs.execute();
+        unblockTriggers.execute();
+        setTriggerStates.execute();
+        setJobTriggerStates.execute();
+        deleteTriggers.execute();
+        deleteCompletedTriggers.execute();
+      } finally {
+        unblockJobs.close();
+        unblockTriggers.close();
+        setTriggerStates.close();
+        setJobTriggerStates.close();
+        deleteTriggers.close();
+        deleteCompletedTriggers.close();
+      }
+      c.commit();
+    } catch (SQLException e) {
+      throw new JobPersistenceException(
+          "Could not write " + drained.size() + " job completions.", e);
+    } finally {
+      close(c);
+    }
+    signaler.signalSchedulingChange(0L);
+  }
+
+  private static void addStateChange(Batch batch, String name, int state) throws SQLException {
+
+    PreparedStatement ps = batch.statement();
+    ps.setInt(1, state);
+    ps.setString(2, name);
+    ps.addBatch();
+  }
+
+  /**
+   * Update the misfired trigger as its misfire instruction says.
+   *
+   * @return <code>true</code> if its next fire time changed
+   * @see RAMJobStore
+   */
+  private boolean applyMisfire(OperableTrigger trigger, long misfireTime) {
+
+    Date tnft = trigger.getNextFireTime();
+    if (tnft == null
+        || tnft.getTime() > misfireTime
+        || trigger.getMisfireInstruction() == Trigger.MISFIRE_INSTRUCTION_IGNORE_MISFIRE_POLICY) {
+      return false;
+    }
+
+    Calendar cal = null;
+    if (trigger.getCalendarName() != null) {
+      cal = retrieveCalendar(trigger.getCalendarName());
+    }
+
+    signaler.notifyTriggerListenersMisfired((OperableTrigger) trigger.clone());
+
+    trigger.updateAfterMisfire(cal);
+
+    if (trigger.getNextFireTime() == null) {
+      signaler.notifySchedulerListenersFinalized(trigger);
+      return true;
+    }
+    return !tnft.equals(trigger.getNextFireTime());
+  }
+
+  private static final AtomicLong ftrCtr = new AtomicLong(System.currentTimeMillis());
+
+  private String getFiredTriggerRecordId() {
+
+    return String.valueOf(ftrCtr.incrementAndGet());
+  }
+
+  /** Insert a new trigger, blocked if its job is. */
+  private void insertTrigger(Connection c, OperableTrigger trigger, byte[] bytes)
+      throws SQLException, JobPersistenceException {
+
+    Map<String, String> blockedBy =
+        selectBlockedBy(c, Collections.singleton(trigger.getJobName()));
+    if (blockedBy.isEmpty()) {
+      throw new JobPersistenceException(
+          "The job (" + trigger.getJobName() + ") referenced by the trigger does not exist.");
+    }
+    Batch insert = insertTriggersBatch(c);
+    try {
+      addInsertTrigger(insert, trigger, bytes, blockedBy.get(trigger.getJobName()) != null);
+      insert.execute();
+    } finally {
+      insert.close();
+    }
+  }
+
+  private Batch insertTriggersBatch(Connection c) {
+
+    return new Batch(
+        c,
+        "INSERT INTO "
+            + triggersTable
+            + " (TRIGGER_NAME, JOB_NAME, NEXT_FIRE_TIME, PRIORITY, STATE, TRIGGER_DETAIL)"
+            + " VALUES (?, ?, ?, ?, ?, ?)");
+  }
+
+  private static void addInsertTrigger(
+      Batch insert, OperableTrigger trigger, byte[] bytes, boolean blocked) throws SQLException {
+
+    PreparedStatement ps = insert.statement();
+    ps.setString(1, trigger.getName());
+    ps.setString(2, trigger.getJobName());
+    setNextFireTime(ps, 3, trigger);
+    ps.setInt(4, trigger.getPriority());
+    ps.setInt(5, blocked ? TriggerWrapper.STATE_BLOCKED : TriggerWrapper.STATE_WAITING);
+    ps.setBytes(6, bytes);
+    ps.addBatch();
+  }
+
+  private static void setNextFireTime(PreparedStatement ps, int index, OperableTrigger trigger)
+      throws SQLException {
+
+    if (trigger.getNextFireTime() == null) {
+      ps.setNull(index, Types.BIGINT);
+    } else {
+      ps.setLong(index, trigger.getNextFireTime().getTime());
+    }
+  }
+
+  /** @return the named triggers that are still acquired by this scheduler */
+  private Map<String, OperableTrigger> selectAcquiredTriggers(
+      Connection c, List<String> triggerNames) throws SQLException, JobPersistenceException {
+
+    Map<String, OperableTrigger> triggers = new HashMap<String, OperableTrigger>();
+    for (int from = 0; from < triggerNames.size(); from += IN_LIST_SIZE) {
+      List<String> names =
+          triggerNames.subList(from, Math.min(triggerNames.size(), from + IN_LIST_SIZE));
+      PreparedStatement ps =
+          c.prepareStatement(
+              "SELECT TRIGGER_NAME, TRIGGER_DETAIL FROM "
+                  + triggersTable
+                  + " WHERE STATE = ? AND ACQUIRED_BY = ? AND TRIGGER_NAME IN "
+                  + placeholders(names.size()));
+      try {
+        ps.setInt(1, TriggerWrapper.STATE_ACQUIRED);
+        ps.setString(2, instanceId);
+        bind(ps, 3, names);
+        ResultSet rs = ps.executeQuery();
+        while (rs.next()) {
+          triggers.put(rs.getString(1), (OperableTrigger) deserialize(rs.getBytes(2)));
+        }
+      } finally {
+        ps.close();
+      }
+    }
+    return triggers;
+  }
+
+  private Map<String, JobDetail> selectJobs(Connection c, Collection<String> jobNames)
+      throws SQLException, JobPersistenceException {
+
+    List<String> all = new ArrayList<String>(jobNames);
+    Map<String, JobDetail> jobs = new HashMap<String, JobDetail>();
+    for (int from = 0; from < all.size(); from += IN_LIST_SIZE) {
+      List<String> names = all.subList(from, Math.min(all.size(), from + IN_LIST_SIZE));
+      PreparedStatement ps =
+          c.prepareStatement(
+              "SELECT JOB_NAME, JOB_DETAIL FROM "
+                  + jobsTable
+                  + " WHERE JOB_NAME IN "
+                  + placeholders(names.size()));
+      try {
+        bind(ps, 1, names);
+        ResultSet rs = ps.executeQuery();
+        while (rs.next()) {
+          jobs.put(rs.getString(1), (JobDetail) deserialize(rs.getBytes(2)));
+        }
+      } finally {
+        ps.close();
+      }
+    }
+    return jobs;
+  }
+
+  /** @return the given jobs that exist, mapped to the scheduler blocking them, if any */
+  private Map<String, String> selectBlockedBy(Connection c, Collection<String> jobNames)
+      throws SQLException {
+
+    return selectNames(c, jobsTable, "JOB_NAME", "BLOCKED_BY", jobNames);
+  }
+
+  /** @return the given triggers that exist, mapped to their jobs */
+  private Map<String, String> selectTriggerJobs(Connection c, Collection<String> triggerNames)
+      throws SQLException {
+
+    return selectNames(c, triggersTable, "TRIGGER_NAME", "JOB_NAME", triggerNames);
+  }
+
+  /** @return the given names found in the key column of the table, mapped to the value column */
+  private static Map<String, String> selectNames(
+      Connection c, String table, String keyColumn, String valueColumn, Collection<String> names)
+      throws SQLException {
+
+    List<String> all = new ArrayList<String>(names);
+    Map<String, String> found = new HashMap<String, String>();
+    for (int from = 0; from < all.size(); from += IN_LIST_SIZE) {
+      List<String> chunk = all.subList(from, Math.min(all.size(), from + IN_LIST_SIZE));
+      PreparedStatement ps =
+          c.prepareStatement(
+              "SELECT "
+                  + keyColumn
+                  + ", "
+                  + valueColumn
+                  + " FROM "
+                  + table
+                  + " WHERE "
+                  + keyColumn
+                  + " IN "
+                  + placeholders(chunk.size()));
+      try {
+        bind(ps, 1, chunk);
+        ResultSet rs = ps.executeQuery();
+        while (rs.next()) {
+          found.put(rs.getString(1), rs.getString(2));
+        }
+      } finally {
+        ps.close();
+      }
+    }
+    return found;
+  }
+
+  private static String placeholders(int count) {
+
+    StringBuilder sb = new StringBuilder(count * 3 + 1).append('(');
+    for (int i = 0; i < count; i++) {
+      sb.append(i == 0 ? "?" : ", ?");
+    }
+    return sb.append(')').toString();
+  }
+
+  private static void bind(PreparedStatement ps, int index, List<String> values)
+      throws SQLException {
+
+    for (String value : values) {
+      ps.setString(index++, value);
+    }
+  }
+
+  /** Run a statement with the given parameters, which are strings, integers or byte arrays. */
+  private static int update(Connection c, String sql, Object... params) throws SQLException {
+
+    PreparedStatement ps = c.prepareStatement(sql);
+    try {
+      for (int i = 0; i < params.length; i++) {
+        if (params[i] instanceof byte[]) {
+          ps.setBytes(i + 1, (byte[]) params[i]);
+        } else if (params[i] instanceof Integer) {
+          ps.setInt(i + 1, (Integer) params[i]);
+        } else {
+          ps.setString(i + 1, (String) params[i]);
+        }
+      }
+      return ps.executeUpdate();
+    } finally {
+      ps.close();
+    }
+  }
+
+  private Connection begin() throws JobPersistenceException {
+
+    try {
+      Connection c = dataSource.getConnection();
+      c.setAutoCommit(false);
+      return c;
+    } catch (SQLException e) {
+      throw new JobPersistenceException("Could not get a database connection.", e);
+    }
+  }
+
+  /** Roll back whatever was not committed, and close the connection. */
+  private void close(Connection c) {
+
+    if (c == null) {
+      return;
+    }
+    try {
+      c.rollback();
+    } catch (SQLException e) {
+      logger.warn("Could not roll back a JdbcJobStore transaction.", e);
+    }
+    try {
+      c.close();
+    } catch (SQLException e) {
+      logger.warn("Could not close a JdbcJobStore connection.", e);
+    }
+  }
+
+  private static boolean tableExists(DatabaseMetaData metaData, String table) throws SQLException {
+
+    String[] candidates = {table, table.toUpperCase(), table.toLowerCase()};
+    for (String candidate : candidates) {
+      ResultSet rs = metaData.getTables(null, null, candidate, null);
+      try {
+        if (rs.next()) {
+          return true;
+        }
+      } finally {
+        rs.close();
+      }
+    }
+    return false;
+  }
+
+  private static boolean supportsSkipLocked(DatabaseMetaData metaData) throws SQLException {
+
+    String product = metaData.getDatabaseProductName().toLowerCase();
+    int major = metaData.getDatabaseMajorVersion();
+    int minor = metaData.getDatabaseMinorVersion();
+    if (product.contains("postgres")) {
+      return major > 9 || (major == 9 && minor >= 5);
+    } else if (product.contains("mariadb")) {
+      return major > 10 || (major == 10 && minor >= 6);
+    } else if (product.contains("mysql")) {
+      return major >= 8;
+    } else if (product.contains("oracle")) {
+      return true;
+    }
+    // H2 takes the clause, but locks every due row before limiting them, which is much slower
+    return false;
+  }
+
+  private static byte[] serialize(Object object) throws JobPersistenceException {
+
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+      ObjectOutputStream out = new ObjectOutputStream(bytes);
+      out.writeObject(object);
+      out.close();
+      return bytes.toByteArray();
+    } catch (IOException e) {
+      throw new JobPersistenceException(
+          "Jobs and triggers stored in a JdbcJobStore must be serializable.", e);
+    }
+  }
+
+  private static Object deserialize(byte[] bytes) throws JobPersistenceException {
+
+    try {
+      return new ObjectInputStream(new ByteArrayInputStream(bytes)).readObject();
+    } catch (IOException e) {
+      throw new JobPersistenceException("Could not read a stored job or trigger.", e);
+    } catch (ClassNotFoundException e) {
+      throw new JobPersistenceException("Could not read a stored job or trigger.", e);
+    }
+  }
+
+  /** A completion waiting to be written. */
+  private static class Completion {
+
+    final OperableTrigger trigger;
+
+    final JobDetail jobDetail;
+
+    final CompletedExecutionInstruction instruction;
+
+    Completion(
+        OperableTrigger trigger, JobDetail jobDetail, CompletedExecutionInstruction instruction) {
+
+      this.trigger = trigger;
+      this.jobDetail = jobDetail;
+      this.instruction = instruction;
+    }
+  }
+
+  /** A batch of one statement, prepared on first use. */
+  private static class Batch {
+
+    private final Connection connection;
+
+    private final String sql;
+
+    private PreparedStatement statement;
+
+    Batch(Connection connection, String sql) {
+
+      this.connection = connection;
+      this.sql = sql;
+    }
+
+    PreparedStatement statement() throws SQLException {
+
+      if (statement == null) {
+        statement = connection.prepareStatement(sql);
+      }
+      return statement;
+    }
+
+    /** @return the update counts, none if nothing was added */
+    int[] execute() throws SQLException {
+
+      return (statement == null) ? new int[0] : statement.executeBatch();
+    }
+
+    void close() throws SQLException {
+
+      if (statement != null) {
+        statement.close();
+      }
+    }
+  }
+}
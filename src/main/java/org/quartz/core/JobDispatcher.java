@@ -0,0 +1,409 @@
+package org.quartz.core;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import org.quartz.QuartzScheduler;
+import org.quartz.exceptions.SchedulerException;
+import org.quartz.triggers.Trigger.CompletedExecutionInstruction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the jobs of the triggers a <code>{@link QuartzSchedulerThread}</code> fired: creates their
+ * <code>{@link JobRunShell}</code>s, which instantiates the jobs and builds their contexts, and
+ * hands them to the <code>{@link ThreadPool}</code>.
+ *
+ * <p>Without preparation threads this happens on the scheduler thread, as it fires each trigger.
+ * With them dispatch is pipelined: the scheduler thread only queues the fired bundles, and the
+ * preparation threads take them from the queue and prepare and hand them on, so a slow job
+ * constructor or a saturated thread pool no longer holds up the firing of other triggers.
+ *
+ * <p>With priority dispatch the queue is ordered by the priorities of the triggers rather than by
+ * the order they fired in, and the scheduler thread keeps firing due triggers into it while the
+ * thread pool is saturated, up to a depth, so urgent jobs overtake the ones waiting. A waiting job
+ * gains a priority level for every aging interval it has waited, so the others still run
+ * eventually.
+ *
+ * <p>Jobs beyond a limit of the <code>{@link RateLimiter}</code> are dropped, or deferred: a timer
+ * thread, started with the first deferral, dispatches them once the limit permits.
+ *
+ * <p>Once halted, no more jobs are taken from the queue or the timer; the jobs still waiting there
+ * are vetoed, completing their triggers, when the dispatcher is joined.
+ */
+class JobDispatcher {
+
+  private final QuartzScheduler quartzScheduler;
+
+  private final QuartzSchedulerResources quartzSchedulerResources;
+
+  private final BlockingQueue<QueuedBundle> firedBundles;
+
+  /** 0 to queue in firing order */
+  private final long priorityAgingNanos;
+
+  /** the number of queued bundles the scheduler thread stops firing at, with priority dispatch */
+  private final int queueDepth;
+
+  /** notified as the queue drains, with priority dispatch */
+  private final Object queueSpace = new Object();
+
+  /** only the scheduler thread dispatches */
+  private long queuedCount = 0;
+
+  private final Thread[] preparers;
+
+  private final String threadName;
+
+  /** dispatches the deferred jobs; guarded by this */
+  private ScheduledThreadPoolExecutor deferrer = null;
+
+  /** the bundles waiting in the deferrer; guarded by this */
+  private final Set<TriggerFiredBundle> deferredBundles = new HashSet<TriggerFiredBundle>();
+
+  /** set holding the monitor of firedBundles, so that no bundle is queued once it is */
+  private volatile boolean halted = false;
+
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  /**
+   * @param threadName the name of the scheduler thread, to derive the preparation threads' from
+   * @param preparationThreadCount the number of preparation threads, 0 to dispatch on the scheduler
+   *     thread
+   */
+  JobDispatcher(
+      QuartzScheduler quartzScheduler,
+      QuartzSchedulerResources quartzSchedulerResources,
+      String threadName,
+      int preparationThreadCount) {
+
+    this.quartzScheduler = quartzScheduler;
+    this.quartzSchedulerResources = quartzSchedulerResources;
+    this.threadName = threadName;
+    priorityAgingNanos = quartzSchedulerResources.getPriorityAging() * 1000000L;
+    queueDepth = quartzSchedulerResources.getDispatchQueueDepth();
+    preparers = new Thread[preparationThreadCount];
+    firedBundles =
+        isPriorityDispatch()
+            ? new PriorityBlockingQueue<QueuedBundle>()
+            : new LinkedBlockingQueue<QueuedBundle>();
+    for (int i = 0; i < preparationThreadCount; i++) {
+      preparers[i] =
+          new Thread(quartzScheduler.getSchedulerThreadGroup(), threadName + "-Preparer-" + i) {
+
+            @Override
+            public void run() {
+
+              prepareLoop();
+            }
+          };
+      preparers[i].setDaemon(quartzSchedulerResources.getMakeSchedulerThreadDaemon());
+    }
+  }
+
+  void start() {
+
+    for (Thread preparer : preparers) {
+      preparer.start();
+    }
+  }
+
+  /**
+   * Stop taking jobs from the queue and the timer. The preparation threads end once they have
+   * handed on the jobs they hold; {@link #join()} waits for them.
+   */
+  void halt() {
+
+    synchronized (firedBundles) {
+      halted = true;
+    }
+    synchronized (queueSpace) {
+      queueSpace.notifyAll();
+    }
+    synchronized (this) {
+      if (deferrer != null) {
+        deferrer.shutdown();
+      }
+    }
+  }
+
+  /**
+   * Wait for the preparation threads and the timer thread of a halted dispatcher to end, then veto
+   * the jobs left in the queue and the timer, so that their triggers complete while the job store
+   * is still open.
+   */
+  void join() {
+
+    for (Thread preparer : preparers) {
+      try {
+        preparer.join();
+      } catch (InterruptedException ignore) {
+      }
+    }
+    ScheduledThreadPoolExecutor deferrer;
+    synchronized (this) {
+      deferrer = this.deferrer;
+    }
+    if (deferrer != null) {
+      try {
+        deferrer.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+      } catch (InterruptedException ignore) {
+      }
+    }
+    List<TriggerFiredBundle> leftBundles = new ArrayList<TriggerFiredBundle>();
+    synchronized (this) {
+      leftBundles.addAll(deferredBundles);
+      deferredBundles.clear();
+    }
+    QueuedBundle queued;
+    while ((queued = firedBundles.poll()) != null) {
+      leftBundles.add(queued.bundle);
+    }
+    for (TriggerFiredBundle bundle : leftBundles) {
+      logger.debug("Vetoing the job of trigger " + bundle.getTrigger().getName() + " at shutdown");
+      prepareAndRunJob(bundle, true);
+    }
+  }
+
+  /** @return the number of fired bundles not yet handed to the thread pool */
+  int getPendingCount() {
+
+    return firedBundles.size();
+  }
+
+  /** @return whether the queue is ordered by priority, and filled while the pool is saturated */
+  boolean isPriorityDispatch() {
+
+    return priorityAgingNanos > 0 && preparers.length > 0;
+  }
+
+  /**
+   * Block until the queue of a priority dispatch is below its depth, or the dispatcher is halted.
+   *
+   * @return the number of bundles the queue can take, at least 1
+   */
+  int blockForQueueSpace() {
+
+    synchronized (queueSpace) {
+      while (firedBundles.size() >= queueDepth && !halted) {
+        try {
+          queueSpace.wait(500L);
+        } catch (InterruptedException ignore) {
+        }
+      }
+    }
+    return Math.max(1, queueDepth - firedBundles.size());
+  }
+
+  /** Run the job of the given fired trigger, now or once a preparation thread takes it. */
+  void dispatch(TriggerFiredBundle bundle) {
+
+    if (preparers.length == 0) {
+      runJob(bundle);
+      return;
+    }
+    synchronized (firedBundles) {
+      if (!halted) {
+        firedBundles.add(new QueuedBundle(bundle, System.nanoTime(), queuedCount++));
+        return;
+      }
+    }
+    // fired as the scheduler shut down
+    prepareAndRunJob(bundle, true);
+  }
+
+  private void prepareLoop() {
+
+    while (!halted) {
+      if (isPriorityDispatch()) {
+        // take the most urgent job once a worker thread is free, instead of waiting with one
+        quartzSchedulerResources.getThreadPool().blockForAvailableThreads();
+        if (halted) {
+          return;
+        }
+      }
+      QueuedBundle queued;
+      try {
+        queued = firedBundles.poll(500L, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException ignore) {
+        continue;
+      }
+      if (queued != null) {
+        if (isPriorityDispatch()) {
+          synchronized (queueSpace) {
+            queueSpace.notifyAll();
+          }
+        }
+        runJob(queued.bundle);
+        quartzSchedulerResources
+            .getDispatchDelayMetrics()
+            .recordDelay(queued.priority, System.nanoTime() - queued.queuedNanos);
+      }
+    }
+  }
+
+  private void runJob(TriggerFiredBundle bundle) {
+
+    long delay;
+    try {
+      delay = quartzSchedulerResources.getRateLimiter().acquire(bundle.getJobDetail());
+    } catch (RuntimeException e) {
+      logger.error("Invalid rate limit of job " + bundle.getJobDetail().getName(), e);
+      setAllJobTriggersError(bundle);
+      return;
+    }
+    if (delay > 0) {
+      defer(bundle, delay);
+    } else {
+      prepareAndRunJob(bundle, delay < 0);
+    }
+  }
+
+  /** Run the job once the given nanoseconds have passed, on the timer thread. */
+  private synchronized void defer(final TriggerFiredBundle bundle, long delay) {
+
+    deferredBundles.add(bundle);
+    if (halted) {
+      // join() vetoes the job
+      return;
+    }
+    if (deferrer == null) {
+      deferrer =
+          new ScheduledThreadPoolExecutor(
+              1,
+              new ThreadFactory() {
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+
+                  Thread thread =
+                      new Thread(
+                          quartzScheduler.getSchedulerThreadGroup(),
+                          runnable,
+                          threadName + "-Deferrer");
+                  thread.setDaemon(quartzSchedulerResources.getMakeSchedulerThreadDaemon());
+                  return thread;
+                }
+              });
+      deferrer.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+    try {
+      deferrer.schedule(
+          new Runnable() {
+
+            @Override
+            public void run() {
+
+              synchronized (JobDispatcher.this) {
+                if (!deferredBundles.remove(bundle)) {
+                  return;
+                }
+              }
+              prepareAndRunJob(bundle, false);
+            }
+          },
+          delay,
+          TimeUnit.NANOSECONDS);
+    } catch (RejectedExecutionException e) {
+      // halted, with the scheduler shutting down; join() vetoes the job
+      logger.debug("Not deferring the job of trigger " + bundle.getTrigger().getName());
+    }
+  }
+
+  /**
+   * Create the job and hand it to the thread pool, or, if a rate limit dropped it, tell the
+   * listeners and complete its trigger.
+   */
+  private void prepareAndRunJob(TriggerFiredBundle bundle, boolean dropped) {
+
+    JobRunShell shell = null;
+    try {
+      shell = quartzSchedulerResources.getJobRunShellFactory().createJobRunShell(bundle);
+      shell.initialize(quartzScheduler);
+    } catch (SchedulerException se) {
+      setAllJobTriggersError(bundle);
+      return;
+    } catch (RuntimeException e) {
+      logger.error("RuntimeException while preparing trigger " + bundle.getTrigger(), e);
+      setAllJobTriggersError(bundle);
+      return;
+    }
+
+    if (dropped) {
+      shell.veto();
+      return;
+    }
+
+    if (quartzSchedulerResources.getThreadPool().runInThread(shell) == false) {
+      // this case should never happen, as it is indicative of the
+      // scheduler being shutdown or a bug in the thread pool or
+      // a thread pool being used concurrently - which the docs
+      // say not to do...
+      logger.error("ThreadPool.runInThread() return false!");
+      setAllJobTriggersError(bundle);
+    }
+  }
+
+  private void setAllJobTriggersError(TriggerFiredBundle bundle) {
+
+    try {
+      quartzSchedulerResources
+          .getJobStore()
+          .triggeredJobComplete(
+              bundle.getTrigger(),
+              bundle.getJobDetail(),
+              CompletedExecutionInstruction.SET_ALL_JOB_TRIGGERS_ERROR);
+    } catch (SchedulerException se) {
+      quartzScheduler.notifySchedulerListenersError(
+          "An error occurred while placing job's triggers in error state '"
+              + bundle.getTrigger().getName()
+              + "'",
+          se);
+    }
+  }
+
+  /**
+   * A bundle waiting in the queue. With priority dispatch, bundles are ordered by the time they
+   * were queued, moved earlier by an aging interval per priority level: a bundle goes ahead of one
+   * of a lower priority unless that one has waited longer by the aging intervals between their
+   * priorities. Ties go in the order queued.
+   */
+  private final class QueuedBundle implements Comparable<QueuedBundle> {
+
+    private final TriggerFiredBundle bundle;
+
+    private final int priority;
+
+    private final long queuedNanos;
+
+    private final long rank;
+
+    private final long sequence;
+
+    QueuedBundle(TriggerFiredBundle bundle, long queuedNanos, long sequence) {
+
+      this.bundle = bundle;
+      this.priority = bundle.getTrigger().getPriority();
+      this.queuedNanos = queuedNanos;
+      this.rank = queuedNanos - priority * priorityAgingNanos;
+      this.sequence = sequence;
+    }
+
+    @Override
+    public int compareTo(QueuedBundle other) {
+
+      if (rank != other.rank) {
+        return rank < other.rank ? -1 : 1;
+      }
+      return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+    }
+  }
+}
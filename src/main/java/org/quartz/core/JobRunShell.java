@@ -1,5 +1,6 @@
 package org.quartz.core;
 
+import java.util.List;
 import org.quartz.QuartzScheduler;
 import org.quartz.exceptions.JobExecutionException;
 import org.quartz.exceptions.JobPersistenceException;
@@ -8,6 +9,7 @@ import org.quartz.jobs.Job;
 import org.quartz.jobs.JobDetail;
 import org.quartz.listeners.SchedulerListenerSupport;
 import org.quartz.triggers.OperableTrigger;
+import org.quartz.triggers.Trigger;
 import org.quartz.triggers.Trigger.CompletedExecutionInstruction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -70,6 +72,12 @@ public class JobRunShell extends SchedulerListenerSupport implements Runnable {
    * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
    */
 
+  @Override
+  public void jobsScheduled(List<JobDetail> jobDetails, List<Trigger> triggers) {
+
+    // not interested; a running job need not walk every batch scheduled meanwhile
+  }
+
   @Override
   public void schedulerShuttingdown() {
 
@@ -109,6 +117,35 @@ public class JobRunShell extends SchedulerListenerSupport implements Runnable {
     this.jec = new JobExecutionContextImpl(scheduler, firedTriggerBundle, job);
   }
 
+  /**
+   * Pass on the execution, as a rate limit does: tell the job listeners it was vetoed, and complete
+   * the trigger as if the job had run.
+   */
+  void veto() {
+
+    OperableTrigger trigger = (OperableTrigger) jec.getTrigger();
+    JobDetail jobDetail = jec.getJobDetail();
+    try {
+      qs.notifyJobListenersWasVetoed(jec);
+    } catch (SchedulerException se) {
+      qs.notifySchedulerListenersError(
+          "Unable to notify JobListener(s) of vetoed execution. trigger= "
+              + trigger.getName()
+              + " job= "
+              + jobDetail.getName(),
+          se);
+    }
+    try {
+      qs.notifyJobStoreJobVetoed(trigger, jobDetail, trigger.executionComplete(jec, null));
+    } catch (JobPersistenceException jpe) {
+      qs.notifySchedulerListenersError(
+          "An error occured while marking vetoed job complete. job= '"
+              + jobDetail.getName()
+              + "'",
+          jpe);
+    }
+  }
+
   private void requestShutdown() {
 
     shutdownRequested = true;
@@ -365,6 +402,12 @@ public class JobRunShell extends SchedulerListenerSupport implements Runnable {
     public VetoedException() {}
   }
 
+  /** @return the job to run, or null before the shell has one */
+  JobDetail getJobDetail() {
+
+    return firedTriggerBundle == null ? null : firedTriggerBundle.getJobDetail();
+  }
+
   public String getJobName() {
 
     String jobName = firedTriggerBundle.getJobDetail().getName();
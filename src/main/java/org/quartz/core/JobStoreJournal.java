@@ -0,0 +1,368 @@
+package org.quartz.core;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * The append-only log of a {@link JournalingJobStore}.
+ *
+ * <p>Records are appended to a buffer in memory and written out by a background thread, which
+ * forces the file to disk once per batch: every writer that appended while the previous batch was
+ * being forced shares the next fsync (group commit). Each record is framed by its length and a
+ * CRC32 checksum, so a record torn by a crash is recognized and, together with anything after it,
+ * ignored when the log is read back.
+ *
+ * <p>The log is split into generations of one file each. Rotating to a new generation allows the
+ * store to write a snapshot of everything logged so far and delete the older files.
+ */
+class JobStoreJournal {
+
+  static final byte JOB_STORED = 1;
+
+  static final byte JOB_REMOVED = 2;
+
+  static final byte TRIGGER_STORED = 3;
+
+  static final byte TRIGGER_REMOVED = 4;
+
+  private static final String FILE_PREFIX = "journal-";
+
+  private static final String FILE_SUFFIX = ".log";
+
+  /** bytes of framing around the type and payload of a record: length and checksum */
+  private static final int FRAME_SIZE = 8;
+
+  private final File directory;
+
+  /** Held by whoever writes to the file: the flusher for a batch, or a rotation. */
+  private final Object writeLock = new Object();
+
+  /** guarded by writeLock */
+  private FileChannel channel;
+
+  /** guarded by writeLock */
+  private long generation;
+
+  /** records appended but not yet written; guarded by this */
+  private final ByteArrayOutputStream pending = new ByteArrayOutputStream(64 * 1024);
+
+  /** number of records appended, and the number known to be on disk; guarded by this */
+  private long appendedSeq = 0L;
+
+  private long durableSeq = 0L;
+
+  /** bytes appended to the current generation; guarded by this */
+  private long size = 0L;
+
+  /** guarded by this */
+  private IOException failure;
+
+  /** guarded by this */
+  private boolean closed = false;
+
+  private final Thread flusher;
+
+  /**
+   * Open a new, empty journal file for the given generation and start the flusher thread.
+   *
+   * @param directory
+   * @param generation
+   */
+  JobStoreJournal(File directory, long generation) throws IOException {
+
+    this.directory = directory;
+    this.generation = generation;
+    this.channel = open(file(directory, generation));
+
+    flusher =
+        new Thread(
+            new Runnable() {
+
+              @Override
+              public void run() {
+
+                flushLoop();
+              }
+            },
+            "JobStoreJournal flusher");
+    flusher.setDaemon(true);
+    flusher.start();
+  }
+
+  /**
+   * Append a record. It is written to disk shortly after, in the background.
+   *
+   * @return the sequence number of the record, to wait for with {@link #awaitDurable(long)}
+   */
+  synchronized long append(byte type, byte[] payload) throws IOException {
+
+    if (failure != null) {
+      throw new IOException("The journal could not be written earlier.", failure);
+    }
+    if (closed) {
+      throw new IOException("The journal is closed.");
+    }
+
+    CRC32 crc = new CRC32();
+    crc.update(type);
+    crc.update(payload, 0, payload.length);
+
+    writeInt(payload.length + 1);
+    pending.write(type);
+    pending.write(payload, 0, payload.length);
+    writeInt((int) crc.getValue());
+
+    size += payload.length + 1 + FRAME_SIZE;
+    appendedSeq++;
+    notifyAll();
+    return appendedSeq;
+  }
+
+  private void writeInt(int v) {
+
+    pending.write(v >>> 24);
+    pending.write(v >>> 16);
+    pending.write(v >>> 8);
+    pending.write(v);
+  }
+
+  /** Wait until the record with the given sequence number, and all before it, are on disk. */
+  synchronized void awaitDurable(long seq) throws IOException {
+
+    boolean interrupted = false;
+    while (durableSeq < seq && failure == null) {
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    if (durableSeq < seq) {
+      throw new IOException("The journal could not be written.", failure);
+    }
+  }
+
+  /** @return the number of bytes appended to the current generation */
+  synchronized long size() {
+
+    return size;
+  }
+
+  /**
+   * Force everything appended so far into the current file and continue in a new, empty file.
+   *
+   * @return the new generation
+   */
+  long rotate() throws IOException {
+
+    synchronized (writeLock) {
+      writeBatch();
+      channel.close();
+      generation++;
+      channel = open(file(directory, generation));
+      synchronized (this) {
+        size = pending.size();
+      }
+      return generation;
+    }
+  }
+
+  /** Write out and force everything appended, then stop the flusher and close the file. */
+  void close() throws IOException {
+
+    synchronized (this) {
+      closed = true;
+      notifyAll();
+    }
+    try {
+      flusher.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    synchronized (writeLock) {
+      try {
+        writeBatch();
+      } finally {
+        channel.close();
+      }
+    }
+  }
+
+  private void flushLoop() {
+
+    while (true) {
+      synchronized (this) {
+        while (pending.size() == 0 && !closed) {
+          try {
+            wait();
+          } catch (InterruptedException e) {
+            // keep flushing until closed
+          }
+        }
+        if (pending.size() == 0) {
+          return;
+        }
+      }
+      try {
+        synchronized (writeLock) {
+          writeBatch();
+        }
+      } catch (IOException e) {
+        synchronized (this) {
+          failure = e;
+          notifyAll();
+        }
+        return;
+      }
+    }
+  }
+
+  /** Write and force the pending records, then wake up their writers. Hold writeLock. */
+  private void writeBatch() throws IOException {
+
+    byte[] batch;
+    long seq;
+    synchronized (this) {
+      if (pending.size() == 0) {
+        return;
+      }
+      batch = pending.toByteArray();
+      pending.reset();
+      seq = appendedSeq;
+    }
+
+    ByteBuffer buffer = ByteBuffer.wrap(batch);
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    channel.force(false);
+
+    synchronized (this) {
+      durableSeq = seq;
+      notifyAll();
+    }
+  }
+
+  private static FileChannel open(File file) throws IOException {
+
+    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    raf.setLength(0L);
+    return raf.getChannel();
+  }
+
+  static File file(File directory, long generation) {
+
+    return new File(directory, FILE_PREFIX + generation + FILE_SUFFIX);
+  }
+
+  /** @return the generations of the journal files in the directory, in ascending order */
+  static List<Long> generations(File directory) {
+
+    List<Long> generations = new ArrayList<Long>();
+    String[] names = directory.list();
+    if (names != null) {
+      for (String name : names) {
+        if (name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX)) {
+          try {
+            generations.add(
+                Long.valueOf(
+                    name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length())));
+          } catch (NumberFormatException e) {
+            // not one of ours
+          }
+        }
+      }
+    }
+    Collections.sort(generations);
+    return generations;
+  }
+
+  /** Delete the journal files of all generations before the given one. */
+  static void deleteBefore(File directory, long generation) {
+
+    for (Long g : generations(directory)) {
+      if (g.longValue() < generation) {
+        file(directory, g.longValue()).delete();
+      }
+    }
+  }
+
+  /** Reads the records of one journal file, up to its end or the first torn record. */
+  static final class Reader {
+
+    private final DataInputStream in;
+
+    /** bytes of the file not read yet */
+    private long remaining;
+
+    private byte type;
+
+    private byte[] payload;
+
+    Reader(File file) throws IOException {
+
+      in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024));
+      remaining = file.length();
+    }
+
+    /** @return <code>false</code> at the end of the file or at a torn record */
+    boolean next() throws IOException {
+
+      try {
+        if (remaining < FRAME_SIZE) {
+          return false;
+        }
+        int length = in.readInt();
+        if (length < 1 || length > remaining - FRAME_SIZE) {
+          return false;
+        }
+        remaining -= length + FRAME_SIZE;
+        byte[] record = new byte[length];
+        in.readFully(record);
+        int checksum = in.readInt();
+
+        CRC32 crc = new CRC32();
+        crc.update(record, 0, length);
+        if ((int) crc.getValue() != checksum) {
+          return false;
+        }
+        type = record[0];
+        payload = new byte[length - 1];
+        System.arraycopy(record, 1, payload, 0, payload.length);
+        return true;
+      } catch (EOFException e) {
+        return false;
+      }
+    }
+
+    byte getType() {
+
+      return type;
+    }
+
+    byte[] getPayload() {
+
+      return payload;
+    }
+
+    void close() throws IOException {
+
+      in.close();
+    }
+  }
+}
@@ -0,0 +1,858 @@
+package org.quartz.core;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.quartz.exceptions.JobPersistenceException;
+import org.quartz.exceptions.ObjectAlreadyExistsException;
+import org.quartz.exceptions.SchedulerConfigException;
+import org.quartz.exceptions.SchedulerException;
+import org.quartz.jobs.JobDetail;
+import org.quartz.triggers.CronExpression;
+import org.quartz.triggers.OperableTrigger;
+import org.quartz.triggers.Trigger;
+import org.quartz.triggers.Trigger.CompletedExecutionInstruction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A <code>{@link JobStore}</code> that keeps its jobs and triggers in a {@link RAMJobStore} and
+ * preserves them across restarts.
+ *
+ * <p>Every change of a job or trigger (storing, removing, firing, completing) is appended to a
+ * write-ahead journal in the store's directory before the call returns. A job or trigger stored or
+ * removed is only changed in memory once its record is on disk, so a change the journal cannot take
+ * fails without taking effect. A background thread forces the journal to disk once per batch of
+ * records, so concurrent callers share one fsync (group commit). Once the journal grows beyond the
+ * {@link #setCompactionThreshold(long) compaction threshold}, and when the store shuts down, the
+ * complete state is written to a binary snapshot and the journal starts over. At startup the
+ * snapshot is memory-mapped and loaded, and only the journal written since is replayed.
+ *
+ * <p>Jobs and triggers are persisted with Java serialization, so everything in their <code>
+ * JobDataMap</code>s must be serializable. Transient trigger states are not persisted: after a
+ * restart every trigger that is neither complete nor in error is waiting, and triggers that missed
+ * their fire time while the scheduler was down are handled by their misfire instruction.
+ */
+public class JournalingJobStore
+    implements BatchJobStore, TimeOrderedJobStore, ShutdownAwareJobStore {
+
+  /*
+   * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~ Data members.
+   * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+   */
+
+  private static final String SNAPSHOT_FILE = "snapshot.bin";
+
+  private static final String SNAPSHOT_TEMP_FILE = "snapshot.tmp";
+
+  private static final int SNAPSHOT_MAGIC = 0x53444c53;
+
+  private static final int SNAPSHOT_VERSION = 1;
+
+  /** objects written between resets of the snapshot stream, to bound its back-reference table */
+  private static final int SNAPSHOT_RESET_INTERVAL = 16384;
+
+  private final File directory;
+
+  private final RAMJobStore store = new RAMJobStore();
+
+  /**
+   * Orders every change of the store with its journal record. Storing or removing a job or trigger
+   * holds it until the record is on disk, so no other change comes in between.
+   */
+  private final Object journalLock = new Object();
+
+  private JobStoreJournal journal;
+
+  /** Wakes up the compactor thread. */
+  private final Object compactionLock = new Object();
+
+  private Thread compactor;
+
+  /** guarded by compactionLock */
+  private boolean compactionRequested = false;
+
+  /** guarded by compactionLock */
+  private boolean shutdown = false;
+
+  private long compactionThreshold = 64L * 1024 * 1024;
+
+  private boolean synchronousCommit = true;
+
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  /*
+   * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~ Constructors.
+   * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+   */
+
+  /**
+   * Create a new <code>JournalingJobStore</code>.
+   *
+   * @param directory the directory holding the snapshot and journal files, created if missing
+   */
+  public JournalingJobStore(File directory) {
+
+    this.directory = directory;
+  }
+
+  /*
+   * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~ Interface.
+   * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+   */
+
+  public long getCompactionThreshold() {
+
+    return compactionThreshold;
+  }
+
+  /**
+   * The size in bytes the journal may reach before it is compacted into a new snapshot.
+   *
+   * @param compactionThreshold
+   */
+  public void setCompactionThreshold(long compactionThreshold) {
+
+    if (compactionThreshold < 1) {
+      throw new IllegalArgumentException("The compaction threshold must be larger than 0");
+    }
+    this.compactionThreshold = compactionThreshold;
+  }
+
+  public boolean isSynchronousCommit() {
+
+    return synchronousCommit;
+  }
+
+  /**
+   * Whether changes wait until their journal records are on disk before returning (the default).
+   * If <code>false</code>, records are still forced to disk right away, but a crash may lose the
+   * last changes.
+   *
+   * @param synchronousCommit
+   */
+  public void setSynchronousCommit(boolean synchronousCommit) {
+
+    this.synchronousCommit = synchronousCommit;
+  }
+
+  /** @see RAMJobStore#setUseTimingWheel(boolean) */
+  public void setUseTimingWheel(boolean useTimingWheel) {
+
+    store.setUseTimingWheel(useTimingWheel);
+  }
+
+  public void setMisfireThreshold(long misfireThreshold) {
+
+    store.setMisfireThreshold(misfireThreshold);
+  }
+
+  /** @see RAMJobStore#getEarliestNextFireTime() */
+  @Override
+  public long getEarliestNextFireTime() {
+
+    return store.getEarliestNextFireTime();
+  }
+
+  /** Recover the jobs and triggers from the snapshot and journal, and start journaling. */
+  @Override
+  public void initialize(SchedulerSignaler signaler) throws SchedulerConfigException {
+
+    store.initialize(signaler);
+
+    long t0 = System.currentTimeMillis();
+    try {
+      if (!directory.isDirectory() && !directory.mkdirs()) {
+        throw new IOException("Could not create directory " + directory);
+      }
+      recover();
+    } catch (IOException e) {
+      throw new SchedulerConfigException("Could not recover the job store from " + directory, e);
+    } catch (ClassNotFoundException e) {
+      throw new SchedulerConfigException("Could not recover the job store from " + directory, e);
+    }
+
+    compactor =
+        new Thread(
+            new Runnable() {
+
+              @Override
+              public void run() {
+
+                compactLoop();
+              }
+            },
+            "JournalingJobStore compactor");
+    compactor.setDaemon(true);
+    compactor.start();
+
+    logger.info(
+        "JournalingJobStore initialized with "
+            + store.getJobKeys().size()
+            + " jobs from "
+            + directory
+            + " in "
+            + (System.currentTimeMillis() - t0)
+            + " ms.");
+  }
+
+  @Override
+  public void schedulerStarted() throws SchedulerException {
+
+    store.schedulerStarted();
+  }
+
+  /** Compact the journal into a snapshot, so the next start has nothing to replay. */
+  @Override
+  public void shutdown() {
+
+    if (journal == null) {
+      return;
+    }
+    boolean compactionPending;
+    synchronized (compactionLock) {
+      if (shutdown) {
+        return;
+      }
+      shutdown = true;
+      compactionPending = compactionRequested;
+      compactionLock.notifyAll();
+    }
+    try {
+      compactor.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    try {
+      if (compactionPending || journal.size() > 0) {
+        compact();
+      }
+    } catch (IOException e) {
+      logger.error("Could not compact the job store journal on shutdown.", e);
+    }
+    try {
+      journal.close();
+    } catch (IOException e) {
+      logger.error("Could not close the job store journal.", e);
+    }
+    store.shutdown();
+  }
+
+  @Override
+  public void storeJobAndTrigger(JobDetail newJob, OperableTrigger newTrigger)
+      throws JobPersistenceException {
+
+    storeJob(newJob, false);
+    storeTrigger(newTrigger, false);
+  }
+
+  @Override
+  public void storeJob(JobDetail newJob, boolean replaceExisting)
+      throws JobPersistenceException {
+
+    byte[] record = serialize(newJob, -1);
+    synchronized (journalLock) {
+      if (!replaceExisting && store.containsJob(newJob.getName())) {
+        throw new ObjectAlreadyExistsException(newJob);
+      }
+      commit(append(JobStoreJournal.JOB_STORED, record));
+      store.storeJob(newJob, replaceExisting);
+    }
+  }
+
+  @Override
+  public void storeJobsAndTriggers(
+      Map<JobDetail, List<OperableTrigger>> triggersAndJobs, boolean replace)
+      throws JobPersistenceException {
+
+    List<byte[]> jobRecords = new ArrayList<byte[]>(triggersAndJobs.size());
+    List<byte[]> triggerRecords = new ArrayList<byte[]>();
+    for (Map.Entry<JobDetail, List<OperableTrigger>> entry : triggersAndJobs.entrySet()) {
+      jobRecords.add(serialize(entry.getKey(), -1));
+      for (OperableTrigger trigger : entry.getValue()) {
+        triggerRecords.add(serialize(trigger, TriggerWrapper.STATE_WAITING));
+      }
+    }
+    long seq = 0L;
+    synchronized (journalLock) {
+      Set<String> jobKeys = new HashSet<String>();
+      for (JobDetail jobDetail : triggersAndJobs.keySet()) {
+        if (!replace && store.containsJob(jobDetail.getName())) {
+          throw new ObjectAlreadyExistsException(jobDetail);
+        }
+        jobKeys.add(jobDetail.getName());
+      }
+      for (List<OperableTrigger> triggers : triggersAndJobs.values()) {
+        for (OperableTrigger trigger : triggers) {
+          if (!replace && store.containsTrigger(trigger.getName())) {
+            throw new ObjectAlreadyExistsException(trigger);
+          }
+          if (!jobKeys.contains(trigger.getJobName())) {
+            checkJobExists(trigger);
+          }
+        }
+      }
+      for (byte[] record : jobRecords) {
+        seq = append(JobStoreJournal.JOB_STORED, record);
+      }
+      for (byte[] record : triggerRecords) {
+        seq = append(JobStoreJournal.TRIGGER_STORED, record);
+      }
+      // one wait for the whole batch
+      commit(seq);
+      store.storeJobsAndTriggers(triggersAndJobs, replace);
+    }
+  }
+
+  @Override
+  public boolean removeJob(String jobKey) throws JobPersistenceException {
+
+    synchronized (journalLock) {
+      if (!store.containsJob(jobKey)) {
+        return false;
+      }
+      commit(append(JobStoreJournal.JOB_REMOVED, serialize(jobKey, -1)));
+      return store.removeJob(jobKey);
+    }
+  }
+
+  @Override
+  public JobDetail retrieveJob(String jobKey) {
+
+    return store.retrieveJob(jobKey);
+  }
+
+  @Override
+  public void storeTrigger(OperableTrigger newTrigger, boolean replaceExisting)
+      throws JobPersistenceException {
+
+    byte[] record = serialize(newTrigger, TriggerWrapper.STATE_WAITING);
+    synchronized (journalLock) {
+      if (!replaceExisting && store.containsTrigger(newTrigger.getName())) {
+        throw new ObjectAlreadyExistsException(newTrigger);
+      }
+      checkJobExists(newTrigger);
+      commit(append(JobStoreJournal.TRIGGER_STORED, record));
+      store.storeTrigger(newTrigger, replaceExisting);
+    }
+  }
+
+  @Override
+  public boolean removeTrigger(String triggerKey) throws JobPersistenceException {
+
+    synchronized (journalLock) {
+      if (!store.containsTrigger(triggerKey)) {
+        return false;
+      }
+      commit(append(JobStoreJournal.TRIGGER_REMOVED, serialize(triggerKey, -1)));
+      return store.removeTrigger(triggerKey);
+    }
+  }
+
+  @Override
+  public boolean replaceTrigger(String triggerKey, OperableTrigger newTrigger)
+      throws JobPersistenceException {
+
+    byte[] record = serialize(newTrigger, TriggerWrapper.STATE_WAITING);
+    synchronized (journalLock) {
+      OperableTrigger oldTrigger = store.retrieveTrigger(triggerKey);
+      if (oldTrigger == null) {
+        return false;
+      }
+      if (!oldTrigger.getJobName().equals(newTrigger.getJobName())) {
+        throw new JobPersistenceException(
+            "New trigger is not related to the same job as the old trigger.");
+      }
+      if (!triggerKey.equals(newTrigger.getName())) {
+        if (store.containsTrigger(newTrigger.getName())) {
+          throw new ObjectAlreadyExistsException(newTrigger);
+        }
+        append(JobStoreJournal.TRIGGER_REMOVED, serialize(triggerKey, -1));
+      }
+      commit(append(JobStoreJournal.TRIGGER_STORED, record));
+      return store.replaceTrigger(triggerKey, newTrigger);
+    }
+  }
+
+  @Override
+  public OperableTrigger retrieveTrigger(String triggerKey) {
+
+    return store.retrieveTrigger(triggerKey);
+  }
+
+  @Override
+  public Calendar retrieveCalendar(String calName) {
+
+    return store.retrieveCalendar(calName);
+  }
+
+  @Override
+  public List<Trigger> getTriggersForJob(String jobKey) {
+
+    return store.getTriggersForJob(jobKey);
+  }
+
+  @Override
+  public Set<String> getJobKeys() {
+
+    return store.getJobKeys();
+  }
+
+  @Override
+  public List<OperableTrigger> acquireNextTriggers(
+      long noLaterThan, int maxCount, long timeWindow) {
+
+    return store.acquireNextTriggers(noLaterThan, maxCount, timeWindow);
+  }
+
+  @Override
+  public void releaseAcquiredTrigger(OperableTrigger trigger) {
+
+    store.releaseAcquiredTrigger(trigger);
+  }
+
+  /** Journals the new fire times of the fired triggers. */
+  @Override
+  public List<TriggerFiredResult> triggersFired(List<OperableTrigger> triggers)
+      throws JobPersistenceException {
+
+    List<TriggerFiredResult> results;
+    long seq = 0L;
+    synchronized (journalLock) {
+      results = store.triggersFired(triggers);
+      for (TriggerFiredResult result : results) {
+        seq = journalTrigger(result.getTriggerFiredBundle().getTrigger().getName());
+      }
+    }
+    commit(seq);
+    return results;
+  }
+
+  /** Journals the triggers that were completed, set in error or deleted. */
+  @Override
+  public void triggeredJobComplete(
+      OperableTrigger trigger, JobDetail jobDetail, CompletedExecutionInstruction triggerInstCode)
+      throws JobPersistenceException {
+
+    if (triggerInstCode == CompletedExecutionInstruction.NOOP
+        || triggerInstCode == CompletedExecutionInstruction.RE_EXECUTE_JOB) {
+      // only unblocks triggers, which is not persisted
+      store.triggeredJobComplete(trigger, jobDetail, triggerInstCode);
+      return;
+    }
+
+    long seq = 0L;
+    synchronized (journalLock) {
+      store.triggeredJobComplete(trigger, jobDetail, triggerInstCode);
+      if (triggerInstCode == CompletedExecutionInstruction.SET_ALL_JOB_TRIGGERS_COMPLETE
+          || triggerInstCode == CompletedExecutionInstruction.SET_ALL_JOB_TRIGGERS_ERROR) {
+        for (Trigger jobTrigger : store.getTriggersForJob(trigger.getJobName())) {
+          seq = journalTrigger(jobTrigger.getName());
+        }
+      } else {
+        seq = journalTrigger(trigger.getName());
+      }
+    }
+    commit(seq);
+  }
+
+  @Override
+  public void setThreadPoolSize(int poolSize) {
+
+    store.setThreadPoolSize(poolSize);
+  }
+
+  /*
+   * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~ Journaling.
+   * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+   */
+
+  /**
+   * Throw the exception the store would if the job of the given trigger were missing, before its
+   * record is journaled. Hold journalLock.
+   */
+  private void checkJobExists(OperableTrigger trigger) throws JobPersistenceException {
+
+    if (!store.containsJob(trigger.getJobName())) {
+      throw new JobPersistenceException(
+          "The job (" + trigger.getJobName() + ") referenced by the trigger does not exist.");
+    }
+  }
+
+  /** Append the current state of a trigger, or its removal. Hold journalLock. */
+  private long journalTrigger(String triggerKey) throws JobPersistenceException {
+
+    TriggerWrapper tw = store.captureTrigger(triggerKey);
+    if (tw == null) {
+      return append(JobStoreJournal.TRIGGER_REMOVED, serialize(triggerKey, -1));
+    }
+    return append(JobStoreJournal.TRIGGER_STORED, serialize(tw.trigger, persistentState(tw.state)));
+  }
+
+  private long append(byte type, byte[] record) throws JobPersistenceException {
+
+    try {
+      long seq = journal.append(type, record);
+      if (journal.size() > compactionThreshold) {
+        requestCompaction();
+      }
+      return seq;
+    } catch (IOException e) {
+      throw new JobPersistenceException("Could not write to the job store journal.", e);
+    }
+  }
+
+  /** Wait for the journal records up to the given one to be on disk, unless commits are async. */
+  private void commit(long seq) throws JobPersistenceException {
+
+    if (synchronousCommit && seq > 0L) {
+      try {
+        journal.awaitDurable(seq);
+      } catch (IOException e) {
+        throw new JobPersistenceException("Could not write to the job store journal.", e);
+      }
+    }
+  }
+
+  /**
+   * Serialize a job, trigger or name for the journal, followed by the trigger state if it is not
+   * negative.
+   */
+  private static byte[] serialize(Object object, int state) throws JobPersistenceException {
+
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+      ObjectOutputStream out = new ObjectOutputStream(bytes);
+      if (object instanceof String) {
+        out.writeUTF((String) object);
+      } else {
+        out.writeObject(object);
+      }
+      if (state >= 0) {
+        out.writeInt(state);
+      }
+      out.close();
+      return bytes.toByteArray();
+    } catch (IOException e) {
+      throw new JobPersistenceException(
+          "Jobs and triggers stored in a JournalingJobStore must be serializable.", e);
+    }
+  }
+
+  /** @return the state a trigger is in after a restart */
+  private static int persistentState(int state) {
+
+    switch (state) {
+      case TriggerWrapper.STATE_ACQUIRED:
+      case TriggerWrapper.STATE_BLOCKED:
+        return TriggerWrapper.STATE_WAITING;
+      case TriggerWrapper.STATE_PAUSED_BLOCKED:
+        return TriggerWrapper.STATE_PAUSED;
+      default:
+        return state;
+    }
+  }
+
+  /*
+   * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~ Recovery.
+   * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+   */
+
+  private void recover() throws IOException, ClassNotFoundException {
+
+    long generation = 0L;
+    File snapshot = new File(directory, SNAPSHOT_FILE);
+    if (snapshot.exists()) {
+      generation = loadSnapshot(snapshot);
+    }
+
+    int replayed = 0;
+    long nextGeneration = generation;
+    for (Long g : JobStoreJournal.generations(directory)) {
+      if (g.longValue() >= generation) {
+        replayed += replay(JobStoreJournal.file(directory, g.longValue()));
+        nextGeneration = g.longValue() + 1;
+      }
+    }
+
+    // never reopen a replayed file: it is truncated on opening
+    journal = new JobStoreJournal(directory, nextGeneration);
+
+    if (replayed > 0) {
+      // the compactor folds the replayed files into a new snapshot once started
+      logger.info("Replayed " + replayed + " journal records.");
+      requestCompaction();
+    }
+  }
+
+  /** @return the journal generation that continues the snapshot */
+  private long loadSnapshot(File file) throws IOException, ClassNotFoundException {
+
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      FileChannel channel = raf.getChannel();
+      ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0L, raf.length());
+      ObjectInputStream in = new ObjectInputStream(new ByteBufferInputStream(mapped));
+
+      if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+        throw new IOException(file + " is not a job store snapshot.");
+      }
+      long generation = in.readLong();
+
+      int jobCount = in.readInt();
+      for (int i = 0; i < jobCount; i++) {
+        try {
+          store.storeJob((JobDetail) in.readObject(), true);
+        } catch (ObjectAlreadyExistsException e) {
+          // not thrown when replacing
+        }
+      }
+      int triggerCount = in.readInt();
+      for (int i = 0; i < triggerCount; i++) {
+        OperableTrigger trigger = (OperableTrigger) in.readObject();
+        store.restoreTrigger(trigger, in.readInt());
+      }
+      return generation;
+    } finally {
+      raf.close();
+    }
+  }
+
+  /** @return the number of records replayed */
+  private int replay(File file) throws IOException, ClassNotFoundException {
+
+    int count = 0;
+    JobStoreJournal.Reader reader = new JobStoreJournal.Reader(file);
+    try {
+      while (reader.next()) {
+        ObjectInputStream in =
+            new ObjectInputStream(new ByteArrayInputStream(reader.getPayload()));
+        switch (reader.getType()) {
+          case JobStoreJournal.JOB_STORED:
+            try {
+              store.storeJob((JobDetail) in.readObject(), true);
+            } catch (ObjectAlreadyExistsException e) {
+              // not thrown when replacing
+            }
+            break;
+          case JobStoreJournal.JOB_REMOVED:
+            store.removeJob(in.readUTF());
+            break;
+          case JobStoreJournal.TRIGGER_STORED:
+            OperableTrigger trigger = (OperableTrigger) in.readObject();
+            store.restoreTrigger(trigger, in.readInt());
+            break;
+          case JobStoreJournal.TRIGGER_REMOVED:
+            store.removeTrigger(in.readUTF());
+            break;
+          default:
+            throw new IOException("Unknown record type " + reader.getType() + " in " + file);
+        }
+        count++;
+      }
+    } finally {
+      reader.close();
+    }
+    return count;
+  }
+
+  /*
+   * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~ Compaction.
+   * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+   */
+
+  private void requestCompaction() {
+
+    synchronized (compactionLock) {
+      compactionRequested = true;
+      compactionLock.notifyAll();
+    }
+  }
+
+  private void compactLoop() {
+
+    while (true) {
+      synchronized (compactionLock) {
+        while (!compactionRequested && !shutdown) {
+          try {
+            compactionLock.wait();
+          } catch (InterruptedException e) {
+            // wait for shutdown
+          }
+        }
+        if (shutdown) {
+          return;
+        }
+        compactionRequested = false;
+      }
+      try {
+        compact();
+      } catch (IOException e) {
+        logger.error("Could not compact the job store journal.", e);
+      }
+    }
+  }
+
+  /**
+   * Write the state of the store to a new snapshot and delete the journal files it covers. The
+   * state is captured and the journal rotated at the same instant, so the snapshot and the journal
+   * that follows it fit together; writing the snapshot does not hold up the store.
+   */
+  void compact() throws IOException {
+
+    long t0 = System.currentTimeMillis();
+
+    List<JobDetail> jobs = new ArrayList<JobDetail>();
+    List<TriggerWrapper> triggers;
+    long generation;
+    synchronized (journalLock) {
+      for (String jobKey : store.getJobKeys()) {
+        jobs.add(store.retrieveJob(jobKey));
+      }
+      triggers = store.captureTriggers();
+      generation = journal.rotate();
+    }
+    // in firing order, loading inserts every trigger next to the previous one in the time index
+    Collections.sort(triggers, new TriggerWrapperComparator());
+
+    File temp = new File(directory, SNAPSHOT_TEMP_FILE);
+    FileOutputStream file = new FileOutputStream(temp);
+    try {
+      SnapshotOutputStream out =
+          new SnapshotOutputStream(new BufferedOutputStream(file, 64 * 1024));
+      out.writeInt(SNAPSHOT_MAGIC);
+      out.writeInt(SNAPSHOT_VERSION);
+      out.writeLong(generation);
+      out.writeInt(jobs.size());
+      int written = 0;
+      for (JobDetail job : jobs) {
+        out.writeObject(job);
+        if (++written % SNAPSHOT_RESET_INTERVAL == 0) {
+          out.resetShared();
+        }
+      }
+      out.writeInt(triggers.size());
+      for (TriggerWrapper tw : triggers) {
+        out.writeObject(tw.trigger);
+        out.writeInt(persistentState(tw.state));
+        if (++written % SNAPSHOT_RESET_INTERVAL == 0) {
+          out.resetShared();
+        }
+      }
+      out.flush();
+      file.getFD().sync();
+    } finally {
+      file.close();
+    }
+
+    File snapshot = new File(directory, SNAPSHOT_FILE);
+    if (!temp.renameTo(snapshot)) {
+      // not atomic where a rename cannot replace a file
+      snapshot.delete();
+      if (!temp.renameTo(snapshot)) {
+        throw new IOException("Could not replace " + snapshot);
+      }
+    }
+    JobStoreJournal.deleteBefore(directory, generation);
+
+    logger.info(
+        "Compacted "
+            + jobs.size()
+            + " jobs and "
+            + triggers.size()
+            + " triggers into a snapshot in "
+            + (System.currentTimeMillis() - t0)
+            + " ms.");
+  }
+
+  /**
+   * Writes equal cron expressions as one shared object, so that loading the snapshot parses each
+   * distinct expression once rather than once per trigger, and the loaded triggers share it.
+   */
+  private static final class SnapshotOutputStream extends ObjectOutputStream {
+
+    private final Map<String, CronExpression> cronExpressions =
+        new HashMap<String, CronExpression>();
+
+    SnapshotOutputStream(OutputStream out) throws IOException {
+
+      super(out);
+      enableReplaceObject(true);
+    }
+
+    @Override
+    protected Object replaceObject(Object obj) {
+
+      if (obj instanceof CronExpression) {
+        CronExpression cronExpression = (CronExpression) obj;
+        String key =
+            cronExpression.getCronExpression() + " " + cronExpression.getTimeZone().getID();
+        CronExpression shared = cronExpressions.get(key);
+        if (shared != null) {
+          return shared;
+        }
+        cronExpressions.put(key, cronExpression);
+      }
+      return obj;
+    }
+
+    /** Reset the stream's back-references, and with them the shared expressions. */
+    void resetShared() throws IOException {
+
+      reset();
+      cronExpressions.clear();
+    }
+  }
+
+  /** Reads a memory-mapped snapshot. */
+  private static final class ByteBufferInputStream extends InputStream {
+
+    private final ByteBuffer buffer;
+
+    ByteBufferInputStream(ByteBuffer buffer) {
+
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+
+      return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      int n = Math.min(len, buffer.remaining());
+      buffer.get(b, off, n);
+      return n;
+    }
+
+    @Override
+    public int available() {
+
+      return buffer.remaining();
+    }
+  }
+}
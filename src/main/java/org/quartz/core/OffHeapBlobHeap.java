@@ -0,0 +1,143 @@
+package org.quartz.core;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Variable-length byte strings of an {@link OffHeapJobStore} (long trigger names, job data,
+ * descriptions), kept in direct <code>ByteBuffer</code>s.
+ *
+ * <p>Blobs are allocated from power-of-two size classes between 32 bytes and 64 KiB, each with its
+ * own slabs and free list, so freeing a blob makes its chunk available to the next blob of the same
+ * class without any compaction. The rare larger blob is kept on the heap. A blob is addressed by a
+ * <code>long</code> handle. Not thread-safe; the store calls it holding its lock.
+ */
+class OffHeapBlobHeap {
+
+  /** no blob */
+  static final long NONE = -1L;
+
+  private static final int MIN_SHIFT = 5;
+
+  private static final int MAX_SHIFT = 16;
+
+  private static final int SLAB_SIZE = 1 << 20;
+
+  /** the size class of blobs kept on the heap */
+  private static final int ON_HEAP = MAX_SHIFT + 1;
+
+  private final List<List<ByteBuffer>> slabs = new ArrayList<List<ByteBuffer>>();
+
+  /** freed chunks of each size class, as a stack */
+  private final int[][] freeChunks = new int[MAX_SHIFT + 1][];
+
+  private final int[] freeCounts = new int[MAX_SHIFT + 1];
+
+  /** the next never used chunk of each size class */
+  private final int[] nextChunks = new int[MAX_SHIFT + 1];
+
+  private final Map<Integer, byte[]> onHeap = new HashMap<Integer, byte[]>();
+
+  private int nextOnHeapId = 0;
+
+  private long directBytes = 0L;
+
+  OffHeapBlobHeap() {
+
+    for (int shift = 0; shift <= MAX_SHIFT; shift++) {
+      slabs.add(new ArrayList<ByteBuffer>());
+      freeChunks[shift] = new int[16];
+    }
+  }
+
+  /** @return the handle of a new blob holding the given bytes */
+  long allocate(byte[] data) {
+
+    int needed = data.length + 4;
+    int shift = MIN_SHIFT;
+    while (shift <= MAX_SHIFT && (1 << shift) < needed) {
+      shift++;
+    }
+    if (shift > MAX_SHIFT) {
+      int id = nextOnHeapId++;
+      onHeap.put(Integer.valueOf(id), data);
+      return handle(ON_HEAP, id);
+    }
+
+    int chunk;
+    if (freeCounts[shift] > 0) {
+      chunk = freeChunks[shift][--freeCounts[shift]];
+    } else {
+      chunk = nextChunks[shift]++;
+      int chunksPerSlab = SLAB_SIZE >>> shift;
+      if (chunk / chunksPerSlab == slabs.get(shift).size()) {
+        slabs.get(shift).add(ByteBuffer.allocateDirect(SLAB_SIZE));
+        directBytes += SLAB_SIZE;
+      }
+    }
+
+    ByteBuffer slab = slab(shift, chunk);
+    int offset = offset(shift, chunk);
+    slab.putInt(offset, data.length);
+    for (int i = 0; i < data.length; i++) {
+      slab.put(offset + 4 + i, data[i]);
+    }
+    return handle(shift, chunk);
+  }
+
+  byte[] read(long handle) {
+
+    int shift = (int) (handle >>> 32);
+    int chunk = (int) handle;
+    if (shift == ON_HEAP) {
+      return onHeap.get(Integer.valueOf(chunk));
+    }
+    ByteBuffer slab = slab(shift, chunk);
+    int offset = offset(shift, chunk);
+    byte[] data = new byte[slab.getInt(offset)];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = slab.get(offset + 4 + i);
+    }
+    return data;
+  }
+
+  void free(long handle) {
+
+    int shift = (int) (handle >>> 32);
+    int chunk = (int) handle;
+    if (shift == ON_HEAP) {
+      onHeap.remove(Integer.valueOf(chunk));
+      return;
+    }
+    if (freeCounts[shift] == freeChunks[shift].length) {
+      int[] grown = new int[freeChunks[shift].length * 2];
+      System.arraycopy(freeChunks[shift], 0, grown, 0, freeCounts[shift]);
+      freeChunks[shift] = grown;
+    }
+    freeChunks[shift][freeCounts[shift]++] = chunk;
+  }
+
+  /** @return the bytes of direct memory allocated */
+  long getDirectBytes() {
+
+    return directBytes;
+  }
+
+  private ByteBuffer slab(int shift, int chunk) {
+
+    return slabs.get(shift).get(chunk / (SLAB_SIZE >>> shift));
+  }
+
+  private static int offset(int shift, int chunk) {
+
+    return (chunk % (SLAB_SIZE >>> shift)) << shift;
+  }
+
+  private static long handle(int shift, int chunk) {
+
+    return ((long) shift << 32) | (chunk & 0xffffffffL);
+  }
+}
@@ -0,0 +1,1244 @@
+package org.quartz.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.Charset;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.quartz.exceptions.JobPersistenceException;
+import org.quartz.exceptions.ObjectAlreadyExistsException;
+import org.quartz.exceptions.SchedulerException;
+import org.quartz.jobs.JobDataMap;
+import org.quartz.jobs.JobDetail;
+import org.quartz.triggers.AbstractTrigger;
+import org.quartz.triggers.CronExpression;
+import org.quartz.triggers.CronTriggerImpl;
+import org.quartz.triggers.OperableTrigger;
+import org.quartz.triggers.SimpleTriggerImpl;
+import org.quartz.triggers.Trigger;
+import org.quartz.triggers.Trigger.CompletedExecutionInstruction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A <code>{@link JobStore}</code> for very many triggers that keeps them outside of the Java heap.
+ *
+ * <p>Each trigger is a fixed-size record in direct <code>ByteBuffer</code> slabs holding its fire
+ * times, repeat state, priority, misfire instruction, state and the handle of its job. Variable
+ * length parts (a long name, the description, calendar name and <code>JobDataMap</code>) are kept
+ * off-heap as well, and the parsed expression of a cron trigger is shared by all triggers with the
+ * same expression and time zone. The indexes are primitive arrays: a hash table from name to
+ * record, a binary heap of the waiting records in firing order, and a list through the records of
+ * each job. So the heap footprint, and the work of the garbage collector, do not grow with the
+ * number of triggers.
+ *
+ * <p>Trigger objects only exist on demand: <code>acquireNextTriggers</code>, <code>retrieveTrigger
+ * </code> and <code>getTriggersForJob</code> build new instances from the records, and firing a
+ * trigger writes its new fire times back. Only <code>SimpleTriggerImpl</code> and <code>
+ * CronTriggerImpl</code> are stored field by field; any other trigger is kept serialized, and
+ * anything in a trigger's <code>JobDataMap</code> other than strings, numbers and booleans must be
+ * serializable.
+ *
+ * <p>Jobs are few compared to triggers and stay on the heap, as in the {@link RAMJobStore}.
+ */
+public class OffHeapJobStore implements BatchJobStore, TimeOrderedJobStore, ShutdownAwareJobStore {
+
+  /*
+   * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~ Data members.
+   * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+   */
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  private static final int TYPE_SIMPLE = 0;
+
+  private static final int TYPE_CRON = 1;
+
+  private static final int TYPE_SERIALIZED = 2;
+
+  private static final int VALUE_NULL = 0;
+
+  private static final int VALUE_STRING = 1;
+
+  private static final int VALUE_INTEGER = 2;
+
+  private static final int VALUE_LONG = 3;
+
+  private static final int VALUE_BOOLEAN = 4;
+
+  private static final int VALUE_DOUBLE = 5;
+
+  private static final int VALUE_SERIALIZED = 6;
+
+  private final ConcurrentHashMap<String, JobEntry> jobsByKey =
+      new ConcurrentHashMap<String, JobEntry>(1000);
+
+  /** guarded by lock, indexed by job handle; removed jobs leave a null behind for reuse */
+  private final List<JobEntry> jobsByHandle = new ArrayList<JobEntry>();
+
+  private final List<Integer> freeJobHandles = new ArrayList<Integer>();
+
+  private final ConcurrentHashMap<String, Calendar> calendarsByName =
+      new ConcurrentHashMap<String, Calendar>(25);
+
+  private final OffHeapBlobHeap blobs = new OffHeapBlobHeap();
+
+  private final TriggerRecordSlabs records = new TriggerRecordSlabs(blobs);
+
+  private final TriggerNameIndex triggersByName = new TriggerNameIndex(records);
+
+  /** the slots of the waiting triggers, as a binary heap in firing order */
+  private int[] timeHeap = new int[1024];
+
+  private int timeHeapSize = 0;
+
+  /** the parsed cron expressions, indexed by the id stored in the records */
+  private final List<CronExpression> cronExpressions = new ArrayList<CronExpression>();
+
+  private final Map<String, Integer> cronExpressionIds = new HashMap<String, Integer>();
+
+  /** Serializes mutations and guards the trigger records and all indexes but the jobs map. */
+  private final Object lock = new Object();
+
+  /** The next fire time of the head of the time index, published for lock-free peeking. */
+  private volatile long earliestNextFireTime = Long.MAX_VALUE;
+
+  private long misfireThreshold = 5000L;
+
+  private SchedulerSignaler mSignaler;
+
+  private final Logger logger = LoggerFactory.getLogger(getClass());
+
+  private static final AtomicLong ftrCtr = new AtomicLong(System.currentTimeMillis());
+
+  /*
+   * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~ Constructors.
+   * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+   */
+
+  /** Create a new <code>OffHeapJobStore</code>. */
+  public OffHeapJobStore() {}
+
+  /*
+   * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~ Interface.
+   * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+   */
+
+  @Override
+  public void initialize(SchedulerSignaler signaler) {
+
+    mSignaler = signaler;
+
+    logger.info("OffHeapJobStore initialized.");
+  }
+
+  @Override
+  public void schedulerStarted() throws SchedulerException {
+
+    // nothing to do
+  }
+
+  @Override
+  public void shutdown() {
+
+    // nothing to do, the direct buffers are freed with the store
+  }
+
+  /**
+   * Peek at the next fire time of the earliest waiting trigger without taking the store lock.
+   *
+   * @return the time in milliseconds, or <code>Long.MAX_VALUE</code> if no trigger is waiting.
+   */
+  @Override
+  public long getEarliestNextFireTime() {
+
+    return earliestNextFireTime;
+  }
+
+  public long getMisfireThreshold() {
+
+    return misfireThreshold;
+  }
+
+  /**
+   * The number of milliseconds by which a trigger must have missed its next-fire-time, in order for
+   * it to be considered "misfired" and thus have its misfire instruction applied.
+   *
+   * @param misfireThreshold
+   */
+  public void setMisfireThreshold(long misfireThreshold) {
+
+    if (misfireThreshold < 1) {
+      throw new IllegalArgumentException("Misfirethreashold must be larger than 0");
+    }
+    this.misfireThreshold = misfireThreshold;
+  }
+
+  /** @return the bytes of direct memory taken by the trigger records and blobs */
+  public long getOffHeapSize() {
+
+    synchronized (lock) {
+      return records.getDirectBytes() + blobs.getDirectBytes();
+    }
+  }
+
+  @Override
+  public void storeJobAndTrigger(JobDetail newJob, OperableTrigger newTrigger)
+      throws JobPersistenceException {
+
+    storeJob(newJob, false);
+    storeTrigger(newTrigger, false);
+  }
+
+  @Override
+  public void storeJob(JobDetail newJob, boolean replaceExisting)
+      throws ObjectAlreadyExistsException {
+
+    JobDetail job = snapshot(newJob);
+
+    synchronized (lock) {
+      if (jobsByKey.containsKey(job.getName()) && !replaceExisting) {
+        throw new ObjectAlreadyExistsException(newJob);
+      }
+      storeJobLocked(job);
+    }
+  }
+
+  /** Add a job, or update the stored one of the same name. Call holding lock. */
+  private void storeJobLocked(JobDetail job) {
+
+    JobEntry entry = jobsByKey.get(job.getName());
+    if (entry != null) {
+      entry.jobDetail = job;
+      return;
+    }
+
+    int handle;
+    if (freeJobHandles.isEmpty()) {
+      handle = jobsByHandle.size();
+      jobsByHandle.add(null);
+    } else {
+      handle = freeJobHandles.remove(freeJobHandles.size() - 1);
+    }
+    entry = new JobEntry(job, handle);
+    jobsByHandle.set(handle, entry);
+    jobsByKey.put(entry.key, entry);
+  }
+
+  @Override
+  public void storeJobsAndTriggers(
+      Map<JobDetail, List<OperableTrigger>> triggersAndJobs, boolean replace)
+      throws JobPersistenceException {
+
+    // copy and encode before the lock, so the lock is held for the indexing only
+    List<JobDetail> jobs = new ArrayList<JobDetail>(triggersAndJobs.size());
+    List<TriggerRecord> triggerRecords = new ArrayList<TriggerRecord>();
+    for (Map.Entry<JobDetail, List<OperableTrigger>> entry : triggersAndJobs.entrySet()) {
+      jobs.add(snapshot(entry.getKey()));
+      for (OperableTrigger trigger : entry.getValue()) {
+        triggerRecords.add(new TriggerRecord(trigger));
+      }
+    }
+
+    synchronized (lock) {
+      if (!replace) {
+        for (JobDetail job : jobs) {
+          if (jobsByKey.containsKey(job.getName())) {
+            throw new ObjectAlreadyExistsException(job);
+          }
+        }
+        for (TriggerRecord record : triggerRecords) {
+          if (triggersByName.get(record.hash, record.name) >= 0) {
+            throw new ObjectAlreadyExistsException(record.trigger);
+          }
+        }
+      }
+      try {
+        for (JobDetail job : jobs) {
+          storeJobLocked(job);
+        }
+        for (TriggerRecord record : triggerRecords) {
+          int existing = triggersByName.get(record.hash, record.name);
+          if (existing >= 0) {
+            removeTriggerLocked(existing);
+          }
+          insertTriggerLocked(record);
+        }
+      } finally {
+        updateEarliestNextFireTime();
+      }
+    }
+  }
+
+  /** @return the copy of a job to be stored */
+  private static JobDetail snapshot(JobDetail newJob) {
+
+    return (JobDetail) newJob.clone();
+  }
+
+  @Override
+  public boolean removeJob(String jobKey) {
+
+    synchronized (lock) {
+      JobEntry entry = jobsByKey.remove(jobKey);
+      if (entry == null) {
+        return false;
+      }
+      try {
+        while (entry.firstTrigger >= 0) {
+          removeTriggerLocked(entry.firstTrigger);
+        }
+      } finally {
+        updateEarliestNextFireTime();
+      }
+      jobsByHandle.set(entry.handle, null);
+      freeJobHandles.add(entry.handle);
+      return true;
+    }
+  }
+
+  @Override
+  public void storeTrigger(OperableTrigger newTrigger, boolean replaceExisting)
+      throws JobPersistenceException {
+
+    TriggerRecord record = new TriggerRecord(newTrigger);
+
+    synchronized (lock) {
+      int existing = triggersByName.get(record.hash, record.name);
+      if (existing >= 0) {
+        if (!replaceExisting) {
+          throw new ObjectAlreadyExistsException(newTrigger);
+        }
+        removeTriggerLocked(existing);
+      }
+
+      try {
+        insertTriggerLocked(record);
+      } finally {
+        updateEarliestNextFireTime();
+      }
+    }
+  }
+
+  @Override
+  public boolean removeTrigger(String triggerKey) {
+
+    byte[] name = triggerKey.getBytes(UTF8);
+
+    synchronized (lock) {
+      int slot = triggersByName.get(TriggerNameIndex.hash(name), name);
+      if (slot < 0) {
+        return false;
+      }
+      removeTriggerLocked(slot);
+      updateEarliestNextFireTime();
+      return true;
+    }
+  }
+
+  @Override
+  public boolean replaceTrigger(String triggerKey, OperableTrigger newTrigger)
+      throws JobPersistenceException {
+
+    byte[] name = triggerKey.getBytes(UTF8);
+    // encode the new trigger first, so nothing can fail once the old one is gone
+    TriggerRecord record = new TriggerRecord(newTrigger);
+
+    synchronized (lock) {
+      int slot = triggersByName.get(TriggerNameIndex.hash(name), name);
+      if (slot < 0) {
+        return false;
+      }
+      if (!jobOf(slot).key.equals(newTrigger.getJobName())) {
+        throw new JobPersistenceException(
+            "New trigger is not related to the same job as the old trigger.");
+      }
+      int existing = triggersByName.get(record.hash, record.name);
+      if (existing >= 0 && existing != slot) {
+        throw new ObjectAlreadyExistsException(newTrigger);
+      }
+
+      try {
+        removeTriggerLocked(slot);
+        insertTriggerLocked(record);
+      } finally {
+        updateEarliestNextFireTime();
+      }
+      return true;
+    }
+  }
+
+  @Override
+  public JobDetail retrieveJob(String jobKey) {
+
+    JobEntry entry = jobsByKey.get(jobKey);
+    return (entry != null) ? (JobDetail) entry.jobDetail.clone() : null;
+  }
+
+  @Override
+  public OperableTrigger retrieveTrigger(String triggerKey) throws JobPersistenceException {
+
+    byte[] name = triggerKey.getBytes(UTF8);
+
+    synchronized (lock) {
+      int slot = triggersByName.get(TriggerNameIndex.hash(name), name);
+      return (slot >= 0) ? materialize(slot) : null;
+    }
+  }
+
+  @Override
+  public Calendar retrieveCalendar(String calName) {
+
+    Calendar cal = calendarsByName.get(calName);
+    if (cal != null) {
+      return (Calendar) cal.clone();
+    }
+    return null;
+  }
+
+  @Override
+  public List<Trigger> getTriggersForJob(String jobKey) throws JobPersistenceException {
+
+    ArrayList<Trigger> trigList = new ArrayList<Trigger>();
+
+    synchronized (lock) {
+      JobEntry entry = jobsByKey.get(jobKey);
+      if (entry != null) {
+        for (int slot = entry.firstTrigger;
+            slot >= 0;
+            slot = records.getInt(slot, TriggerRecordSlabs.NEXT_IN_JOB)) {
+          trigList.add(materialize(slot));
+        }
+      }
+    }
+
+    return trigList;
+  }
+
+  @Override
+  public Set<String> getJobKeys() {
+
+    return new HashSet<String>(jobsByKey.keySet());
+  }
+
+  @Override
+  public List<OperableTrigger> acquireNextTriggers(long noLaterThan, int maxCount, long timeWindow)
+      throws JobPersistenceException {
+
+    synchronized (lock) {
+      try {
+        return acquireNextTriggersLocked(noLaterThan, maxCount, timeWindow);
+      } finally {
+        updateEarliestNextFireTime();
+      }
+    }
+  }
+
+  private List<OperableTrigger> acquireNextTriggersLocked(
+      long noLaterThan, int maxCount, long timeWindow) throws JobPersistenceException {
+
+    List<OperableTrigger> result = new ArrayList<OperableTrigger>();
+
+    while (timeHeapSize > 0
+        && records.getLong(timeHeap[0], TriggerRecordSlabs.NEXT_FIRE_TIME)
+            <= noLaterThan + timeWindow) {
+      int slot = timeHeap[0];
+      timeHeapRemove(slot);
+
+      JobEntry entry = jobOf(slot);
+      if (entry.blocked) {
+        // out of the time index until the running job completes
+        records.putInt(slot, TriggerRecordSlabs.STATE, TriggerWrapper.STATE_BLOCKED);
+        entry.addBlockedTrigger(slot);
+        continue;
+      }
+
+      OperableTrigger trigger = applyMisfire(slot);
+      if (trigger == null) {
+        if (records.getLong(slot, TriggerRecordSlabs.NEXT_FIRE_TIME)
+            != TriggerRecordSlabs.NO_TIME) {
+          timeHeapAdd(slot);
+        }
+        continue;
+      }
+
+      records.putInt(slot, TriggerRecordSlabs.STATE, TriggerWrapper.STATE_ACQUIRED);
+      result.add(trigger);
+
+      if (result.size() == maxCount) {
+        break;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Apply the misfire instruction of a trigger taken out of the time index, if it is due.
+   *
+   * @return the trigger as it is to be acquired, or <code>null</code> if its next fire time changed
+   */
+  private OperableTrigger applyMisfire(int slot) throws JobPersistenceException {
+
+    long misfireTime = Clock.getClock().currentTimeMillis();
+    if (getMisfireThreshold() > 0) {
+      misfireTime -= getMisfireThreshold();
+    }
+
+    long nextFireTime = records.getLong(slot, TriggerRecordSlabs.NEXT_FIRE_TIME);
+    OperableTrigger trigger = materialize(slot);
+    if (nextFireTime > misfireTime
+        || trigger.getMisfireInstruction() == Trigger.MISFIRE_INSTRUCTION_IGNORE_MISFIRE_POLICY) {
+      return trigger;
+    }
+
+    Calendar cal = null;
+    if (trigger.getCalendarName() != null) {
+      cal = retrieveCalendar(trigger.getCalendarName());
+    }
+
+    mSignaler.notifyTriggerListenersMisfired(trigger);
+
+    trigger.updateAfterMisfire(cal);
+    writeTrigger(slot, trigger);
+
+    if (trigger.getNextFireTime() == null) {
+      records.putInt(slot, TriggerRecordSlabs.STATE, TriggerWrapper.STATE_COMPLETE);
+      mSignaler.notifySchedulerListenersFinalized(trigger);
+      return null;
+    } else if (trigger.getNextFireTime().getTime() == nextFireTime) {
+      return trigger;
+    }
+    return null;
+  }
+
+  @Override
+  public void releaseAcquiredTrigger(OperableTrigger trigger) {
+
+    byte[] name = trigger.getName().getBytes(UTF8);
+
+    synchronized (lock) {
+      int slot = triggersByName.get(TriggerNameIndex.hash(name), name);
+      if (slot >= 0
+          && records.getInt(slot, TriggerRecordSlabs.STATE) == TriggerWrapper.STATE_ACQUIRED) {
+        records.putInt(slot, TriggerRecordSlabs.STATE, TriggerWrapper.STATE_WAITING);
+        timeHeapAdd(slot);
+        updateEarliestNextFireTime();
+      }
+    }
+  }
+
+  @Override
+  public List<TriggerFiredResult> triggersFired(List<OperableTrigger> triggers)
+      throws JobPersistenceException {
+
+    synchronized (lock) {
+      try {
+        return triggersFiredLocked(triggers);
+      } finally {
+        updateEarliestNextFireTime();
+      }
+    }
+  }
+
+  private List<TriggerFiredResult> triggersFiredLocked(List<OperableTrigger> triggers)
+      throws JobPersistenceException {
+
+    List<TriggerFiredResult> results = new ArrayList<TriggerFiredResult>();
+
+    for (OperableTrigger acquired : triggers) {
+      byte[] name = acquired.getName().getBytes(UTF8);
+      int slot = triggersByName.get(TriggerNameIndex.hash(name), name);
+      // was the trigger deleted since being acquired?
+      if (slot < 0) {
+        continue;
+      }
+      // was the trigger completed, paused, blocked, etc. since being acquired?
+      if (records.getInt(slot, TriggerRecordSlabs.STATE) != TriggerWrapper.STATE_ACQUIRED) {
+        continue;
+      }
+
+      OperableTrigger trigger = materialize(slot);
+      Calendar cal = null;
+      if (trigger.getCalendarName() != null) {
+        cal = retrieveCalendar(trigger.getCalendarName());
+        if (cal == null) {
+          continue;
+        }
+      }
+      JobEntry entry = jobOf(slot);
+      if (entry.blocked) {
+        // the job started from another trigger since this one was acquired
+        records.putInt(slot, TriggerRecordSlabs.STATE, TriggerWrapper.STATE_BLOCKED);
+        entry.addBlockedTrigger(slot);
+        continue;
+      }
+
+      Date prevFireTime = trigger.getPreviousFireTime();
+      // in case trigger was replaced between acquiring and firing
+      timeHeapRemove(slot);
+      trigger.triggered(cal);
+      trigger.setFireInstanceId(String.valueOf(ftrCtr.incrementAndGet()));
+      writeTrigger(slot, trigger);
+      records.putInt(slot, TriggerRecordSlabs.STATE, TriggerWrapper.STATE_WAITING);
+
+      TriggerFiredBundle bndle =
+          new TriggerFiredBundle(
+              (JobDetail) entry.jobDetail.clone(),
+              trigger,
+              cal,
+              false,
+              Clock.getClock().now(),
+              trigger.getPreviousFireTime(),
+              prevFireTime,
+              trigger.getNextFireTime());
+
+      if (!entry.jobDetail.isConcurrencyAllowed()) {
+        // the job's other triggers stay in the time index and are set aside once due
+        entry.blocked = true;
+        if (trigger.getNextFireTime() != null) {
+          records.putInt(slot, TriggerRecordSlabs.STATE, TriggerWrapper.STATE_BLOCKED);
+          entry.addBlockedTrigger(slot);
+        }
+      } else {
+        timeHeapAdd(slot);
+      }
+
+      results.add(new TriggerFiredResult(bndle));
+    }
+    return results;
+  }
+
+  @Override
+  public void triggeredJobComplete(
+      OperableTrigger trigger, JobDetail jobDetail, CompletedExecutionInstruction triggerInstCode) {
+
+    // the common case, nothing to unblock and nothing to change, does not need the lock
+    if (triggerInstCode == CompletedExecutionInstruction.NOOP) {
+      JobEntry entry = jobsByKey.get(jobDetail.getName());
+      if (entry != null && entry.jobDetail.isConcurrencyAllowed()) {
+        return;
+      }
+    }
+
+    synchronized (lock) {
+      try {
+        triggeredJobCompleteLocked(trigger, jobDetail, triggerInstCode);
+      } finally {
+        updateEarliestNextFireTime();
+      }
+    }
+  }
+
+  private void triggeredJobCompleteLocked(
+      OperableTrigger trigger, JobDetail jobDetail, CompletedExecutionInstruction triggerInstCode) {
+
+    JobEntry entry = jobsByKey.get(jobDetail.getName());
+    byte[] name = trigger.getName().getBytes(UTF8);
+    int slot = triggersByName.get(TriggerNameIndex.hash(name), name);
+
+    // the job is gone if it was deleted during execution, and its blocked flag with it
+    if (entry != null && entry.blocked) {
+      entry.blocked = false;
+      // only the triggers that came due while the job ran, not all of the job's triggers
+      long earliest = Long.MAX_VALUE;
+      for (int i = 0; i < entry.blockedCount; i++) {
+        int s = entry.blockedTriggers[i];
+        // skip triggers completed meanwhile; removed ones left the list
+        if (records.getInt(s, TriggerRecordSlabs.STATE) == TriggerWrapper.STATE_BLOCKED) {
+          records.putInt(s, TriggerRecordSlabs.STATE, TriggerWrapper.STATE_WAITING);
+          timeHeapAdd(s);
+          earliest = Math.min(earliest, records.getLong(s, TriggerRecordSlabs.NEXT_FIRE_TIME));
+        }
+      }
+      entry.blockedCount = 0;
+      if (earliest != Long.MAX_VALUE) {
+        mSignaler.signalSchedulingChange(earliest);
+      }
+    }
+
+    // the rest only ever takes triggers away, which brings no fire time forward, so it does not
+    // signal the scheduler thread
+
+    // check for trigger deleted during execution...
+    if (slot >= 0) {
+      if (triggerInstCode == CompletedExecutionInstruction.DELETE_TRIGGER) {
+
+        if (trigger.getNextFireTime() == null) {
+          // double check for possible reschedule within job
+          // execution, which would cancel the need to delete...
+          if (records.getLong(slot, TriggerRecordSlabs.NEXT_FIRE_TIME)
+              == TriggerRecordSlabs.NO_TIME) {
+            removeTriggerLocked(slot);
+          }
+        } else {
+          removeTriggerLocked(slot);
+        }
+      } else if (triggerInstCode == CompletedExecutionInstruction.SET_TRIGGER_COMPLETE) {
+        records.putInt(slot, TriggerRecordSlabs.STATE, TriggerWrapper.STATE_COMPLETE);
+        timeHeapRemove(slot);
+      } else if (triggerInstCode == CompletedExecutionInstruction.SET_TRIGGER_ERROR) {
+        logger.info("Trigger " + trigger.getName() + " set to ERROR state.");
+        records.putInt(slot, TriggerRecordSlabs.STATE, TriggerWrapper.STATE_ERROR);
+        timeHeapRemove(slot);
+      } else if (triggerInstCode == CompletedExecutionInstruction.SET_ALL_JOB_TRIGGERS_ERROR) {
+        logger.info("All triggers of Job " + trigger.getJobName() + " set to ERROR state.");
+        setAllTriggersOfJobToState(jobOf(slot), TriggerWrapper.STATE_ERROR);
+      } else if (triggerInstCode == CompletedExecutionInstruction.SET_ALL_JOB_TRIGGERS_COMPLETE) {
+        setAllTriggersOfJobToState(jobOf(slot), TriggerWrapper.STATE_COMPLETE);
+      }
+    }
+  }
+
+  private void setAllTriggersOfJobToState(JobEntry entry, int state) {
+
+    for (int slot = entry.firstTrigger;
+        slot >= 0;
+        slot = records.getInt(slot, TriggerRecordSlabs.NEXT_IN_JOB)) {
+      records.putInt(slot, TriggerRecordSlabs.STATE, state);
+      timeHeapRemove(slot);
+    }
+  }
+
+  @Override
+  public void setThreadPoolSize(final int poolSize) {
+
+    //
+  }
+
+  /*
+   * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~ Records.
+   * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+   */
+
+  /** Add the record of a trigger whose name is not taken. Call holding lock. */
+  private void insertTriggerLocked(TriggerRecord record) throws JobPersistenceException {
+
+    JobEntry entry = jobsByKey.get(record.trigger.getJobName());
+    if (entry == null) {
+      throw new JobPersistenceException(
+          "The job ("
+              + record.trigger.getJobName()
+              + ") referenced by the trigger does not exist.");
+    }
+
+    int slot = records.allocate();
+    records.putName(slot, record.name);
+    records.putInt(slot, TriggerRecordSlabs.JOB, entry.handle);
+    records.putInt(slot, TriggerRecordSlabs.TYPE, record.type);
+    records.putInt(slot, TriggerRecordSlabs.CRON, cronExpressionId(record.trigger));
+    records.putInt(slot, TriggerRecordSlabs.PRIORITY, record.trigger.getPriority());
+    records.putInt(
+        slot, TriggerRecordSlabs.MISFIRE_INSTRUCTION, record.trigger.getMisfireInstruction());
+    records.putInt(slot, TriggerRecordSlabs.HEAP_POSITION, -1);
+    records.putLong(
+        slot,
+        TriggerRecordSlabs.EXTRAS,
+        record.extras != null ? blobs.allocate(record.extras) : OffHeapBlobHeap.NONE);
+    writeTimes(slot, record.trigger);
+
+    triggersByName.put(record.hash, slot);
+
+    // link in at the head of the job's list
+    records.putInt(slot, TriggerRecordSlabs.PREVIOUS_IN_JOB, -1);
+    records.putInt(slot, TriggerRecordSlabs.NEXT_IN_JOB, entry.firstTrigger);
+    if (entry.firstTrigger >= 0) {
+      records.putInt(entry.firstTrigger, TriggerRecordSlabs.PREVIOUS_IN_JOB, slot);
+    }
+    entry.firstTrigger = slot;
+
+    // even if the job is blocked, acquisition sets the trigger aside once it is due
+    records.putInt(slot, TriggerRecordSlabs.STATE, TriggerWrapper.STATE_WAITING);
+    timeHeapAdd(slot);
+  }
+
+  /** Unlink a trigger from all indexes and free its record. Call holding lock. */
+  private void removeTriggerLocked(int slot) {
+
+    timeHeapRemove(slot);
+    triggersByName.remove(TriggerNameIndex.hash(records.getName(slot)), slot);
+    if (records.getInt(slot, TriggerRecordSlabs.STATE) == TriggerWrapper.STATE_BLOCKED) {
+      // the slot may be reused before the job completes
+      jobOf(slot).removeBlockedTrigger(slot);
+    }
+
+    int previous = records.getInt(slot, TriggerRecordSlabs.PREVIOUS_IN_JOB);
+    int next = records.getInt(slot, TriggerRecordSlabs.NEXT_IN_JOB);
+    if (previous >= 0) {
+      records.putInt(previous, TriggerRecordSlabs.NEXT_IN_JOB, next);
+    } else {
+      jobOf(slot).firstTrigger = next;
+    }
+    if (next >= 0) {
+      records.putInt(next, TriggerRecordSlabs.PREVIOUS_IN_JOB, previous);
+    }
+
+    long extras = records.getLong(slot, TriggerRecordSlabs.EXTRAS);
+    if (extras != OffHeapBlobHeap.NONE) {
+      blobs.free(extras);
+    }
+    records.free(slot);
+  }
+
+  /** Write back what firing a trigger or applying its misfire instruction may have changed. */
+  private void writeTrigger(int slot, OperableTrigger trigger) throws JobPersistenceException {
+
+    writeTimes(slot, trigger);
+    if (records.getInt(slot, TriggerRecordSlabs.TYPE) == TYPE_SERIALIZED) {
+      blobs.free(records.getLong(slot, TriggerRecordSlabs.EXTRAS));
+      records.putLong(slot, TriggerRecordSlabs.EXTRAS, blobs.allocate(serialize(trigger)));
+    }
+  }
+
+  private void writeTimes(int slot, OperableTrigger trigger) {
+
+    records.putLong(slot, TriggerRecordSlabs.NEXT_FIRE_TIME, time(trigger.getNextFireTime()));
+    records.putLong(
+        slot, TriggerRecordSlabs.PREVIOUS_FIRE_TIME, time(trigger.getPreviousFireTime()));
+    records.putLong(slot, TriggerRecordSlabs.START_TIME, time(trigger.getStartTime()));
+    records.putLong(slot, TriggerRecordSlabs.END_TIME, time(trigger.getEndTime()));
+    records.putLong(
+        slot,
+        TriggerRecordSlabs.SPREAD,
+        trigger instanceof AbstractTrigger ? ((AbstractTrigger) trigger).getFireTimeSpread() : -1L);
+    if (trigger instanceof SimpleTriggerImpl) {
+      SimpleTriggerImpl simple = (SimpleTriggerImpl) trigger;
+      records.putLong(slot, TriggerRecordSlabs.REPEAT_INTERVAL, simple.getRepeatInterval());
+      records.putInt(slot, TriggerRecordSlabs.REPEAT_COUNT, simple.getRepeatCount());
+      records.putInt(slot, TriggerRecordSlabs.TIMES_TRIGGERED, simple.getTimesTriggered());
+    }
+  }
+
+  /** @return a new trigger instance holding the state of a record. Call holding lock. */
+  private OperableTrigger materialize(int slot) throws JobPersistenceException {
+
+    int type = records.getInt(slot, TriggerRecordSlabs.TYPE);
+    long extras = records.getLong(slot, TriggerRecordSlabs.EXTRAS);
+    if (type == TYPE_SERIALIZED) {
+      return (OperableTrigger) deserialize(blobs.read(extras));
+    }
+
+    AbstractTrigger trigger;
+    if (type == TYPE_CRON) {
+      CronTriggerImpl cron = new CronTriggerImpl();
+      cron.setCronExpression(cronExpressions.get(records.getInt(slot, TriggerRecordSlabs.CRON)));
+      trigger = cron;
+    } else {
+      SimpleTriggerImpl simple = new SimpleTriggerImpl();
+      simple.setRepeatInterval(records.getLong(slot, TriggerRecordSlabs.REPEAT_INTERVAL));
+      simple.setRepeatCount(records.getInt(slot, TriggerRecordSlabs.REPEAT_COUNT));
+      simple.setTimesTriggered(records.getInt(slot, TriggerRecordSlabs.TIMES_TRIGGERED));
+      trigger = simple;
+    }
+    trigger.setName(new String(records.getName(slot), UTF8));
+    trigger.setJobName(jobOf(slot).key);
+    trigger.setPriority(records.getInt(slot, TriggerRecordSlabs.PRIORITY));
+    trigger.setMisfireInstruction(records.getInt(slot, TriggerRecordSlabs.MISFIRE_INSTRUCTION));
+    trigger.setFireTimeSpread(records.getLong(slot, TriggerRecordSlabs.SPREAD));
+    long startTime = records.getLong(slot, TriggerRecordSlabs.START_TIME);
+    if (startTime != TriggerRecordSlabs.NO_TIME) {
+      trigger.setStartTime(new Date(startTime));
+    }
+    trigger.setEndTime(date(records.getLong(slot, TriggerRecordSlabs.END_TIME)));
+    trigger.setNextFireTime(date(records.getLong(slot, TriggerRecordSlabs.NEXT_FIRE_TIME)));
+    trigger.setPreviousFireTime(date(records.getLong(slot, TriggerRecordSlabs.PREVIOUS_FIRE_TIME)));
+    if (extras != OffHeapBlobHeap.NONE) {
+      decodeExtras(blobs.read(extras), trigger);
+    }
+    return trigger;
+  }
+
+  private JobEntry jobOf(int slot) {
+
+    return jobsByHandle.get(records.getInt(slot, TriggerRecordSlabs.JOB));
+  }
+
+  /** @return the id of the trigger's shared cron expression, or -1. Call holding lock. */
+  private int cronExpressionId(OperableTrigger trigger) {
+
+    if (trigger.getClass() != CronTriggerImpl.class) {
+      return -1;
+    }
+    CronTriggerImpl cron = (CronTriggerImpl) trigger;
+    TimeZone timeZone = cron.getTimeZone();
+    String key = cron.getCronExpression() + "\n" + timeZone.getID();
+    Integer id = cronExpressionIds.get(key);
+    if (id == null) {
+      // a copy, so the store never shares an expression with the caller
+      CronExpression expression;
+      try {
+        expression = new CronExpression(cron.getCronExpression());
+      } catch (ParseException e) {
+        throw new IllegalStateException(e);
+      }
+      expression.setTimeZone(timeZone);
+      id = Integer.valueOf(cronExpressions.size());
+      cronExpressions.add(expression);
+      cronExpressionIds.put(key, id);
+    }
+    return id.intValue();
+  }
+
+  private static long time(Date date) {
+
+    return (date == null) ? TriggerRecordSlabs.NO_TIME : date.getTime();
+  }
+
+  private static Date date(long time) {
+
+    return (time == TriggerRecordSlabs.NO_TIME) ? null : new Date(time);
+  }
+
+  /*
+   * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~ Time index.
+   * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+   */
+
+  /** Add a trigger with a next fire time to the time index, unless it is in there already. */
+  private void timeHeapAdd(int slot) {
+
+    if (records.getInt(slot, TriggerRecordSlabs.HEAP_POSITION) >= 0
+        || records.getLong(slot, TriggerRecordSlabs.NEXT_FIRE_TIME) == TriggerRecordSlabs.NO_TIME) {
+      return;
+    }
+    if (timeHeapSize == timeHeap.length) {
+      int[] grown = new int[timeHeap.length * 2];
+      System.arraycopy(timeHeap, 0, grown, 0, timeHeapSize);
+      timeHeap = grown;
+    }
+    siftUp(timeHeapSize++, slot);
+  }
+
+  /** Remove a trigger from the time index, if it is in there. */
+  private void timeHeapRemove(int slot) {
+
+    int position = records.getInt(slot, TriggerRecordSlabs.HEAP_POSITION);
+    if (position < 0) {
+      return;
+    }
+    records.putInt(slot, TriggerRecordSlabs.HEAP_POSITION, -1);
+    int last = timeHeap[--timeHeapSize];
+    if (position == timeHeapSize) {
+      return;
+    }
+    siftDown(position, last);
+    if (timeHeap[position] == last) {
+      siftUp(position, last);
+    }
+  }
+
+  private void siftUp(int position, int slot) {
+
+    while (position > 0) {
+      int parent = (position - 1) >>> 1;
+      if (compareFiringOrder(timeHeap[parent], slot) <= 0) {
+        break;
+      }
+      place(position, timeHeap[parent]);
+      position = parent;
+    }
+    place(position, slot);
+  }
+
+  private void siftDown(int position, int slot) {
+
+    int half = timeHeapSize >>> 1;
+    while (position < half) {
+      int child = 2 * position + 1;
+      int right = child + 1;
+      if (right < timeHeapSize && compareFiringOrder(timeHeap[right], timeHeap[child]) < 0) {
+        child = right;
+      }
+      if (compareFiringOrder(slot, timeHeap[child]) <= 0) {
+        break;
+      }
+      place(position, timeHeap[child]);
+      position = child;
+    }
+    place(position, slot);
+  }
+
+  private void place(int position, int slot) {
+
+    timeHeap[position] = slot;
+    records.putInt(slot, TriggerRecordSlabs.HEAP_POSITION, position);
+  }
+
+  /** The order of <code>Trigger.TriggerTimeComparator</code>: time, priority, then name. */
+  private int compareFiringOrder(int slot1, int slot2) {
+
+    long time1 = records.getLong(slot1, TriggerRecordSlabs.NEXT_FIRE_TIME);
+    long time2 = records.getLong(slot2, TriggerRecordSlabs.NEXT_FIRE_TIME);
+    if (time1 != time2) {
+      return time1 < time2 ? -1 : 1;
+    }
+    int comp =
+        records.getInt(slot2, TriggerRecordSlabs.PRIORITY)
+            - records.getInt(slot1, TriggerRecordSlabs.PRIORITY);
+    if (comp != 0) {
+      return comp;
+    }
+    return records.compareNames(slot1, slot2);
+  }
+
+  /** Publish the head of the time index for {@link #getEarliestNextFireTime()}. Hold the lock. */
+  private void updateEarliestNextFireTime() {
+
+    earliestNextFireTime =
+        (timeHeapSize == 0)
+            ? Long.MAX_VALUE
+            : records.getLong(timeHeap[0], TriggerRecordSlabs.NEXT_FIRE_TIME);
+  }
+
+  /*
+   * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~ Encoding.
+   * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+   */
+
+  /**
+   * Encode the description, calendar name and job data of a trigger.
+   *
+   * @return the bytes, or <code>null</code> if the trigger has none of them
+   */
+  private static byte[] encodeExtras(OperableTrigger trigger) throws JobPersistenceException {
+
+    JobDataMap jobDataMap = trigger.getJobDataMap();
+    if (trigger.getDescription() == null
+        && trigger.getCalendarName() == null
+        && jobDataMap.isEmpty()) {
+      return null;
+    }
+
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+      DataOutputStream out = new DataOutputStream(bytes);
+      writeString(out, trigger.getDescription());
+      writeString(out, trigger.getCalendarName());
+      out.writeInt(jobDataMap.size());
+      for (Map.Entry<String, Object> entry : jobDataMap.entrySet()) {
+        writeString(out, entry.getKey());
+        Object value = entry.getValue();
+        if (value == null) {
+          out.writeByte(VALUE_NULL);
+        } else if (value instanceof String) {
+          out.writeByte(VALUE_STRING);
+          writeString(out, (String) value);
+        } else if (value instanceof Integer) {
+          out.writeByte(VALUE_INTEGER);
+          out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+          out.writeByte(VALUE_LONG);
+          out.writeLong((Long) value);
+        } else if (value instanceof Boolean) {
+          out.writeByte(VALUE_BOOLEAN);
+          out.writeBoolean((Boolean) value);
+        } else if (value instanceof Double) {
+          out.writeByte(VALUE_DOUBLE);
+          out.writeDouble((Double) value);
+        } else {
+          byte[] serialized = serialize(value);
+          out.writeByte(VALUE_SERIALIZED);
+          out.writeInt(serialized.length);
+          out.write(serialized);
+        }
+      }
+      out.close();
+      return bytes.toByteArray();
+    } catch (IOException e) {
+      throw new JobPersistenceException("Cannot encode trigger " + trigger.getName(), e);
+    }
+  }
+
+  private static void decodeExtras(byte[] extras, OperableTrigger trigger)
+      throws JobPersistenceException {
+
+    try {
+      DataInputStream in = new DataInputStream(new ByteArrayInputStream(extras));
+      trigger.setDescription(readString(in));
+      trigger.setCalendarName(readString(in));
+      int size = in.readInt();
+      if (size == 0) {
+        return;
+      }
+      JobDataMap jobDataMap = new JobDataMap();
+      for (int i = 0; i < size; i++) {
+        String key = readString(in);
+        Object value;
+        switch (in.readByte()) {
+          case VALUE_STRING:
+            value = readString(in);
+            break;
+          case VALUE_INTEGER:
+            value = Integer.valueOf(in.readInt());
+            break;
+          case VALUE_LONG:
+            value = Long.valueOf(in.readLong());
+            break;
+          case VALUE_BOOLEAN:
+            value = Boolean.valueOf(in.readBoolean());
+            break;
+          case VALUE_DOUBLE:
+            value = Double.valueOf(in.readDouble());
+            break;
+          case VALUE_SERIALIZED:
+            byte[] serialized = new byte[in.readInt()];
+            in.readFully(serialized);
+            value = deserialize(serialized);
+            break;
+          default:
+            value = null;
+        }
+        jobDataMap.put(key, value);
+      }
+      trigger.setJobDataMap(jobDataMap);
+    } catch (IOException e) {
+      throw new JobPersistenceException("Cannot decode trigger " + trigger.getName(), e);
+    }
+  }
+
+  private static void writeString(DataOutputStream out, String s) throws IOException {
+
+    if (s == null) {
+      out.writeInt(-1);
+    } else {
+      byte[] bytes = s.getBytes(UTF8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    }
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, UTF8);
+  }
+
+  private static byte[] serialize(Object object) throws JobPersistenceException {
+
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+      ObjectOutputStream out = new ObjectOutputStream(bytes);
+      out.writeObject(object);
+      out.close();
+      return bytes.toByteArray();
+    } catch (IOException e) {
+      throw new JobPersistenceException(
+          "Trigger data stored in an OffHeapJobStore must be serializable.", e);
+    }
+  }
+
+  private static Object deserialize(byte[] bytes) throws JobPersistenceException {
+
+    try {
+      return new ObjectInputStream(new ByteArrayInputStream(bytes)).readObject();
+    } catch (IOException e) {
+      throw new JobPersistenceException("Cannot deserialize trigger data", e);
+    } catch (ClassNotFoundException e) {
+      throw new JobPersistenceException("Cannot deserialize trigger data", e);
+    }
+  }
+
+  /*
+   * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~ Helper Classes.
+   * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+   */
+
+  /** A job and the head of the list of its trigger records. */
+  private static final class JobEntry {
+
+    final String key;
+
+    final int handle;
+
+    volatile JobDetail jobDetail;
+
+    /** guarded by lock */
+    int firstTrigger = -1;
+
+    /** whether a trigger of this job, which disallows concurrency, is executing; guarded by lock */
+    boolean blocked;
+
+    /** the records that came due while the job was blocked, now out of the time index; by lock */
+    int[] blockedTriggers;
+
+    int blockedCount = 0;
+
+    JobEntry(JobDetail jobDetail, int handle) {
+
+      this.jobDetail = jobDetail;
+      this.key = jobDetail.getName();
+      this.handle = handle;
+    }
+
+    void addBlockedTrigger(int slot) {
+
+      if (blockedTriggers == null) {
+        blockedTriggers = new int[4];
+      } else if (blockedCount == blockedTriggers.length) {
+        int[] grown = new int[blockedCount * 2];
+        System.arraycopy(blockedTriggers, 0, grown, 0, blockedCount);
+        blockedTriggers = grown;
+      }
+      blockedTriggers[blockedCount++] = slot;
+    }
+
+    void removeBlockedTrigger(int slot) {
+
+      for (int i = 0; i < blockedCount; i++) {
+        if (blockedTriggers[i] == slot) {
+          blockedTriggers[i] = blockedTriggers[--blockedCount];
+          return;
+        }
+      }
+    }
+  }
+
+  /** A trigger to be stored, encoded as far as possible without holding the lock. */
+  private static final class TriggerRecord {
+
+    final OperableTrigger trigger;
+
+    final byte[] name;
+
+    final long hash;
+
+    final int type;
+
+    final byte[] extras;
+
+    TriggerRecord(OperableTrigger trigger) throws JobPersistenceException {
+
+      this.trigger = trigger;
+      this.name = trigger.getName().getBytes(UTF8);
+      this.hash = TriggerNameIndex.hash(name);
+      if (trigger.getClass() == SimpleTriggerImpl.class) {
+        this.type = TYPE_SIMPLE;
+        this.extras = encodeExtras(trigger);
+      } else if (trigger.getClass() == CronTriggerImpl.class) {
+        this.type = TYPE_CRON;
+        this.extras = encodeExtras(trigger);
+      } else {
+        this.type = TYPE_SERIALIZED;
+        this.extras = serialize(trigger);
+      }
+    }
+  }
+}
@@ -0,0 +1,31 @@
+package org.quartz.core;
+
+import java.util.List;
+import org.quartz.exceptions.JobPersistenceException;
+import org.quartz.triggers.OperableTrigger;
+
+/**
+ * A <code>{@link JobStore}</code> whose triggers fall into disjoint partitions that can be acquired
+ * from independently, so several <code>{@link QuartzSchedulerThread}</code>s can acquire and fire
+ * triggers in parallel, each from a slice of the partitions of its own.
+ */
+public interface PartitionedJobStore extends TimeOrderedJobStore {
+
+  /**
+   * Like {@link JobStore#acquireNextTriggers(long, int, long)}, but only from the given slice of
+   * the store's partitions. The slices <code>0</code> to <code>sliceCount - 1</code> together cover
+   * every partition, and never share one.
+   *
+   * @param slice the slice to acquire from, from <code>0</code> to <code>sliceCount - 1</code>
+   * @param sliceCount the number of slices the partitions are dealt out to
+   */
+  List<OperableTrigger> acquireNextTriggers(
+      long noLaterThan, int maxCount, long timeWindow, int slice, int sliceCount)
+      throws JobPersistenceException;
+
+  /**
+   * Like {@link TimeOrderedJobStore#getEarliestNextFireTime()}, but only for the given slice of the
+   * store's partitions.
+   */
+  long getEarliestNextFireTime(int slice, int sliceCount) throws JobPersistenceException;
+}
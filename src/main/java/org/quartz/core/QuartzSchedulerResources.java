@@ -32,6 +32,28 @@ public class QuartzSchedulerResources {
 
   private int maxBatchSize;
 
+  private int schedulerThreadCount = 1;
+
+  private boolean adaptiveBatching = false;
+
+  private final AcquisitionMetrics acquisitionMetrics = new AcquisitionMetrics();
+
+  private boolean precisionMode = false;
+
+  private final FireLatenessMetrics fireLatenessMetrics = new FireLatenessMetrics();
+
+  private int preparationThreadCount = 0;
+
+  private long fireTimeSpread = 0L;
+
+  private final RateLimiter rateLimiter = new RateLimiter();
+
+  private long priorityAging = 0L;
+
+  private int dispatchQueueDepth = 0;
+
+  private final DispatchDelayMetrics dispatchDelayMetrics = new DispatchDelayMetrics();
+
   /** Create an instance with no properties initialized. */
   public QuartzSchedulerResources() {
 
@@ -201,4 +223,148 @@ public class QuartzSchedulerResources {
 
     this.maxBatchSize = maxBatchSize;
   }
+
+  public boolean isAdaptiveBatching() {
+
+    return adaptiveBatching;
+  }
+
+  /**
+   * Set whether the <code>{@link QuartzSchedulerThread}</code>s adapt the size and time window of
+   * their trigger batches to the load. The batch size then grows up to the max batch size while
+   * batches come back full, and the time window up to the batch time window; both shrink again
+   * when few triggers are due.
+   */
+  public void setAdaptiveBatching(boolean adaptiveBatching) {
+
+    this.adaptiveBatching = adaptiveBatching;
+  }
+
+  /** Get the counts of the trigger acquisitions of the scheduler threads. */
+  public AcquisitionMetrics getAcquisitionMetrics() {
+
+    return acquisitionMetrics;
+  }
+
+  public boolean isPrecisionMode() {
+
+    return precisionMode;
+  }
+
+  /**
+   * Set whether the <code>{@link QuartzSchedulerThread}</code>s fire triggers to within a fraction
+   * of a millisecond. They then wait on their monitor only until shortly before a fire time, and
+   * park and spin for the rest, which costs some CPU for every fire.
+   */
+  public void setPrecisionMode(boolean precisionMode) {
+
+    this.precisionMode = precisionMode;
+  }
+
+  /** Get the lateness with which the scheduler threads fired triggers. */
+  public FireLatenessMetrics getFireLatenessMetrics() {
+
+    return fireLatenessMetrics;
+  }
+
+  public int getPreparationThreadCount() {
+
+    return preparationThreadCount;
+  }
+
+  /**
+   * Set the number of threads per <code>{@link QuartzSchedulerThread}</code> that prepare the jobs
+   * of fired triggers, instantiating them and handing them to the thread pool, so the scheduler
+   * thread only fires triggers. With 0, the default, the scheduler thread prepares them itself.
+   */
+  public void setPreparationThreadCount(int preparationThreadCount) {
+
+    if (preparationThreadCount < 0) {
+      throw new IllegalArgumentException("Preparation thread count must not be negative.");
+    }
+    this.preparationThreadCount = preparationThreadCount;
+  }
+
+  public long getFireTimeSpread() {
+
+    return fireTimeSpread;
+  }
+
+  /**
+   * Set the window, in milliseconds, over which the fire times of triggers without a spread of
+   * their own are spread. 0, the default, leaves them as they are.
+   */
+  public void setFireTimeSpread(long fireTimeSpread) {
+
+    if (fireTimeSpread < 0) {
+      throw new IllegalArgumentException("Fire time spread cannot be negative.");
+    }
+    this.fireTimeSpread = fireTimeSpread;
+  }
+
+  /** Get the limits on how often jobs may start. */
+  public RateLimiter getRateLimiter() {
+
+    return rateLimiter;
+  }
+
+  public long getPriorityAging() {
+
+    return priorityAging;
+  }
+
+  /**
+   * Set the interval, in milliseconds, after which a job waiting in the dispatch queue gains a
+   * priority level, with priority dispatch. 0, the default, dispatches in the order of firing.
+   */
+  public void setPriorityAging(long priorityAging) {
+
+    if (priorityAging < 0) {
+      throw new IllegalArgumentException("Priority aging cannot be negative.");
+    }
+    this.priorityAging = priorityAging;
+  }
+
+  public int getDispatchQueueDepth() {
+
+    return dispatchQueueDepth;
+  }
+
+  /**
+   * Set the number of fired jobs that may wait in the dispatch queue of each <code>
+   * {@link QuartzSchedulerThread}</code> with priority dispatch, before it stops firing triggers.
+   */
+  public void setDispatchQueueDepth(int dispatchQueueDepth) {
+
+    if (dispatchQueueDepth < 0) {
+      throw new IllegalArgumentException("Dispatch queue depth must not be negative.");
+    }
+    this.dispatchQueueDepth = dispatchQueueDepth;
+  }
+
+  /** Get the delays of the jobs in the dispatch queues, per priority. */
+  public DispatchDelayMetrics getDispatchDelayMetrics() {
+
+    return dispatchDelayMetrics;
+  }
+
+  public int getSchedulerThreadCount() {
+
+    return schedulerThreadCount;
+  }
+
+  /**
+   * Set the number of <code>{@link QuartzSchedulerThread}</code>s acquiring and firing triggers in
+   * parallel, 1 by default. With a {@link PartitionedJobStore} each thread owns a slice of its
+   * partitions.
+   *
+   * @exception IllegalArgumentException if the count is less than 1.
+   */
+  public void setSchedulerThreadCount(int schedulerThreadCount) {
+
+    if (schedulerThreadCount < 1) {
+      throw new IllegalArgumentException("Scheduler thread count must be at least 1.");
+    }
+    this.schedulerThreadCount = schedulerThreadCount;
+  }
 }
@@ -4,12 +4,12 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 import org.quartz.QuartzScheduler;
 import org.quartz.exceptions.JobPersistenceException;
 import org.quartz.exceptions.SchedulerException;
 import org.quartz.triggers.OperableTrigger;
 import org.quartz.triggers.Trigger;
-import org.quartz.triggers.Trigger.CompletedExecutionInstruction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,12 +32,39 @@ public class QuartzSchedulerThread extends Thread {
 
   private QuartzSchedulerResources quartzSchedulerResources;
 
+  /** the slice of a {@link PartitionedJobStore} this thread acquires from */
+  private final int slice;
+
+  private final int sliceCount;
+
+  /** the batch size limit and time window of the next acquisition, when batching adaptively */
+  private int adaptiveBatchSize = 1;
+
+  private long adaptiveBatchTimeWindow = 0L;
+
+  /** in precision mode, the nanoseconds before a fire time the thread stops parking and spins */
+  private static final long SPIN_NANOS = 100L * 1000L;
+
+  private static final long RECALIBRATION_INTERVAL_NANOS = 60L * 1000L * 1000L * 1000L;
+
+  /** a wall clock millisecond and the <code>System.nanoTime</code> at which it began */
+  private long calibratedMillis;
+
+  private long calibratedNanos;
+
+  private boolean calibrated;
+
+  private final JobDispatcher jobDispatcher;
+
   private final Object sigLock = new Object();
 
   private boolean signaled;
 
   private long signaledNextFireTime;
 
+  /** the time until which the thread waits on <code>sigLock</code>, unless signaled earlier */
+  private long wakeUpTime;
+
   private boolean paused;
 
   private AtomicBoolean halted;
@@ -60,7 +87,25 @@ public class QuartzSchedulerThread extends Thread {
    */
   public QuartzSchedulerThread(QuartzScheduler qs, QuartzSchedulerResources qsRsrcs) {
 
-    this(qs, qsRsrcs, qsRsrcs.getMakeSchedulerThreadDaemon(), Thread.NORM_PRIORITY);
+    this(qs, qsRsrcs, 0, 1);
+  }
+
+  /**
+   * Construct one of <code>sliceCount</code> <code>QuartzSchedulerThread</code>s that acquire and
+   * fire triggers in parallel. With a {@link PartitionedJobStore}, this one acquires from the given
+   * slice of its partitions only; any other <code>JobStore</code> is shared by all of them, which
+   * never fire a trigger twice, since a trigger is acquired by one thread only.
+   */
+  public QuartzSchedulerThread(
+      QuartzScheduler qs, QuartzSchedulerResources qsRsrcs, int slice, int sliceCount) {
+
+    this(
+        qs,
+        qsRsrcs,
+        qsRsrcs.getMakeSchedulerThreadDaemon(),
+        Thread.NORM_PRIORITY,
+        slice,
+        sliceCount);
   }
 
   /**
@@ -71,11 +116,19 @@ public class QuartzSchedulerThread extends Thread {
       QuartzScheduler quartzScheduler,
       QuartzSchedulerResources quartzSchedulerResources,
       boolean setDaemon,
-      int threadPrio) {
-
-    super(quartzScheduler.getSchedulerThreadGroup(), quartzSchedulerResources.getThreadName());
+      int threadPrio,
+      int slice,
+      int sliceCount) {
+
+    super(
+        quartzScheduler.getSchedulerThreadGroup(),
+        (sliceCount > 1)
+            ? quartzSchedulerResources.getThreadName() + "-" + slice
+            : quartzSchedulerResources.getThreadName());
     this.quartzScheduler = quartzScheduler;
     this.quartzSchedulerResources = quartzSchedulerResources;
+    this.slice = slice;
+    this.sliceCount = sliceCount;
     this.setDaemon(setDaemon);
     if (quartzSchedulerResources.isThreadsInheritInitializersClassLoadContext()) {
       logger.info(
@@ -85,6 +138,12 @@ public class QuartzSchedulerThread extends Thread {
     }
 
     this.setPriority(threadPrio);
+    jobDispatcher =
+        new JobDispatcher(
+            quartzScheduler,
+            quartzSchedulerResources,
+            getName(),
+            quartzSchedulerResources.getPreparationThreadCount());
 
     // start the underlying thread, but put this object into the 'paused'
     // state
@@ -117,7 +176,10 @@ public class QuartzSchedulerThread extends Thread {
     }
   }
 
-  /** Signals the main processing loop to pause at the next possible point. */
+  /**
+   * Signals the main processing loop to pause at the next possible point. The jobs fired but not
+   * yet handed to the thread pool are vetoed before the thread ends.
+   */
   public void halt() {
 
     synchronized (sigLock) {
@@ -129,6 +191,7 @@ public class QuartzSchedulerThread extends Thread {
         signalSchedulingChange(0);
       }
     }
+    jobDispatcher.halt();
   }
 
   public boolean isPaused() {
@@ -147,12 +210,25 @@ public class QuartzSchedulerThread extends Thread {
   void signalSchedulingChange(long candidateNewNextFireTime) {
 
     synchronized (sigLock) {
+      // a burst of signals merges into one, for the earliest of their times
+      signaledNextFireTime =
+          signaled
+              ? earlierOf(signaledNextFireTime, candidateNewNextFireTime)
+              : candidateNewNextFireTime;
       signaled = true;
-      signaledNextFireTime = candidateNewNextFireTime;
-      sigLock.notifyAll();
+      // wake the thread only if it would otherwise sleep past the new time
+      if (candidateNewNextFireTime == 0 || candidateNewNextFireTime < wakeUpTime) {
+        sigLock.notifyAll();
+      }
     }
   }
 
+  /** Get the earlier of two signaled times, where zero stands for an unknown, maybe earlier one. */
+  private static long earlierOf(long time1, long time2) {
+
+    return (time1 == 0 || time2 == 0) ? 0 : Math.min(time1, time2);
+  }
+
   private void clearSignaledSchedulingChange() {
 
     synchronized (sigLock) {
@@ -180,6 +256,7 @@ public class QuartzSchedulerThread extends Thread {
   public void run() {
 
     boolean lastAcquireFailed = false;
+    jobDispatcher.start();
 
     while (!halted.get()) {
       try {
@@ -198,23 +275,41 @@ public class QuartzSchedulerThread extends Thread {
           }
         }
 
-        int availThreadCount = quartzSchedulerResources.getThreadPool().blockForAvailableThreads();
+        // with priority dispatch, the queue takes jobs while the pool is saturated; otherwise the
+        // jobs queued for preparation will take threads too
+        int availThreadCount =
+            jobDispatcher.isPriorityDispatch()
+                ? jobDispatcher.blockForQueueSpace()
+                : Math.max(
+                    1,
+                    quartzSchedulerResources.getThreadPool().blockForAvailableThreads()
+                        - jobDispatcher.getPendingCount());
         if (availThreadCount
             > 0) { // will always be true, due to semantics of blockForAvailableThreads...
 
           List<OperableTrigger> triggers = null;
 
-          long now = System.currentTimeMillis();
+          Clock clock = Clock.getClock();
+          long now = clock.currentTimeMillis();
 
           clearSignaledSchedulingChange();
           try {
-            triggers =
-                quartzSchedulerResources
-                    .getJobStore()
-                    .acquireNextTriggers(
-                        now + idleWaitTime,
-                        Math.min(availThreadCount, quartzSchedulerResources.getMaxBatchSize()),
-                        quartzSchedulerResources.getBatchTimeWindow());
+            boolean adaptive = quartzSchedulerResources.isAdaptiveBatching();
+            int maxCount =
+                Math.min(
+                    availThreadCount,
+                    adaptive ? adaptiveBatchSize : quartzSchedulerResources.getMaxBatchSize());
+            long timeWindow =
+                adaptive ? adaptiveBatchTimeWindow : quartzSchedulerResources.getBatchTimeWindow();
+            triggers = acquireNextTriggers(now + idleWaitTime, maxCount, timeWindow);
+            releaseBeyondBatchWindow(triggers, timeWindow);
+            int acquired = (triggers == null) ? 0 : triggers.size();
+            quartzSchedulerResources
+                .getAcquisitionMetrics()
+                .recordAcquisition(acquired, maxCount, timeWindow);
+            if (adaptive) {
+              adaptBatching(acquired, maxCount);
+            }
             lastAcquireFailed = false;
             logger.debug(
                 "batch acquisition of " + (triggers == null ? 0 : triggers.size()) + " triggers");
@@ -230,22 +325,29 @@ public class QuartzSchedulerThread extends Thread {
 
           if (triggers != null && !triggers.isEmpty()) {
 
-            now = System.currentTimeMillis();
+            // a virtual clock has no nanosecond counterpart to spin on
+            boolean precise =
+                clock == Clock.SYSTEM_CLOCK && quartzSchedulerResources.isPrecisionMode();
             long triggerTime = triggers.get(0).getNextFireTime().getTime();
+            long deadlineNanos = precise ? toNanoTime(triggerTime) : 0L;
+            now = clock.currentTimeMillis();
             long timeUntilTrigger = triggerTime - now;
             while (timeUntilTrigger > 2) {
               synchronized (sigLock) {
                 if (halted.get()) {
                   break;
                 }
-                if (!isCandidateNewTimeEarlierWithinReason(triggerTime, false)) {
+                if (!isCandidateNewTimeEarlierWithinReason(triggerTime)) {
                   try {
                     // we could have blocked a long while
                     // on 'synchronize', so we must recompute
-                    now = System.currentTimeMillis();
+                    now = clock.currentTimeMillis();
                     timeUntilTrigger = triggerTime - now;
-                    if (timeUntilTrigger >= 1) {
-                      sigLock.wait(timeUntilTrigger);
+                    // in precision mode, wake up early and park and spin the rest
+                    long waitTime = precise ? timeUntilTrigger - 2 : timeUntilTrigger;
+                    if (waitTime >= 1) {
+                      wakeUpTime = triggerTime;
+                      clock.waitUntil(sigLock, now + waitTime);
                     }
                   } catch (InterruptedException ignore) {
                   }
@@ -254,7 +356,7 @@ public class QuartzSchedulerThread extends Thread {
               if (releaseIfScheduleChangedSignificantly(triggers, triggerTime)) {
                 break;
               }
-              now = System.currentTimeMillis();
+              now = clock.currentTimeMillis();
               timeUntilTrigger = triggerTime - now;
             }
 
@@ -262,6 +364,11 @@ public class QuartzSchedulerThread extends Thread {
             if (triggers.isEmpty()) {
               continue;
             }
+            if (precise) {
+              awaitPrecisely(deadlineNanos);
+            }
+            long firedNanos = System.nanoTime();
+            long firedMillis = clock.currentTimeMillis();
 
             // set triggers to 'executing'
             List<TriggerFiredResult> bndles = new ArrayList<TriggerFiredResult>();
@@ -310,57 +417,15 @@ public class QuartzSchedulerThread extends Thread {
                 }
                 continue;
               }
-
-              // TODO: improvements:
-              //
-              // 2- make sure we can get a job runshell before firing triggers, or
-              // don't let that throw an exception (right now it never does,
-              // but the signature says it can).
-              // 3- acquire more triggers at a time (based on num threads available?)
-
-              JobRunShell shell = null;
-              try {
-                shell = quartzSchedulerResources.getJobRunShellFactory().createJobRunShell(bndle);
-                shell.initialize(quartzScheduler);
-              } catch (SchedulerException se) {
-                try {
-                  quartzSchedulerResources
-                      .getJobStore()
-                      .triggeredJobComplete(
-                          triggers.get(i),
-                          bndle.getJobDetail(),
-                          CompletedExecutionInstruction.SET_ALL_JOB_TRIGGERS_ERROR);
-                } catch (SchedulerException se2) {
-                  quartzScheduler.notifySchedulerListenersError(
-                      "An error occurred while placing job's triggers in error state '"
-                          + triggers.get(i).getName()
-                          + "'",
-                      se2);
-                }
-                continue;
-              }
-
-              if (quartzSchedulerResources.getThreadPool().runInThread(shell) == false) {
-                try {
-                  // this case should never happen, as it is indicative of the
-                  // scheduler being shutdown or a bug in the thread pool or
-                  // a thread pool being used concurrently - which the docs
-                  // say not to do...
-                  logger.error("ThreadPool.runInThread() return false!");
-                  quartzSchedulerResources
-                      .getJobStore()
-                      .triggeredJobComplete(
-                          triggers.get(i),
-                          bndle.getJobDetail(),
-                          CompletedExecutionInstruction.SET_ALL_JOB_TRIGGERS_ERROR);
-                } catch (SchedulerException se2) {
-                  quartzScheduler.notifySchedulerListenersError(
-                      "An error occurred while placing job's triggers in error state '"
-                          + triggers.get(i).getName()
-                          + "'",
-                      se2);
-                }
-              }
+              long scheduledFireTime = bndle.getScheduledFireTime().getTime();
+              quartzSchedulerResources
+                  .getFireLatenessMetrics()
+                  .recordLateness(
+                      precise
+                          ? firedNanos - toNanoTime(scheduledFireTime)
+                          : (firedMillis - scheduledFireTime) * 1000000L);
+
+              jobDispatcher.dispatch(bndle);
             }
 
             continue; // while (!halted)
@@ -370,12 +435,16 @@ public class QuartzSchedulerThread extends Thread {
           continue; // while (!halted)
         }
 
-        long now = System.currentTimeMillis();
+        Clock clock = Clock.getClock();
+        long now = clock.currentTimeMillis();
         long waitTime = now + getRandomizedIdleWaitTime();
-        long timeUntilContinue = waitTime - now;
         synchronized (sigLock) {
           try {
-            sigLock.wait(timeUntilContinue);
+            // unless signaled of an earlier trigger since the acquisition
+            if (!signaled || earlierOf(signaledNextFireTime, waitTime) == waitTime) {
+              wakeUpTime = waitTime;
+              clock.waitUntil(sigLock, Math.max(now + 1L, waitTime));
+            }
           } catch (InterruptedException ignore) {
           }
         }
@@ -384,20 +453,151 @@ public class QuartzSchedulerThread extends Thread {
         logger.error("Runtime error occurred in main trigger firing loop.", re);
       }
     } // while (!halted)
+    jobDispatcher.join();
 
     // drop references to scheduler stuff to aid garbage collection...
     quartzScheduler = null;
     quartzSchedulerResources = null;
   }
 
+  /**
+   * Park until shortly before the deadline, then spin until it has passed, to fire within a few
+   * microseconds of it rather than the millisecond or more a monitor wait may take.
+   */
+  private void awaitPrecisely(long deadlineNanos) {
+
+    long remaining = deadlineNanos - System.nanoTime();
+    while (remaining > SPIN_NANOS && !halted.get()) {
+      LockSupport.parkNanos(remaining - SPIN_NANOS);
+      remaining = deadlineNanos - System.nanoTime();
+    }
+    while (System.nanoTime() - deadlineNanos < 0 && !halted.get()) {
+      // spin
+    }
+  }
+
+  /**
+   * Convert a wall clock time to the <code>System.nanoTime</code> at which it will come, or came.
+   * The conversion is calibrated to the moment the wall clock ticks over to the next millisecond,
+   * and again every minute, as the two clocks drift apart.
+   */
+  private long toNanoTime(long millis) {
+
+    if (!calibrated || System.nanoTime() - calibratedNanos > RECALIBRATION_INTERVAL_NANOS) {
+      long start = System.currentTimeMillis();
+      long tick;
+      while ((tick = System.currentTimeMillis()) == start) {
+        // spin until the millisecond begins
+      }
+      calibratedNanos = System.nanoTime();
+      calibratedMillis = tick;
+      calibrated = true;
+    }
+    return calibratedNanos + (millis - calibratedMillis) * 1000000L;
+  }
+
+  /**
+   * The triggers of a batch fire along with its first one, so keep only those that fire within the
+   * time window after it, and release the rest.
+   */
+  private void releaseBeyondBatchWindow(List<OperableTrigger> triggers, long timeWindow) {
+
+    if (triggers == null || triggers.size() < 2) {
+      return;
+    }
+    long batchEnd =
+        Math.max(
+            triggers.get(0).getNextFireTime().getTime(), Clock.getClock().currentTimeMillis())
+            + timeWindow;
+    int last = triggers.size() - 1;
+    while (last > 0 && triggers.get(last).getNextFireTime().getTime() > batchEnd) {
+      OperableTrigger trigger = triggers.remove(last--);
+      try {
+        quartzSchedulerResources.getJobStore().releaseAcquiredTrigger(trigger);
+      } catch (JobPersistenceException jpe) {
+        quartzScheduler.notifySchedulerListenersError(
+            "An error occurred while releasing trigger '" + trigger.getName() + "'", jpe);
+      }
+    }
+  }
+
+  /**
+   * Double the batch size and widen the time window while batches come back full, as many triggers
+   * are due at about the same time; halve them when batches come back less than half full.
+   */
+  private void adaptBatching(int acquired, int maxCount) {
+
+    if (acquired >= maxCount) {
+      adaptiveBatchSize =
+          (int) Math.min(quartzSchedulerResources.getMaxBatchSize(), adaptiveBatchSize * 2L);
+      adaptiveBatchTimeWindow =
+          Math.min(
+              quartzSchedulerResources.getBatchTimeWindow(),
+              Math.max(1L, adaptiveBatchTimeWindow * 2));
+    } else if (acquired * 2 < maxCount) {
+      adaptiveBatchSize = Math.max(1, adaptiveBatchSize / 2);
+      adaptiveBatchTimeWindow = adaptiveBatchTimeWindow / 2;
+    }
+  }
+
+  private List<OperableTrigger> acquireNextTriggers(
+      long noLaterThan, int maxCount, long timeWindow) throws JobPersistenceException {
+
+    JobStore jobStore = quartzSchedulerResources.getJobStore();
+    if (sliceCount > 1 && jobStore instanceof PartitionedJobStore) {
+      return ((PartitionedJobStore) jobStore)
+          .acquireNextTriggers(noLaterThan, maxCount, timeWindow, slice, sliceCount);
+    }
+    return jobStore.acquireNextTriggers(noLaterThan, maxCount, timeWindow);
+  }
+
+  /**
+   * Get the next fire time of the earliest trigger waiting in the store, or in this thread's slice
+   * of it.
+   *
+   * @return the time, <code>Long.MAX_VALUE</code> if no trigger is waiting, or <code>0</code> if
+   *     the store cannot tell
+   */
+  private long getEarliestNextFireTime() throws JobPersistenceException {
+
+    JobStore jobStore = quartzSchedulerResources.getJobStore();
+    if (sliceCount > 1 && jobStore instanceof PartitionedJobStore) {
+      return ((PartitionedJobStore) jobStore).getEarliestNextFireTime(slice, sliceCount);
+    }
+    if (jobStore instanceof TimeOrderedJobStore) {
+      return ((TimeOrderedJobStore) jobStore).getEarliestNextFireTime();
+    }
+    return 0L;
+  }
+
   private boolean releaseIfScheduleChangedSignificantly(
       List<OperableTrigger> triggers, long triggerTime) {
 
-    if (isCandidateNewTimeEarlierWithinReason(triggerTime, true)) {
+    long candidate;
+    boolean pausing;
+    synchronized (sigLock) {
+      if (!signaled) {
+        return false;
+      }
+      candidate = signaledNextFireTime;
+      pausing = paused;
+      clearSignaledSchedulingChange();
+    }
+    // when pausing, give the triggers back in any case
+    if (candidate == 0 && !pausing) {
+      // the signal did not say when; the store's earliest waiting trigger does. Ask outside of
+      // sigLock, as stores signal while holding their own locks
+      try {
+        candidate = getEarliestNextFireTime();
+      } catch (JobPersistenceException jpe) {
+        logger.debug("Could not get the earliest next fire time.", jpe);
+      }
+    }
+
+    if (isEarlierWithinReason(candidate, triggerTime)) {
 
       for (OperableTrigger trigger : triggers) {
         try {
-          // above call does a clearSignaledSchedulingChange()
           quartzSchedulerResources.getJobStore().releaseAcquiredTrigger(trigger);
         } catch (JobPersistenceException jpe) {
           quartzScheduler.notifySchedulerListenersError(
@@ -413,12 +613,12 @@ public class QuartzSchedulerThread extends Thread {
     return false;
   }
 
-  private boolean isCandidateNewTimeEarlierWithinReason(long oldTime, boolean clearSignal) {
+  private boolean isCandidateNewTimeEarlierWithinReason(long oldTime) {
 
     // So here's the deal: We know due to being signaled that 'the schedule'
     // has changed. We may know (if getSignaledNextFireTime() != 0) the
-    // new earliest fire time. We may not (in which case we will assume
-    // that the new time is earlier than the trigger we have acquired).
+    // new earliest fire time. We may not (in which case we will ask the
+    // store for its earliest waiting trigger before releasing any).
     // In either case, we only want to abandon our acquired trigger and
     // go looking for a new one if "it's worth it". It's only worth it if
     // the time cost incurred to abandon the trigger and acquire a new one
@@ -434,31 +634,20 @@ public class QuartzSchedulerThread extends Thread {
     // a somewhat educated but arbitrary guess ;-).
 
     synchronized (sigLock) {
-      if (!isScheduleChanged()) {
-        return false;
-      }
-
-      boolean earlier = false;
-
-      if (getSignaledNextFireTime() == 0) {
-        earlier = true;
-      } else if (getSignaledNextFireTime() < oldTime) {
-        earlier = true;
-      }
-
-      if (earlier) {
-        // so the new time is considered earlier, but is it enough earlier?
-        long diff = oldTime - System.currentTimeMillis();
-        if (diff < 7L) {
-          earlier = false;
-        }
-      }
+      return signaled && isEarlierWithinReason(signaledNextFireTime, oldTime);
+    }
+  }
 
-      if (clearSignal) {
-        clearSignaledSchedulingChange();
-      }
+  /**
+   * Whether the signaled time is earlier than the one of the triggers held, by enough to be worth
+   * releasing them for.
+   */
+  private static boolean isEarlierWithinReason(long candidateNewTime, long oldTime) {
 
-      return earlier;
+    if (candidateNewTime != 0 && candidateNewTime >= oldTime) {
+      return false;
     }
+    // so the new time is considered earlier, but is it enough earlier?
+    return oldTime - Clock.getClock().currentTimeMillis() >= 7L;
   }
 } // end of QuartzSchedulerThread
@@ -1,14 +1,15 @@
 package org.quartz.core;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 import org.quartz.exceptions.JobPersistenceException;
 import org.quartz.exceptions.ObjectAlreadyExistsException;
@@ -17,7 +18,6 @@ import org.quartz.jobs.JobDetail;
 import org.quartz.triggers.OperableTrigger;
 import org.quartz.triggers.Trigger;
 import org.quartz.triggers.Trigger.CompletedExecutionInstruction;
-import org.quartz.triggers.Trigger.TriggerTimeComparator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -29,35 +29,72 @@ import org.slf4j.LoggerFactory;
  * completely volatile - therefore this <code>JobStore</code> should not be used if true persistence
  * between program shutdowns is required.
  *
+ * <p>Jobs and triggers are kept in concurrent maps, so lookups (<code>retrieveJob</code>, <code>
+ * retrieveTrigger</code>, <code>getTriggersForJob</code>, <code>getJobKeys</code>) never take the
+ * store lock and never stall trigger acquisition. The lock only guards trigger state transitions
+ * and the time-ordered index.
+ *
+ * <p>Jobs and triggers are copied when they are stored, and copies are handed out, so that no
+ * caller can change them behind the store's back. The store fires its own triggers and applies
+ * their misfire policies in place, without copying them, while they are out of the time index. It
+ * does so holding the trigger's wrapper, which the lookups also hold for the instant they copy the
+ * trigger, so that they never see it half updated.
+ *
  * @author James House
  * @author Sharada Jambula
  * @author Eric Mueller
  */
-public class RAMJobStore implements JobStore {
+public class RAMJobStore implements BatchJobStore, TimeOrderedJobStore, ShutdownAwareJobStore {
 
   /*
    * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~ Data members.
    * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
    */
 
-  private HashMap<String, JobWrapper> jobsByKey = new HashMap<String, JobWrapper>(1000);
+  private final ConcurrentHashMap<String, JobWrapper> jobsByKey =
+      new ConcurrentHashMap<String, JobWrapper>(1000);
 
-  private HashMap<String, TriggerWrapper> wrappedTriggersByKey =
-      new HashMap<String, TriggerWrapper>(1000);
+  private final ConcurrentHashMap<String, TriggerWrapper> wrappedTriggersByKey =
+      new ConcurrentHashMap<String, TriggerWrapper>(1000);
 
-  private TreeSet<TriggerWrapper> timeWrappedTriggers =
-      new TreeSet<TriggerWrapper>(new TriggerWrapperComparator());
+  /** guarded by lock */
+  private TriggerTimeIndex timeWrappedTriggers = new TreeSetTriggerTimeIndex();
 
-  private HashMap<String, Calendar> calendarsByName = new HashMap<String, Calendar>(25);
+  private final ConcurrentHashMap<String, Calendar> calendarsByName =
+      new ConcurrentHashMap<String, Calendar>(25);
 
-  private ArrayList<TriggerWrapper> wrappedTriggers = new ArrayList<TriggerWrapper>(1000);
+  /** the triggers of each job, keyed by job name; the sets are written under lock */
+  private final ConcurrentHashMap<String, Set<TriggerWrapper>> wrappedTriggersByJobKey =
+      new ConcurrentHashMap<String, Set<TriggerWrapper>>(1000);
 
+  /** Serializes mutations; guards the trigger states and the time index. Readers never take it. */
   private final Object lock = new Object();
 
-  private HashSet<String> blockedJobs = new HashSet<String>();
+  /** The next fire time of the head of the time index, published for lock-free peeking. */
+  private volatile long earliestNextFireTime = Long.MAX_VALUE;
 
   private long misfireThreshold = 5000L;
 
+  /** triggers evicted per hold of the lock, so a large backlog never stalls acquisition */
+  private static final int EVICTION_BATCH_SIZE = 1000;
+
+  private static final long SWEEP_INTERVAL = 1000L;
+
+  /** the triggers that completed, errored or fired for the last time, oldest first; by lock */
+  private final ArrayDeque<TriggerWrapper> finishedTriggers = new ArrayDeque<TriggerWrapper>();
+
+  private volatile int finishedTriggerRetentionCount = -1;
+
+  private volatile long finishedTriggerRetentionTime = -1L;
+
+  private final AtomicLong evictedTriggerCount = new AtomicLong();
+
+  /** guarded by lock */
+  private Thread sweeper;
+
+  /** guarded by lock */
+  private boolean shutdown = false;
+
   private SchedulerSignaler mSignaler;
 
   private final Logger logger = LoggerFactory.getLogger(getClass());
@@ -83,6 +120,7 @@ public class RAMJobStore implements JobStore {
   public void initialize(SchedulerSignaler signaler) {
 
     mSignaler = signaler;
+    startSweeper();
 
     logger.info("RAMJobStore initialized.");
   }
@@ -93,6 +131,54 @@ public class RAMJobStore implements JobStore {
     // nothing to do
   }
 
+  @Override
+  public void shutdown() {
+
+    Thread stopped;
+    synchronized (lock) {
+      shutdown = true;
+      stopped = sweeper;
+      sweeper = null;
+    }
+    if (stopped != null) {
+      stopped.interrupt();
+    }
+  }
+
+  /**
+   * Peek at the next fire time of the earliest waiting trigger without taking the store lock.
+   *
+   * @return the time in milliseconds, or <code>Long.MAX_VALUE</code> if no trigger is waiting.
+   */
+  @Override
+  public long getEarliestNextFireTime() {
+
+    return earliestNextFireTime;
+  }
+
+  public boolean isUseTimingWheel() {
+
+    return timeWrappedTriggers instanceof TimingWheelTriggerTimeIndex;
+  }
+
+  /**
+   * Whether to keep waiting triggers in a hierarchical timing wheel rather than a sorted tree. The
+   * wheel adds and removes triggers in constant time, which pays off with very many (mostly
+   * periodic) triggers. Must be set before any trigger is stored.
+   *
+   * @param useTimingWheel
+   */
+  public void setUseTimingWheel(boolean useTimingWheel) {
+
+    synchronized (lock) {
+      if (!wrappedTriggersByKey.isEmpty()) {
+        throw new IllegalStateException("The time index cannot change once triggers are stored.");
+      }
+      timeWrappedTriggers =
+          useTimingWheel ? new TimingWheelTriggerTimeIndex() : new TreeSetTriggerTimeIndex();
+    }
+  }
+
   public long getMisfireThreshold() {
 
     return misfireThreshold;
@@ -112,6 +198,146 @@ public class RAMJobStore implements JobStore {
     this.misfireThreshold = misfireThreshold;
   }
 
+  public int getFinishedTriggerRetentionCount() {
+
+    return finishedTriggerRetentionCount;
+  }
+
+  /**
+   * How many finished triggers to keep: triggers in the complete or error state, and triggers that
+   * fired for the last time but were not deleted. Beyond that, the oldest are evicted from the
+   * store by a background sweeper, so they no longer show up in lookups. Only triggers finishing
+   * after this is set are accounted for. The default, -1, keeps them all.
+   *
+   * @param finishedTriggerRetentionCount
+   */
+  public void setFinishedTriggerRetentionCount(int finishedTriggerRetentionCount) {
+
+    this.finishedTriggerRetentionCount = finishedTriggerRetentionCount;
+    startSweeper();
+  }
+
+  public long getFinishedTriggerRetentionTime() {
+
+    return finishedTriggerRetentionTime;
+  }
+
+  /**
+   * The number of milliseconds a finished trigger is kept before the background sweeper evicts it,
+   * see {@link #setFinishedTriggerRetentionCount(int)}. The default, -1, keeps them forever.
+   *
+   * @param finishedTriggerRetentionTime
+   */
+  public void setFinishedTriggerRetentionTime(long finishedTriggerRetentionTime) {
+
+    this.finishedTriggerRetentionTime = finishedTriggerRetentionTime;
+    startSweeper();
+  }
+
+  /** @return the number of finished triggers evicted so far. */
+  public long getEvictedTriggerCount() {
+
+    return evictedTriggerCount.get();
+  }
+
+  private boolean isRetentionLimited() {
+
+    return finishedTriggerRetentionCount >= 0 || finishedTriggerRetentionTime >= 0;
+  }
+
+  /** Start the sweeper once the store is initialized and a retention limit is set. */
+  private void startSweeper() {
+
+    synchronized (lock) {
+      if (sweeper != null || shutdown || mSignaler == null || !isRetentionLimited()) {
+        return;
+      }
+      sweeper =
+          new Thread(
+              new Runnable() {
+
+                @Override
+                public void run() {
+
+                  sweepLoop();
+                }
+              },
+              "RAMJobStore sweeper");
+      sweeper.setDaemon(true);
+      sweeper.start();
+    }
+  }
+
+  private void sweepLoop() {
+
+    while (true) {
+      try {
+        Thread.sleep(SWEEP_INTERVAL);
+      } catch (InterruptedException e) {
+        return;
+      }
+      synchronized (lock) {
+        if (shutdown) {
+          return;
+        }
+      }
+      evictFinishedTriggers();
+    }
+  }
+
+  /**
+   * Evict the finished triggers beyond the retention limits, oldest first. The lock is released
+   * after every batch, so acquisition and firing go on in between.
+   *
+   * @return the number of triggers evicted
+   */
+  int evictFinishedTriggers() {
+
+    int evicted = 0;
+    while (true) {
+      synchronized (lock) {
+        int count = finishedTriggerRetentionCount;
+        long time = finishedTriggerRetentionTime;
+        long oldest = Clock.getClock().currentTimeMillis() - time;
+        for (int i = 0; i < EVICTION_BATCH_SIZE; i++) {
+          TriggerWrapper tw = finishedTriggers.peekFirst();
+          if (tw == null
+              || !((count >= 0 && finishedTriggers.size() > count)
+                  || (time >= 0 && tw.finishedAt <= oldest))) {
+            return evicted;
+          }
+          finishedTriggers.pollFirst();
+          // skip triggers removed, replaced or rescheduled meanwhile
+          if (wrappedTriggersByKey.get(tw.key) == tw && isFinished(tw)) {
+            wrappedTriggersByKey.remove(tw.key);
+            removeFromJobTriggers(tw);
+            if (timeWrappedTriggers.remove(tw)) {
+              updateEarliestNextFireTime();
+            }
+            evictedTriggerCount.incrementAndGet();
+            evicted++;
+          }
+        }
+      }
+    }
+  }
+
+  /** Account for a trigger that completed, errored or fired for the last time. Hold the lock. */
+  private void triggerFinished(TriggerWrapper tw) {
+
+    if (tw.finishedAt == 0L && isRetentionLimited()) {
+      tw.finishedAt = Clock.getClock().currentTimeMillis();
+      finishedTriggers.addLast(tw);
+    }
+  }
+
+  private static boolean isFinished(TriggerWrapper tw) {
+
+    return tw.state == TriggerWrapper.STATE_COMPLETE
+        || tw.state == TriggerWrapper.STATE_ERROR
+        || (tw.state == TriggerWrapper.STATE_WAITING && tw.trigger.getNextFireTime() == null);
+  }
+
   /**
    * Store the given <code>{@link org.quartz.jobs.JobDetail}</code> and <code>
    * {@link org.quartz.triggers.Trigger}</code>.
@@ -142,27 +368,26 @@ public class RAMJobStore implements JobStore {
   public void storeJob(JobDetail newJob, boolean replaceExisting)
       throws ObjectAlreadyExistsException {
 
-    JobWrapper jw = new JobWrapper((JobDetail) newJob.clone());
-
-    boolean repl = false;
+    JobWrapper jw = new JobWrapper(snapshot(newJob));
 
     synchronized (lock) {
-      if (jobsByKey.get(jw.key) != null) {
-        if (!replaceExisting) {
-          throw new ObjectAlreadyExistsException(newJob);
-        }
-        repl = true;
+      if (jobsByKey.get(jw.key) != null && !replaceExisting) {
+        throw new ObjectAlreadyExistsException(newJob);
       }
+      storeJobLocked(jw);
+    }
+  }
 
-      if (!repl) {
+  /** Add a job, or update the stored one of the same name. Call holding lock. */
+  private void storeJobLocked(JobWrapper jw) {
 
-        // add to jobs by FQN map
-        jobsByKey.put(jw.key, jw);
-      } else {
-        // update job detail
-        JobWrapper orig = jobsByKey.get(jw.key);
-        orig.jobDetail = jw.jobDetail; // already cloned
-      }
+    JobWrapper orig = jobsByKey.get(jw.key);
+    if (orig == null) {
+      // add to jobs by FQN map
+      jobsByKey.put(jw.key, jw);
+    } else {
+      // update job detail
+      orig.jobDetail = jw.jobDetail; // already cloned
     }
   }
 
@@ -179,14 +404,12 @@ public class RAMJobStore implements JobStore {
     boolean found = false;
 
     synchronized (lock) {
-      List<Trigger> triggers = getTriggersForJob(jobKey);
-      for (Trigger trig : triggers) {
-        this.removeTrigger(trig.getName());
+      for (TriggerWrapper tw : getTriggerWrappersForJob(jobKey)) {
+        this.removeTrigger(tw.key);
         found = true;
       }
 
       found = (jobsByKey.remove(jobKey) != null) | found;
-      if (found) {}
     }
 
     return found;
@@ -206,36 +429,94 @@ public class RAMJobStore implements JobStore {
   public void storeTrigger(OperableTrigger newTrigger, boolean replaceExisting)
       throws JobPersistenceException {
 
-    TriggerWrapper tw = new TriggerWrapper((OperableTrigger) newTrigger.clone());
+    TriggerWrapper tw = new TriggerWrapper(snapshot(newTrigger));
 
     synchronized (lock) {
-      if (wrappedTriggersByKey.get(tw.key) != null) {
-        if (!replaceExisting) {
-          throw new ObjectAlreadyExistsException(newTrigger);
-        }
-
-        removeTrigger(newTrigger.getName());
+      if (wrappedTriggersByKey.get(tw.key) != null && !replaceExisting) {
+        throw new ObjectAlreadyExistsException(newTrigger);
       }
-
-      if (retrieveJob(newTrigger.getJobName()) == null) {
-        throw new JobPersistenceException(
-            "The job (" + newTrigger.getJobName() + ") referenced by the trigger does not exist.");
+      try {
+        storeTriggerLocked(tw);
+      } finally {
+        updateEarliestNextFireTime();
       }
+    }
+  }
 
-      // add to triggers array
-      wrappedTriggers.add(tw);
+  /** Add a trigger, replacing the stored one of the same name. Call holding lock. */
+  private void storeTriggerLocked(TriggerWrapper tw) throws JobPersistenceException {
 
-      // add to triggers by FQN map
-      wrappedTriggersByKey.put(tw.key, tw);
+    if (jobsByKey.get(tw.jobKey) == null) {
+      throw new JobPersistenceException(
+          "The job (" + tw.jobKey + ") referenced by the trigger does not exist.");
+    }
 
-      if (blockedJobs.contains(tw.jobKey)) {
-        tw.state = TriggerWrapper.STATE_BLOCKED;
-      } else {
-        timeWrappedTriggers.add(tw);
+    TriggerWrapper previous = wrappedTriggersByKey.put(tw.key, tw);
+    if (previous != null) {
+      removeFromJobTriggers(previous);
+      timeWrappedTriggers.remove(previous);
+    }
+
+    // add to triggers by job
+    addToJobTriggers(tw);
+
+    // even if the job is blocked, acquisition sets the trigger aside once it is due
+    timeWrappedTriggers.add(tw);
+  }
+
+  @Override
+  public void storeJobsAndTriggers(
+      Map<JobDetail, List<OperableTrigger>> triggersAndJobs, boolean replace)
+      throws JobPersistenceException {
+
+    // take the snapshots before the lock, so the lock is held for the indexing only
+    List<JobWrapper> jws = new ArrayList<JobWrapper>(triggersAndJobs.size());
+    List<TriggerWrapper> tws = new ArrayList<TriggerWrapper>();
+    for (Map.Entry<JobDetail, List<OperableTrigger>> entry : triggersAndJobs.entrySet()) {
+      jws.add(new JobWrapper(snapshot(entry.getKey())));
+      for (OperableTrigger trigger : entry.getValue()) {
+        tws.add(new TriggerWrapper(snapshot(trigger)));
+      }
+    }
+
+    synchronized (lock) {
+      if (!replace) {
+        for (JobWrapper jw : jws) {
+          if (jobsByKey.containsKey(jw.key)) {
+            throw new ObjectAlreadyExistsException(jw.jobDetail);
+          }
+        }
+        for (TriggerWrapper tw : tws) {
+          if (wrappedTriggersByKey.containsKey(tw.key)) {
+            throw new ObjectAlreadyExistsException(tw.trigger);
+          }
+        }
+      }
+      try {
+        for (JobWrapper jw : jws) {
+          storeJobLocked(jw);
+        }
+        for (TriggerWrapper tw : tws) {
+          storeTriggerLocked(tw);
+        }
+      } finally {
+        updateEarliestNextFireTime();
       }
     }
   }
 
+  /** @return the copy of a job to be stored */
+  private static JobDetail snapshot(JobDetail newJob) {
+
+    return (JobDetail) newJob.clone();
+  }
+
+  /** @return the copy of a trigger to be stored */
+  private static OperableTrigger snapshot(OperableTrigger newTrigger) {
+
+    return (OperableTrigger) newTrigger.clone();
+  }
+
   @Override
   public boolean removeTrigger(String triggerName) {
 
@@ -243,19 +524,12 @@ public class RAMJobStore implements JobStore {
 
     synchronized (lock) {
       // remove from triggers by FQN map
-      found = (wrappedTriggersByKey.remove(triggerName) == null) ? false : true;
+      TriggerWrapper tw = wrappedTriggersByKey.remove(triggerName);
+      found = (tw == null) ? false : true;
       if (found) {
-        TriggerWrapper tw = null;
-        // remove from triggers array
-        Iterator<TriggerWrapper> tgs = wrappedTriggers.iterator();
-        while (tgs.hasNext()) {
-          tw = tgs.next();
-          if (triggerName.equals(tw.key)) {
-            tgs.remove();
-            break;
-          }
-        }
+        removeFromJobTriggers(tw);
         timeWrappedTriggers.remove(tw);
+        updateEarliestNextFireTime();
       }
     }
 
@@ -284,16 +558,7 @@ public class RAMJobStore implements JobStore {
               "New trigger is not related to the same job as the old trigger.");
         }
 
-        tw = null;
-        // remove from triggers array
-        Iterator<TriggerWrapper> tgs = wrappedTriggers.iterator();
-        while (tgs.hasNext()) {
-          tw = tgs.next();
-          if (triggerKey.equals(tw.key)) {
-            tgs.remove();
-            break;
-          }
-        }
+        removeFromJobTriggers(tw);
         timeWrappedTriggers.remove(tw);
 
         try {
@@ -317,10 +582,8 @@ public class RAMJobStore implements JobStore {
   @Override
   public JobDetail retrieveJob(String jobKey) {
 
-    synchronized (lock) {
-      JobWrapper jw = jobsByKey.get(jobKey);
-      return (jw != null) ? (JobDetail) jw.jobDetail.clone() : null;
-    }
+    JobWrapper jw = jobsByKey.get(jobKey);
+    return (jw != null) ? (JobDetail) jw.jobDetail.clone() : null;
   }
 
   /**
@@ -331,11 +594,9 @@ public class RAMJobStore implements JobStore {
   @Override
   public OperableTrigger retrieveTrigger(String triggerKey) {
 
-    synchronized (lock) {
-      TriggerWrapper tw = wrappedTriggersByKey.get(triggerKey);
+    TriggerWrapper tw = wrappedTriggersByKey.get(triggerKey);
 
-      return (tw != null) ? (OperableTrigger) tw.getTrigger().clone() : null;
-    }
+    return (tw != null) ? tw.cloneTrigger() : null;
   }
 
   /**
@@ -347,13 +608,11 @@ public class RAMJobStore implements JobStore {
   @Override
   public Calendar retrieveCalendar(String calName) {
 
-    synchronized (lock) {
-      Calendar cal = calendarsByName.get(calName);
-      if (cal != null) {
-        return (Calendar) cal.clone();
-      }
-      return null;
+    Calendar cal = calendarsByName.get(calName);
+    if (cal != null) {
+      return (Calendar) cal.clone();
     }
+    return null;
   }
 
   /**
@@ -366,12 +625,10 @@ public class RAMJobStore implements JobStore {
 
     ArrayList<Trigger> trigList = new ArrayList<Trigger>();
 
-    synchronized (lock) {
-      for (int i = 0; i < wrappedTriggers.size(); i++) {
-        TriggerWrapper tw = wrappedTriggers.get(i);
-        if (tw.jobKey.equals(jobKey)) {
-          trigList.add((OperableTrigger) tw.trigger.clone());
-        }
+    Set<TriggerWrapper> jobTriggers = wrappedTriggersByJobKey.get(jobKey);
+    if (jobTriggers != null) {
+      for (TriggerWrapper tw : jobTriggers) {
+        trigList.add(tw.cloneTrigger());
       }
     }
 
@@ -380,23 +637,40 @@ public class RAMJobStore implements JobStore {
 
   private ArrayList<TriggerWrapper> getTriggerWrappersForJob(String jobKey) {
 
-    ArrayList<TriggerWrapper> trigList = new ArrayList<TriggerWrapper>();
+    Set<TriggerWrapper> jobTriggers = wrappedTriggersByJobKey.get(jobKey);
+    if (jobTriggers == null) {
+      return new ArrayList<TriggerWrapper>(0);
+    }
+    return new ArrayList<TriggerWrapper>(jobTriggers);
+  }
 
-    synchronized (lock) {
-      for (int i = 0; i < wrappedTriggers.size(); i++) {
-        TriggerWrapper tw = wrappedTriggers.get(i);
-        if (tw.jobKey.equals(jobKey)) {
-          trigList.add(tw);
-        }
-      }
+  /** Link a trigger into the job index. Call holding lock. */
+  private void addToJobTriggers(TriggerWrapper tw) {
+
+    Set<TriggerWrapper> jobTriggers = wrappedTriggersByJobKey.get(tw.jobKey);
+    if (jobTriggers == null) {
+      jobTriggers =
+          Collections.newSetFromMap(new ConcurrentHashMap<TriggerWrapper, Boolean>(4, 0.75f, 1));
+      wrappedTriggersByJobKey.put(tw.jobKey, jobTriggers);
     }
+    jobTriggers.add(tw);
+  }
 
-    return trigList;
+  /** Unlink a trigger from the job index. Call holding lock. */
+  private void removeFromJobTriggers(TriggerWrapper tw) {
+
+    Set<TriggerWrapper> jobTriggers = wrappedTriggersByJobKey.get(tw.jobKey);
+    if (jobTriggers != null) {
+      jobTriggers.remove(tw);
+      if (jobTriggers.isEmpty()) {
+        wrappedTriggersByJobKey.remove(tw.jobKey);
+      }
+    }
   }
 
   private boolean applyMisfire(TriggerWrapper tw) {
 
-    long misfireTime = System.currentTimeMillis();
+    long misfireTime = Clock.getClock().currentTimeMillis();
     if (getMisfireThreshold() > 0) {
       misfireTime -= getMisfireThreshold();
     }
@@ -414,16 +688,18 @@ public class RAMJobStore implements JobStore {
       cal = retrieveCalendar(tw.trigger.getCalendarName());
     }
 
-    mSignaler.notifyTriggerListenersMisfired((OperableTrigger) tw.trigger.clone());
+    mSignaler.notifyTriggerListenersMisfired(tw.cloneTrigger());
 
-    tw.trigger.updateAfterMisfire(cal);
+    // out of the time index, as every caller polled it from there
+    synchronized (tw) {
+      tw.trigger.updateAfterMisfire(cal);
+    }
 
     if (tw.trigger.getNextFireTime() == null) {
       tw.state = TriggerWrapper.STATE_COMPLETE;
       mSignaler.notifySchedulerListenersFinalized(tw.trigger);
-      synchronized (lock) {
-        timeWrappedTriggers.remove(tw);
-      }
+      timeWrappedTriggers.remove(tw);
+      triggerFinished(tw);
     } else if (tnft.equals(tw.trigger.getNextFireTime())) {
       return false;
     }
@@ -449,46 +725,48 @@ public class RAMJobStore implements JobStore {
       long noLaterThan, int maxCount, long timeWindow) {
 
     synchronized (lock) {
-      List<OperableTrigger> result = new ArrayList<OperableTrigger>();
+      try {
+        return acquireNextTriggersLocked(noLaterThan, maxCount, timeWindow);
+      } finally {
+        updateEarliestNextFireTime();
+      }
+    }
+  }
 
-      while (true) {
-        TriggerWrapper tw;
+  private List<OperableTrigger> acquireNextTriggersLocked(
+      long noLaterThan, int maxCount, long timeWindow) {
 
-        try {
-          tw = timeWrappedTriggers.first();
-          if (tw == null) {
-            return result;
-          }
-          timeWrappedTriggers.remove(tw);
-        } catch (java.util.NoSuchElementException nsee) {
-          return result;
-        }
+    List<OperableTrigger> result = new ArrayList<OperableTrigger>();
 
-        if (tw.trigger.getNextFireTime() == null) {
-          continue;
-        }
+    while (true) {
+      // triggers come out in firing order until the next one is beyond the window
+      TriggerWrapper tw = timeWrappedTriggers.pollFirst(noLaterThan + timeWindow);
+      if (tw == null) {
+        return result;
+      }
 
-        if (applyMisfire(tw)) {
-          if (tw.trigger.getNextFireTime() != null) {
-            timeWrappedTriggers.add(tw);
-          }
-          continue;
-        }
+      JobWrapper jw = jobsByKey.get(tw.jobKey);
+      if (jw != null && jw.blocked) {
+        // out of the time index until the running job completes
+        tw.state = TriggerWrapper.STATE_BLOCKED;
+        jw.addBlockedTrigger(tw);
+        continue;
+      }
 
-        if (tw.getTrigger().getNextFireTime().getTime() > noLaterThan + timeWindow) {
+      if (applyMisfire(tw)) {
+        if (tw.trigger.getNextFireTime() != null) {
           timeWrappedTriggers.add(tw);
-          return result;
         }
+        continue;
+      }
 
-        tw.state = TriggerWrapper.STATE_ACQUIRED;
-
-        tw.trigger.setFireInstanceId(getFiredTriggerRecordId());
-        OperableTrigger trig = (OperableTrigger) tw.trigger.clone();
-        result.add(trig);
+      tw.state = TriggerWrapper.STATE_ACQUIRED;
+      OperableTrigger trig = tw.cloneTrigger();
+      trig.setFireInstanceId(getFiredTriggerRecordId());
+      result.add(trig);
 
-        if (result.size() == maxCount) {
-          return result;
-        }
+      if (result.size() == maxCount) {
+        return result;
       }
     }
   }
@@ -505,6 +783,7 @@ public class RAMJobStore implements JobStore {
       if (tw != null && tw.state == TriggerWrapper.STATE_ACQUIRED) {
         tw.state = TriggerWrapper.STATE_WAITING;
         timeWrappedTriggers.add(tw);
+        updateEarliestNextFireTime();
       }
     }
   }
@@ -518,72 +797,85 @@ public class RAMJobStore implements JobStore {
   public List<TriggerFiredResult> triggersFired(List<OperableTrigger> triggers) {
 
     synchronized (lock) {
-      List<TriggerFiredResult> results = new ArrayList<TriggerFiredResult>();
+      try {
+        return triggersFiredLocked(triggers);
+      } finally {
+        updateEarliestNextFireTime();
+      }
+    }
+  }
 
-      for (OperableTrigger trigger : triggers) {
-        TriggerWrapper tw = wrappedTriggersByKey.get(trigger.getName());
-        // was the trigger deleted since being acquired?
-        if (tw == null || tw.trigger == null) {
-          continue;
-        }
-        // was the trigger completed, paused, blocked, etc. since being acquired?
-        if (tw.state != TriggerWrapper.STATE_ACQUIRED) {
+  private List<TriggerFiredResult> triggersFiredLocked(List<OperableTrigger> triggers) {
+
+    List<TriggerFiredResult> results = new ArrayList<TriggerFiredResult>();
+
+    for (OperableTrigger trigger : triggers) {
+      TriggerWrapper tw = wrappedTriggersByKey.get(trigger.getName());
+      // was the trigger deleted since being acquired?
+      if (tw == null || tw.trigger == null) {
+        continue;
+      }
+      // was the trigger completed, paused, blocked, etc. since being acquired?
+      if (tw.state != TriggerWrapper.STATE_ACQUIRED) {
+        continue;
+      }
+
+      Calendar cal = null;
+      if (tw.trigger.getCalendarName() != null) {
+        cal = retrieveCalendar(tw.trigger.getCalendarName());
+        if (cal == null) {
           continue;
         }
+      }
+      JobWrapper jw = jobsByKey.get(tw.jobKey);
+      if (jw != null && jw.blocked) {
+        // the job started from another trigger since this one was acquired
+        tw.state = TriggerWrapper.STATE_BLOCKED;
+        jw.addBlockedTrigger(tw);
+        continue;
+      }
 
-        Calendar cal = null;
-        if (tw.trigger.getCalendarName() != null) {
-          cal = retrieveCalendar(tw.trigger.getCalendarName());
-          if (cal == null) {
-            continue;
-          }
-        }
-        Date prevFireTime = trigger.getPreviousFireTime();
-        // in case trigger was replaced between acquiring and firing
-        timeWrappedTriggers.remove(tw);
-        // call triggered on our copy, and the scheduler's copy
+      Date prevFireTime = tw.trigger.getPreviousFireTime();
+      // in case trigger was replaced between acquiring and firing
+      timeWrappedTriggers.remove(tw);
+      // call triggered on our copy, in place now that it is out of the index, and the scheduler's
+      synchronized (tw) {
         tw.trigger.triggered(cal);
-        trigger.triggered(cal);
-        // tw.state = TriggerWrapper.STATE_EXECUTING;
-        tw.state = TriggerWrapper.STATE_WAITING;
-
-        TriggerFiredBundle bndle =
-            new TriggerFiredBundle(
-                retrieveJob(tw.jobKey),
-                trigger,
-                cal,
-                false,
-                new Date(),
-                trigger.getPreviousFireTime(),
-                prevFireTime,
-                trigger.getNextFireTime());
-
-        JobDetail job = bndle.getJobDetail();
-
-        if (!job.isConcurrencyAllowed()) {
-          ArrayList<TriggerWrapper> trigs = getTriggerWrappersForJob(job.getName());
-          Iterator<TriggerWrapper> itr = trigs.iterator();
-          while (itr.hasNext()) {
-            TriggerWrapper ttw = itr.next();
-            if (ttw.state == TriggerWrapper.STATE_WAITING) {
-              ttw.state = TriggerWrapper.STATE_BLOCKED;
-            }
-            if (ttw.state == TriggerWrapper.STATE_PAUSED) {
-              ttw.state = TriggerWrapper.STATE_PAUSED_BLOCKED;
-            }
-            timeWrappedTriggers.remove(ttw);
-          }
-          blockedJobs.add(job.getName());
-        } else if (tw.trigger.getNextFireTime() != null) {
-          synchronized (lock) {
-            timeWrappedTriggers.add(tw);
-          }
+      }
+      trigger.triggered(cal);
+      // tw.state = TriggerWrapper.STATE_EXECUTING;
+      tw.state = TriggerWrapper.STATE_WAITING;
+
+      TriggerFiredBundle bndle =
+          new TriggerFiredBundle(
+              retrieveJob(tw.jobKey),
+              trigger,
+              cal,
+              false,
+              Clock.getClock().now(),
+              trigger.getPreviousFireTime(),
+              prevFireTime,
+              trigger.getNextFireTime());
+
+      JobDetail job = bndle.getJobDetail();
+
+      if (!job.isConcurrencyAllowed()) {
+        // the job's other triggers stay in the time index and are set aside once due
+        jw.blocked = true;
+        if (tw.trigger.getNextFireTime() != null) {
+          tw.state = TriggerWrapper.STATE_BLOCKED;
+          jw.addBlockedTrigger(tw);
         }
-
-        results.add(new TriggerFiredResult(bndle));
+      } else if (tw.trigger.getNextFireTime() != null) {
+        timeWrappedTriggers.add(tw);
+      }
+      if (tw.trigger.getNextFireTime() == null) {
+        triggerFinished(tw);
       }
-      return results;
+
+      results.add(new TriggerFiredResult(bndle));
     }
+    return results;
   }
 
   /**
@@ -596,65 +888,83 @@ public class RAMJobStore implements JobStore {
   public void triggeredJobComplete(
       OperableTrigger trigger, JobDetail jobDetail, CompletedExecutionInstruction triggerInstCode) {
 
-    synchronized (lock) {
+    // the common case, nothing to unblock and nothing to change, does not need the lock
+    if (triggerInstCode == CompletedExecutionInstruction.NOOP) {
       JobWrapper jw = jobsByKey.get(jobDetail.getName());
-      TriggerWrapper tw = wrappedTriggersByKey.get(trigger.getName());
+      if (jw != null && jw.jobDetail.isConcurrencyAllowed()) {
+        return;
+      }
+    }
 
-      // It's possible that the job is null if:
-      // 1- it was deleted during execution
-      // 2- RAMJobStore is being used only for volatile jobs / triggers
-      // from the JDBC job store
-      if (jw != null) {
-        JobDetail jd = jw.jobDetail;
-
-        if (!jd.isConcurrencyAllowed()) {
-          blockedJobs.remove(jd.getName());
-          ArrayList<TriggerWrapper> trigs = getTriggerWrappersForJob(jd.getName());
-          for (TriggerWrapper ttw : trigs) {
-            if (ttw.state == TriggerWrapper.STATE_BLOCKED) {
-              ttw.state = TriggerWrapper.STATE_WAITING;
-              timeWrappedTriggers.add(ttw);
-            }
-            if (ttw.state == TriggerWrapper.STATE_PAUSED_BLOCKED) {
-              ttw.state = TriggerWrapper.STATE_PAUSED;
-            }
-          }
-          mSignaler.signalSchedulingChange(0L);
+    synchronized (lock) {
+      try {
+        triggeredJobCompleteLocked(trigger, jobDetail, triggerInstCode);
+      } finally {
+        updateEarliestNextFireTime();
+      }
+    }
+  }
+
+  private void triggeredJobCompleteLocked(
+      OperableTrigger trigger, JobDetail jobDetail, CompletedExecutionInstruction triggerInstCode) {
+
+    JobWrapper jw = jobsByKey.get(jobDetail.getName());
+    TriggerWrapper tw = wrappedTriggersByKey.get(trigger.getName());
+
+    // It's possible that the job is null if:
+    // 1- it was deleted during execution
+    // 2- RAMJobStore is being used only for volatile jobs / triggers
+    // from the JDBC job store
+    if (jw != null && jw.blocked) {
+      jw.blocked = false;
+      // only the triggers that came due while the job ran, not all of the job's triggers
+      List<TriggerWrapper> blockedTriggers = jw.takeBlockedTriggers();
+      long earliest = Long.MAX_VALUE;
+      for (int i = 0; i < blockedTriggers.size(); i++) {
+        TriggerWrapper ttw = blockedTriggers.get(i);
+        // skip triggers removed, replaced or completed meanwhile
+        if (ttw.state == TriggerWrapper.STATE_BLOCKED
+            && wrappedTriggersByKey.get(ttw.key) == ttw) {
+          ttw.state = TriggerWrapper.STATE_WAITING;
+          timeWrappedTriggers.add(ttw);
+          earliest = Math.min(earliest, ttw.getTrigger().getNextFireTime().getTime());
         }
-      } else { // even if it was deleted, there may be cleanup to do
-        blockedJobs.remove(jobDetail.getName());
       }
+      if (earliest != Long.MAX_VALUE) {
+        mSignaler.signalSchedulingChange(earliest);
+      }
+    }
 
-      // check for trigger deleted during execution...
-      if (tw != null) {
-        if (triggerInstCode == CompletedExecutionInstruction.DELETE_TRIGGER) {
+    // the rest only ever takes triggers away, which brings no fire time forward, so it does not
+    // signal the scheduler thread
 
-          if (trigger.getNextFireTime() == null) {
-            // double check for possible reschedule within job
-            // execution, which would cancel the need to delete...
-            if (tw.getTrigger().getNextFireTime() == null) {
-              removeTrigger(trigger.getName());
-            }
-          } else {
+    // check for trigger deleted during execution...
+    if (tw != null) {
+      if (triggerInstCode == CompletedExecutionInstruction.DELETE_TRIGGER) {
+
+        if (trigger.getNextFireTime() == null) {
+          // double check for possible reschedule within job
+          // execution, which would cancel the need to delete...
+          if (tw.getTrigger().getNextFireTime() == null) {
             removeTrigger(trigger.getName());
-            mSignaler.signalSchedulingChange(0L);
           }
-        } else if (triggerInstCode == CompletedExecutionInstruction.SET_TRIGGER_COMPLETE) {
-          tw.state = TriggerWrapper.STATE_COMPLETE;
-          timeWrappedTriggers.remove(tw);
-          mSignaler.signalSchedulingChange(0L);
-        } else if (triggerInstCode == CompletedExecutionInstruction.SET_TRIGGER_ERROR) {
-          logger.info("Trigger " + trigger.getName() + " set to ERROR state.");
-          tw.state = TriggerWrapper.STATE_ERROR;
-          mSignaler.signalSchedulingChange(0L);
-        } else if (triggerInstCode == CompletedExecutionInstruction.SET_ALL_JOB_TRIGGERS_ERROR) {
-          logger.info("All triggers of Job " + trigger.getJobName() + " set to ERROR state.");
-          setAllTriggersOfJobToState(trigger.getJobName(), TriggerWrapper.STATE_ERROR);
-          mSignaler.signalSchedulingChange(0L);
-        } else if (triggerInstCode == CompletedExecutionInstruction.SET_ALL_JOB_TRIGGERS_COMPLETE) {
-          setAllTriggersOfJobToState(trigger.getJobName(), TriggerWrapper.STATE_COMPLETE);
-          mSignaler.signalSchedulingChange(0L);
+        } else {
+          removeTrigger(trigger.getName());
         }
+      } else if (triggerInstCode == CompletedExecutionInstruction.SET_TRIGGER_COMPLETE) {
+        tw.state = TriggerWrapper.STATE_COMPLETE;
+        timeWrappedTriggers.remove(tw);
+        triggerFinished(tw);
+      } else if (triggerInstCode == CompletedExecutionInstruction.SET_TRIGGER_ERROR) {
+        logger.info("Trigger " + trigger.getName() + " set to ERROR state.");
+        tw.state = TriggerWrapper.STATE_ERROR;
+        timeWrappedTriggers.remove(tw);
+        triggerFinished(tw);
+      } else if (triggerInstCode == CompletedExecutionInstruction.SET_ALL_JOB_TRIGGERS_ERROR) {
+        logger.info("All triggers of Job " + trigger.getJobName() + " set to ERROR state.");
+        setAllTriggersOfJobToState(trigger.getJobName(), TriggerWrapper.STATE_ERROR);
+      } else if (triggerInstCode == CompletedExecutionInstruction.SET_ALL_JOB_TRIGGERS_COMPLETE) {
+        setAllTriggersOfJobToState(trigger.getJobName(), TriggerWrapper.STATE_COMPLETE);
       }
     }
   }
@@ -669,6 +979,9 @@ public class RAMJobStore implements JobStore {
       if (state != TriggerWrapper.STATE_WAITING) {
         timeWrappedTriggers.remove(tw);
       }
+      if (state == TriggerWrapper.STATE_COMPLETE || state == TriggerWrapper.STATE_ERROR) {
+        triggerFinished(tw);
+      }
     }
   }
 
@@ -682,114 +995,121 @@ public class RAMJobStore implements JobStore {
   @Override
   public Set<String> getJobKeys() {
 
-    Set<String> outList = new HashSet<String>();
-
-    synchronized (lock) {
-      for (JobWrapper jw : jobsByKey.values()) {
-
-        if (jw != null) {
-
-          outList.add(jw.jobDetail.getName());
-        }
-      }
-    }
-
-    return outList == null ? java.util.Collections.<String>emptySet() : outList;
+    return new HashSet<String>(jobsByKey.keySet());
   }
-}
 
-/**
- * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * Helper Classes. * * * * * *
- * * * * * * * * * * * * * * * * * * * * * * * * * * * * *
- */
-class TriggerWrapperComparator implements Comparator<TriggerWrapper> {
+  /** @return whether a job of the given name is stored */
+  boolean containsJob(String jobKey) {
 
-  private TriggerTimeComparator ttc = new TriggerTimeComparator();
-
-  @Override
-  public int compare(TriggerWrapper trig1, TriggerWrapper trig2) {
-
-    return ttc.compare(trig1.trigger, trig2.trigger);
+    return jobsByKey.containsKey(jobKey);
   }
 
-  @Override
-  public boolean equals(Object obj) {
+  /** @return whether a trigger of the given name is stored */
+  boolean containsTrigger(String triggerKey) {
 
-    return (obj instanceof TriggerWrapperComparator);
+    return wrappedTriggersByKey.containsKey(triggerKey);
   }
-}
 
-class JobWrapper {
+  /**
+   * Put back a trigger recovered from persistent storage in the given state, replacing any trigger
+   * of the same name. The instance is stored as is and must not be used by the caller afterwards.
+   */
+  void restoreTrigger(OperableTrigger trigger, int state) {
 
-  public String key;
+    TriggerWrapper tw = new TriggerWrapper(trigger);
+    tw.state = state;
 
-  public JobDetail jobDetail;
+    synchronized (lock) {
+      TriggerWrapper previous = wrappedTriggersByKey.put(tw.key, tw);
+      if (previous != null) {
+        removeFromJobTriggers(previous);
+        timeWrappedTriggers.remove(previous);
+      }
+      addToJobTriggers(tw);
+      if (state == TriggerWrapper.STATE_WAITING) {
+        timeWrappedTriggers.add(tw);
+      }
+      updateEarliestNextFireTime();
+    }
+  }
 
-  JobWrapper(JobDetail jobDetail) {
+  /**
+   * @return a detached copy of the named trigger's wrapper, with a copy of its trigger and state,
+   *     or <code>null</code> if there is no such trigger.
+   */
+  TriggerWrapper captureTrigger(String triggerKey) {
 
-    this.jobDetail = jobDetail;
-    key = jobDetail.getName();
+    synchronized (lock) {
+      TriggerWrapper tw = wrappedTriggersByKey.get(triggerKey);
+      return (tw != null) ? tw.copy() : null;
+    }
   }
 
-  @Override
-  public boolean equals(Object obj) {
+  /** @return detached copies of the wrappers of all triggers, taken at one point in time. */
+  List<TriggerWrapper> captureTriggers() {
 
-    if (obj instanceof JobWrapper) {
-      JobWrapper jw = (JobWrapper) obj;
-      if (jw.key.equals(this.key)) {
-        return true;
+    synchronized (lock) {
+      List<TriggerWrapper> copies = new ArrayList<TriggerWrapper>(wrappedTriggersByKey.size());
+      for (TriggerWrapper tw : wrappedTriggersByKey.values()) {
+        copies.add(tw.copy());
       }
+      return copies;
     }
-
-    return false;
   }
 
-  @Override
-  public int hashCode() {
+  /** Publish the head of the time index for {@link #getEarliestNextFireTime()}. Hold the lock. */
+  private void updateEarliestNextFireTime() {
 
-    return key.hashCode();
+    TriggerWrapper first = timeWrappedTriggers.first();
+    earliestNextFireTime =
+        (first == null) ? Long.MAX_VALUE : first.trigger.getNextFireTime().getTime();
   }
 }
 
-class TriggerWrapper {
+/**
+ * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * Helper Classes. * * * * * *
+ * * * * * * * * * * * * * * * * * * * * * * * * * * * * *
+ */
+class JobWrapper {
 
   public String key;
 
-  public String jobKey;
-
-  public OperableTrigger trigger;
-
-  public int state = STATE_WAITING;
-
-  public static final int STATE_WAITING = 0;
+  public volatile JobDetail jobDetail;
 
-  public static final int STATE_ACQUIRED = 1;
+  /** whether the job, which does not allow concurrent execution, is running; guarded by lock */
+  boolean blocked;
 
-  // public static final int STATE_EXECUTING = 2;
+  /** the triggers that came due while the job was blocked, now out of the time index; by lock */
+  private List<TriggerWrapper> blockedTriggers;
 
-  public static final int STATE_COMPLETE = 3;
-
-  public static final int STATE_PAUSED = 4;
+  JobWrapper(JobDetail jobDetail) {
 
-  public static final int STATE_BLOCKED = 5;
+    this.jobDetail = jobDetail;
+    key = jobDetail.getName();
+  }
 
-  public static final int STATE_PAUSED_BLOCKED = 6;
+  void addBlockedTrigger(TriggerWrapper tw) {
 
-  public static final int STATE_ERROR = 7;
+    if (blockedTriggers == null) {
+      blockedTriggers = new ArrayList<TriggerWrapper>(4);
+    }
+    blockedTriggers.add(tw);
+  }
 
-  TriggerWrapper(OperableTrigger trigger) {
+  /** @return the triggers set aside while the job was blocked, which are forgotten */
+  List<TriggerWrapper> takeBlockedTriggers() {
 
-    this.trigger = trigger;
-    key = trigger.getName();
-    this.jobKey = trigger.getJobName();
+    List<TriggerWrapper> taken = blockedTriggers;
+    blockedTriggers = null;
+    return (taken != null) ? taken : Collections.<TriggerWrapper>emptyList();
   }
 
   @Override
   public boolean equals(Object obj) {
 
-    if (obj instanceof TriggerWrapper) {
-      TriggerWrapper tw = (TriggerWrapper) obj;
-      if (tw.key.equals(this.key)) {
+    if (obj instanceof JobWrapper) {
+      JobWrapper jw = (JobWrapper) obj;
+      if (jw.key.equals(this.key)) {
         return true;
       }
     }
@@ -802,9 +1122,4 @@ class TriggerWrapper {
 
     return key.hashCode();
   }
-
-  public OperableTrigger getTrigger() {
-
-    return this.trigger;
-  }
 }
@@ -0,0 +1,20 @@
+package org.quartz.core;
+
+/**
+ * What the scheduler does with a fire that exceeds a rate limit of the <code>{@link RateLimiter}
+ * </code>.
+ */
+public enum RateLimitPolicy {
+
+  /**
+   * Run the job at the next time the limit permits. Until then the fire waits in the scheduler,
+   * without holding a worker thread.
+   */
+  DEFER,
+
+  /**
+   * Do not run the job, and complete the trigger as if it had. The job listeners are told the
+   * execution was vetoed.
+   */
+  DROP
+}
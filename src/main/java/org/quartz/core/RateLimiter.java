@@ -0,0 +1,179 @@
+package org.quartz.core;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.quartz.jobs.JobDataMap;
+import org.quartz.jobs.JobDetail;
+
+/**
+ * Limits how often jobs may start, with token buckets: one for all jobs of the scheduler, and one
+ * per job for jobs whose <code>JobDataMap</code> sets a limit under {@link #RATE_LIMIT_KEY}. A
+ * bucket holds up to its burst of permits and refills at its rate; each start takes a permit from
+ * every bucket that applies. A start without a permit is deferred or dropped, as the <code>
+ * {@link RateLimitPolicy}</code> of the job, or else of the scheduler, says.
+ */
+public class RateLimiter {
+
+  /** The <code>JobDataMap</code> key of a job's limit, in starts per second. */
+  public static final String RATE_LIMIT_KEY = "sundial.rateLimit";
+
+  /** The <code>JobDataMap</code> key of a job's burst, the starts it permits in a row, or 1. */
+  public static final String RATE_LIMIT_BURST_KEY = "sundial.rateLimitBurst";
+
+  /** The <code>JobDataMap</code> key of a job's policy, DEFER or DROP, or the scheduler's. */
+  public static final String RATE_LIMIT_POLICY_KEY = "sundial.rateLimitPolicy";
+
+  private TokenBucket globalBucket = null;
+
+  private RateLimitPolicy policy = RateLimitPolicy.DEFER;
+
+  private final Map<String, TokenBucket> jobBuckets = new HashMap<String, TokenBucket>();
+
+  private final AtomicLong deferredCount = new AtomicLong();
+
+  private final AtomicLong droppedCount = new AtomicLong();
+
+  /**
+   * Limit the starts of all jobs together.
+   *
+   * @param permitsPerSecond the rate, 0 for no limit
+   * @param burst the starts in a row permitted after a quiet spell, at least 1
+   */
+  public synchronized void setGlobalLimit(double permitsPerSecond, int burst) {
+
+    globalBucket = permitsPerSecond > 0 ? new TokenBucket(permitsPerSecond, burst) : null;
+  }
+
+  /** Set what to do with starts beyond a limit, for jobs that do not say; DEFER by default. */
+  public synchronized void setPolicy(RateLimitPolicy policy) {
+
+    if (policy == null) {
+      throw new IllegalArgumentException("Rate limit policy cannot be null.");
+    }
+    this.policy = policy;
+  }
+
+  /** @return the number of starts deferred until a limit permitted them */
+  public long getDeferredCount() {
+
+    return deferredCount.get();
+  }
+
+  /** @return the number of starts dropped for exceeding a limit */
+  public long getDroppedCount() {
+
+    return droppedCount.get();
+  }
+
+  /**
+   * Take the permits for a start of the given job.
+   *
+   * @return 0 to start the job now, the nanoseconds to defer it by, with the permits already
+   *     taken, or -1 to drop it
+   * @throws IllegalArgumentException if the job's limit settings are invalid
+   */
+  synchronized long acquire(JobDetail jobDetail) {
+
+    TokenBucket jobBucket = getJobBucket(jobDetail);
+    if (globalBucket == null && jobBucket == null) {
+      return 0L;
+    }
+    long now = System.nanoTime();
+    if (getPolicy(jobDetail) == RateLimitPolicy.DROP) {
+      if ((globalBucket != null && globalBucket.getWait(now) > 0)
+          || (jobBucket != null && jobBucket.getWait(now) > 0)) {
+        droppedCount.incrementAndGet();
+        return -1L;
+      }
+    }
+    long wait = 0L;
+    if (globalBucket != null) {
+      wait = globalBucket.take(now);
+    }
+    if (jobBucket != null) {
+      wait = Math.max(wait, jobBucket.take(now));
+    }
+    if (wait > 0) {
+      deferredCount.incrementAndGet();
+    }
+    return wait;
+  }
+
+  /** Get the job's bucket, new if its settings changed, or null if it has no limit. */
+  private TokenBucket getJobBucket(JobDetail jobDetail) {
+
+    JobDataMap jobDataMap = jobDetail.getJobDataMap();
+    Object rate = jobDataMap == null ? null : jobDataMap.get(RATE_LIMIT_KEY);
+    if (rate == null) {
+      jobBuckets.remove(jobDetail.getName());
+      return null;
+    }
+    double permitsPerSecond = Double.parseDouble(rate.toString());
+    Object burstSetting = jobDataMap.get(RATE_LIMIT_BURST_KEY);
+    int burst = burstSetting == null ? 1 : Integer.parseInt(burstSetting.toString());
+    TokenBucket bucket = jobBuckets.get(jobDetail.getName());
+    if (bucket == null || bucket.permitsPerSecond != permitsPerSecond || bucket.burst != burst) {
+      bucket = new TokenBucket(permitsPerSecond, burst);
+      jobBuckets.put(jobDetail.getName(), bucket);
+    }
+    return bucket;
+  }
+
+  private RateLimitPolicy getPolicy(JobDetail jobDetail) {
+
+    JobDataMap jobDataMap = jobDetail.getJobDataMap();
+    Object setting = jobDataMap == null ? null : jobDataMap.get(RATE_LIMIT_POLICY_KEY);
+    return setting == null ? policy : RateLimitPolicy.valueOf(setting.toString());
+  }
+
+  /** A bucket of permits, which may go into debt for deferred starts. */
+  private static class TokenBucket {
+
+    private final double permitsPerSecond;
+
+    private final int burst;
+
+    private final double nanosPerPermit;
+
+    private double permits;
+
+    private long refilledAt;
+
+    TokenBucket(double permitsPerSecond, int burst) {
+
+      if (!(permitsPerSecond > 0)) {
+        throw new IllegalArgumentException("Rate limit must be positive.");
+      }
+      if (burst < 1) {
+        throw new IllegalArgumentException("Rate limit burst must be at least 1.");
+      }
+      this.permitsPerSecond = permitsPerSecond;
+      this.burst = burst;
+      this.nanosPerPermit = 1e9 / permitsPerSecond;
+      this.permits = burst;
+      this.refilledAt = System.nanoTime();
+    }
+
+    /** @return the nanoseconds until a permit is there */
+    long getWait(long now) {
+
+      refill(now);
+      return permits >= 1 ? 0L : (long) Math.ceil((1 - permits) * nanosPerPermit);
+    }
+
+    /** Take a permit, now or in the future. @return the nanoseconds until it is there */
+    long take(long now) {
+
+      long wait = getWait(now);
+      permits -= 1;
+      return wait;
+    }
+
+    private void refill(long now) {
+
+      permits = Math.min(burst, permits + (now - refilledAt) / nanosPerPermit);
+      refilledAt = now;
+    }
+  }
+}
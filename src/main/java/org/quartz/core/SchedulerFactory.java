@@ -25,6 +25,21 @@ public class SchedulerFactory {
 
   private int threadPoolSize = 10; // default size is 10
   private String packageName = null;
+  private boolean useTimingWheel = false;
+  private JobStore jobStore = null;
+  private ThreadPool threadPool = null;
+  private int schedulerThreadCount = 1;
+  private int maxBatchSize = 1;
+  private long batchTimeWindow = 0L;
+  private boolean adaptiveBatching = false;
+  private boolean precisionMode = false;
+  private int preparationThreadCount = 0;
+  private long fireTimeSpread = 0L;
+  private double rateLimit = 0;
+  private int rateLimitBurst = 1;
+  private RateLimitPolicy rateLimitPolicy = RateLimitPolicy.DEFER;
+  private long priorityAging = 0L;
+  private int dispatchQueueDepth = 0;
 
   /**
    * @param threadPoolSize
@@ -54,6 +69,190 @@ public class SchedulerFactory {
     return getScheduler();
   }
 
+  /**
+   * Set the number of worker threads of the default thread pool. Call before <code>getScheduler
+   * </code>.
+   *
+   * @param threadPoolSize
+   */
+  public void setThreadPoolSize(int threadPoolSize) {
+
+    this.threadPoolSize = threadPoolSize;
+  }
+
+  /**
+   * Set the packages to scan for annotated Job classes. Call before <code>getScheduler</code>.
+   *
+   * @param packageName A comma(,) or colon(:) can be used to specify multiple packages.
+   */
+  public void setPackageName(String packageName) {
+
+    this.packageName = packageName;
+  }
+
+  /**
+   * Keep the waiting triggers of the <code>RAMJobStore</code> in a hierarchical timing wheel
+   * instead of a sorted tree. Worthwhile for very large numbers of triggers. Call before <code>
+   * getScheduler</code>.
+   *
+   * @param useTimingWheel
+   */
+  public void setUseTimingWheel(boolean useTimingWheel) {
+
+    this.useTimingWheel = useTimingWheel;
+  }
+
+  /**
+   * Use the given <code>JobStore</code> instead of a new <code>RAMJobStore</code>, for example a
+   * {@link JournalingJobStore} to keep jobs and triggers across restarts. Call before <code>
+   * getScheduler</code>.
+   *
+   * @param jobStore
+   */
+  public void setJobStore(JobStore jobStore) {
+
+    this.jobStore = jobStore;
+  }
+
+  /**
+   * Run jobs in the given <code>ThreadPool</code> instead of a new {@link SimpleThreadPool} of the
+   * size given to <code>getScheduler</code>, for example a {@link HandoffThreadPool}, which hands
+   * jobs to its threads without locking, or a {@link BulkheadThreadPool}, which keeps the jobs of
+   * one bulkhead from taking the threads of another. Call before <code>getScheduler</code>.
+   *
+   * @param threadPool
+   */
+  public void setThreadPool(ThreadPool threadPool) {
+
+    this.threadPool = threadPool;
+  }
+
+  /**
+   * Acquire and fire triggers with the given number of scheduler threads instead of one. Unless a
+   * <code>JobStore</code> is given, jobs are kept in a {@link ShardedRAMJobStore} with one shard
+   * per thread, so the threads acquire from disjoint shards. Call before <code>getScheduler
+   * </code>.
+   *
+   * @param schedulerThreadCount
+   */
+  public void setSchedulerThreadCount(int schedulerThreadCount) {
+
+    this.schedulerThreadCount = schedulerThreadCount;
+  }
+
+  /**
+   * Let the scheduler threads acquire triggers in batches that grow with the number of triggers due
+   * at about the same time, and with the free worker threads, instead of one trigger at a time. The
+   * batch size grows up to <code>maxBatchSize</code>, and the time window within which the triggers
+   * of a batch fire together up to <code>maxBatchTimeWindow</code>; both shrink again when few
+   * triggers are due. Call before <code>getScheduler</code>.
+   *
+   * @param maxBatchSize the most triggers acquired at once
+   * @param maxBatchTimeWindow the most milliseconds a trigger may fire early to share a batch
+   */
+  public void setAdaptiveBatching(int maxBatchSize, long maxBatchTimeWindow) {
+
+    if (maxBatchSize < 1 || maxBatchTimeWindow < 0) {
+      throw new IllegalArgumentException("Batch size must be positive, window not negative.");
+    }
+    this.adaptiveBatching = true;
+    this.maxBatchSize = maxBatchSize;
+    this.batchTimeWindow = maxBatchTimeWindow;
+  }
+
+  /**
+   * Fire triggers to within a fraction of a millisecond, instead of a few milliseconds. The
+   * scheduler threads then park and spin through the last two milliseconds before each fire time,
+   * which costs some CPU for every fire. Call before <code>getScheduler</code>.
+   *
+   * @param precisionMode
+   */
+  public void setPrecisionMode(boolean precisionMode) {
+
+    this.precisionMode = precisionMode;
+  }
+
+  /**
+   * Pipeline the dispatch of jobs: the scheduler threads only fire triggers and queue them, and the
+   * given number of preparation threads per scheduler thread instantiate the jobs and hand them to
+   * the worker threads. A slow job constructor or a saturated thread pool then no longer delays
+   * the firing of other triggers. Call before <code>getScheduler</code>.
+   *
+   * @param preparationThreadCount the number of preparation threads per scheduler thread
+   */
+  public void setPipelinedDispatch(int preparationThreadCount) {
+
+    if (preparationThreadCount < 1) {
+      throw new IllegalArgumentException("Preparation thread count must be positive.");
+    }
+    this.preparationThreadCount = preparationThreadCount;
+  }
+
+  /**
+   * Spread the fire times of all triggers without a spread of their own over a window: each fires
+   * late by a stable offset within the window, derived from its name, so that triggers with the
+   * same schedule, such as many cron triggers firing at the top of every minute, no longer all
+   * fire in the same moment. Call before <code>getScheduler</code>.
+   *
+   * @param fireTimeSpread the window in milliseconds
+   */
+  public void setFireTimeSpread(long fireTimeSpread) {
+
+    if (fireTimeSpread < 0) {
+      throw new IllegalArgumentException("Fire time spread cannot be negative.");
+    }
+    this.fireTimeSpread = fireTimeSpread;
+  }
+
+  /**
+   * Limit how often jobs may start, all jobs together, and say what happens to starts beyond the
+   * limit of the scheduler or of a job. Jobs can have limits of their own, see <code>
+   * JobBuilder.withRateLimit</code>. Call before <code>getScheduler</code>.
+   *
+   * @param permitsPerSecond the starts per second, 0 for no limit on all jobs together
+   * @param burst the starts in a row permitted after a quiet spell, at least 1
+   * @param policy whether starts beyond a limit are deferred or dropped
+   */
+  public void setRateLimit(double permitsPerSecond, int burst, RateLimitPolicy policy) {
+
+    if (permitsPerSecond < 0) {
+      throw new IllegalArgumentException("Rate limit cannot be negative.");
+    }
+    if (burst < 1) {
+      throw new IllegalArgumentException("Rate limit burst must be at least 1.");
+    }
+    if (policy == null) {
+      throw new IllegalArgumentException("Rate limit policy cannot be null.");
+    }
+    this.rateLimit = permitsPerSecond;
+    this.rateLimitBurst = burst;
+    this.rateLimitPolicy = policy;
+  }
+
+  /**
+   * Dispatch jobs by the priority of their triggers while the thread pool is saturated. The
+   * scheduler threads then keep firing due triggers into a queue of the given depth instead of
+   * waiting for a worker thread, and the preparation threads hand the jobs on highest priority
+   * first. A queued job gains a priority level for every aging interval it waits, so that low
+   * priority jobs still run eventually. Implies pipelined dispatch, with one preparation thread
+   * unless <code>setPipelinedDispatch</code> asks for more. Call before <code>getScheduler</code>.
+   *
+   * @param agingMillis the milliseconds of waiting that count as one priority level
+   * @param queueDepth the number of fired jobs that may wait for a worker thread, per scheduler
+   *     thread
+   */
+  public void setPriorityDispatch(long agingMillis, int queueDepth) {
+
+    if (agingMillis < 1) {
+      throw new IllegalArgumentException("Priority aging must be positive.");
+    }
+    if (queueDepth < 1) {
+      throw new IllegalArgumentException("Dispatch queue depth must be positive.");
+    }
+    this.priorityAging = agingMillis;
+    this.dispatchQueueDepth = queueDepth;
+  }
+
   /**
    * Returns a handle to the Scheduler produced by this factory.
    *
@@ -71,16 +270,30 @@ public class SchedulerFactory {
 
   private Scheduler instantiate() throws SchedulerException {
 
-    // Setup SimpleThreadPool
+    // Setup ThreadPool, a SimpleThreadPool unless given
     // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
     //
-    SimpleThreadPool threadPool = new SimpleThreadPool();
-    threadPool.setThreadCount(threadPoolSize);
+    ThreadPool threadPool = this.threadPool;
+    if (threadPool == null) {
+      SimpleThreadPool simpleThreadPool = new SimpleThreadPool();
+      simpleThreadPool.setThreadCount(threadPoolSize);
+      simpleThreadPool.setThreadNamePrefix("Quartz_Scheduler_Worker");
+      threadPool = simpleThreadPool;
+    }
 
-    // Setup RAMJobStore
+    // Setup JobStore, a RAMJobStore (sharded for several scheduler threads) unless given
     // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
     //
-    JobStore jobstore = new RAMJobStore();
+    JobStore jobstore = jobStore;
+    if (jobstore == null && schedulerThreadCount > 1) {
+      ShardedRAMJobStore shardedRAMJobStore = new ShardedRAMJobStore(schedulerThreadCount);
+      shardedRAMJobStore.setUseTimingWheel(useTimingWheel);
+      jobstore = shardedRAMJobStore;
+    } else if (jobstore == null) {
+      RAMJobStore ramJobStore = new RAMJobStore();
+      ramJobStore.setUseTimingWheel(useTimingWheel);
+      jobstore = ramJobStore;
+    }
 
     // Set up any TriggerListeners
     // ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
@@ -100,10 +313,19 @@ public class SchedulerFactory {
       quartzSchedulerResources.setJobRunShellFactory(jrsf);
       quartzSchedulerResources.setMakeSchedulerThreadDaemon(false);
       quartzSchedulerResources.setThreadsInheritInitializersClassLoadContext(false);
-      quartzSchedulerResources.setBatchTimeWindow(0L);
-      quartzSchedulerResources.setMaxBatchSize(1);
+      quartzSchedulerResources.setBatchTimeWindow(batchTimeWindow);
+      quartzSchedulerResources.setMaxBatchSize(maxBatchSize);
+      quartzSchedulerResources.setAdaptiveBatching(adaptiveBatching);
+      quartzSchedulerResources.setPrecisionMode(precisionMode);
+      quartzSchedulerResources.setPreparationThreadCount(
+          priorityAging > 0 ? Math.max(1, preparationThreadCount) : preparationThreadCount);
+      quartzSchedulerResources.setFireTimeSpread(fireTimeSpread);
+      quartzSchedulerResources.getRateLimiter().setGlobalLimit(rateLimit, rateLimitBurst);
+      quartzSchedulerResources.getRateLimiter().setPolicy(rateLimitPolicy);
+      quartzSchedulerResources.setPriorityAging(priorityAging);
+      quartzSchedulerResources.setDispatchQueueDepth(dispatchQueueDepth);
+      quartzSchedulerResources.setSchedulerThreadCount(schedulerThreadCount);
       quartzSchedulerResources.setThreadPool(threadPool);
-      threadPool.setThreadNamePrefix("Quartz_Scheduler_Worker");
       threadPool.initialize();
       tpInited = true;
 
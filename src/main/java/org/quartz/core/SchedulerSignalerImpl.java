@@ -17,7 +17,7 @@ public class SchedulerSignalerImpl implements SchedulerSignaler {
   private Logger logger = LoggerFactory.getLogger(SchedulerSignalerImpl.class);
 
   private QuartzScheduler quartzScheduler;
-  private QuartzSchedulerThread quartzSchedulerThread;
+  private QuartzSchedulerThread[] quartzSchedulerThreads;
 
   /**
    * Constructor
@@ -28,8 +28,20 @@ public class SchedulerSignalerImpl implements SchedulerSignaler {
   public SchedulerSignalerImpl(
       QuartzScheduler quartzScheduler, QuartzSchedulerThread quartzSchedulerThread) {
 
+    this(quartzScheduler, new QuartzSchedulerThread[] {quartzSchedulerThread});
+  }
+
+  /**
+   * Constructor for a scheduler with several scheduler threads, which are all signaled.
+   *
+   * @param quartzScheduler
+   * @param quartzSchedulerThreads
+   */
+  public SchedulerSignalerImpl(
+      QuartzScheduler quartzScheduler, QuartzSchedulerThread[] quartzSchedulerThreads) {
+
     this.quartzScheduler = quartzScheduler;
-    this.quartzSchedulerThread = quartzSchedulerThread;
+    this.quartzSchedulerThreads = quartzSchedulerThreads;
 
     logger.info("Initialized Scheduler Signaler of type: " + getClass());
   }
@@ -55,7 +67,9 @@ public class SchedulerSignalerImpl implements SchedulerSignaler {
   @Override
   public void signalSchedulingChange(long candidateNewNextFireTime) {
 
-    quartzSchedulerThread.signalSchedulingChange(candidateNewNextFireTime);
+    for (QuartzSchedulerThread quartzSchedulerThread : quartzSchedulerThreads) {
+      quartzSchedulerThread.signalSchedulingChange(candidateNewNextFireTime);
+    }
   }
 
   @Override
@@ -0,0 +1,572 @@
+package org.quartz.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import org.quartz.exceptions.JobPersistenceException;
+import org.quartz.exceptions.ObjectAlreadyExistsException;
+import org.quartz.exceptions.SchedulerConfigException;
+import org.quartz.exceptions.SchedulerException;
+import org.quartz.jobs.JobDetail;
+import org.quartz.triggers.OperableTrigger;
+import org.quartz.triggers.Trigger;
+import org.quartz.triggers.Trigger.CompletedExecutionInstruction;
+import org.quartz.triggers.Trigger.TriggerTimeComparator;
+
+/**
+ * A <code>{@link JobStore}</code> that partitions its jobs into a number of {@link RAMJobStore}
+ * shards by the hash of the job name. A job's triggers live in the job's shard, so every shard has
+ * its own lock, maps and time index, and changes to jobs of different shards do not contend.
+ *
+ * <p><code>acquireNextTriggers</code> merges the shards in firing order (see {@link
+ * TriggerTimeComparator}): it peeks at the earliest fire time each shard publishes, and acquires
+ * from a shard only once that shard may hold the next trigger in order. Triggers acquired from a
+ * shard beyond <code>maxCount</code> are released again.
+ *
+ * <p>Trigger names are unique across the shards. Since a trigger is looked up by name in every
+ * shard, operations by trigger name cost more with more shards; storing, replacing and removing
+ * triggers by name is serialized per name.
+ *
+ * <p>The shards are the partitions of a {@link PartitionedJobStore}: with several scheduler
+ * threads, each one acquires from the shards dealt out to it, in turns.
+ */
+public class ShardedRAMJobStore
+    implements PartitionedJobStore, BatchJobStore, ShutdownAwareJobStore {
+
+  /*
+   * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~ Data members.
+   * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+   */
+
+  private static final int TRIGGER_NAME_LOCKS = 64;
+
+  private final RAMJobStore[] shards;
+
+  /** Serialize the checks for a trigger name in all shards with storing it in one. */
+  private final ReentrantLock[] triggerNameLocks = new ReentrantLock[TRIGGER_NAME_LOCKS];
+
+  /*
+   * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~ Constructors.
+   * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+   */
+
+  /**
+   * Create a new <code>ShardedRAMJobStore</code>.
+   *
+   * @param shardCount the number of shards, for example the number of cores
+   */
+  public ShardedRAMJobStore(int shardCount) {
+
+    if (shardCount < 1) {
+      throw new IllegalArgumentException("The shard count must be larger than 0");
+    }
+    shards = new RAMJobStore[shardCount];
+    for (int i = 0; i < shardCount; i++) {
+      shards[i] = new RAMJobStore();
+    }
+    for (int i = 0; i < TRIGGER_NAME_LOCKS; i++) {
+      triggerNameLocks[i] = new ReentrantLock();
+    }
+  }
+
+  /*
+   * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~ Interface.
+   * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+   */
+
+  public int getShardCount() {
+
+    return shards.length;
+  }
+
+  /** @see RAMJobStore#setUseTimingWheel(boolean) */
+  public void setUseTimingWheel(boolean useTimingWheel) {
+
+    for (RAMJobStore shard : shards) {
+      shard.setUseTimingWheel(useTimingWheel);
+    }
+  }
+
+  public void setMisfireThreshold(long misfireThreshold) {
+
+    for (RAMJobStore shard : shards) {
+      shard.setMisfireThreshold(misfireThreshold);
+    }
+  }
+
+  /** @see RAMJobStore#setFinishedTriggerRetentionCount(int), applied per shard */
+  public void setFinishedTriggerRetentionCount(int finishedTriggerRetentionCount) {
+
+    for (RAMJobStore shard : shards) {
+      shard.setFinishedTriggerRetentionCount(finishedTriggerRetentionCount);
+    }
+  }
+
+  /** @see RAMJobStore#setFinishedTriggerRetentionTime(long) */
+  public void setFinishedTriggerRetentionTime(long finishedTriggerRetentionTime) {
+
+    for (RAMJobStore shard : shards) {
+      shard.setFinishedTriggerRetentionTime(finishedTriggerRetentionTime);
+    }
+  }
+
+  /** @return the number of finished triggers evicted so far, by all shards. */
+  public long getEvictedTriggerCount() {
+
+    long evicted = 0;
+    for (RAMJobStore shard : shards) {
+      evicted += shard.getEvictedTriggerCount();
+    }
+    return evicted;
+  }
+
+  /** @see RAMJobStore#getEarliestNextFireTime() */
+  @Override
+  public long getEarliestNextFireTime() {
+
+    long earliest = Long.MAX_VALUE;
+    for (RAMJobStore shard : shards) {
+      earliest = Math.min(earliest, shard.getEarliestNextFireTime());
+    }
+    return earliest;
+  }
+
+  @Override
+  public long getEarliestNextFireTime(int slice, int sliceCount) {
+
+    long earliest = Long.MAX_VALUE;
+    for (int i = slice; i < shards.length; i += sliceCount) {
+      earliest = Math.min(earliest, shards[i].getEarliestNextFireTime());
+    }
+    return earliest;
+  }
+
+  @Override
+  public void initialize(SchedulerSignaler signaler) throws SchedulerConfigException {
+
+    for (RAMJobStore shard : shards) {
+      shard.initialize(signaler);
+    }
+  }
+
+  @Override
+  public void schedulerStarted() throws SchedulerException {
+
+    for (RAMJobStore shard : shards) {
+      shard.schedulerStarted();
+    }
+  }
+
+  @Override
+  public void shutdown() {
+
+    for (RAMJobStore shard : shards) {
+      shard.shutdown();
+    }
+  }
+
+  @Override
+  public void storeJobAndTrigger(JobDetail newJob, OperableTrigger newTrigger)
+      throws JobPersistenceException {
+
+    storeJob(newJob, false);
+    storeTrigger(newTrigger, false);
+  }
+
+  /**
+   * Store the given jobs and triggers, one shard after the other. All of them are checked for
+   * existing jobs and triggers first, unless <code>replace</code> is set.
+   */
+  @Override
+  public void storeJobsAndTriggers(
+      Map<JobDetail, List<OperableTrigger>> triggersAndJobs, boolean replace)
+      throws JobPersistenceException {
+
+    List<Map<JobDetail, List<OperableTrigger>>> byShard =
+        new ArrayList<Map<JobDetail, List<OperableTrigger>>>(shards.length);
+    for (int i = 0; i < shards.length; i++) {
+      byShard.add(new LinkedHashMap<JobDetail, List<OperableTrigger>>());
+    }
+    Set<String> triggerKeys = new HashSet<String>();
+    for (Map.Entry<JobDetail, List<OperableTrigger>> entry : triggersAndJobs.entrySet()) {
+      byShard.get(shardIndex(entry.getKey().getName())).put(entry.getKey(), entry.getValue());
+      for (OperableTrigger trigger : entry.getValue()) {
+        // a second trigger of the same name would end up in another shard
+        if (!triggerKeys.add(trigger.getName())) {
+          throw new ObjectAlreadyExistsException(trigger);
+        }
+      }
+    }
+
+    lockAllTriggerNames();
+    try {
+      for (int i = 0; i < shards.length; i++) {
+        for (Map.Entry<JobDetail, List<OperableTrigger>> entry : byShard.get(i).entrySet()) {
+          if (!replace && shards[i].retrieveJob(entry.getKey().getName()) != null) {
+            throw new ObjectAlreadyExistsException(entry.getKey());
+          }
+          for (OperableTrigger trigger : entry.getValue()) {
+            RAMJobStore owner = shardOfTrigger(trigger.getName());
+            if (owner != null && (!replace || owner != shards[i])) {
+              if (!replace) {
+                throw new ObjectAlreadyExistsException(trigger);
+              }
+              owner.removeTrigger(trigger.getName());
+            }
+          }
+        }
+      }
+      for (int i = 0; i < shards.length; i++) {
+        if (!byShard.get(i).isEmpty()) {
+          shards[i].storeJobsAndTriggers(byShard.get(i), replace);
+        }
+      }
+    } finally {
+      unlockAllTriggerNames();
+    }
+  }
+
+  @Override
+  public void storeJob(JobDetail newJob, boolean replaceExisting) throws JobPersistenceException {
+
+    shardOfJob(newJob.getName()).storeJob(newJob, replaceExisting);
+  }
+
+  @Override
+  public boolean removeJob(String jobKey) throws JobPersistenceException {
+
+    return shardOfJob(jobKey).removeJob(jobKey);
+  }
+
+  @Override
+  public JobDetail retrieveJob(String jobKey) throws JobPersistenceException {
+
+    return shardOfJob(jobKey).retrieveJob(jobKey);
+  }
+
+  @Override
+  public void storeTrigger(OperableTrigger newTrigger, boolean replaceExisting)
+      throws JobPersistenceException {
+
+    RAMJobStore shard = shardOfJob(newTrigger.getJobName());
+    ReentrantLock nameLock = triggerNameLock(newTrigger.getName());
+    nameLock.lock();
+    try {
+      RAMJobStore owner = shardOfTrigger(newTrigger.getName());
+      if (owner != null && owner != shard) {
+        if (!replaceExisting) {
+          throw new ObjectAlreadyExistsException(newTrigger);
+        }
+        owner.removeTrigger(newTrigger.getName());
+      }
+      shard.storeTrigger(newTrigger, replaceExisting);
+    } finally {
+      nameLock.unlock();
+    }
+  }
+
+  @Override
+  public boolean removeTrigger(String triggerKey) throws JobPersistenceException {
+
+    ReentrantLock nameLock = triggerNameLock(triggerKey);
+    nameLock.lock();
+    try {
+      RAMJobStore owner = shardOfTrigger(triggerKey);
+      return owner != null && owner.removeTrigger(triggerKey);
+    } finally {
+      nameLock.unlock();
+    }
+  }
+
+  /** The new trigger must belong to the same job as the old one, so both are in one shard. */
+  @Override
+  public boolean replaceTrigger(String triggerKey, OperableTrigger newTrigger)
+      throws JobPersistenceException {
+
+    // the new name is the one that must stay unique, the old one is only removed
+    ReentrantLock nameLock = triggerNameLock(newTrigger.getName());
+    nameLock.lock();
+    try {
+      RAMJobStore owner = shardOfTrigger(triggerKey);
+      if (owner == null) {
+        return false;
+      }
+      if (!triggerKey.equals(newTrigger.getName())) {
+        RAMJobStore other = shardOfTrigger(newTrigger.getName());
+        if (other != null && other != owner) {
+          throw new ObjectAlreadyExistsException(newTrigger);
+        }
+      }
+      return owner.replaceTrigger(triggerKey, newTrigger);
+    } finally {
+      nameLock.unlock();
+    }
+  }
+
+  @Override
+  public OperableTrigger retrieveTrigger(String triggerKey) {
+
+    for (RAMJobStore shard : shards) {
+      OperableTrigger trigger = shard.retrieveTrigger(triggerKey);
+      if (trigger != null) {
+        return trigger;
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public Calendar retrieveCalendar(String calName) {
+
+    return shards[0].retrieveCalendar(calName);
+  }
+
+  @Override
+  public List<Trigger> getTriggersForJob(String jobKey) {
+
+    return shardOfJob(jobKey).getTriggersForJob(jobKey);
+  }
+
+  @Override
+  public Set<String> getJobKeys() {
+
+    Set<String> jobKeys = new HashSet<String>();
+    for (RAMJobStore shard : shards) {
+      jobKeys.addAll(shard.getJobKeys());
+    }
+    return jobKeys;
+  }
+
+  /**
+   * Acquire the next triggers of all shards in firing order, by a k-way merge of the shards. A
+   * shard is acquired from in chunks, only once the time it publishes for its earliest trigger is
+   * not after the head of the merge.
+   */
+  @Override
+  public List<OperableTrigger> acquireNextTriggers(
+      long noLaterThan, int maxCount, long timeWindow) {
+
+    return acquireNextTriggers(noLaterThan, maxCount, timeWindow, 0, 1);
+  }
+
+  /** Acquire from the shards <code>slice</code>, <code>slice + sliceCount</code>, and so on. */
+  @Override
+  public List<OperableTrigger> acquireNextTriggers(
+      long noLaterThan, int maxCount, long timeWindow, int slice, int sliceCount) {
+
+    List<OperableTrigger> result = new ArrayList<OperableTrigger>(Math.min(maxCount, 1024));
+    long limit = noLaterThan + timeWindow;
+
+    PriorityQueue<ShardCursor> merge = new PriorityQueue<ShardCursor>(shards.length);
+    for (int i = slice; i < shards.length; i += sliceCount) {
+      long earliest = shards[i].getEarliestNextFireTime();
+      if (earliest <= limit) {
+        merge.add(new ShardCursor(shards[i], earliest));
+      }
+    }
+    if (merge.isEmpty()) {
+      return result;
+    }
+    // share the batch between the shards that have triggers due, so little is released again
+    int chunk = Math.max(1, (maxCount + merge.size() - 1) / merge.size());
+
+    try {
+      while (result.size() < maxCount && !merge.isEmpty()) {
+        ShardCursor cursor = merge.poll();
+        if (cursor.acquired == null) {
+          // the shard may hold the next trigger in order, find out
+          cursor.fill(noLaterThan, Math.min(chunk, maxCount - result.size()), timeWindow);
+        } else {
+          result.add(cursor.acquired.get(cursor.next++));
+          if (cursor.next == cursor.acquired.size()) {
+            if (!cursor.drained && result.size() < maxCount) {
+              cursor.fill(noLaterThan, Math.min(chunk, maxCount - result.size()), timeWindow);
+            } else {
+              cursor.acquired = null;
+            }
+          }
+        }
+        if (cursor.acquired != null) {
+          merge.add(cursor);
+        }
+      }
+    } finally {
+      // give back whatever was acquired beyond maxCount
+      for (ShardCursor cursor : merge) {
+        if (cursor.acquired != null) {
+          for (int i = cursor.next; i < cursor.acquired.size(); i++) {
+            cursor.shard.releaseAcquiredTrigger(cursor.acquired.get(i));
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public void releaseAcquiredTrigger(OperableTrigger trigger) {
+
+    shardOfJob(trigger.getJobName()).releaseAcquiredTrigger(trigger);
+  }
+
+  /** Fire the triggers shard by shard; the results keep the order of the given triggers. */
+  @Override
+  public List<TriggerFiredResult> triggersFired(List<OperableTrigger> triggers) {
+
+    if (shards.length == 1) {
+      return shards[0].triggersFired(triggers);
+    }
+    List<List<OperableTrigger>> byShard = new ArrayList<List<OperableTrigger>>(shards.length);
+    for (int i = 0; i < shards.length; i++) {
+      byShard.add(null);
+    }
+    Map<String, Integer> positions = new HashMap<String, Integer>(triggers.size() * 2);
+    for (int i = 0; i < triggers.size(); i++) {
+      OperableTrigger trigger = triggers.get(i);
+      int shardIndex = shardIndex(trigger.getJobName());
+      if (byShard.get(shardIndex) == null) {
+        byShard.set(shardIndex, new ArrayList<OperableTrigger>());
+      }
+      byShard.get(shardIndex).add(trigger);
+      positions.put(trigger.getName(), i);
+    }
+
+    TriggerFiredResult[] ordered = new TriggerFiredResult[triggers.size()];
+    for (int i = 0; i < shards.length; i++) {
+      if (byShard.get(i) != null) {
+        for (TriggerFiredResult result : shards[i].triggersFired(byShard.get(i))) {
+          ordered[positions.get(result.getTriggerFiredBundle().getTrigger().getName())] = result;
+        }
+      }
+    }
+    List<TriggerFiredResult> results = new ArrayList<TriggerFiredResult>(triggers.size());
+    for (TriggerFiredResult result : ordered) {
+      if (result != null) {
+        results.add(result);
+      }
+    }
+    return results;
+  }
+
+  @Override
+  public void triggeredJobComplete(
+      OperableTrigger trigger, JobDetail jobDetail, CompletedExecutionInstruction triggerInstCode) {
+
+    shardOfJob(jobDetail.getName()).triggeredJobComplete(trigger, jobDetail, triggerInstCode);
+  }
+
+  @Override
+  public void setThreadPoolSize(int poolSize) {
+
+    for (RAMJobStore shard : shards) {
+      shard.setThreadPoolSize(poolSize);
+    }
+  }
+
+  private int shardIndex(String jobKey) {
+
+    // spread the hash, as job names often differ in their last characters only
+    int h = jobKey.hashCode();
+    h ^= (h >>> 16);
+    h *= 0x85ebca6b;
+    h ^= (h >>> 13);
+    return (h & 0x7fffffff) % shards.length;
+  }
+
+  private RAMJobStore shardOfJob(String jobKey) {
+
+    return shards[shardIndex(jobKey)];
+  }
+
+  /** @return the shard holding the named trigger, or <code>null</code> if there is none */
+  private RAMJobStore shardOfTrigger(String triggerKey) {
+
+    for (RAMJobStore shard : shards) {
+      if (shard.retrieveTrigger(triggerKey) != null) {
+        return shard;
+      }
+    }
+    return null;
+  }
+
+  private ReentrantLock triggerNameLock(String triggerKey) {
+
+    return triggerNameLocks[(triggerKey.hashCode() & 0x7fffffff) % TRIGGER_NAME_LOCKS];
+  }
+
+  private void lockAllTriggerNames() {
+
+    for (ReentrantLock nameLock : triggerNameLocks) {
+      nameLock.lock();
+    }
+  }
+
+  private void unlockAllTriggerNames() {
+
+    for (int i = TRIGGER_NAME_LOCKS - 1; i >= 0; i--) {
+      triggerNameLocks[i].unlock();
+    }
+  }
+
+  /**
+   * A shard in the merge: either not acquired from yet and ordered by the fire time it published,
+   * or ordered by the next of the triggers acquired from it.
+   */
+  private static class ShardCursor implements Comparable<ShardCursor> {
+
+    private static final TriggerTimeComparator TRIGGER_TIME_COMPARATOR =
+        new TriggerTimeComparator();
+
+    private final RAMJobStore shard;
+
+    /** the earliest fire time published by the shard, while nothing is acquired */
+    private long time;
+
+    private List<OperableTrigger> acquired;
+
+    private int next;
+
+    /** whether the shard returned fewer triggers than asked for, so it has no more due */
+    private boolean drained;
+
+    ShardCursor(RAMJobStore shard, long time) {
+
+      this.shard = shard;
+      this.time = time;
+    }
+
+    void fill(long noLaterThan, int maxCount, long timeWindow) {
+
+      List<OperableTrigger> triggers = shard.acquireNextTriggers(noLaterThan, maxCount, timeWindow);
+      drained = triggers.size() < maxCount;
+      acquired = triggers.isEmpty() ? null : triggers;
+      next = 0;
+    }
+
+    private long headTime() {
+
+      return (acquired != null) ? acquired.get(next).getNextFireTime().getTime() : time;
+    }
+
+    @Override
+    public int compareTo(ShardCursor other) {
+
+      long t1 = headTime();
+      long t2 = other.headTime();
+      if (t1 != t2) {
+        return (t1 < t2) ? -1 : 1;
+      }
+      // at the same time a shard not acquired from yet goes first, it may have a higher priority
+      if (acquired == null || other.acquired == null) {
+        return (acquired == null ? 0 : 1) - (other.acquired == null ? 0 : 1);
+      }
+      return TRIGGER_TIME_COMPARATOR.compare(acquired.get(next), other.acquired.get(other.next));
+    }
+  }
+}
@@ -0,0 +1,14 @@
+package org.quartz.core;
+
+/**
+ * A <code>{@link JobStore}</code> holding resources, such as files, connections or threads, to
+ * free when the scheduler shuts down.
+ */
+public interface ShutdownAwareJobStore extends JobStore {
+
+  /**
+   * Called by the QuartzScheduler to inform the <code>JobStore</code> that it should free up all of
+   * its resources because the scheduler is shutting down.
+   */
+  void shutdown();
+}
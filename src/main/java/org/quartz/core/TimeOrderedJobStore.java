@@ -0,0 +1,21 @@
+package org.quartz.core;
+
+import org.quartz.exceptions.JobPersistenceException;
+
+/**
+ * A <code>{@link JobStore}</code> that can tell the next fire time of its earliest waiting trigger
+ * cheaply, so that the <code>{@link QuartzSchedulerThread}</code> sleeps until then rather than for
+ * the idle wait time. With any other store, the scheduler thread sleeps for the idle wait time and
+ * gives up the triggers it holds on any change to the schedule it is not told the time of.
+ */
+public interface TimeOrderedJobStore extends JobStore {
+
+  /**
+   * Get the next fire time of the earliest trigger waiting to be acquired. The scheduler calls this
+   * to find out how long it may sleep, and whether a change to the schedule it was not told the
+   * time of makes it worth giving up the triggers it holds, so it should be cheap.
+   *
+   * @return the time in milliseconds, or <code>Long.MAX_VALUE</code> if no trigger is waiting.
+   */
+  long getEarliestNextFireTime() throws JobPersistenceException;
+}
@@ -0,0 +1,251 @@
+package org.quartz.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * A hierarchical timing wheel implementation of {@link TriggerTimeIndex}.
+ *
+ * <p>The wheel has a millisecond level (1000 slots), a second level (60 slots), a minute level (60
+ * slots) and an hour level (24 slots), plus an overflow tier keyed by day. Like the digits of an
+ * odometer, a trigger sits on the level of the highest time unit in which its fire time differs
+ * from the wheel's cursor: a trigger due within the cursor's second sits in the millisecond slot of
+ * its fire time, one due in a later second of the cursor's minute sits in the second slot, and so
+ * on. Every slot therefore covers exactly one absolute time range, and all triggers of a lower
+ * level fire before those of a higher one.
+ *
+ * <p>Adding and removing a trigger is O(1), apart from the millisecond slots which keep their (few)
+ * triggers sorted by priority and name so that the existing ordering within a tick is preserved.
+ * The cursor only moves forward, to the start of the earliest occupied slot, when the index is
+ * asked for its first trigger; the triggers of that slot are then cascaded down a level. Triggers
+ * added with a fire time before the cursor (e.g. a job started now while the next fire is minutes
+ * away) are kept in a small sorted overdue set that always comes first.
+ */
+class TimingWheelTriggerTimeIndex implements TriggerTimeIndex {
+
+  private static final int LEVEL_OVERDUE = -1;
+  private static final int LEVEL_MILLIS = 0;
+  private static final int LEVEL_SECONDS = 1;
+  private static final int LEVEL_OVERFLOW = 4;
+
+  private static final long SECOND = 1000L;
+  private static final long MINUTE = 60 * SECOND;
+  private static final long HOUR = 60 * MINUTE;
+  private static final long DAY = 24 * HOUR;
+
+  /** slot length of each wheel level in milliseconds */
+  private static final long[] TICKS = {1L, SECOND, MINUTE, HOUR};
+
+  /** the time span covered by one revolution of each wheel level */
+  private static final long[] SPANS = {SECOND, MINUTE, HOUR, DAY};
+
+  private final TriggerWrapperComparator comparator = new TriggerWrapperComparator();
+
+  private final Bucket[][] wheels = {
+    new Bucket[1000], new Bucket[60], new Bucket[60], new Bucket[24]
+  };
+
+  private final int[] levelCounts = new int[4];
+
+  private final TreeMap<Long, Bucket> overflow = new TreeMap<Long, Bucket>();
+
+  private final Bucket overdue = new Bucket(LEVEL_OVERDUE, 0L, comparator);
+
+  private long cursor = 0L;
+
+  private int size = 0;
+
+  /** cached result of {@link #first()}, or null if unknown */
+  private TriggerWrapper first;
+
+  @Override
+  public boolean add(TriggerWrapper tw) {
+
+    if (tw.timeIndexBucket != null || tw.trigger.getNextFireTime() == null) {
+      return false;
+    }
+    place(tw, tw.trigger.getNextFireTime().getTime());
+    size++;
+    if (first != null && comparator.compare(tw, first) < 0) {
+      first = tw;
+    }
+    return true;
+  }
+
+  @Override
+  public boolean remove(TriggerWrapper tw) {
+
+    Bucket bucket = tw.timeIndexBucket;
+    if (bucket == null) {
+      return false;
+    }
+    unlink(tw, bucket);
+    size--;
+    if (first == tw) {
+      first = null;
+    }
+    return true;
+  }
+
+  @Override
+  public TriggerWrapper first() {
+
+    if (first == null && size > 0) {
+      first = findFirst();
+    }
+    return first;
+  }
+
+  @Override
+  public TriggerWrapper pollFirst(long noLaterThan) {
+
+    TriggerWrapper tw = first();
+    if (tw == null || tw.trigger.getNextFireTime().getTime() > noLaterThan) {
+      return null;
+    }
+    remove(tw);
+    return tw;
+  }
+
+  @Override
+  public boolean isEmpty() {
+
+    return size == 0;
+  }
+
+  @Override
+  public int size() {
+
+    return size;
+  }
+
+  /** Put a trigger in the slot for its fire time relative to the current cursor. */
+  private void place(TriggerWrapper tw, long time) {
+
+    Bucket bucket;
+    if (time < cursor) {
+      bucket = overdue;
+    } else {
+      int level = LEVEL_MILLIS;
+      while (level < LEVEL_OVERFLOW && time / SPANS[level] != cursor / SPANS[level]) {
+        level++;
+      }
+      if (level == LEVEL_OVERFLOW) {
+        Long day = Long.valueOf(time / DAY);
+        bucket = overflow.get(day);
+        if (bucket == null) {
+          bucket = new Bucket(LEVEL_OVERFLOW, day.longValue(), null);
+          overflow.put(day, bucket);
+        }
+      } else {
+        Bucket[] wheel = wheels[level];
+        int slot = (int) ((time / TICKS[level]) % wheel.length);
+        bucket = wheel[slot];
+        if (bucket == null) {
+          bucket = new Bucket(level, slot, level == LEVEL_MILLIS ? comparator : null);
+          wheel[slot] = bucket;
+        }
+        levelCounts[level]++;
+      }
+    }
+    bucket.entries.add(tw);
+    tw.timeIndexBucket = bucket;
+  }
+
+  private void unlink(TriggerWrapper tw, Bucket bucket) {
+
+    bucket.entries.remove(tw);
+    tw.timeIndexBucket = null;
+    if (bucket.level == LEVEL_OVERFLOW) {
+      if (bucket.entries.isEmpty()) {
+        overflow.remove(Long.valueOf(bucket.key));
+      }
+    } else if (bucket.level != LEVEL_OVERDUE) {
+      levelCounts[bucket.level]--;
+    }
+  }
+
+  /** Find the first trigger, advancing the cursor and cascading slots as needed. */
+  private TriggerWrapper findFirst() {
+
+    if (!overdue.entries.isEmpty()) {
+      return ((TreeSet<TriggerWrapper>) overdue.entries).first();
+    }
+
+    while (true) {
+      if (levelCounts[LEVEL_MILLIS] > 0) {
+        Bucket[] wheel = wheels[LEVEL_MILLIS];
+        for (int slot = (int) (cursor % SECOND); slot < wheel.length; slot++) {
+          if (wheel[slot] != null && !wheel[slot].entries.isEmpty()) {
+            return ((TreeSet<TriggerWrapper>) wheel[slot].entries).first();
+          }
+        }
+        throw new IllegalStateException("Timing wheel millisecond level is inconsistent.");
+      }
+
+      boolean advanced = false;
+      for (int level = LEVEL_SECONDS; level < LEVEL_OVERFLOW && !advanced; level++) {
+        if (levelCounts[level] > 0) {
+          Bucket[] wheel = wheels[level];
+          long revolutionStart = cursor - cursor % SPANS[level];
+          for (int slot = (int) ((cursor / TICKS[level]) % wheel.length) + 1;
+              slot < wheel.length;
+              slot++) {
+            if (wheel[slot] != null && !wheel[slot].entries.isEmpty()) {
+              cursor = revolutionStart + slot * TICKS[level];
+              cascade(wheel[slot]);
+              advanced = true;
+              break;
+            }
+          }
+          if (!advanced) {
+            throw new IllegalStateException("Timing wheel level " + level + " is inconsistent.");
+          }
+        }
+      }
+
+      if (!advanced) {
+        if (overflow.isEmpty()) {
+          return null;
+        }
+        Bucket bucket = overflow.firstEntry().getValue();
+        cursor = bucket.key * DAY;
+        cascade(bucket);
+      }
+    }
+  }
+
+  /** Re-place the triggers of a slot now that the cursor has moved into it. */
+  private void cascade(Bucket bucket) {
+
+    Collection<TriggerWrapper> entries = new ArrayList<TriggerWrapper>(bucket.entries);
+    for (TriggerWrapper tw : entries) {
+      unlink(tw, bucket);
+      place(tw, tw.trigger.getNextFireTime().getTime());
+    }
+  }
+
+  /** One slot of the wheel, or one day of the overflow tier. */
+  static final class Bucket {
+
+    final int level;
+
+    final long key;
+
+    final Set<TriggerWrapper> entries;
+
+    Bucket(int level, long key, TriggerWrapperComparator comparator) {
+
+      this.level = level;
+      this.key = key;
+      this.entries =
+          comparator != null
+              ? new TreeSet<TriggerWrapper>(comparator)
+              : new HashSet<TriggerWrapper>();
+    }
+  }
+}
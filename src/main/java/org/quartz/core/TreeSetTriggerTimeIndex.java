@@ -0,0 +1,54 @@
+package org.quartz.core;
+
+import java.util.TreeSet;
+
+/** The original index: a red-black tree ordered by {@link TriggerWrapperComparator}. */
+class TreeSetTriggerTimeIndex implements TriggerTimeIndex {
+
+  private final TreeSet<TriggerWrapper> timeWrappedTriggers =
+      new TreeSet<TriggerWrapper>(new TriggerWrapperComparator());
+
+  @Override
+  public boolean add(TriggerWrapper tw) {
+
+    if (tw.trigger.getNextFireTime() == null) {
+      return false;
+    }
+    return timeWrappedTriggers.add(tw);
+  }
+
+  @Override
+  public boolean remove(TriggerWrapper tw) {
+
+    return timeWrappedTriggers.remove(tw);
+  }
+
+  @Override
+  public TriggerWrapper first() {
+
+    return timeWrappedTriggers.isEmpty() ? null : timeWrappedTriggers.first();
+  }
+
+  @Override
+  public TriggerWrapper pollFirst(long noLaterThan) {
+
+    TriggerWrapper tw = first();
+    if (tw == null || tw.trigger.getNextFireTime().getTime() > noLaterThan) {
+      return null;
+    }
+    timeWrappedTriggers.remove(tw);
+    return tw;
+  }
+
+  @Override
+  public boolean isEmpty() {
+
+    return timeWrappedTriggers.isEmpty();
+  }
+
+  @Override
+  public int size() {
+
+    return timeWrappedTriggers.size();
+  }
+}
@@ -0,0 +1,110 @@
+package org.quartz.core;
+
+/**
+ * Finds the record of a trigger by name: an open-addressing hash table from the 64-bit hash of the
+ * name to the record's slot, held in two primitive arrays. Equal hashes of different names are
+ * told apart by comparing the name in the record.
+ */
+class TriggerNameIndex {
+
+  private static final long EMPTY = 0L;
+
+  private final TriggerRecordSlabs records;
+
+  private long[] hashes = new long[1024];
+
+  private int[] slots = new int[1024];
+
+  private int size = 0;
+
+  TriggerNameIndex(TriggerRecordSlabs records) {
+
+    this.records = records;
+  }
+
+  /** @return the slot of the named trigger, or -1 */
+  int get(long hash, byte[] name) {
+
+    int mask = hashes.length - 1;
+    for (int i = (int) hash & mask; hashes[i] != EMPTY; i = (i + 1) & mask) {
+      if (hashes[i] == hash && records.nameEquals(slots[i], name)) {
+        return slots[i];
+      }
+    }
+    return -1;
+  }
+
+  /** Add a trigger that is not in the index. */
+  void put(long hash, int slot) {
+
+    if ((size + 1) * 2 > hashes.length) {
+      resize(hashes.length * 2);
+    }
+    insert(hash, slot);
+    size++;
+  }
+
+  /** Remove the entry of the given slot. */
+  void remove(long hash, int slot) {
+
+    int mask = hashes.length - 1;
+    int i = (int) hash & mask;
+    while (slots[i] != slot || hashes[i] != hash) {
+      i = (i + 1) & mask;
+    }
+    // shift back the entries of the following run that may no longer be reachable
+    int gap = i;
+    for (int j = (gap + 1) & mask; hashes[j] != EMPTY; j = (j + 1) & mask) {
+      int home = (int) hashes[j] & mask;
+      if (((j - home) & mask) >= ((j - gap) & mask)) {
+        hashes[gap] = hashes[j];
+        slots[gap] = slots[j];
+        gap = j;
+      }
+    }
+    hashes[gap] = EMPTY;
+    size--;
+  }
+
+  int size() {
+
+    return size;
+  }
+
+  private void insert(long hash, int slot) {
+
+    int mask = hashes.length - 1;
+    int i = (int) hash & mask;
+    while (hashes[i] != EMPTY) {
+      i = (i + 1) & mask;
+    }
+    hashes[i] = hash;
+    slots[i] = slot;
+  }
+
+  private void resize(int capacity) {
+
+    long[] oldHashes = hashes;
+    int[] oldSlots = slots;
+    hashes = new long[capacity];
+    slots = new int[capacity];
+    for (int i = 0; i < oldHashes.length; i++) {
+      if (oldHashes[i] != EMPTY) {
+        insert(oldHashes[i], oldSlots[i]);
+      }
+    }
+  }
+
+  /** @return a 64-bit FNV-1a hash of the name, never 0 */
+  static long hash(byte[] name) {
+
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : name) {
+      hash ^= b & 0xff;
+      hash *= 0x100000001b3L;
+    }
+    // spread the high bits into the low ones used for the table position
+    hash ^= hash >>> 32;
+    return hash == EMPTY ? 1L : hash;
+  }
+}
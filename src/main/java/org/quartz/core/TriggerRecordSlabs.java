@@ -0,0 +1,241 @@
+package org.quartz.core;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The fixed-size trigger records of an {@link OffHeapJobStore}, kept in direct <code>ByteBuffer
+ * </code> slabs and addressed by an <code>int</code> slot.
+ *
+ * <p>A record holds the trigger's times, fire time spread, repeat state, priority, state and job
+ * handle, the links of the store's indexes, and the trigger's name as UTF-8 if it fits, or the
+ * handle of a blob holding it. Freed slots are reused. Not thread-safe; the store calls it holding
+ * its lock.
+ */
+class TriggerRecordSlabs {
+
+  /** a time field that is not set */
+  static final long NO_TIME = Long.MIN_VALUE;
+
+  static final int NEXT_FIRE_TIME = 0;
+
+  static final int PREVIOUS_FIRE_TIME = 8;
+
+  static final int START_TIME = 16;
+
+  static final int END_TIME = 24;
+
+  static final int REPEAT_INTERVAL = 32;
+
+  /** blob handle of the description, calendar name, job data, ... or OffHeapBlobHeap.NONE */
+  static final int EXTRAS = 40;
+
+  static final int PRIORITY = 48;
+
+  static final int STATE = 52;
+
+  static final int MISFIRE_INSTRUCTION = 56;
+
+  static final int REPEAT_COUNT = 60;
+
+  static final int TIMES_TRIGGERED = 64;
+
+  static final int JOB = 68;
+
+  static final int TYPE = 72;
+
+  /** the interned cron expression of a cron trigger */
+  static final int CRON = 76;
+
+  /** position in the time index, or -1 */
+  static final int HEAP_POSITION = 80;
+
+  /** links of the list of triggers of the same job, or -1 */
+  static final int NEXT_IN_JOB = 84;
+
+  static final int PREVIOUS_IN_JOB = 88;
+
+  /** length of the inline name in bytes, or -1 if the name is in a blob */
+  static final int NAME_LENGTH = 92;
+
+  /** the fire time spread in milliseconds */
+  static final int SPREAD = 96;
+
+  /** the inline name, or the long handle of its blob */
+  static final int NAME = 104;
+
+  static final int NAME_CAPACITY = 56;
+
+  static final int RECORD_SIZE = NAME + NAME_CAPACITY;
+
+  private static final int SLOT_SHIFT = 14;
+
+  private static final int SLOTS_PER_SLAB = 1 << SLOT_SHIFT;
+
+  private final List<ByteBuffer> slabs = new ArrayList<ByteBuffer>();
+
+  private final OffHeapBlobHeap blobs;
+
+  private int[] freeSlots = new int[64];
+
+  private int freeCount = 0;
+
+  private int nextSlot = 0;
+
+  private int size = 0;
+
+  TriggerRecordSlabs(OffHeapBlobHeap blobs) {
+
+    this.blobs = blobs;
+  }
+
+  /** @return the slot of a new record, with undefined content */
+  int allocate() {
+
+    size++;
+    if (freeCount > 0) {
+      return freeSlots[--freeCount];
+    }
+    int slot = nextSlot++;
+    if ((slot >>> SLOT_SHIFT) == slabs.size()) {
+      slabs.add(ByteBuffer.allocateDirect(SLOTS_PER_SLAB * RECORD_SIZE));
+    }
+    return slot;
+  }
+
+  /** Release a record, and the blob of its name. */
+  void free(int slot) {
+
+    if (getInt(slot, NAME_LENGTH) < 0) {
+      blobs.free(getLong(slot, NAME));
+    }
+    if (freeCount == freeSlots.length) {
+      int[] grown = new int[freeSlots.length * 2];
+      System.arraycopy(freeSlots, 0, grown, 0, freeCount);
+      freeSlots = grown;
+    }
+    freeSlots[freeCount++] = slot;
+    size--;
+  }
+
+  int size() {
+
+    return size;
+  }
+
+  /** @return the bytes of direct memory allocated */
+  long getDirectBytes() {
+
+    return (long) slabs.size() * SLOTS_PER_SLAB * RECORD_SIZE;
+  }
+
+  long getLong(int slot, int field) {
+
+    return slabs.get(slot >>> SLOT_SHIFT).getLong(offset(slot) + field);
+  }
+
+  void putLong(int slot, int field, long value) {
+
+    slabs.get(slot >>> SLOT_SHIFT).putLong(offset(slot) + field, value);
+  }
+
+  int getInt(int slot, int field) {
+
+    return slabs.get(slot >>> SLOT_SHIFT).getInt(offset(slot) + field);
+  }
+
+  void putInt(int slot, int field, int value) {
+
+    slabs.get(slot >>> SLOT_SHIFT).putInt(offset(slot) + field, value);
+  }
+
+  /** Set the name of a new record. */
+  void putName(int slot, byte[] name) {
+
+    if (name.length <= NAME_CAPACITY) {
+      ByteBuffer slab = slabs.get(slot >>> SLOT_SHIFT);
+      int offset = offset(slot) + NAME;
+      for (int i = 0; i < name.length; i++) {
+        slab.put(offset + i, name[i]);
+      }
+      putInt(slot, NAME_LENGTH, name.length);
+    } else {
+      putLong(slot, NAME, blobs.allocate(name));
+      putInt(slot, NAME_LENGTH, -1);
+    }
+  }
+
+  byte[] getName(int slot) {
+
+    int length = getInt(slot, NAME_LENGTH);
+    if (length < 0) {
+      return blobs.read(getLong(slot, NAME));
+    }
+    ByteBuffer slab = slabs.get(slot >>> SLOT_SHIFT);
+    int offset = offset(slot) + NAME;
+    byte[] name = new byte[length];
+    for (int i = 0; i < length; i++) {
+      name[i] = slab.get(offset + i);
+    }
+    return name;
+  }
+
+  boolean nameEquals(int slot, byte[] name) {
+
+    int length = getInt(slot, NAME_LENGTH);
+    if (length < 0) {
+      return name.length > NAME_CAPACITY && compare(blobs.read(getLong(slot, NAME)), name) == 0;
+    }
+    if (length != name.length) {
+      return false;
+    }
+    ByteBuffer slab = slabs.get(slot >>> SLOT_SHIFT);
+    int offset = offset(slot) + NAME;
+    for (int i = 0; i < length; i++) {
+      if (slab.get(offset + i) != name[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Compare the names of two records by their UTF-8 bytes, i.e. in code point order. */
+  int compareNames(int slot1, int slot2) {
+
+    int length1 = getInt(slot1, NAME_LENGTH);
+    int length2 = getInt(slot2, NAME_LENGTH);
+    if (length1 < 0 || length2 < 0) {
+      return compare(getName(slot1), getName(slot2));
+    }
+    ByteBuffer slab1 = slabs.get(slot1 >>> SLOT_SHIFT);
+    ByteBuffer slab2 = slabs.get(slot2 >>> SLOT_SHIFT);
+    int offset1 = offset(slot1) + NAME;
+    int offset2 = offset(slot2) + NAME;
+    int n = Math.min(length1, length2);
+    for (int i = 0; i < n; i++) {
+      int c = (slab1.get(offset1 + i) & 0xff) - (slab2.get(offset2 + i) & 0xff);
+      if (c != 0) {
+        return c;
+      }
+    }
+    return length1 - length2;
+  }
+
+  private static int compare(byte[] name1, byte[] name2) {
+
+    int n = Math.min(name1.length, name2.length);
+    for (int i = 0; i < n; i++) {
+      int c = (name1[i] & 0xff) - (name2[i] & 0xff);
+      if (c != 0) {
+        return c;
+      }
+    }
+    return name1.length - name2.length;
+  }
+
+  private static int offset(int slot) {
+
+    return (slot & (SLOTS_PER_SLAB - 1)) * RECORD_SIZE;
+  }
+}
@@ -0,0 +1,37 @@
+package org.quartz.core;
+
+/**
+ * The index by which a <code>RAMJobStore</code> keeps its waiting triggers in firing order: next
+ * fire time, then priority (highest first), then name.
+ *
+ * <p>A trigger's next fire time must not change while it is in the index. Triggers without a next
+ * fire time are never indexed. Implementations are not thread-safe; the store calls them holding
+ * its lock.
+ */
+interface TriggerTimeIndex {
+
+  /**
+   * @return <code>true</code> if the trigger was added, <code>false</code> if it was already
+   *     present or has no next fire time.
+   */
+  boolean add(TriggerWrapper tw);
+
+  /** @return <code>true</code> if the trigger was present and has been removed. */
+  boolean remove(TriggerWrapper tw);
+
+  /** @return the trigger to fire first, or <code>null</code> if the index is empty. */
+  TriggerWrapper first();
+
+  /**
+   * Remove and return the trigger to fire first, provided it is due no later than the given time.
+   * Repeated calls extract everything due within a window in firing order.
+   *
+   * @return the removed trigger, or <code>null</code> if the index is empty or the first trigger is
+   *     due after <code>noLaterThan</code>.
+   */
+  TriggerWrapper pollFirst(long noLaterThan);
+
+  boolean isEmpty();
+
+  int size();
+}
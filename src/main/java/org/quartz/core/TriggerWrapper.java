@@ -0,0 +1,86 @@
+package org.quartz.core;
+
+import org.quartz.triggers.OperableTrigger;
+
+/** A trigger held in a <code>RAMJobStore</code>, with its state in the store. */
+class TriggerWrapper {
+
+  public String key;
+
+  public String jobKey;
+
+  /** modified in place only out of the time index, holding both the store lock and this monitor */
+  public final OperableTrigger trigger;
+
+  public int state = STATE_WAITING;
+
+  /** when the trigger finished, if it is accounted for by the retention policy; guarded by lock */
+  long finishedAt;
+
+  /** the timing wheel slot holding this trigger, if any */
+  TimingWheelTriggerTimeIndex.Bucket timeIndexBucket;
+
+  public static final int STATE_WAITING = 0;
+
+  public static final int STATE_ACQUIRED = 1;
+
+  // public static final int STATE_EXECUTING = 2;
+
+  public static final int STATE_COMPLETE = 3;
+
+  public static final int STATE_PAUSED = 4;
+
+  public static final int STATE_BLOCKED = 5;
+
+  public static final int STATE_PAUSED_BLOCKED = 6;
+
+  public static final int STATE_ERROR = 7;
+
+  TriggerWrapper(OperableTrigger trigger) {
+
+    this.trigger = trigger;
+    key = trigger.getName();
+    this.jobKey = trigger.getJobName();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+
+    if (obj instanceof TriggerWrapper) {
+      TriggerWrapper tw = (TriggerWrapper) obj;
+      if (tw.key.equals(this.key)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+
+    return key.hashCode();
+  }
+
+  public OperableTrigger getTrigger() {
+
+    return this.trigger;
+  }
+
+  /**
+   * @return a copy of the trigger to hand out of the store. Taken holding this monitor, it is never
+   *     torn by a concurrent fire, even without the store lock.
+   */
+  synchronized OperableTrigger cloneTrigger() {
+
+    return (OperableTrigger) trigger.clone();
+  }
+
+  /** @return a new wrapper with a copy of the trigger and the same state, linked to no index */
+  TriggerWrapper copy() {
+
+    TriggerWrapper copy = new TriggerWrapper(cloneTrigger());
+    copy.state = state;
+    return copy;
+  }
+}
@@ -0,0 +1,22 @@
+package org.quartz.core;
+
+import java.util.Comparator;
+import org.quartz.triggers.Trigger.TriggerTimeComparator;
+
+/** Orders the <code>TriggerWrapper</code>s of a <code>RAMJobStore</code> by fire order. */
+class TriggerWrapperComparator implements Comparator<TriggerWrapper> {
+
+  private TriggerTimeComparator ttc = new TriggerTimeComparator();
+
+  @Override
+  public int compare(TriggerWrapper trig1, TriggerWrapper trig2) {
+
+    return ttc.compare(trig1.trigger, trig2.trigger);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+
+    return (obj instanceof TriggerWrapperComparator);
+  }
+}
@@ -0,0 +1,92 @@
+package org.quartz.core;
+
+/**
+ * A <code>{@link Clock}</code> that stands still until a scheduler thread waits for a time, and
+ * then jumps straight to it. A schedule thus runs through its fire times, in order, as fast as the
+ * scheduler fires them, so a day of triggers replays in seconds, for capacity tests and for checks
+ * of the order in which triggers fire.
+ *
+ * <p>The clock never runs past its horizon, which starts at the start time and is moved with
+ * {@link #advanceTo(long)}; a scheduler thread waiting for a later time waits in real time until
+ * the horizon moves on. Schedule the triggers, then advance the clock, then {@link
+ * #awaitTime(long, long)} it. Use it with a single scheduler thread, as several would each jump the
+ * clock ahead to their own next fire time.
+ */
+public class VirtualClock extends Clock {
+
+  /** how long a scheduler thread waits in real time, at the horizon, before it looks again */
+  private static final long HORIZON_WAIT = 10L;
+
+  private volatile long now;
+
+  private long horizon;
+
+  /**
+   * Create a clock standing at the given time.
+   *
+   * @param startTime the time in milliseconds
+   */
+  public VirtualClock(long startTime) {
+
+    this.now = startTime;
+    this.horizon = startTime;
+  }
+
+  @Override
+  public long currentTimeMillis() {
+
+    return now;
+  }
+
+  @Override
+  public void waitUntil(Object monitor, long time) throws InterruptedException {
+
+    synchronized (this) {
+      if (time <= horizon) {
+        now = Math.max(now, time);
+        notifyAll();
+        return;
+      }
+      now = Math.max(now, horizon);
+      notifyAll();
+    }
+    monitor.wait(HORIZON_WAIT);
+  }
+
+  /**
+   * Let the clock run on up to the given time.
+   *
+   * @param time the time in milliseconds
+   */
+  public synchronized void advanceTo(long time) {
+
+    horizon = Math.max(horizon, time);
+  }
+
+  /** @return the time up to which the clock may run */
+  public synchronized long getHorizon() {
+
+    return horizon;
+  }
+
+  /**
+   * Wait until the clock has reached the given time, which it does once a scheduler thread has
+   * fired every trigger before it and waits for a later one.
+   *
+   * @param time the time in milliseconds
+   * @param timeout the most milliseconds to wait, in real time
+   * @return whether the clock reached the time
+   */
+  public synchronized boolean awaitTime(long time, long timeout) throws InterruptedException {
+
+    long deadline = System.currentTimeMillis() + timeout;
+    while (now < time) {
+      long waitTime = deadline - System.currentTimeMillis();
+      if (waitTime <= 0) {
+        return false;
+      }
+      wait(waitTime);
+    }
+    return true;
+  }
+}
@@ -0,0 +1,177 @@
+package org.quartz.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.quartz.exceptions.SchedulerConfigException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A <code>{@link ThreadPool}</code> that runs each job on a new virtual thread, for jobs that
+ * spend most of their time blocked on I/O such as HTTP calls or JDBC queries. A semaphore instead
+ * of a number of threads caps how many jobs run at once, so the cap can be in the thousands
+ * without the memory and context switches of as many platform threads.
+ *
+ * <p>Virtual threads need Java 21; on earlier releases the pool runs each job on a new platform
+ * thread instead, with the same cap, and says so when initialized.
+ *
+ * <p>A virtual thread that blocks inside a <code>synchronized</code> block or method stays pinned
+ * to its carrier thread, which then cannot run other virtual threads. The pool watches for this
+ * with the flight recorder, and logs each pinning that lasts the pinning threshold or longer with
+ * the stack of the job, so that such jobs can be found and changed to use a <code>
+ * java.util.concurrent</code> lock.
+ */
+public class VirtualThreadPool implements ThreadPool {
+
+  private final int maxConcurrency;
+
+  private final Semaphore permits;
+
+  private String threadNamePrefix = "Quartz_Scheduler_Worker";
+
+  private long pinningThreshold = 20L;
+
+  private final AtomicLong threadCount = new AtomicLong();
+
+  private final AtomicLong pinnedCount = new AtomicLong();
+
+  private Closeable pinningWatch = null;
+
+  private volatile boolean isShutdown = false;
+
+  private final Logger log = LoggerFactory.getLogger(getClass());
+
+  /** @param maxConcurrency the number of jobs that may run at once */
+  public VirtualThreadPool(int maxConcurrency) {
+
+    this.maxConcurrency = maxConcurrency;
+    this.permits = new Semaphore(Math.max(0, maxConcurrency));
+  }
+
+  /** @return the number of jobs that may run at once */
+  @Override
+  public int getPoolSize() {
+
+    return maxConcurrency;
+  }
+
+  /** @return whether jobs run on virtual threads, rather than platform threads */
+  public boolean isVirtual() {
+
+    return VirtualThreads.isAvailable();
+  }
+
+  /** Set the prefix of the thread names; has no effect after initialization. */
+  public void setThreadNamePrefix(String threadNamePrefix) {
+
+    this.threadNamePrefix = threadNamePrefix;
+  }
+
+  /**
+   * Set how long a virtual thread must stay pinned to its carrier thread to be logged and counted,
+   * 20 ms by default, or 0 not to watch for pinning; has no effect after initialization.
+   */
+  public void setPinningThreshold(long pinningThresholdMillis) {
+
+    if (pinningThresholdMillis < 0) {
+      throw new IllegalArgumentException("Pinning threshold cannot be negative.");
+    }
+    this.pinningThreshold = pinningThresholdMillis;
+  }
+
+  /** @return the number of times a virtual thread stayed pinned for the threshold or longer */
+  public long getPinnedCount() {
+
+    return pinnedCount.get();
+  }
+
+  @Override
+  public synchronized void initialize() throws SchedulerConfigException {
+
+    if (maxConcurrency <= 0) {
+      throw new SchedulerConfigException("Max concurrency must be > 0");
+    }
+    if (!VirtualThreads.isAvailable()) {
+      log.info("Virtual threads need Java 21; jobs will run on new platform threads.");
+    } else if (pinningThreshold > 0 && pinningWatch == null) {
+      pinningWatch =
+          VirtualThreads.watchPinning(threadNamePrefix, pinningThreshold, pinnedCount, log);
+    }
+  }
+
+  /**
+   * Run the given job on a new thread once fewer than the maximum of jobs are running, blocking
+   * until then. If the pool shuts down meanwhile, the job runs right away.
+   */
+  @Override
+  public boolean runInThread(final JobRunShell runnable) {
+
+    if (runnable == null) {
+      return false;
+    }
+    final boolean permitted = acquirePermit();
+    Thread thread =
+        VirtualThreads.newThread(
+            threadNamePrefix + "-" + threadCount.incrementAndGet(),
+            new Runnable() {
+
+              @Override
+              public void run() {
+
+                try {
+                  runnable.run();
+                } catch (Throwable exceptionInRunnable) {
+                  log.error("Error while executing the Runnable: ", exceptionInRunnable);
+                } finally {
+                  if (permitted) {
+                    permits.release();
+                  }
+                }
+              }
+            });
+    thread.start();
+    return true;
+  }
+
+  @Override
+  public int blockForAvailableThreads() {
+
+    if (acquirePermit()) {
+      permits.release();
+    }
+    return permits.availablePermits();
+  }
+
+  /** @return true once a permit is taken, false if the pool shut down first */
+  private boolean acquirePermit() {
+
+    while (!isShutdown) {
+      try {
+        // the timeout only bounds how late a shutdown is noticed
+        if (permits.tryAcquire(500L, TimeUnit.MILLISECONDS)) {
+          return true;
+        }
+      } catch (InterruptedException ignore) {
+      }
+    }
+    return false;
+  }
+
+  /** Stop watching for pinning. Jobs currently in progress will complete. */
+  @Override
+  public synchronized void shutdown() {
+
+    isShutdown = true;
+    if (pinningWatch != null) {
+      try {
+        pinningWatch.close();
+      } catch (IOException e) {
+        log.debug("Could not stop watching for pinning.", e);
+      }
+      pinningWatch = null;
+    }
+  }
+}
@@ -0,0 +1,40 @@
+package org.quartz.core;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+
+/**
+ * Creates the threads of a <code>{@link VirtualThreadPool}</code>. This is the version for Java
+ * releases without virtual threads, which creates platform threads; the jar carries a version for
+ * Java 21 and later under <code>META-INF/versions/21</code>, built from <code>src/main/java21
+ * </code>, which creates virtual threads and watches them for pinning.
+ */
+final class VirtualThreads {
+
+  private VirtualThreads() {}
+
+  /** @return whether the threads created are virtual threads */
+  static boolean isAvailable() {
+
+    return false;
+  }
+
+  /** @return a new, unstarted thread running the given task */
+  static Thread newThread(String name, Runnable task) {
+
+    return new Thread(task, name);
+  }
+
+  /**
+   * Count and log the times threads with the given name prefix stay pinned to their carrier thread
+   * for the given milliseconds or longer.
+   *
+   * @return what to close to stop watching, or null if pinning cannot be watched
+   */
+  static Closeable watchPinning(
+      String threadNamePrefix, long thresholdMillis, AtomicLong pinnedCount, Logger log) {
+
+    return null;
+  }
+}
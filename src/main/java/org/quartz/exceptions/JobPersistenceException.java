@@ -18,4 +18,10 @@ public class JobPersistenceException extends SchedulerException {
 
     super(msg);
   }
+
+  /** Create a <code>JobPersistenceException</code> with the given message and cause. */
+  public JobPersistenceException(String msg, Throwable cause) {
+
+    super(msg, cause);
+  }
 }
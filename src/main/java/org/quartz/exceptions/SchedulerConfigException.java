@@ -18,4 +18,10 @@ public class SchedulerConfigException extends SchedulerException {
 
     super(msg);
   }
+
+  /** Create a <code>SchedulerConfigException</code> with the given message and cause. */
+  public SchedulerConfigException(String msg, Throwable cause) {
+
+    super(msg, cause);
+  }
 }
@@ -0,0 +1,21 @@
+package org.quartz.listeners;
+
+import java.util.List;
+import org.quartz.core.Scheduler;
+import org.quartz.jobs.JobDetail;
+import org.quartz.triggers.Trigger;
+
+/**
+ * A <code>{@link SchedulerListener}</code> that is told of the jobs and triggers stored by <code>
+ * scheduleJobs</code> in a single call per batch. A listener that is not one is told of them by a
+ * <code>jobAdded</code> and <code>jobScheduled</code> call each.
+ */
+public interface BatchSchedulerListener extends SchedulerListener {
+
+  /**
+   * Called by the <code>{@link Scheduler}</code> once for a batch of jobs and triggers stored by
+   * <code>scheduleJobs</code>, in place of a <code>jobAdded</code> and <code>jobScheduled</code>
+   * call for each of them.
+   */
+  void jobsScheduled(List<JobDetail> jobDetails, List<Trigger> triggers);
+}
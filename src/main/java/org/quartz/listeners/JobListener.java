@@ -36,7 +36,7 @@ public interface JobListener {
   /**
    * Called by the <code>{@link Scheduler}</code> when a <code>{@link org.quartz.jobs.JobDetail}
    * </code> was about to be executed (an associated <code>{@link Trigger}</code> has occurred), but
-   * a <code>{@link TriggerListener}</code> vetoed it's execution.
+   * a <code>{@link TriggerListener}</code> vetoed it's execution, or a rate limit dropped it.
    *
    * @see #jobToBeExecuted(JobExecutionContext)
    */
@@ -23,6 +23,21 @@ public class ListenerManagerImpl implements ListenerManager {
     }
   }
 
+  /**
+   * Add the given <code>{@link JobListener}</code> to the <code>Scheduler</code>, and register it
+   * to receive events for Jobs
+   */
+  public void addJobListener(JobListener jobListener) {
+
+    if (jobListener.getName() == null || jobListener.getName().length() == 0) {
+      throw new IllegalArgumentException("JobListener name cannot be empty.");
+    }
+
+    synchronized (globalJobListeners) {
+      globalJobListeners.put(jobListener.getName(), jobListener);
+    }
+  }
+
   @Override
   public void addTriggerListener(TriggerListener triggerListener) {
 
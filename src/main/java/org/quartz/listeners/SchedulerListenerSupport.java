@@ -1,5 +1,6 @@
 package org.quartz.listeners;
 
+import java.util.List;
 import org.quartz.exceptions.SchedulerException;
 import org.quartz.jobs.JobDetail;
 import org.quartz.triggers.Trigger;
@@ -11,11 +12,13 @@ import org.slf4j.LoggerFactory;
  * {@link org.quartz.listeners.SchedulerListener}</code>.
  *
  * <p>The methods in this class are empty so you only need to override the subset for the <code>
- * {@link org.quartz.listeners.SchedulerListener}</code> events you care about.
+ * {@link org.quartz.listeners.SchedulerListener}</code> events you care about. A batch of jobs
+ * and triggers scheduled together is passed on to <code>jobAdded</code> and <code>jobScheduled
+ * </code> one at a time, unless <code>jobsScheduled</code> is overridden.
  *
  * @see org.quartz.listeners.SchedulerListener
  */
-public abstract class SchedulerListenerSupport implements SchedulerListener {
+public abstract class SchedulerListenerSupport implements BatchSchedulerListener {
 
   private final Logger log = LoggerFactory.getLogger(getClass());
 
@@ -37,6 +40,18 @@ public abstract class SchedulerListenerSupport implements SchedulerListener {
   @Override
   public void jobScheduled(Trigger trigger) {}
 
+  /** Calls <code>jobAdded</code> for each job of the batch, then <code>jobScheduled</code>. */
+  @Override
+  public void jobsScheduled(List<JobDetail> jobDetails, List<Trigger> triggers) {
+
+    for (JobDetail jobDetail : jobDetails) {
+      jobAdded(jobDetail);
+    }
+    for (Trigger trigger : triggers) {
+      jobScheduled(trigger);
+    }
+  }
+
   @Override
   public void jobUnscheduled(String triggerKey) {}
 
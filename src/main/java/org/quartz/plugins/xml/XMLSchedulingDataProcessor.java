@@ -30,8 +30,10 @@ import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 import org.knowm.sundial.Job;
 import org.quartz.builders.CronTriggerBuilder;
+import org.quartz.builders.JobBuilder;
 import org.quartz.builders.SimpleTriggerBuilder;
 import org.quartz.classloading.ClassLoadHelper;
+import org.quartz.core.Clock;
 import org.quartz.core.Scheduler;
 import org.quartz.exceptions.ObjectAlreadyExistsException;
 import org.quartz.exceptions.SchedulerException;
@@ -286,14 +288,18 @@ public class XMLSchedulingDataProcessor implements ErrorHandler {
       String jobDescription = getTrimmedToNullString(xpath, "description", jobDetailNode);
       String jobClassName = getTrimmedToNullString(xpath, "job-class", jobDetailNode);
       boolean isConcurrencyAllowed = getBoolean(xpath, "concurrency-allowed", jobDetailNode);
+      String bulkhead = getTrimmedToNullString(xpath, "bulkhead", jobDetailNode);
       Class<? extends Job> jobClass = classLoadHelper.loadClass(jobClassName);
 
-      JobDetail jobDetail =
+      JobBuilder jobBuilder =
           newJobBuilder(jobClass)
               .withIdentity(jobName)
               .isConcurrencyAllowed(isConcurrencyAllowed)
-              .withDescription(jobDescription)
-              .build();
+              .withDescription(jobDescription);
+      if (bulkhead != null) {
+        jobBuilder.withBulkhead(bulkhead);
+      }
+      JobDetail jobDetail = jobBuilder.build();
 
       NodeList jobDataEntries =
           (NodeList) xpath.evaluate("job-data-map/entry", jobDetailNode, XPathConstants.NODESET);
@@ -346,11 +352,12 @@ public class XMLSchedulingDataProcessor implements ErrorHandler {
       if (startTimeFutureSecsString != null) {
         triggerStartTime =
             new Date(
-                System.currentTimeMillis() + (Long.valueOf(startTimeFutureSecsString) * 1000L));
+                Clock.getClock().currentTimeMillis()
+                    + (Long.valueOf(startTimeFutureSecsString) * 1000L));
       } else {
         triggerStartTime =
             (startTimeString == null || startTimeString.length() == 0
-                ? new Date()
+                ? Clock.getClock().now()
                 : dateFormat.parse(startTimeString));
       }
       Date triggerEndTime =
@@ -552,7 +559,7 @@ public class XMLSchedulingDataProcessor implements ErrorHandler {
       logger.info("Scheduled trigger: {}", trigger);
 
       if (trigger.getStartTime() == null) {
-        trigger.setStartTime(new Date());
+        trigger.setStartTime(Clock.getClock().now());
       }
 
       Trigger dupeT = sched.getTrigger(trigger.getName());
@@ -61,6 +61,8 @@ public abstract class AbstractTrigger implements OperableTrigger {
 
   private int priority = DEFAULT_PRIORITY;
 
+  private long fireTimeSpread = -1L;
+
   /*
    * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~ Constructors.
    * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
@@ -164,6 +166,57 @@ public abstract class AbstractTrigger implements OperableTrigger {
     this.priority = priority;
   }
 
+  /**
+   * The window, in milliseconds, over which the fire times of <code>Trigger</code>s that would all
+   * fire at the same moment, such as many cron triggers firing at the top of every minute, are
+   * spread. Each <code>Trigger</code> fires late by a stable offset within the window, derived from
+   * its name.
+   *
+   * <p>If not explicitly set, the default value is <code>-1</code>, which takes the scheduler's
+   * setting, itself no spread unless configured. <code>0</code> is no spread.
+   */
+  public long getFireTimeSpread() {
+
+    return fireTimeSpread;
+  }
+
+  /**
+   * Spread the fire times of this <code>Trigger</code> over a window of the given milliseconds: it
+   * fires late by a stable offset within the window, derived from its name, so that triggers which
+   * would all fire at the same moment fire spread out over the window instead.
+   *
+   * @param fireTimeSpread the window in milliseconds, <code>0</code> for no spread, <code>-1</code>
+   *     for the scheduler's setting
+   * @exception IllegalArgumentException if fireTimeSpread is below -1.
+   * @see #getFireTimeSpread()
+   */
+  public void setFireTimeSpread(long fireTimeSpread) {
+
+    if (fireTimeSpread < -1) {
+      throw new IllegalArgumentException("Fire time spread cannot be negative, except -1.");
+    }
+    this.fireTimeSpread = fireTimeSpread;
+  }
+
+  /**
+   * Get the offset within the fire time spread by which the fire times of this <code>Trigger
+   * </code> are delayed. It is a hash of the name, so it is the same across restarts and across
+   * schedulers, and scattered for names that differ in one character only.
+   */
+  protected long getFireTimeOffset() {
+
+    if (fireTimeSpread <= 0 || name == null) {
+      return 0L;
+    }
+    int h = name.hashCode();
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    h ^= h >>> 16;
+    return (h & 0xffffffffL) % fireTimeSpread;
+  }
+
   @Override
   public int getMisfireInstruction() {
 
@@ -1144,7 +1144,7 @@ public final class CronExpression implements Serializable, Cloneable {
 
       // get second.................................................
       st = seconds.tailSet(sec);
-      if (st != null && st.size() != 0) {
+      if (st != null && !st.isEmpty()) {
         sec = st.first();
       } else {
         sec = seconds.first();
@@ -1159,7 +1159,7 @@ public final class CronExpression implements Serializable, Cloneable {
 
       // get minute.................................................
       st = minutes.tailSet(min);
-      if (st != null && st.size() != 0) {
+      if (st != null && !st.isEmpty()) {
         t = min;
         min = st.first();
       } else {
@@ -1180,7 +1180,7 @@ public final class CronExpression implements Serializable, Cloneable {
 
       // get hour...................................................
       st = hours.tailSet(hr);
-      if (st != null && st.size() != 0) {
+      if (st != null && !st.isEmpty()) {
         t = hr;
         hr = st.first();
       } else {
@@ -1294,7 +1294,7 @@ public final class CronExpression implements Serializable, Cloneable {
             day = daysOfMonth.first();
             mon++;
           }
-        } else if (st != null && st.size() != 0) {
+        } else if (st != null && !st.isEmpty()) {
           t = day;
           day = st.first();
           // make sure we don't over-run a short month, such as february
@@ -1409,7 +1409,7 @@ public final class CronExpression implements Serializable, Cloneable {
           int dow = daysOfWeek.first(); // desired
           // d-o-w
           st = daysOfWeek.tailSet(cDow);
-          if (st != null && st.size() > 0) {
+          if (st != null && !st.isEmpty()) {
             dow = st.first();
           }
 
@@ -1463,7 +1463,7 @@ public final class CronExpression implements Serializable, Cloneable {
 
       // get month...................................................
       st = months.tailSet(mon);
-      if (st != null && st.size() != 0) {
+      if (st != null && !st.isEmpty()) {
         t = mon;
         mon = st.first();
       } else {
@@ -1490,7 +1490,7 @@ public final class CronExpression implements Serializable, Cloneable {
 
       // get year...................................................
       st = years.tailSet(year);
-      if (st != null && st.size() != 0) {
+      if (st != null && !st.isEmpty()) {
         t = year;
         year = st.first();
       } else {
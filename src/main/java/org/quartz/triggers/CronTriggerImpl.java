@@ -4,6 +4,7 @@ import java.text.ParseException;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.TimeZone;
+import org.quartz.core.Clock;
 import org.quartz.core.JobExecutionContext;
 import org.quartz.core.Scheduler;
 import org.quartz.exceptions.JobExecutionException;
@@ -53,7 +54,7 @@ public class CronTriggerImpl extends AbstractTrigger implements CronTrigger {
   public CronTriggerImpl() {
 
     super();
-    setStartTime(new Date());
+    setStartTime(Clock.getClock().now());
     setTimeZone(TimeZone.getDefault());
   }
 
@@ -65,11 +66,9 @@ public class CronTriggerImpl extends AbstractTrigger implements CronTrigger {
   @Override
   public Object clone() {
 
-    CronTriggerImpl copy = (CronTriggerImpl) super.clone();
-    if (cronEx != null) {
-      copy.setCronExpression(new CronExpression(cronEx));
-    }
-    return copy;
+    // the parsed expression is never modified through a trigger (see setTimeZone), so copies share
+    // it rather than parsing it again
+    return super.clone();
   }
 
   public void setCronExpression(String cronExpression) throws ParseException {
@@ -224,7 +223,10 @@ public class CronTriggerImpl extends AbstractTrigger implements CronTrigger {
   public void setTimeZone(TimeZone timeZone) {
 
     if (cronEx != null) {
-      cronEx.setTimeZone(timeZone);
+      // copy on write, the expression may be shared with clones of this trigger
+      CronExpression copy = new CronExpression(cronEx);
+      copy.setTimeZone(timeZone);
+      cronEx = copy;
     }
     this.timeZone = timeZone;
   }
@@ -240,7 +242,7 @@ public class CronTriggerImpl extends AbstractTrigger implements CronTrigger {
   public Date getFireTimeAfter(Date afterTime) {
 
     if (afterTime == null) {
-      afterTime = new Date();
+      afterTime = Clock.getClock().now();
     }
 
     if (getStartTime().after(afterTime)) {
@@ -252,6 +254,12 @@ public class CronTriggerImpl extends AbstractTrigger implements CronTrigger {
     }
 
     Date pot = getTimeAfter(afterTime);
+    // a spread trigger fires at the cron times delayed by its offset, but not before its start
+    if (getFireTimeOffset() != 0) {
+      while (pot != null && pot.before(getStartTime())) {
+        pot = getTimeAfter(pot);
+      }
+    }
     if (getEndTime() != null && pot != null && pot.after(getEndTime())) {
       return null;
     }
@@ -269,11 +277,15 @@ public class CronTriggerImpl extends AbstractTrigger implements CronTrigger {
   public Date getFinalFireTime() {
 
     Date resultTime;
+    long offset = getFireTimeOffset();
     if (getEndTime() != null) {
-      resultTime = getTimeBefore(new Date(getEndTime().getTime() + 1000l));
+      resultTime = getTimeBefore(new Date(getEndTime().getTime() - offset + 1000l));
     } else {
       resultTime = (cronEx == null) ? null : cronEx.getFinalFireTime();
     }
+    if (resultTime != null && offset != 0) {
+      resultTime = new Date(resultTime.getTime() + offset);
+    }
 
     if ((resultTime != null) && (getStartTime() != null) && (resultTime.before(getStartTime()))) {
       return null;
@@ -328,13 +340,13 @@ public class CronTriggerImpl extends AbstractTrigger implements CronTrigger {
     }
 
     if (instr == MISFIRE_INSTRUCTION_DO_NOTHING) {
-      Date newFireTime = getFireTimeAfter(new Date());
+      Date newFireTime = getFireTimeAfter(Clock.getClock().now());
       while (newFireTime != null && cal != null && !cal.isTimeIncluded(newFireTime.getTime())) {
         newFireTime = getFireTimeAfter(newFireTime);
       }
       setNextFireTime(newFireTime);
     } else if (instr == MISFIRE_INSTRUCTION_FIRE_ONCE_NOW) {
-      setNextFireTime(new Date());
+      setNextFireTime(Clock.getClock().now());
     }
   }
 
@@ -396,9 +408,18 @@ public class CronTriggerImpl extends AbstractTrigger implements CronTrigger {
   //
   // //////////////////////////////////////////////////////////////////////////
 
+  /** Get the next cron time after the given time, delayed by the fire time offset. */
   private Date getTimeAfter(Date afterTime) {
 
-    return (cronEx == null) ? null : cronEx.getTimeAfter(afterTime);
+    if (cronEx == null) {
+      return null;
+    }
+    long offset = getFireTimeOffset();
+    if (offset == 0) {
+      return cronEx.getTimeAfter(afterTime);
+    }
+    Date time = cronEx.getTimeAfter(new Date(afterTime.getTime() - offset));
+    return time == null ? null : new Date(time.getTime() + offset);
   }
 
   /**
@@ -2,6 +2,7 @@ package org.quartz.triggers;
 
 import java.util.Date;
 import org.quartz.core.Calendar;
+import org.quartz.core.Clock;
 import org.quartz.core.JobExecutionContext;
 import org.quartz.core.Scheduler;
 import org.quartz.exceptions.JobExecutionException;
@@ -224,9 +225,9 @@ public class SimpleTriggerImpl extends AbstractTrigger implements SimpleTrigger
     }
 
     if (instr == MISFIRE_INSTRUCTION_FIRE_NOW) {
-      setNextFireTime(new Date());
+      setNextFireTime(Clock.getClock().now());
     } else if (instr == MISFIRE_INSTRUCTION_RESCHEDULE_NEXT_WITH_EXISTING_COUNT) {
-      Date newFireTime = getFireTimeAfter(new Date());
+      Date newFireTime = getFireTimeAfter(Clock.getClock().now());
       while (newFireTime != null && cal != null && !cal.isTimeIncluded(newFireTime.getTime())) {
         newFireTime = getFireTimeAfter(newFireTime);
 
@@ -243,7 +244,7 @@ public class SimpleTriggerImpl extends AbstractTrigger implements SimpleTrigger
       }
       setNextFireTime(newFireTime);
     } else if (instr == MISFIRE_INSTRUCTION_RESCHEDULE_NEXT_WITH_REMAINING_COUNT) {
-      Date newFireTime = getFireTimeAfter(new Date());
+      Date newFireTime = getFireTimeAfter(Clock.getClock().now());
       while (newFireTime != null && cal != null && !cal.isTimeIncluded(newFireTime.getTime())) {
         newFireTime = getFireTimeAfter(newFireTime);
 
@@ -265,7 +266,7 @@ public class SimpleTriggerImpl extends AbstractTrigger implements SimpleTrigger
 
       setNextFireTime(newFireTime);
     } else if (instr == MISFIRE_INSTRUCTION_RESCHEDULE_NOW_WITH_EXISTING_REPEAT_COUNT) {
-      Date newFireTime = new Date();
+      Date newFireTime = Clock.getClock().now();
       if (repeatCount != 0 && repeatCount != REPEAT_INDEFINITELY) {
         setRepeatCount(getRepeatCount() - getTimesTriggered());
         setTimesTriggered(0);
@@ -278,7 +279,7 @@ public class SimpleTriggerImpl extends AbstractTrigger implements SimpleTrigger
         setNextFireTime(newFireTime);
       }
     } else if (instr == MISFIRE_INSTRUCTION_RESCHEDULE_NOW_WITH_REMAINING_REPEAT_COUNT) {
-      Date newFireTime = new Date();
+      Date newFireTime = Clock.getClock().now();
 
       int timesMissed = computeNumTimesFiredBetween(nextFireTime, newFireTime);
 
@@ -348,7 +349,7 @@ public class SimpleTriggerImpl extends AbstractTrigger implements SimpleTrigger
   @Override
   public Date computeFirstFireTime(Calendar calendar) {
 
-    nextFireTime = getStartTime();
+    nextFireTime = getFirstFireTime();
 
     while (nextFireTime != null
         && calendar != null
@@ -436,14 +437,14 @@ public class SimpleTriggerImpl extends AbstractTrigger implements SimpleTrigger
     }
 
     if (afterTime == null) {
-      afterTime = new Date();
+      afterTime = Clock.getClock().now();
     }
 
-    if (repeatCount == 0 && afterTime.compareTo(getStartTime()) >= 0) {
+    if (repeatCount == 0 && afterTime.compareTo(getFirstFireTime()) >= 0) {
       return null;
     }
 
-    long startMillis = getStartTime().getTime();
+    long startMillis = getFirstFireTime().getTime();
     long afterMillis = afterTime.getTime();
     long endMillis = (getEndTime() == null) ? Long.MAX_VALUE : getEndTime().getTime();
 
@@ -476,13 +477,21 @@ public class SimpleTriggerImpl extends AbstractTrigger implements SimpleTrigger
    */
   private Date getFireTimeBefore(Date end) {
 
-    if (end.getTime() < getStartTime().getTime()) {
+    Date firstFireTime = getFirstFireTime();
+    if (end.getTime() < firstFireTime.getTime()) {
       return null;
     }
 
-    int numFires = computeNumTimesFiredBetween(getStartTime(), end);
+    int numFires = computeNumTimesFiredBetween(firstFireTime, end);
 
-    return new Date(getStartTime().getTime() + (numFires * repeatInterval));
+    return new Date(firstFireTime.getTime() + (numFires * repeatInterval));
+  }
+
+  /** Get the start time, delayed by the fire time offset if the trigger is spread. */
+  private Date getFirstFireTime() {
+
+    long offset = getFireTimeOffset();
+    return offset == 0 ? getStartTime() : new Date(getStartTime().getTime() + offset);
   }
 
   private int computeNumTimesFiredBetween(Date start, Date end) {
@@ -506,14 +515,14 @@ public class SimpleTriggerImpl extends AbstractTrigger implements SimpleTrigger
   public Date getFinalFireTime() {
 
     if (repeatCount == 0) {
-      return startTime;
+      return getFirstFireTime();
     }
 
     if (repeatCount == REPEAT_INDEFINITELY) {
       return (getEndTime() == null) ? null : getFireTimeBefore(getEndTime());
     }
 
-    long lastTrigger = startTime.getTime() + (repeatCount * repeatInterval);
+    long lastTrigger = getFirstFireTime().getTime() + (repeatCount * repeatInterval);
 
     if ((getEndTime() == null) || (lastTrigger < getEndTime().getTime())) {
       return new Date(lastTrigger);
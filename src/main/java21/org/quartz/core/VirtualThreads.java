@@ -0,0 +1,96 @@
+package org.quartz.core;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+
+/**
+ * Creates the threads of a <code>{@link VirtualThreadPool}</code>. This is the version for Java 21
+ * and later, which creates virtual threads, and watches them for pinning with the <code>
+ * jdk.VirtualThreadPinned</code> events of the flight recorder.
+ */
+final class VirtualThreads {
+
+  private VirtualThreads() {}
+
+  /** @return whether the threads created are virtual threads */
+  static boolean isAvailable() {
+
+    return true;
+  }
+
+  /** @return a new, unstarted thread running the given task */
+  static Thread newThread(String name, Runnable task) {
+
+    return Thread.ofVirtual().name(name).unstarted(task);
+  }
+
+  /**
+   * Count and log the times threads with the given name prefix stay pinned to their carrier thread
+   * for the given milliseconds or longer.
+   *
+   * @return what to close to stop watching, or null if pinning cannot be watched
+   */
+  static Closeable watchPinning(
+      final String threadNamePrefix,
+      long thresholdMillis,
+      final AtomicLong pinnedCount,
+      final Logger log) {
+
+    final RecordingStream recordingStream;
+    try {
+      recordingStream = new RecordingStream();
+    } catch (RuntimeException e) {
+      // the flight recorder is not available, or not permitted
+      log.warn("Cannot watch virtual threads for pinning: " + e);
+      return null;
+    }
+    recordingStream
+        .enable("jdk.VirtualThreadPinned")
+        .withThreshold(Duration.ofMillis(thresholdMillis))
+        .withStackTrace();
+    recordingStream.onEvent(
+        "jdk.VirtualThreadPinned",
+        (RecordedEvent event) -> {
+          RecordedThread thread = event.getThread();
+          String name = thread == null ? null : thread.getJavaName();
+          if (name == null || !name.startsWith(threadNamePrefix)) {
+            return;
+          }
+          pinnedCount.incrementAndGet();
+          StringBuilder frames = new StringBuilder();
+          if (event.getStackTrace() != null) {
+            for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+              frames
+                  .append("\n\tat ")
+                  .append(frame.getMethod().getType().getName())
+                  .append('.')
+                  .append(frame.getMethod().getName())
+                  .append(" line ")
+                  .append(frame.getLineNumber());
+            }
+          }
+          log.warn(
+              "Virtual thread "
+                  + name
+                  + " was pinned to its carrier thread for "
+                  + event.getDuration().toMillis()
+                  + " ms, blocking inside synchronized or native code:"
+                  + frames);
+        });
+    recordingStream.startAsync();
+    return new Closeable() {
+
+      @Override
+      public void close() {
+
+        recordingStream.close();
+      }
+    };
+  }
+}
@@ -1,9 +1,18 @@
 package org.knowm.sundial;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import org.junit.AfterClass;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.knowm.sundial.jobs.SampleJob1;
+import org.quartz.builders.CronTriggerBuilder;
+import org.quartz.builders.JobBuilder;
+import org.quartz.jobs.JobDetail;
+import org.quartz.triggers.OperableTrigger;
 
 public class SundialJobSchedulerTest {
   public SundialJobSchedulerTest() {}
@@ -29,4 +38,26 @@ public class SundialJobSchedulerTest {
     SundialJobScheduler.addJob("jobByClass", org.knowm.sundial.jobs.SampleJob1.class);
     Assert.assertTrue(SundialJobScheduler.getAllJobNames().contains("jobByClass"));
   }
+
+  @Test
+  public void shouldBeAbleToScheduleJobsInBulk() throws Exception {
+    Map<JobDetail, List<OperableTrigger>> triggersAndJobs =
+        new HashMap<JobDetail, List<OperableTrigger>>();
+    for (int j = 0; j < 3; j++) {
+      List<OperableTrigger> triggers = new ArrayList<OperableTrigger>();
+      for (int i = 0; i < 5; i++) {
+        triggers.add(
+            CronTriggerBuilder.cronTriggerBuilder("0 0/5 * * * ?")
+                .withIdentity("bulkTrigger" + j + "-" + i)
+                .build());
+      }
+      triggersAndJobs.put(
+          JobBuilder.newJobBuilder(SampleJob1.class).withIdentity("bulkJob" + j).build(),
+          triggers);
+    }
+    SundialJobScheduler.scheduleJobs(triggersAndJobs);
+    Assert.assertTrue(SundialJobScheduler.getAllJobNames().contains("bulkJob2"));
+    Assert.assertEquals(
+        5, SundialJobScheduler.getScheduler().getTriggersOfJob("bulkJob1").size());
+  }
 }
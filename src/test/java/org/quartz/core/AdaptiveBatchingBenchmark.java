@@ -0,0 +1,93 @@
+package org.quartz.core;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.quartz.builders.JobBuilder;
+import org.quartz.builders.SimpleTriggerBuilder;
+import org.quartz.jobs.Job;
+import org.quartz.jobs.JobDetail;
+import org.quartz.triggers.OperableTrigger;
+
+/**
+ * Fires a burst of triggers all due in the same millisecond, the way cron jobs come due at the top
+ * of a minute, once with one trigger per acquisition and once with adaptive batching, and measures
+ * how long it takes until the last job has run.
+ *
+ * <p>Run with <code>main</code>; arguments are optional: [triggers] [max batch size] [max batch
+ * time window].
+ */
+public class AdaptiveBatchingBenchmark {
+
+  private static final AtomicLong executions = new AtomicLong();
+
+  public static void main(String[] args) throws Exception {
+
+    int triggers = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+    int maxBatchSize = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+    long maxBatchTimeWindow = args.length > 2 ? Long.parseLong(args[2]) : 10L;
+
+    // twice, so the second round runs warmed up
+    for (int round = 0; round < 2; round++) {
+      run("one trigger per acquisition", new SchedulerFactory(), triggers);
+      SchedulerFactory schedulerFactory = new SchedulerFactory();
+      schedulerFactory.setAdaptiveBatching(maxBatchSize, maxBatchTimeWindow);
+      run("adaptive batching", schedulerFactory, triggers);
+    }
+  }
+
+  private static void run(String name, SchedulerFactory schedulerFactory, int triggers)
+      throws Exception {
+
+    ExtendedScheduler scheduler = (ExtendedScheduler) schedulerFactory.getScheduler(20);
+    long fireTime = System.currentTimeMillis() + 2000L;
+    Map<JobDetail, List<OperableTrigger>> triggersAndJobs =
+        new LinkedHashMap<JobDetail, List<OperableTrigger>>();
+    for (int j = 0; j < 100; j++) {
+      List<OperableTrigger> list = new ArrayList<OperableTrigger>();
+      for (int i = j; i < triggers; i += 100) {
+        list.add(
+            SimpleTriggerBuilder.simpleTriggerBuilder()
+                .withIdentity("trigger-" + i)
+                .forJob("job-" + j)
+                .startAt(new Date(fireTime))
+                .build());
+      }
+      triggersAndJobs.put(
+          JobBuilder.newJobBuilder(CountingJob.class)
+              .withIdentity("job-" + j)
+              .isConcurrencyAllowed(true)
+              .build(),
+          list);
+    }
+    scheduler.scheduleJobs(triggersAndJobs, false);
+    executions.set(0);
+    scheduler.start();
+
+    while (executions.get() < triggers) {
+      Thread.sleep(1);
+    }
+    long millis = System.currentTimeMillis() - fireTime;
+    System.out.println(
+        name
+            + ": "
+            + triggers
+            + " triggers due at once run in "
+            + millis
+            + " ms, "
+            + scheduler.getAcquisitionMetrics());
+    scheduler.shutdown();
+  }
+
+  public static class CountingJob implements Job {
+
+    @Override
+    public void execute(JobExecutionContext context) {
+
+      executions.incrementAndGet();
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package org.quartz.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.quartz.builders.JobBuilder;
+import org.quartz.jobs.JobDetail;
+import org.quartz.jobs.NoOpJob;
+
+public class BulkheadThreadPoolTest {
+
+  @Test
+  public void shouldStartReservedJobsWhileAnotherBulkheadIsFlooded() throws Exception {
+
+    BulkheadThreadPool threadPool = new BulkheadThreadPool(2);
+    threadPool.addBulkhead("batch", 0, 2);
+    threadPool.addBulkhead("critical", 1, 1);
+    threadPool.initialize();
+    try {
+      assertEquals(3, threadPool.getPoolSize());
+
+      CountDownLatch release = new CountDownLatch(1);
+      CountDownLatch batchDone = new CountDownLatch(10);
+      for (int i = 0; i < 10; i++) {
+        threadPool.runInThread(new WaitingShell("batch", release, batchDone));
+      }
+      assertEquals(2, threadPool.getRunningCount("batch"));
+      assertEquals(8, threadPool.getWaitingCount("batch"));
+
+      // the shared threads are all taken, but not the one reserved
+      CountDownLatch criticalDone = new CountDownLatch(1);
+      threadPool.runInThread(new WaitingShell("critical", new CountDownLatch(0), criticalDone));
+      assertTrue(criticalDone.await(5, TimeUnit.SECONDS));
+      assertEquals(8, threadPool.getWaitingCount("batch"));
+
+      release.countDown();
+      assertTrue(batchDone.await(5, TimeUnit.SECONDS));
+      assertEquals(0, threadPool.getWaitingCount("batch"));
+    } finally {
+      threadPool.shutdown();
+    }
+  }
+
+  @Test
+  public void shouldRunJobsOfNoKnownBulkheadInTheDefault() throws Exception {
+
+    BulkheadThreadPool threadPool = new BulkheadThreadPool(1);
+    threadPool.initialize();
+    try {
+      CountDownLatch release = new CountDownLatch(1);
+      CountDownLatch done = new CountDownLatch(2);
+      threadPool.runInThread(new WaitingShell(null, release, done));
+      threadPool.runInThread(new WaitingShell("unknown", release, done));
+      assertEquals(1, threadPool.getRunningCount(BulkheadThreadPool.DEFAULT_BULKHEAD));
+      assertEquals(1, threadPool.getWaitingCount(BulkheadThreadPool.DEFAULT_BULKHEAD));
+
+      release.countDown();
+      assertTrue(done.await(5, TimeUnit.SECONDS));
+    } finally {
+      threadPool.shutdown();
+    }
+  }
+
+  /** A shell of a job in the given bulkhead that waits to be released, and counts down. */
+  private static class WaitingShell extends JobRunShell {
+
+    private final JobDetail jobDetail;
+
+    private final CountDownLatch release;
+
+    private final CountDownLatch done;
+
+    WaitingShell(String bulkhead, CountDownLatch release, CountDownLatch done) {
+
+      super(null, null);
+      JobBuilder jobBuilder = JobBuilder.newJobBuilder(NoOpJob.class);
+      if (bulkhead != null) {
+        jobBuilder.withBulkhead(bulkhead);
+      }
+      this.jobDetail = jobBuilder.build();
+      this.release = release;
+      this.done = done;
+    }
+
+    @Override
+    JobDetail getJobDetail() {
+
+      return jobDetail;
+    }
+
+    @Override
+    public void run() {
+
+      try {
+        release.await();
+      } catch (InterruptedException ignore) {
+      }
+      done.countDown();
+    }
+  }
+}
@@ -0,0 +1,90 @@
+package org.quartz.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class ElasticThreadPoolTest {
+
+  @Test
+  public void shouldGrowUnderLoadAndRetireWhenIdle() throws Exception {
+
+    ElasticThreadPool threadPool = new ElasticThreadPool(1, 8);
+    threadPool.setKeepAlive(200L);
+    threadPool.initialize();
+    try {
+      assertEquals(1, threadPool.getPoolSize());
+
+      CountDownLatch done = new CountDownLatch(8);
+      for (int i = 0; i < 8; i++) {
+        threadPool.runInThread(new SleepingShell(300L, done));
+      }
+      assertTrue(done.await(10, TimeUnit.SECONDS));
+      assertEquals(8, threadPool.getLargestPoolSize());
+
+      long deadline = System.currentTimeMillis() + 5000L;
+      while (threadPool.getPoolSize() > 1 && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      assertEquals(1, threadPool.getPoolSize());
+      assertEquals(7, threadPool.getRetiredCount());
+    } finally {
+      threadPool.shutdown();
+    }
+  }
+
+  @Test
+  public void shouldTuneTheSizeByLittlesLaw() throws Exception {
+
+    ElasticThreadPool threadPool = new ElasticThreadPool(1, 50);
+    threadPool.setAutoTuning(250L);
+    threadPool.initialize();
+    try {
+      // 100 jobs a second of 50 ms each keep 5 running on average
+      CountDownLatch done = new CountDownLatch(150);
+      for (int i = 0; i < 150; i++) {
+        threadPool.runInThread(new SleepingShell(50L, done));
+        Thread.sleep(10L);
+      }
+      assertTrue(done.await(10, TimeUnit.SECONDS));
+
+      List<ElasticThreadPool.TuningDecision> decisions = threadPool.getTuningDecisions();
+      assertTrue(decisions.size() >= 3);
+      ElasticThreadPool.TuningDecision decision = decisions.get(decisions.size() - 1);
+      // with headroom, about 7; the sleeps of a busy machine run long
+      assertTrue(decision.toString(), decision.getTargetSize() >= 4);
+      assertTrue(decision.toString(), decision.getTargetSize() <= 12);
+    } finally {
+      threadPool.shutdown();
+    }
+  }
+
+  /** A shell that sleeps, and counts down when done. */
+  private static class SleepingShell extends JobRunShell {
+
+    private final long sleep;
+
+    private final CountDownLatch done;
+
+    SleepingShell(long sleep, CountDownLatch done) {
+
+      super(null, null);
+      this.sleep = sleep;
+      this.done = done;
+    }
+
+    @Override
+    public void run() {
+
+      try {
+        Thread.sleep(sleep);
+      } catch (InterruptedException ignore) {
+      }
+      done.countDown();
+    }
+  }
+}
@@ -0,0 +1,142 @@
+package org.quartz.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import org.junit.Test;
+import org.quartz.builders.CronTriggerBuilder;
+import org.quartz.builders.JobBuilder;
+import org.quartz.builders.SimpleTriggerBuilder;
+import org.quartz.jobs.Job;
+import org.quartz.triggers.AbstractTrigger;
+import org.quartz.triggers.OperableTrigger;
+import org.quartz.triggers.Trigger;
+
+public class FireTimeSpreadTest {
+
+  private static final long START = 1767225600000L; // 2026-01-01T00:00:00Z
+
+  @Test
+  public void shouldDelayCronFireTimesByAStableOffset() throws Exception {
+
+    OperableTrigger trigger = cronTrigger("trigger", 20000L);
+    OperableTrigger sameName = cronTrigger("trigger", 20000L);
+
+    long offset = trigger.computeFirstFireTime(null).getTime() - START;
+    assertTrue(offset > 0 && offset < 20000L);
+    assertEquals(START + offset, sameName.computeFirstFireTime(null).getTime());
+    Date next = trigger.getFireTimeAfter(trigger.getNextFireTime());
+    assertEquals(START + 60000L + offset, next.getTime());
+  }
+
+  @Test
+  public void shouldKeepTheFirstFireTimeOfUnspreadCronTriggers() throws Exception {
+
+    // the first cron time after a second before the start, as without a spread
+    OperableTrigger trigger =
+        CronTriggerBuilder.cronTriggerBuilder("0 * * * * ?")
+            .withIdentity("trigger")
+            .forJob("job")
+            .startAt(new Date(START + 500L))
+            .build();
+
+    assertEquals(START, trigger.computeFirstFireTime(null).getTime());
+    assertEquals(START, trigger.getFireTimeAfter(new Date(START - 300L)).getTime());
+    assertEquals(START + 60000L, trigger.getFireTimeAfter(new Date(START + 500L)).getTime());
+  }
+
+  @Test
+  public void shouldDelaySimpleFireTimesByAStableOffset() {
+
+    OperableTrigger trigger =
+        SimpleTriggerBuilder.simpleTriggerBuilder()
+            .withIdentity("trigger")
+            .forJob("job")
+            .withIntervalInMilliseconds(60000L)
+            .repeatForever()
+            .withFireTimeSpread(20000L)
+            .startAt(new Date(START))
+            .build();
+
+    Date first = trigger.computeFirstFireTime(null);
+    long offset = first.getTime() - START;
+    assertTrue(offset > 0 && offset < 20000L);
+    assertEquals(START + 60000L + offset, trigger.getFireTimeAfter(first).getTime());
+  }
+
+  @Test
+  public void shouldFlattenThePeak() throws Exception {
+
+    List<Trigger> unspread = new ArrayList<Trigger>();
+    List<Trigger> spread = new ArrayList<Trigger>();
+    for (int i = 0; i < 500; i++) {
+      unspread.add(cronTrigger("trigger-" + i, 0L));
+      spread.add(cronTrigger("trigger-" + i, 20000L));
+    }
+    Date to = new Date(START + 3600000L);
+
+    assertEquals(
+        500, FireTimeSpreadReport.getPeakConcurrentFires(unspread, new Date(START), to, 1000L));
+    // 25 a second on average
+    assertTrue(
+        FireTimeSpreadReport.getPeakConcurrentFires(spread, new Date(START), to, 1000L) < 60);
+  }
+
+  @Test
+  public void shouldApplyTheSchedulersSpread() throws Exception {
+
+    SchedulerFactory schedulerFactory = new SchedulerFactory();
+    schedulerFactory.setFireTimeSpread(20000L);
+    Scheduler scheduler = schedulerFactory.getScheduler(1);
+    try {
+      scheduler.addJob(JobBuilder.newJobBuilder(NoOpJob.class).withIdentity("job").build());
+      scheduler.scheduleJob(
+          CronTriggerBuilder.cronTriggerBuilder("0 * * * * ?")
+              .withIdentity("inherits")
+              .forJob("job")
+              .build());
+      scheduler.scheduleJob(
+          CronTriggerBuilder.cronTriggerBuilder("0 * * * * ?")
+              .withIdentity("own")
+              .forJob("job")
+              .withFireTimeSpread(5000L)
+              .build());
+      scheduler.scheduleJob(
+          CronTriggerBuilder.cronTriggerBuilder("0 * * * * ?")
+              .withIdentity("none")
+              .forJob("job")
+              .withFireTimeSpread(0L)
+              .build());
+
+      assertEquals(20000L, fireTimeSpread(scheduler.getTrigger("inherits")));
+      assertEquals(5000L, fireTimeSpread(scheduler.getTrigger("own")));
+      assertEquals(0L, fireTimeSpread(scheduler.getTrigger("none")));
+    } finally {
+      scheduler.shutdown();
+    }
+  }
+
+  private static long fireTimeSpread(Trigger trigger) {
+
+    return ((AbstractTrigger) trigger).getFireTimeSpread();
+  }
+
+  private static OperableTrigger cronTrigger(String name, long fireTimeSpread) throws Exception {
+
+    return CronTriggerBuilder.cronTriggerBuilder("0 * * * * ?")
+        .withIdentity(name)
+        .forJob("job")
+        .withFireTimeSpread(fireTimeSpread)
+        .startAt(new Date(START))
+        .build();
+  }
+
+  public static class NoOpJob implements Job {
+
+    @Override
+    public void execute(JobExecutionContext context) {}
+  }
+}
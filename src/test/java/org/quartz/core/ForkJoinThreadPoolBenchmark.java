@@ -0,0 +1,168 @@
+package org.quartz.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Measures how many CPU-bound jobs per second a <code>{@link SimpleThreadPool}</code> and a <code>
+ * {@link ForkJoinThreadPool}</code> of the same size get through, fed by a single thread as the
+ * scheduler does. Each job splits its work into chunks: on the fork/join pool it hands them to the
+ * pool, where idle workers steal them, and on the simple pool it works through them in turn, as a
+ * job with no executor of its own does. Jobs arrive in bursts of half the pool size, so the simple
+ * pool leaves threads idle that the fork/join pool puts to work.
+ *
+ * <p>Run with <code>main</code>; arguments are optional: [jobs] [threads] [chunks per job].
+ */
+public class ForkJoinThreadPoolBenchmark {
+
+  private static volatile long sink;
+
+  public static void main(String[] args) throws Exception {
+
+    int jobCount = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+    int threadCount =
+        args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+    int chunkCount = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+
+    // twice, so the second round runs warmed up
+    for (int round = 0; round < 2; round++) {
+      SimpleThreadPool simpleThreadPool = new SimpleThreadPool();
+      simpleThreadPool.setThreadCount(threadCount);
+      simpleThreadPool.setThreadNamePrefix("Simple");
+      run("SimpleThreadPool", simpleThreadPool, null, jobCount, threadCount, chunkCount);
+      ForkJoinThreadPool forkJoinThreadPool = new ForkJoinThreadPool(threadCount);
+      run(
+          "ForkJoinThreadPool",
+          forkJoinThreadPool,
+          forkJoinThreadPool,
+          jobCount,
+          threadCount,
+          chunkCount);
+      System.out.println("  steals: " + forkJoinThreadPool.getStealCount());
+    }
+  }
+
+  private static void run(
+      String name,
+      ThreadPool threadPool,
+      ForkJoinThreadPool forkJoinThreadPool,
+      int jobCount,
+      int threadCount,
+      int chunkCount)
+      throws Exception {
+
+    threadPool.initialize();
+    try {
+      int burst = Math.max(1, threadCount / 2);
+      long t0 = System.nanoTime();
+      for (int sent = 0; sent < jobCount; sent += burst) {
+        int jobs = Math.min(burst, jobCount - sent);
+        CountDownLatch done = new CountDownLatch(jobs);
+        for (int i = 0; i < jobs; i++) {
+          threadPool.blockForAvailableThreads();
+          ExecutorService executor =
+              forkJoinThreadPool == null ? null : forkJoinThreadPool.getExecutorService();
+          threadPool.runInThread(new ComputingShell(executor, chunkCount, done));
+        }
+        done.await();
+      }
+      long nanos = System.nanoTime() - t0;
+
+      System.out.println(
+          name
+              + ": "
+              + jobCount
+              + " jobs of "
+              + chunkCount
+              + " chunks on "
+              + threadCount
+              + " threads in "
+              + nanos / 1000000L
+              + " ms, "
+              + (long) (jobCount / (nanos / 1e9))
+              + " jobs/s");
+    } finally {
+      threadPool.shutdown();
+    }
+  }
+
+  /** A chunk of CPU-bound work. */
+  private static class Chunk implements Callable<Long> {
+
+    private final long seed;
+
+    Chunk(long seed) {
+
+      this.seed = seed;
+    }
+
+    @Override
+    public Long call() {
+
+      long x = seed;
+      for (int i = 0; i < 1000000; i++) {
+        x ^= x << 13;
+        x ^= x >>> 7;
+        x ^= x << 17;
+      }
+      return x;
+    }
+  }
+
+  /**
+   * A shell that works through its chunks, on the given executor if any, else in turn, and counts
+   * down when done.
+   */
+  private static class ComputingShell extends JobRunShell {
+
+    private final ExecutorService executor;
+
+    private final int chunkCount;
+
+    private final CountDownLatch done;
+
+    ComputingShell(ExecutorService executor, int chunkCount, CountDownLatch done) {
+
+      super(null, null);
+      this.executor = executor;
+      this.chunkCount = chunkCount;
+      this.done = done;
+    }
+
+    @Override
+    public String getJobName() {
+
+      // SimpleThreadPool logs the jobs still running when shut down
+      return "ComputingShell";
+    }
+
+    @Override
+    public void run() {
+
+      List<Chunk> chunks = new ArrayList<Chunk>();
+      for (int i = 0; i < chunkCount; i++) {
+        chunks.add(new Chunk(i + 1));
+      }
+      long sum = 0;
+      try {
+        if (executor == null) {
+          for (Chunk chunk : chunks) {
+            sum += chunk.call();
+          }
+        } else {
+          for (Future<Long> result : executor.invokeAll(chunks)) {
+            sum += result.get();
+          }
+        }
+      } catch (Exception e) {
+        throw new RuntimeException(e);
+      }
+      sink = sum;
+      done.countDown();
+    }
+  }
+}
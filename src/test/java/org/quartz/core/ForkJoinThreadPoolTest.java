@@ -0,0 +1,140 @@
+package org.quartz.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class ForkJoinThreadPoolTest {
+
+  @Test
+  public void shouldRunTheWorkOfAJobOnIdleWorkers() throws Exception {
+
+    ForkJoinThreadPool threadPool = new ForkJoinThreadPool(4);
+    threadPool.setThreadNamePrefix("ForkJoin");
+    threadPool.initialize();
+    try {
+      final Set<String> threadNames =
+          Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+      List<Callable<Boolean>> work = new ArrayList<Callable<Boolean>>();
+      for (int i = 0; i < 16; i++) {
+        work.add(
+            new Callable<Boolean>() {
+
+              @Override
+              public Boolean call() throws Exception {
+
+                threadNames.add(Thread.currentThread().getName());
+                Thread.sleep(20L);
+                return true;
+              }
+            });
+      }
+      CountDownLatch done = new CountDownLatch(1);
+      threadPool.runInThread(new SplittingShell(threadPool, work, done));
+      assertTrue(done.await(10, TimeUnit.SECONDS));
+
+      assertTrue(threadNames.toString(), threadNames.size() > 1);
+      for (String threadName : threadNames) {
+        assertTrue(threadName, threadName.startsWith("ForkJoin-"));
+      }
+    } finally {
+      threadPool.shutdown();
+    }
+  }
+
+  @Test
+  public void shouldKeepParallelismWhileWorkBlocks() throws Exception {
+
+    ForkJoinThreadPool threadPool = new ForkJoinThreadPool(2);
+    threadPool.initialize();
+    try {
+      // each piece of work blocks until all of them run at once, twice the parallelism
+      final CountDownLatch allRunning = new CountDownLatch(4);
+      List<Callable<Boolean>> work = new ArrayList<Callable<Boolean>>();
+      for (int i = 0; i < 4; i++) {
+        work.add(
+            new Callable<Boolean>() {
+
+              @Override
+              public Boolean call() throws Exception {
+
+                allRunning.countDown();
+                ForkJoinThreadPool.managedBlock(
+                    new ForkJoinThreadPool.Blocker() {
+
+                      @Override
+                      public boolean block() throws InterruptedException {
+
+                        allRunning.await(10, TimeUnit.SECONDS);
+                        return true;
+                      }
+
+                      @Override
+                      public boolean isReleasable() {
+
+                        return allRunning.getCount() == 0;
+                      }
+                    });
+                return allRunning.getCount() == 0;
+              }
+            });
+      }
+      CountDownLatch done = new CountDownLatch(1);
+      SplittingShell shell = new SplittingShell(threadPool, work, done);
+      threadPool.runInThread(shell);
+      assertTrue(done.await(10, TimeUnit.SECONDS));
+
+      assertEquals(4, shell.released);
+    } finally {
+      threadPool.shutdown();
+    }
+  }
+
+  /** A shell that runs its work on the pool, counts what returned true, and counts down. */
+  private static class SplittingShell extends JobRunShell {
+
+    private final ForkJoinThreadPool threadPool;
+
+    private final List<Callable<Boolean>> work;
+
+    private final CountDownLatch done;
+
+    private volatile int released = 0;
+
+    SplittingShell(
+        ForkJoinThreadPool threadPool, List<Callable<Boolean>> work, CountDownLatch done) {
+
+      super(null, null);
+      this.threadPool = threadPool;
+      this.work = work;
+      this.done = done;
+    }
+
+    @Override
+    public void run() {
+
+      try {
+        int count = 0;
+        for (Future<Boolean> result : threadPool.getExecutorService().invokeAll(work)) {
+          if (result.get()) {
+            count++;
+          }
+        }
+        released = count;
+      } catch (Exception e) {
+        throw new RuntimeException(e);
+      }
+      done.countDown();
+    }
+  }
+}
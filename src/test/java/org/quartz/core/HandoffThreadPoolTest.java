@@ -0,0 +1,69 @@
+package org.quartz.core;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.quartz.builders.JobBuilder;
+import org.quartz.builders.SimpleTriggerBuilder;
+import org.quartz.jobs.Job;
+import org.quartz.jobs.JobDetail;
+import org.quartz.triggers.OperableTrigger;
+
+public class HandoffThreadPoolTest {
+
+  private static final AtomicInteger executions = new AtomicInteger();
+
+  @Test
+  public void shouldRunTheSchedulersJobs() throws Exception {
+
+    SchedulerFactory schedulerFactory = new SchedulerFactory();
+    schedulerFactory.setThreadPool(new HandoffThreadPool(2));
+    ExtendedScheduler scheduler = (ExtendedScheduler) schedulerFactory.getScheduler(10);
+    try {
+      long start = System.currentTimeMillis() + 500L;
+      List<OperableTrigger> triggers = new ArrayList<OperableTrigger>();
+      for (int i = 0; i < 100; i++) {
+        triggers.add(
+            SimpleTriggerBuilder.simpleTriggerBuilder()
+                .withIdentity("trigger-" + i)
+                .forJob("job")
+                .startAt(new Date(start + i))
+                .build());
+      }
+      Map<JobDetail, List<OperableTrigger>> triggersAndJobs =
+          new LinkedHashMap<JobDetail, List<OperableTrigger>>();
+      triggersAndJobs.put(
+          JobBuilder.newJobBuilder(CountingJob.class)
+              .withIdentity("job")
+              .isConcurrencyAllowed(true)
+              .build(),
+          triggers);
+      executions.set(0);
+      scheduler.scheduleJobs(triggersAndJobs, false);
+      scheduler.start();
+
+      long deadline = System.currentTimeMillis() + 10000L;
+      while (executions.get() < 100 && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      assertEquals(100, executions.get());
+    } finally {
+      scheduler.shutdown();
+    }
+  }
+
+  public static class CountingJob implements Job {
+
+    @Override
+    public void execute(JobExecutionContext context) {
+
+      executions.incrementAndGet();
+    }
+  }
+}
@@ -0,0 +1,103 @@
+package org.quartz.core;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.h2.jdbcx.JdbcDataSource;
+import org.quartz.builders.JobBuilder;
+import org.quartz.builders.SimpleTriggerBuilder;
+import org.quartz.jobs.JobDetail;
+import org.quartz.triggers.OperableTrigger;
+import org.quartz.triggers.Trigger.CompletedExecutionInstruction;
+
+/**
+ * Compares the acquisition throughput of a {@link RAMJobStore} and a {@link JdbcJobStore} on an
+ * in-memory H2 database. All triggers fire within the same second; the loop acquires a batch, fires
+ * it and completes every trigger, the way the scheduler thread and the workers would, until none
+ * is left.
+ *
+ * <p>Run with <code>main</code>; arguments are optional: [triggers] [batch size].
+ */
+public class JdbcJobStoreAcquisitionBenchmark {
+
+  public static void main(String[] args) throws Exception {
+
+    int triggers = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+    int batchSize = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+
+    // twice, so the second round runs warmed up
+    for (int round = 0; round < 2; round++) {
+      RAMJobStore ramJobStore = new RAMJobStore();
+      ramJobStore.initialize(new NoOpSchedulerSignaler());
+      run("RAMJobStore", ramJobStore, triggers, batchSize);
+
+      for (boolean skipLocked : new boolean[] {true, false}) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:benchmark" + round + skipLocked + ";DB_CLOSE_DELAY=-1");
+        JdbcJobStore jdbcJobStore = new JdbcJobStore(dataSource);
+        jdbcJobStore.setSkipLocked(skipLocked);
+        jdbcJobStore.initialize(new NoOpSchedulerSignaler());
+        run(
+            "JdbcJobStore (H2, SKIP LOCKED " + (skipLocked ? "on" : "off") + ")",
+            jdbcJobStore,
+            triggers,
+            batchSize);
+        jdbcJobStore.shutdown();
+      }
+    }
+  }
+
+  private static void run(String name, BatchJobStore store, int triggers, int batchSize)
+      throws Exception {
+
+    long now = System.currentTimeMillis();
+    Map<JobDetail, List<OperableTrigger>> triggersAndJobs =
+        new LinkedHashMap<JobDetail, List<OperableTrigger>>();
+    for (int j = 0; j < 100; j++) {
+      List<OperableTrigger> list = new ArrayList<OperableTrigger>();
+      for (int i = j; i < triggers; i += 100) {
+        OperableTrigger trigger =
+            SimpleTriggerBuilder.simpleTriggerBuilder()
+                .withIdentity("trigger-" + i)
+                .forJob("job-" + j)
+                .startAt(new Date(now + 60000L + i % 1000))
+                .build();
+        trigger.computeFirstFireTime(null);
+        list.add(trigger);
+      }
+      triggersAndJobs.put(
+          JobBuilder.newJobBuilder().withIdentity("job-" + j).isConcurrencyAllowed(true).build(),
+          list);
+    }
+    store.storeJobsAndTriggers(triggersAndJobs, false);
+
+    long t0 = System.nanoTime();
+    int fired = 0;
+    while (true) {
+      List<OperableTrigger> acquired = store.acquireNextTriggers(now + 61000L, batchSize, 0L);
+      if (acquired.isEmpty()) {
+        break;
+      }
+      for (TriggerFiredResult result : store.triggersFired(acquired)) {
+        TriggerFiredBundle bundle = result.getTriggerFiredBundle();
+        store.triggeredJobComplete(
+            bundle.getTrigger(),
+            bundle.getJobDetail(),
+            CompletedExecutionInstruction.DELETE_TRIGGER);
+        fired++;
+      }
+    }
+    long nanos = System.nanoTime() - t0;
+    System.out.println(
+        name
+            + ": "
+            + fired
+            + " triggers acquired, fired and completed in "
+            + nanos / 1000000L
+            + " ms, "
+            + (long) (fired / (nanos / 1e9))
+            + " triggers/s");
+  }
+}
@@ -0,0 +1,215 @@
+package org.quartz.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Before;
+import org.junit.Test;
+import org.quartz.builders.JobBuilder;
+import org.quartz.builders.SimpleTriggerBuilder;
+import org.quartz.exceptions.ObjectAlreadyExistsException;
+import org.quartz.jobs.JobDataMap;
+import org.quartz.jobs.JobDetail;
+import org.quartz.triggers.OperableTrigger;
+import org.quartz.triggers.Trigger;
+import org.quartz.triggers.Trigger.CompletedExecutionInstruction;
+
+public class JdbcJobStoreTest {
+
+  private static final AtomicInteger databases = new AtomicInteger();
+
+  private JdbcDataSource dataSource;
+
+  private JdbcJobStore store;
+
+  @Before
+  public void setup() throws Exception {
+
+    // a new in-memory database per test, kept until the JVM exits
+    dataSource = new JdbcDataSource();
+    dataSource.setURL(
+        "jdbc:h2:mem:jdbcjobstore" + databases.incrementAndGet() + ";DB_CLOSE_DELAY=-1");
+    store = open("scheduler1", false);
+  }
+
+  private JdbcJobStore open(String instanceId, boolean skipLocked) throws Exception {
+
+    JdbcJobStore jdbcJobStore = new JdbcJobStore(dataSource);
+    jdbcJobStore.setInstanceId(instanceId);
+    jdbcJobStore.setSkipLocked(skipLocked);
+    jdbcJobStore.initialize(new NoOpSchedulerSignaler());
+    return jdbcJobStore;
+  }
+
+  private OperableTrigger newTrigger(String name, String jobName, long fireTime) {
+
+    OperableTrigger trigger =
+        SimpleTriggerBuilder.simpleTriggerBuilder()
+            .withIdentity(name)
+            .forJob(jobName)
+            .startAt(new Date(fireTime))
+            .withIntervalInMilliseconds(60000L)
+            .repeatForever()
+            .build();
+    trigger.computeFirstFireTime(null);
+    return trigger;
+  }
+
+  @Test
+  public void shouldStoreJobsAndTriggers() throws Exception {
+
+    long now = System.currentTimeMillis();
+    JobDataMap data = new JobDataMap();
+    data.put("key", "value");
+    store.storeJob(
+        JobBuilder.newJobBuilder().withIdentity("job1").usingJobData(data).build(), false);
+    store.storeTrigger(newTrigger("t1", "job1", now + 1000), false);
+    store.storeTrigger(newTrigger("t2", "job1", now + 2000), false);
+
+    assertEquals("value", store.retrieveJob("job1").getJobDataMap().get("key"));
+    assertEquals(now + 1000, store.retrieveTrigger("t1").getNextFireTime().getTime());
+    assertEquals(2, store.getTriggersForJob("job1").size());
+    assertEquals(now + 1000, store.getEarliestNextFireTime());
+    try {
+      store.storeTrigger(newTrigger("t1", "job1", now), false);
+      assertTrue(false);
+    } catch (ObjectAlreadyExistsException e) {
+      // expected
+    }
+
+    assertTrue(store.replaceTrigger("t1", newTrigger("t3", "job1", now + 3000)));
+    assertNull(store.retrieveTrigger("t1"));
+    assertNotNull(store.retrieveTrigger("t3"));
+    assertEquals(now + 2000, store.getEarliestNextFireTime());
+
+    Map<JobDetail, List<OperableTrigger>> triggersAndJobs =
+        new LinkedHashMap<JobDetail, List<OperableTrigger>>();
+    for (int j = 0; j < 3; j++) {
+      List<OperableTrigger> triggers = new ArrayList<OperableTrigger>();
+      for (int i = 0; i < 300; i++) {
+        triggers.add(newTrigger("bulk-" + j + "-" + i, "bulk-" + j, now + 5000 + i));
+      }
+      triggersAndJobs.put(JobBuilder.newJobBuilder().withIdentity("bulk-" + j).build(), triggers);
+    }
+    store.storeJobsAndTriggers(triggersAndJobs, false);
+    assertEquals(4, store.getJobKeys().size());
+    assertEquals(300, store.getTriggersForJob("bulk-2").size());
+    try {
+      store.storeJobsAndTriggers(triggersAndJobs, false);
+      assertTrue(false);
+    } catch (ObjectAlreadyExistsException e) {
+      // expected
+    }
+    store.storeJobsAndTriggers(triggersAndJobs, true);
+    assertEquals(300, store.getTriggersForJob("bulk-2").size());
+
+    assertTrue(store.removeJob("job1"));
+    assertFalse(store.removeJob("job1"));
+    assertNull(store.retrieveTrigger("t2"));
+    assertEquals(now + 5000, store.getEarliestNextFireTime());
+  }
+
+  @Test
+  public void shouldAcquireFireAndComplete() throws Exception {
+
+    long now = System.currentTimeMillis();
+    store.storeJob(
+        JobBuilder.newJobBuilder().withIdentity("job").isConcurrencyAllowed(true).build(), false);
+    for (int i = 0; i < 50; i++) {
+      store.storeTrigger(newTrigger("t" + i, "job", now + (i * 7) % 50), false);
+    }
+    store.storeTrigger(newTrigger("later", "job", now + 60000), false);
+
+    List<OperableTrigger> acquired = store.acquireNextTriggers(now + 100, 20, 0L);
+    assertEquals(20, acquired.size());
+    for (int i = 1; i < acquired.size(); i++) {
+      assertTrue(
+          new Trigger.TriggerTimeComparator().compare(acquired.get(i - 1), acquired.get(i)) <= 0);
+    }
+    assertEquals(30, store.acquireNextTriggers(now + 100, 100, 0L).size());
+    assertTrue(store.acquireNextTriggers(now + 100, 100, 0L).isEmpty());
+
+    List<TriggerFiredResult> fired = store.triggersFired(acquired);
+    assertEquals(20, fired.size());
+    TriggerFiredBundle bundle = fired.get(0).getTriggerFiredBundle();
+    assertEquals("job", bundle.getJobDetail().getName());
+    assertEquals(
+        acquired.get(0).getNextFireTime().getTime() + 60000L,
+        store.retrieveTrigger(bundle.getTrigger().getName()).getNextFireTime().getTime());
+
+    store.triggeredJobComplete(
+        bundle.getTrigger(),
+        bundle.getJobDetail(),
+        CompletedExecutionInstruction.SET_TRIGGER_COMPLETE);
+    store.triggeredJobComplete(
+        fired.get(1).getTriggerFiredBundle().getTrigger(),
+        bundle.getJobDetail(),
+        CompletedExecutionInstruction.DELETE_TRIGGER);
+    // completions are written at the latest with the next acquisition
+    assertTrue(store.acquireNextTriggers(now + 100, 100, 0L).isEmpty());
+    assertNull(store.retrieveTrigger(fired.get(1).getTriggerFiredBundle().getTrigger().getName()));
+    assertEquals(19, store.acquireNextTriggers(now + 70000, 100, 0L).size());
+  }
+
+  @Test
+  public void shouldBlockNonConcurrentJobs() throws Exception {
+
+    long now = System.currentTimeMillis();
+    store.storeJob(
+        JobBuilder.newJobBuilder().withIdentity("job").isConcurrencyAllowed(false).build(), false);
+    store.storeTrigger(newTrigger("t1", "job", now), false);
+    store.storeTrigger(newTrigger("t2", "job", now + 10), false);
+
+    List<OperableTrigger> acquired = store.acquireNextTriggers(now, 1, 0L);
+    TriggerFiredBundle bundle = store.triggersFired(acquired).get(0).getTriggerFiredBundle();
+    assertEquals(Long.MAX_VALUE, store.getEarliestNextFireTime());
+    assertTrue(store.acquireNextTriggers(now + 1000, 10, 0L).isEmpty());
+
+    // a trigger stored while the job runs is blocked as well
+    store.storeTrigger(newTrigger("t3", "job", now + 5), false);
+    assertEquals(Long.MAX_VALUE, store.getEarliestNextFireTime());
+
+    store.triggeredJobComplete(
+        bundle.getTrigger(), bundle.getJobDetail(), CompletedExecutionInstruction.NOOP);
+    assertEquals(now + 5, store.getEarliestNextFireTime());
+  }
+
+  @Test
+  public void shouldShareTheTablesBetweenSchedulers() throws Exception {
+
+    long now = System.currentTimeMillis();
+    store.storeJob(JobBuilder.newJobBuilder().withIdentity("job").build(), false);
+    for (int i = 0; i < 100; i++) {
+      store.storeTrigger(newTrigger("t" + i, "job", now + i), false);
+    }
+    // one claims with SKIP LOCKED, the other by its conditional updates only
+    JdbcJobStore other = open("scheduler2", true);
+
+    Set<String> names = new HashSet<String>();
+    for (int round = 0; round < 10; round++) {
+      for (JdbcJobStore jobStore : new JdbcJobStore[] {store, other}) {
+        for (OperableTrigger trigger : jobStore.acquireNextTriggers(now + 100, 7, 0L)) {
+          assertTrue(names.add(trigger.getName()));
+        }
+      }
+    }
+    assertEquals(100, names.size());
+
+    // a scheduler coming back under the same name gets its acquired triggers back
+    assertEquals(Long.MAX_VALUE, store.getEarliestNextFireTime());
+    open("scheduler2", true);
+    assertTrue(store.getEarliestNextFireTime() < Long.MAX_VALUE);
+  }
+}
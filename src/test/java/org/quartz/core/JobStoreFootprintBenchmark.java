@@ -0,0 +1,103 @@
+package org.quartz.core;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Date;
+import org.quartz.builders.CronTriggerBuilder;
+import org.quartz.builders.JobBuilder;
+import org.quartz.builders.SimpleTriggerBuilder;
+import org.quartz.jobs.JobDataMap;
+import org.quartz.triggers.OperableTrigger;
+
+/**
+ * Reports the bytes per stored trigger of a {@link RAMJobStore} and of an {@link OffHeapJobStore},
+ * on the heap (used heap after a full GC) and off it (direct memory of the store). Half of the
+ * triggers are repeating simple triggers and half are cron triggers over 60 expressions; each
+ * carries a small <code>JobDataMap</code>.
+ *
+ * <p>Run with <code>main</code>, with a heap of a few GB; arguments are optional: [triggers].
+ */
+public class JobStoreFootprintBenchmark {
+
+  public static void main(String[] args) throws Exception {
+
+    int triggers = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+
+    long baseline = usedHeap();
+    RAMJobStore ramJobStore = new RAMJobStore();
+    ramJobStore.initialize(new NoOpSchedulerSignaler());
+    fill(ramJobStore, triggers);
+    report("RAMJobStore", triggers, usedHeap() - baseline, 0L);
+    ramJobStore = null;
+
+    baseline = usedHeap();
+    OffHeapJobStore offHeapJobStore = new OffHeapJobStore();
+    offHeapJobStore.initialize(new NoOpSchedulerSignaler());
+    fill(offHeapJobStore, triggers);
+    report(
+        "OffHeapJobStore",
+        triggers,
+        usedHeap() - baseline,
+        offHeapJobStore.getOffHeapSize());
+    offHeapJobStore.shutdown();
+  }
+
+  private static void fill(JobStore store, int triggers) throws Exception {
+
+    store.storeJob(
+        JobBuilder.newJobBuilder().withIdentity("job").isConcurrencyAllowed(true).build(), false);
+
+    OperableTrigger[] cronPrototypes = new OperableTrigger[60];
+    for (int m = 0; m < cronPrototypes.length; m++) {
+      cronPrototypes[m] =
+          CronTriggerBuilder.cronTriggerBuilder("0 " + m + " * * * ?")
+              .withIdentity("prototype")
+              .forJob("job")
+              .build();
+    }
+    Date start = new Date();
+    for (int i = 0; i < triggers; i++) {
+      JobDataMap data = new JobDataMap();
+      data.put("tenant", "tenant-" + (i % 1000));
+      data.put("shard", i);
+      OperableTrigger trigger;
+      if (i % 2 == 0) {
+        trigger =
+            SimpleTriggerBuilder.simpleTriggerBuilder()
+                .withIdentity("trigger-" + i)
+                .forJob("job")
+                .startAt(new Date(start.getTime() + i))
+                .withIntervalInMilliseconds(3600000L)
+                .repeatForever()
+                .usingJobData(data)
+                .build();
+      } else {
+        trigger = (OperableTrigger) cronPrototypes[i % 60].clone();
+        trigger.setName("trigger-" + i);
+        trigger.setJobDataMap(data);
+      }
+      trigger.computeFirstFireTime(null);
+      store.storeTrigger(trigger, false);
+    }
+  }
+
+  private static long usedHeap() {
+
+    MemoryMXBean memoryMXBean = ManagementFactory.getMemoryMXBean();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return memoryMXBean.getHeapMemoryUsage().getUsed();
+  }
+
+  private static void report(String store, int triggers, long heapBytes, long offHeapBytes) {
+
+    System.out.println(
+        store
+            + ": "
+            + heapBytes / triggers
+            + " bytes per trigger on the heap, "
+            + offHeapBytes / triggers
+            + " off the heap");
+  }
+}
@@ -0,0 +1,113 @@
+package org.quartz.core;
+
+import java.io.File;
+import org.quartz.builders.CronTriggerBuilder;
+import org.quartz.builders.JobBuilder;
+import org.quartz.triggers.OperableTrigger;
+
+/**
+ * Measures the cold start of a {@link JournalingJobStore} holding 1M cron triggers: once from a
+ * clean shutdown (snapshot only) and once after a crash (snapshot plus a journal tail of 10% more
+ * triggers).
+ *
+ * <p>Run with <code>main</code>, with a heap of a few GB; arguments are optional: [triggers]
+ * [directory].
+ */
+public class JournalingJobStoreRecoveryBenchmark {
+
+  public static void main(String[] args) throws Exception {
+
+    int triggers = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+    File directory =
+        args.length > 1
+            ? new File(args[1])
+            : new File(System.getProperty("java.io.tmpdir"), "journaling-job-store-benchmark");
+    deleteFiles(directory);
+
+    JournalingJobStore store = open(directory);
+    store.setSynchronousCommit(false);
+    long t0 = System.nanoTime();
+    store.storeJob(
+        JobBuilder.newJobBuilder().withIdentity("job").isConcurrencyAllowed(true).build(), false);
+    addTriggers(store, 0, triggers);
+    report("bootstrap of " + triggers + " cron triggers", t0);
+
+    t0 = System.nanoTime();
+    store.shutdown();
+    report("shutdown with compaction, " + size(directory) / (1024 * 1024) + " MB on disk", t0);
+
+    t0 = System.nanoTime();
+    store = open(directory);
+    report("cold start from the snapshot", t0);
+
+    // keep the abandoned store from compacting while the next one starts up
+    store.setCompactionThreshold(Long.MAX_VALUE);
+    addTriggers(store, triggers, triggers + triggers / 10);
+    // a synchronous commit also waits for all earlier records to be on disk
+    store.setSynchronousCommit(true);
+    store.storeJob(
+        JobBuilder.newJobBuilder().withIdentity("job").isConcurrencyAllowed(true).build(), true);
+    // no shutdown: the journal tail is replayed on the next start
+    t0 = System.nanoTime();
+    store = open(directory);
+    report(
+        "cold start after a crash, "
+            + store.getTriggersForJob("job").size()
+            + " triggers with "
+            + triggers / 10
+            + " replayed",
+        t0);
+    store.shutdown();
+    deleteFiles(directory);
+  }
+
+  private static JournalingJobStore open(File directory) throws Exception {
+
+    JournalingJobStore store = new JournalingJobStore(directory);
+    store.initialize(new NoOpSchedulerSignaler());
+    return store;
+  }
+
+  private static void addTriggers(JournalingJobStore store, int from, int to) throws Exception {
+
+    // parsing a cron expression dominates building a trigger, so copy one of 60 parsed ones
+    OperableTrigger[] prototypes = new OperableTrigger[60];
+    for (int m = 0; m < prototypes.length; m++) {
+      prototypes[m] =
+          CronTriggerBuilder.cronTriggerBuilder("0 " + m + " * * * ?")
+              .withIdentity("prototype")
+              .forJob("job")
+              .build();
+      prototypes[m].computeFirstFireTime(null);
+    }
+    for (int i = from; i < to; i++) {
+      OperableTrigger trigger = (OperableTrigger) prototypes[i % 60].clone();
+      trigger.setName("trigger-" + i);
+      store.storeTrigger(trigger, false);
+    }
+  }
+
+  private static void report(String what, long t0) {
+
+    System.out.println(what + ": " + (System.nanoTime() - t0) / 1000000L + " ms");
+  }
+
+  private static long size(File directory) {
+
+    long size = 0L;
+    for (File file : directory.listFiles()) {
+      size += file.length();
+    }
+    return size;
+  }
+
+  private static void deleteFiles(File directory) {
+
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+  }
+}
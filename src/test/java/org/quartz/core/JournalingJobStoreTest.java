@@ -0,0 +1,198 @@
+package org.quartz.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Date;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.quartz.builders.JobBuilder;
+import org.quartz.builders.SimpleTriggerBuilder;
+import org.quartz.exceptions.JobPersistenceException;
+import org.quartz.exceptions.ObjectAlreadyExistsException;
+import org.quartz.jobs.JobDataMap;
+import org.quartz.triggers.OperableTrigger;
+import org.quartz.triggers.Trigger.CompletedExecutionInstruction;
+
+public class JournalingJobStoreTest {
+
+  private File directory;
+
+  @Before
+  public void setup() throws IOException {
+
+    directory = File.createTempFile("journaling-job-store", "");
+    directory.delete();
+  }
+
+  @After
+  public void cleanup() {
+
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    directory.delete();
+  }
+
+  private JournalingJobStore open() throws Exception {
+
+    JournalingJobStore store = new JournalingJobStore(directory);
+    store.initialize(new NoOpSchedulerSignaler());
+    return store;
+  }
+
+  private OperableTrigger newTrigger(String name, String jobName, long fireTime) {
+
+    OperableTrigger trigger =
+        SimpleTriggerBuilder.simpleTriggerBuilder()
+            .withIdentity(name)
+            .forJob(jobName)
+            .startAt(new Date(fireTime))
+            .withIntervalInMilliseconds(60000L)
+            .repeatForever()
+            .build();
+    trigger.computeFirstFireTime(null);
+    return trigger;
+  }
+
+  /** Fill a store and leave it without shutting it down, as in a crash. */
+  private void populate(long now) throws Exception {
+
+    JournalingJobStore store = open();
+    JobDataMap data = new JobDataMap();
+    data.put("key", "value");
+    store.storeJob(
+        JobBuilder.newJobBuilder()
+            .withIdentity("job")
+            .isConcurrencyAllowed(true)
+            .usingJobData(data)
+            .build(),
+        false);
+    store.storeJob(JobBuilder.newJobBuilder().withIdentity("doomed").build(), false);
+    store.storeTrigger(newTrigger("fired", "job", now - 1000), false);
+    store.storeTrigger(newTrigger("removed", "job", now), false);
+    store.storeTrigger(newTrigger("completed", "job", now + 5000), false);
+    store.storeTrigger(newTrigger("orphan", "doomed", now), false);
+
+    List<OperableTrigger> acquired = store.acquireNextTriggers(now, 1, 0L);
+    assertEquals("fired", acquired.get(0).getName());
+    store.triggersFired(acquired);
+    store.removeTrigger("removed");
+    store.removeJob("doomed");
+    OperableTrigger completed = store.retrieveTrigger("completed");
+    store.triggeredJobComplete(
+        completed,
+        store.retrieveJob("job"),
+        CompletedExecutionInstruction.SET_TRIGGER_COMPLETE);
+  }
+
+  private void assertRecovered(JournalingJobStore store, long now) {
+
+    assertEquals(1, store.getJobKeys().size());
+    assertEquals("value", store.retrieveJob("job").getJobDataMap().get("key"));
+    assertNull(store.retrieveTrigger("removed"));
+    assertNull(store.retrieveTrigger("orphan"));
+
+    OperableTrigger fired = store.retrieveTrigger("fired");
+    assertEquals(now - 1000, fired.getPreviousFireTime().getTime());
+    assertEquals(now + 59000, fired.getNextFireTime().getTime());
+
+    // the completed trigger is kept, but never acquired
+    assertNotNull(store.retrieveTrigger("completed"));
+    assertEquals(now + 59000, store.getEarliestNextFireTime());
+  }
+
+  @Test
+  public void shouldReplayTheJournal() throws Exception {
+
+    long now = System.currentTimeMillis();
+    populate(now);
+
+    JournalingJobStore store = open();
+    assertRecovered(store, now);
+    store.shutdown();
+  }
+
+  @Test
+  public void shouldLoadTheSnapshot() throws Exception {
+
+    long now = System.currentTimeMillis();
+    populate(now);
+    open().shutdown();
+    assertTrue(new File(directory, "snapshot.bin").exists());
+
+    JournalingJobStore store = open();
+    assertRecovered(store, now);
+    store.storeTrigger(newTrigger("late", "job", now + 500), false);
+    store.shutdown();
+
+    store = open();
+    assertNotNull(store.retrieveTrigger("late"));
+    assertEquals(now + 500, store.getEarliestNextFireTime());
+    store.shutdown();
+  }
+
+  @Test
+  public void shouldIgnoreATornRecord() throws Exception {
+
+    long now = System.currentTimeMillis();
+    populate(now);
+
+    // append half a record, as left by a crash during a write
+    File journal = JobStoreJournal.file(directory, JobStoreJournal.generations(directory).get(0));
+    RandomAccessFile raf = new RandomAccessFile(journal, "rw");
+    raf.seek(raf.length());
+    raf.writeInt(100);
+    raf.write(new byte[10]);
+    raf.close();
+
+    JournalingJobStore store = open();
+    assertRecovered(store, now);
+    store.shutdown();
+  }
+
+  @Test
+  public void shouldNotApplyChangesTheJournalRejects() throws Exception {
+
+    long now = System.currentTimeMillis();
+    JournalingJobStore store = open();
+    store.storeJob(JobBuilder.newJobBuilder().withIdentity("job").build(), false);
+    store.storeTrigger(newTrigger("kept", "job", now), false);
+    try {
+      store.storeJob(JobBuilder.newJobBuilder().withIdentity("job").build(), false);
+      fail("the job exists");
+    } catch (ObjectAlreadyExistsException expected) {
+    }
+    // closes the journal
+    store.shutdown();
+
+    try {
+      store.storeTrigger(newTrigger("lost", "job", now), false);
+      fail("the journal is closed");
+    } catch (JobPersistenceException expected) {
+    }
+    try {
+      store.removeTrigger("kept");
+      fail("the journal is closed");
+    } catch (JobPersistenceException expected) {
+    }
+    assertNull(store.retrieveTrigger("lost"));
+    assertNotNull(store.retrieveTrigger("kept"));
+
+    store = open();
+    assertEquals(1, store.getJobKeys().size());
+    assertNotNull(store.retrieveTrigger("kept"));
+    store.shutdown();
+  }
+}
@@ -0,0 +1,19 @@
+package org.quartz.core;
+
+import org.quartz.triggers.Trigger;
+
+/** A <code>SchedulerSignaler</code> for exercising job stores without a scheduler. */
+public class NoOpSchedulerSignaler implements SchedulerSignaler {
+
+  @Override
+  public void notifyTriggerListenersMisfired(Trigger trigger) {}
+
+  @Override
+  public void notifySchedulerListenersFinalized(Trigger trigger) {}
+
+  @Override
+  public void notifySchedulerListenersJobDeleted(String jobKey) {}
+
+  @Override
+  public void signalSchedulingChange(long candidateNewNextFireTime) {}
+}
@@ -0,0 +1,78 @@
+package org.quartz.core;
+
+import java.util.Date;
+import java.util.List;
+import org.quartz.builders.JobBuilder;
+import org.quartz.builders.SimpleTriggerBuilder;
+import org.quartz.triggers.OperableTrigger;
+import org.quartz.triggers.Trigger.CompletedExecutionInstruction;
+
+/**
+ * Measures the acquire, fire and complete cycle of a {@link RAMJobStore} holding jobs that do not
+ * allow concurrent execution, each with many triggers, so every fired trigger blocks its job and
+ * every completion unblocks it again. The triggers of a job are spread over time, so some of them
+ * come due while their job is blocked.
+ *
+ * <p>Run with <code>main</code>; arguments are optional: [jobs] [triggersPerJob] [fires].
+ */
+public class NonConcurrentJobsBenchmark {
+
+  public static void main(String[] args) throws Exception {
+
+    int jobs = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+    int triggersPerJob = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+    int fires = args.length > 2 ? Integer.parseInt(args[2]) : 1000000;
+
+    RAMJobStore store = new RAMJobStore();
+    store.initialize(new NoOpSchedulerSignaler());
+
+    // far enough ahead that nothing misfires, and fired with noLaterThan ahead of all of them
+    long start = System.currentTimeMillis() + 3600000L;
+    for (int j = 0; j < jobs; j++) {
+      store.storeJob(
+          JobBuilder.newJobBuilder().withIdentity("job-" + j).isConcurrencyAllowed(false).build(),
+          false);
+      for (int t = 0; t < triggersPerJob; t++) {
+        OperableTrigger trigger =
+            SimpleTriggerBuilder.simpleTriggerBuilder()
+                .withIdentity("trigger-" + j + "-" + t)
+                .forJob("job-" + j)
+                .startAt(new Date(start + t * 1000L + j))
+                .withIntervalInMilliseconds(60000L)
+                .repeatForever()
+                .build();
+        trigger.computeFirstFireTime(null);
+        store.storeTrigger(trigger, false);
+      }
+    }
+    System.out.println(
+        "RAMJobStore with "
+            + jobs
+            + " non-concurrent jobs of "
+            + triggersPerJob
+            + " triggers each");
+
+    // twice, so the second round runs warmed up
+    for (int round = 0; round < 2; round++) {
+      long t0 = System.nanoTime();
+      int fired = 0;
+      while (fired < fires) {
+        List<OperableTrigger> acquired = store.acquireNextTriggers(Long.MAX_VALUE / 2, 10, 0L);
+        for (TriggerFiredResult result : store.triggersFired(acquired)) {
+          TriggerFiredBundle bundle = result.getTriggerFiredBundle();
+          store.triggeredJobComplete(
+              bundle.getTrigger(), bundle.getJobDetail(), CompletedExecutionInstruction.NOOP);
+          fired++;
+        }
+      }
+      long nanos = System.nanoTime() - t0;
+      System.out.println(
+          fired
+              + " triggers acquired, fired and completed in "
+              + nanos / 1000000L
+              + " ms, "
+              + (long) (fired / (nanos / 1e9))
+              + " triggers/s");
+    }
+  }
+}
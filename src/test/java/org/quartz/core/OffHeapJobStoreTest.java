@@ -0,0 +1,249 @@
+package org.quartz.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Date;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.quartz.builders.CronTriggerBuilder;
+import org.quartz.builders.JobBuilder;
+import org.quartz.builders.SimpleTriggerBuilder;
+import org.quartz.jobs.JobDataMap;
+import org.quartz.triggers.AbstractTrigger;
+import org.quartz.triggers.CronTrigger;
+import org.quartz.triggers.OperableTrigger;
+import org.quartz.triggers.SimpleTrigger;
+import org.quartz.triggers.Trigger;
+import org.quartz.triggers.Trigger.CompletedExecutionInstruction;
+
+public class OffHeapJobStoreTest {
+
+  private OffHeapJobStore store;
+
+  @Before
+  public void setup() {
+
+    store = new OffHeapJobStore();
+    store.initialize(new NoOpSchedulerSignaler());
+  }
+
+  private OperableTrigger newTrigger(String name, String jobName, long fireTime) {
+
+    OperableTrigger trigger =
+        SimpleTriggerBuilder.simpleTriggerBuilder()
+            .withIdentity(name)
+            .forJob(jobName)
+            .startAt(new Date(fireTime))
+            .build();
+    trigger.computeFirstFireTime(null);
+    return trigger;
+  }
+
+  /** @return a trigger name, every seventh one too long to be kept in the trigger's record */
+  private static String name(int i) {
+
+    return (i % 7 == 0 ? "a-trigger-with-a-name-too-long-to-fit-into-its-record-" : "t") + i;
+  }
+
+  @Test
+  public void shouldIndexTriggersByJob() throws Exception {
+
+    long now = System.currentTimeMillis();
+    store.storeJob(JobBuilder.newJobBuilder().withIdentity("job1").build(), false);
+    store.storeJob(JobBuilder.newJobBuilder().withIdentity("job2").build(), false);
+    store.storeTrigger(newTrigger("t1", "job1", now + 1000), false);
+    store.storeTrigger(newTrigger("t2", "job1", now + 2000), false);
+    store.storeTrigger(newTrigger("t3", "job2", now + 3000), false);
+
+    assertEquals(2, store.getTriggersForJob("job1").size());
+    assertEquals(1, store.getTriggersForJob("job2").size());
+    assertEquals(now + 1000, store.getEarliestNextFireTime());
+
+    assertTrue(store.removeTrigger("t1"));
+    assertFalse(store.removeTrigger("t1"));
+    List<Trigger> job1Triggers = store.getTriggersForJob("job1");
+    assertEquals(1, job1Triggers.size());
+    assertEquals("t2", job1Triggers.get(0).getName());
+    assertEquals(now + 2000, store.getEarliestNextFireTime());
+
+    assertTrue(store.replaceTrigger("t2", newTrigger("t4", "job1", now + 500)));
+    assertNull(store.retrieveTrigger("t2"));
+    assertNotNull(store.retrieveTrigger("t4"));
+    assertEquals(1, store.getTriggersForJob("job1").size());
+    assertEquals(now + 500, store.getEarliestNextFireTime());
+
+    assertTrue(store.removeJob("job1"));
+    assertTrue(store.getTriggersForJob("job1").isEmpty());
+    assertNull(store.retrieveTrigger("t4"));
+    assertEquals(now + 3000, store.getEarliestNextFireTime());
+  }
+
+  @Test
+  public void shouldAcquireInFiringOrder() throws Exception {
+
+    long now = System.currentTimeMillis();
+    store.storeJob(JobBuilder.newJobBuilder().withIdentity("job").build(), false);
+    for (int i = 0; i < 3000; i++) {
+      // a few thousand triggers, so the heap and the name table grow
+      store.storeTrigger(newTrigger(name(i), "job", now + 1000 + (i * 7919) % 3000), false);
+    }
+    for (int i = 0; i < 3000; i += 3) {
+      assertTrue(store.removeTrigger(name(i)));
+    }
+
+    List<OperableTrigger> acquired = store.acquireNextTriggers(now + 5000, 5000, 0L);
+    assertEquals(2000, acquired.size());
+    for (int i = 1; i < acquired.size(); i++) {
+      assertTrue(
+          new Trigger.TriggerTimeComparator().compare(acquired.get(i - 1), acquired.get(i)) < 0);
+    }
+    assertEquals(Long.MAX_VALUE, store.getEarliestNextFireTime());
+
+    store.releaseAcquiredTrigger(acquired.get(1));
+    assertEquals(acquired.get(1).getNextFireTime().getTime(), store.getEarliestNextFireTime());
+  }
+
+  @Test
+  public void shouldRestoreTriggersFromTheirRecords() throws Exception {
+
+    long now = System.currentTimeMillis();
+    store.storeJob(JobBuilder.newJobBuilder().withIdentity("job").build(), false);
+
+    JobDataMap data = new JobDataMap();
+    data.put("string", "value");
+    data.put("int", 42);
+    data.put("date", new Date(now));
+    OperableTrigger cron =
+        CronTriggerBuilder.cronTriggerBuilder("0 0 12 * * ?")
+            .withIdentity("cron")
+            .forJob("job")
+            .withPriority(7)
+            .usingJobData(data)
+            .build();
+    cron.setDescription("noon");
+    cron.computeFirstFireTime(null);
+    store.storeTrigger(cron, false);
+
+    CronTrigger restored = (CronTrigger) store.retrieveTrigger("cron");
+    assertEquals("0 0 12 * * ?", restored.getCronExpression());
+    assertEquals(cron.getNextFireTime(), restored.getNextFireTime());
+    assertEquals(7, restored.getPriority());
+    assertEquals("noon", restored.getDescription());
+    assertEquals("job", restored.getJobName());
+    assertEquals(data, restored.getJobDataMap());
+
+    OperableTrigger simple =
+        SimpleTriggerBuilder.simpleTriggerBuilder()
+            .withIdentity("simple")
+            .forJob("job")
+            .startAt(new Date(now - 10))
+            .withIntervalInMilliseconds(60000L)
+            .withRepeatCount(5)
+            .build();
+    simple.computeFirstFireTime(null);
+    store.storeTrigger(simple, false);
+
+    List<OperableTrigger> acquired = store.acquireNextTriggers(now, 10, 0L);
+    assertEquals(1, acquired.size());
+    TriggerFiredBundle bundle = store.triggersFired(acquired).get(0).getTriggerFiredBundle();
+    assertEquals("job", bundle.getJobDetail().getName());
+    SimpleTrigger fired = (SimpleTrigger) store.retrieveTrigger("simple");
+    assertEquals(1, fired.getTimesTriggered());
+    assertEquals(5, fired.getRepeatCount());
+    assertEquals(now - 10, fired.getPreviousFireTime().getTime());
+    assertEquals(now - 10 + 60000L, fired.getNextFireTime().getTime());
+
+    store.triggeredJobComplete(
+        bundle.getTrigger(),
+        bundle.getJobDetail(),
+        CompletedExecutionInstruction.SET_TRIGGER_COMPLETE);
+    assertEquals(cron.getNextFireTime().getTime(), store.getEarliestNextFireTime());
+  }
+
+  @Test
+  public void shouldKeepTheFireTimeSpreadOfFiredTriggers() throws Exception {
+
+    // a whole minute ahead, so that no fire is a misfire
+    long start = (System.currentTimeMillis() / 60000L + 60L) * 60000L;
+    store.storeJob(JobBuilder.newJobBuilder().withIdentity("job").build(), false);
+    OperableTrigger trigger =
+        CronTriggerBuilder.cronTriggerBuilder("0 * * * * ?")
+            .withIdentity("spread")
+            .forJob("job")
+            .withFireTimeSpread(20000L)
+            .startAt(new Date(start))
+            .build();
+    long offset = trigger.computeFirstFireTime(null).getTime() - start;
+    assertTrue(offset > 0 && offset < 20000L);
+    store.storeTrigger(trigger, false);
+
+    // each fire computes the next fire time from the trigger restored from its record
+    for (int i = 0; i < 2; i++) {
+      long fireTime = start + i * 60000L + offset;
+      List<OperableTrigger> acquired = store.acquireNextTriggers(fireTime, 1, 0L);
+      assertEquals(1, acquired.size());
+      assertEquals(20000L, ((AbstractTrigger) acquired.get(0)).getFireTimeSpread());
+      TriggerFiredBundle bundle = store.triggersFired(acquired).get(0).getTriggerFiredBundle();
+      assertEquals(fireTime, bundle.getScheduledFireTime().getTime());
+      assertEquals(fireTime + 60000L, bundle.getNextFireTime().getTime());
+      store.triggeredJobComplete(
+          bundle.getTrigger(), bundle.getJobDetail(), CompletedExecutionInstruction.NOOP);
+    }
+    assertEquals(20000L, ((AbstractTrigger) store.retrieveTrigger("spread")).getFireTimeSpread());
+    assertEquals(start + 120000L + offset, store.getEarliestNextFireTime());
+  }
+
+  @Test
+  public void shouldBlockNonConcurrentJobs() throws Exception {
+
+    long now = System.currentTimeMillis();
+    store.storeJob(
+        JobBuilder.newJobBuilder().withIdentity("job").isConcurrencyAllowed(false).build(), false);
+    store.storeTrigger(newTrigger("t1", "job", now), false);
+    store.storeTrigger(newTrigger("t2", "job", now + 10), false);
+    store.storeTrigger(newTrigger("t3", "job", now + 20), false);
+
+    List<OperableTrigger> acquired = store.acquireNextTriggers(now, 1, 0L);
+    TriggerFiredBundle bundle = store.triggersFired(acquired).get(0).getTriggerFiredBundle();
+
+    // the other triggers come due while the job runs and are set aside
+    assertTrue(store.acquireNextTriggers(now + 1000, 10, 0L).isEmpty());
+    assertEquals(Long.MAX_VALUE, store.getEarliestNextFireTime());
+    assertTrue(store.removeTrigger("t3"));
+
+    store.triggeredJobComplete(
+        bundle.getTrigger(), bundle.getJobDetail(), CompletedExecutionInstruction.NOOP);
+    assertEquals(now + 10, store.getEarliestNextFireTime());
+    acquired = store.acquireNextTriggers(now + 1000, 10, 0L);
+    assertEquals(1, acquired.size());
+    assertEquals("t2", acquired.get(0).getName());
+  }
+
+  @Test
+  public void shouldFireOneTriggerOfANonConcurrentJobPerBatch() throws Exception {
+
+    long now = System.currentTimeMillis();
+    store.storeJob(
+        JobBuilder.newJobBuilder().withIdentity("job").isConcurrencyAllowed(false).build(), false);
+    store.storeTrigger(newTrigger("t1", "job", now), false);
+    store.storeTrigger(newTrigger("t2", "job", now + 10), false);
+
+    List<OperableTrigger> acquired = store.acquireNextTriggers(now + 1000, 10, 0L);
+    assertEquals(2, acquired.size());
+    List<TriggerFiredResult> fired = store.triggersFired(acquired);
+    assertEquals(1, fired.size());
+    TriggerFiredBundle bundle = fired.get(0).getTriggerFiredBundle();
+    assertEquals("t1", bundle.getTrigger().getName());
+
+    store.triggeredJobComplete(
+        bundle.getTrigger(), bundle.getJobDetail(), CompletedExecutionInstruction.NOOP);
+    acquired = store.acquireNextTriggers(now + 1000, 10, 0L);
+    assertEquals(1, acquired.size());
+    assertEquals("t2", acquired.get(0).getName());
+  }
+}
@@ -0,0 +1,79 @@
+package org.quartz.core;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.quartz.builders.JobBuilder;
+import org.quartz.builders.SimpleTriggerBuilder;
+import org.quartz.jobs.Job;
+import org.quartz.jobs.JobDetail;
+import org.quartz.triggers.OperableTrigger;
+
+public class ParallelSchedulerThreadsTest {
+
+  private static final AtomicInteger executions = new AtomicInteger();
+
+  private static final Set<String> firedTriggers =
+      Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+  @Test
+  public void shouldFireEveryTriggerOnce() throws Exception {
+
+    SchedulerFactory schedulerFactory = new SchedulerFactory();
+    schedulerFactory.setSchedulerThreadCount(4);
+    ExtendedScheduler scheduler = (ExtendedScheduler) schedulerFactory.getScheduler(10);
+
+    long start = System.currentTimeMillis() + 500L;
+    Map<JobDetail, List<OperableTrigger>> triggersAndJobs =
+        new LinkedHashMap<JobDetail, List<OperableTrigger>>();
+    for (int j = 0; j < 50; j++) {
+      List<OperableTrigger> triggers = new ArrayList<OperableTrigger>();
+      for (int i = 0; i < 40; i++) {
+        triggers.add(
+            SimpleTriggerBuilder.simpleTriggerBuilder()
+                .withIdentity("trigger-" + j + "-" + i)
+                .forJob("job-" + j)
+                .startAt(new Date(start + i * 10))
+                .build());
+      }
+      triggersAndJobs.put(
+          JobBuilder.newJobBuilder(RecordingJob.class)
+              .withIdentity("job-" + j)
+              .isConcurrencyAllowed(true)
+              .build(),
+          triggers);
+    }
+    scheduler.scheduleJobs(triggersAndJobs, false);
+    scheduler.start();
+
+    long deadline = System.currentTimeMillis() + 10000L;
+    while (executions.get() < 2000 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    // anything fired twice would show up by now
+    Thread.sleep(200);
+    scheduler.shutdown();
+
+    assertEquals(2000, executions.get());
+    assertEquals(2000, firedTriggers.size());
+  }
+
+  public static class RecordingJob implements Job {
+
+    @Override
+    public void execute(JobExecutionContext context) {
+
+      executions.incrementAndGet();
+      firedTriggers.add(context.getTrigger().getName());
+    }
+  }
+}
@@ -0,0 +1,135 @@
+package org.quartz.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.quartz.builders.JobBuilder;
+import org.quartz.builders.SimpleTriggerBuilder;
+import org.quartz.jobs.Job;
+import org.quartz.jobs.JobDetail;
+import org.quartz.triggers.OperableTrigger;
+
+/**
+ * Fires a quick job every 5 ms, next to a job whose constructor sleeps for 50 ms every 100 ms, and
+ * measures how late the quick job starts, with the jobs dispatched by the scheduler thread and
+ * with pipelined dispatch.
+ *
+ * <p>Run with <code>main</code>; arguments are optional: [seconds] [preparation threads].
+ */
+public class PipelinedDispatchBenchmark {
+
+  private static long[] lateness;
+
+  private static final AtomicInteger executions = new AtomicInteger();
+
+  public static void main(String[] args) throws Exception {
+
+    int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+    int preparationThreads = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+
+    // twice, so the second round runs warmed up
+    for (int round = 0; round < 2; round++) {
+      run(seconds, 0);
+      run(seconds, preparationThreads);
+    }
+  }
+
+  private static void run(int seconds, int preparationThreads) throws Exception {
+
+    SchedulerFactory schedulerFactory = new SchedulerFactory();
+    if (preparationThreads > 0) {
+      schedulerFactory.setPipelinedDispatch(preparationThreads);
+    }
+    ExtendedScheduler scheduler = (ExtendedScheduler) schedulerFactory.getScheduler(20);
+
+    int quickFires = seconds * 200;
+    long start = System.currentTimeMillis() + 1000L;
+    List<OperableTrigger> quickTriggers = new ArrayList<OperableTrigger>();
+    for (int i = 0; i < quickFires; i++) {
+      quickTriggers.add(trigger("quick-" + i, "quick", start + i * 5L));
+    }
+    List<OperableTrigger> slowTriggers = new ArrayList<OperableTrigger>();
+    for (int i = 0; i < seconds * 10; i++) {
+      slowTriggers.add(trigger("slow-" + i, "slow", start + 2 + i * 100L));
+    }
+    Map<JobDetail, List<OperableTrigger>> triggersAndJobs =
+        new LinkedHashMap<JobDetail, List<OperableTrigger>>();
+    triggersAndJobs.put(
+        JobBuilder.newJobBuilder(QuickJob.class)
+            .withIdentity("quick")
+            .isConcurrencyAllowed(true)
+            .build(),
+        quickTriggers);
+    triggersAndJobs.put(
+        JobBuilder.newJobBuilder(SlowConstructorJob.class)
+            .withIdentity("slow")
+            .isConcurrencyAllowed(true)
+            .build(),
+        slowTriggers);
+    lateness = new long[quickFires];
+    executions.set(0);
+    scheduler.scheduleJobs(triggersAndJobs, false);
+    scheduler.start();
+
+    long deadline = start + seconds * 10000L;
+    while (executions.get() < quickFires && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    scheduler.shutdown();
+
+    long[] sorted = Arrays.copyOf(lateness, executions.get());
+    Arrays.sort(sorted);
+    System.out.println(
+        (preparationThreads > 0
+                ? "pipelined, " + preparationThreads + " preparation threads"
+                : "dispatched by the scheduler thread")
+            + ": quick job started late by p50 "
+            + sorted[sorted.length / 2]
+            + " ms, p99 "
+            + sorted[sorted.length * 99 / 100]
+            + " ms, max "
+            + sorted[sorted.length - 1]
+            + " ms, "
+            + sorted.length
+            + " of "
+            + quickFires
+            + " run");
+  }
+
+  private static OperableTrigger trigger(String name, String jobName, long startTime) {
+
+    return SimpleTriggerBuilder.simpleTriggerBuilder()
+        .withIdentity(name)
+        .forJob(jobName)
+        .startAt(new Date(startTime))
+        .build();
+  }
+
+  public static class QuickJob implements Job {
+
+    @Override
+    public void execute(JobExecutionContext context) {
+
+      long late = System.currentTimeMillis() - context.getScheduledFireTime().getTime();
+      int i = executions.getAndIncrement();
+      if (i < lateness.length) {
+        lateness[i] = late;
+      }
+    }
+  }
+
+  public static class SlowConstructorJob implements Job {
+
+    public SlowConstructorJob() throws InterruptedException {
+
+      Thread.sleep(50);
+    }
+
+    @Override
+    public void execute(JobExecutionContext context) {}
+  }
+}
@@ -0,0 +1,87 @@
+package org.quartz.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.quartz.builders.JobBuilder;
+import org.quartz.builders.SimpleTriggerBuilder;
+import org.quartz.jobs.Job;
+import org.quartz.jobs.JobDetail;
+import org.quartz.triggers.OperableTrigger;
+
+public class PrecisionModeTest {
+
+  private static final AtomicInteger executions = new AtomicInteger();
+
+  @Test
+  public void shouldFireWithinAMillisecond() throws Exception {
+
+    // on a single core, the JIT compiler and the job threads keep preempting the scheduler thread
+    assumeTrue(
+        "needs an idle machine with more than one core",
+        Runtime.getRuntime().availableProcessors() > 1);
+
+    // the first round warms up the scheduler's code
+    fire200Triggers();
+    FireLatenessMetrics fireLatenessMetrics = fire200Triggers();
+
+    assertTrue(
+        fireLatenessMetrics.toString(),
+        fireLatenessMetrics.getLatenessPercentileMicros(0.99) < 1000);
+  }
+
+  private FireLatenessMetrics fire200Triggers() throws Exception {
+
+    SchedulerFactory schedulerFactory = new SchedulerFactory();
+    schedulerFactory.setPrecisionMode(true);
+    ExtendedScheduler scheduler = (ExtendedScheduler) schedulerFactory.getScheduler(4);
+
+    long start = System.currentTimeMillis() + 500L;
+    List<OperableTrigger> triggers = new ArrayList<OperableTrigger>();
+    for (int i = 0; i < 200; i++) {
+      triggers.add(
+          SimpleTriggerBuilder.simpleTriggerBuilder()
+              .withIdentity("trigger-" + i)
+              .forJob("job")
+              .startAt(new Date(start + i * 7))
+              .build());
+    }
+    Map<JobDetail, List<OperableTrigger>> triggersAndJobs =
+        new LinkedHashMap<JobDetail, List<OperableTrigger>>();
+    triggersAndJobs.put(
+        JobBuilder.newJobBuilder(CountingJob.class)
+            .withIdentity("job")
+            .isConcurrencyAllowed(true)
+            .build(),
+        triggers);
+    executions.set(0);
+    scheduler.scheduleJobs(triggersAndJobs, false);
+    scheduler.start();
+
+    long deadline = System.currentTimeMillis() + 10000L;
+    while (executions.get() < 200 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    scheduler.shutdown();
+
+    assertEquals(200, executions.get());
+    return scheduler.getFireLatenessMetrics();
+  }
+
+  public static class CountingJob implements Job {
+
+    @Override
+    public void execute(JobExecutionContext context) {
+
+      executions.incrementAndGet();
+    }
+  }
+}
@@ -0,0 +1,162 @@
+package org.quartz.core;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.junit.Test;
+import org.quartz.builders.JobBuilder;
+import org.quartz.builders.SimpleTriggerBuilder;
+import org.quartz.jobs.Job;
+import org.quartz.jobs.JobDetail;
+import org.quartz.triggers.OperableTrigger;
+
+public class PriorityDispatchTest {
+
+  private static final ConcurrentLinkedQueue<String> started = new ConcurrentLinkedQueue<String>();
+
+  @Test
+  public void shouldDispatchHighPriorityJobsFirst() throws Exception {
+
+    ExtendedScheduler scheduler = fireBehindABlocker(60000L);
+    try {
+      assertEquals("high", started.toArray()[0]);
+      assertEquals("high", started.toArray()[2]);
+      assertEquals("low", started.toArray()[3]);
+      assertEquals(3, scheduler.getDispatchDelayMetrics().getDelayMetrics(10).getFireCount());
+      assertEquals(10, scheduler.getDispatchDelayMetrics().getDelayMetrics(1).getFireCount());
+    } finally {
+      scheduler.shutdown();
+    }
+  }
+
+  @Test
+  public void shouldAgeWaitingJobs() throws Exception {
+
+    // the low priority jobs wait 200 ms longer, worth more than the 9 levels between them
+    ExtendedScheduler scheduler = fireBehindABlocker(10L);
+    try {
+      assertEquals("low", started.toArray()[0]);
+      assertEquals("high", started.toArray()[12]);
+    } finally {
+      scheduler.shutdown();
+    }
+  }
+
+  @Test
+  public void shouldVetoQueuedJobsAtShutdown() throws Exception {
+
+    SchedulerFactory schedulerFactory = new SchedulerFactory();
+    schedulerFactory.setPriorityDispatch(60000L, 20);
+    ExtendedScheduler scheduler = (ExtendedScheduler) schedulerFactory.getScheduler(1);
+
+    long start = System.currentTimeMillis() + 500L;
+    Map<JobDetail, List<OperableTrigger>> triggersAndJobs =
+        new LinkedHashMap<JobDetail, List<OperableTrigger>>();
+    triggersAndJobs.put(
+        JobBuilder.newJobBuilder(BlockingJob.class).withIdentity("blocker").build(),
+        triggers("blocker", 1, 5, start));
+    triggersAndJobs.put(
+        JobBuilder.newJobBuilder(RecordingJob.class)
+            .withIdentity("low")
+            .isConcurrencyAllowed(true)
+            .build(),
+        triggers("low", 10, 1, start + 100L));
+    started.clear();
+    scheduler.scheduleJobs(triggersAndJobs, false);
+    scheduler.start();
+    scheduler.deleteJob("SampleJob2");
+    scheduler.deleteJob("SampleJob3");
+
+    // shut down with the jobs queued behind the blocker
+    Thread.sleep(start + 200L - System.currentTimeMillis());
+    scheduler.shutdown();
+    Thread.sleep(700L);
+
+    assertEquals(0, started.size());
+  }
+
+  /**
+   * Occupy the only worker thread for 500 ms, and meanwhile fire 10 jobs of priority 1 and, 200 ms
+   * later, 3 of priority 10.
+   */
+  private static ExtendedScheduler fireBehindABlocker(long agingMillis) throws Exception {
+
+    SchedulerFactory schedulerFactory = new SchedulerFactory();
+    schedulerFactory.setPriorityDispatch(agingMillis, 20);
+    ExtendedScheduler scheduler = (ExtendedScheduler) schedulerFactory.getScheduler(1);
+
+    long start = System.currentTimeMillis() + 500L;
+    Map<JobDetail, List<OperableTrigger>> triggersAndJobs =
+        new LinkedHashMap<JobDetail, List<OperableTrigger>>();
+    triggersAndJobs.put(
+        JobBuilder.newJobBuilder(BlockingJob.class).withIdentity("blocker").build(),
+        triggers("blocker", 1, 5, start));
+    triggersAndJobs.put(
+        JobBuilder.newJobBuilder(RecordingJob.class)
+            .withIdentity("low")
+            .isConcurrencyAllowed(true)
+            .build(),
+        triggers("low", 10, 1, start + 100L));
+    triggersAndJobs.put(
+        JobBuilder.newJobBuilder(RecordingJob.class)
+            .withIdentity("high")
+            .isConcurrencyAllowed(true)
+            .build(),
+        triggers("high", 3, 10, start + 300L));
+    started.clear();
+    scheduler.scheduleJobs(triggersAndJobs, false);
+    scheduler.start();
+    // the jobs of jobs.xml on the test classpath would take the worker thread
+    scheduler.deleteJob("SampleJob2");
+    scheduler.deleteJob("SampleJob3");
+
+    long deadline = System.currentTimeMillis() + 10000L;
+    while (started.size() < 13 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(13, started.size());
+    return scheduler;
+  }
+
+  private static List<OperableTrigger> triggers(
+      String jobName, int count, int priority, long startTime) {
+
+    List<OperableTrigger> triggers = new ArrayList<OperableTrigger>();
+    for (int i = 0; i < count; i++) {
+      triggers.add(
+          SimpleTriggerBuilder.simpleTriggerBuilder()
+              .withIdentity(jobName + "-" + i)
+              .forJob(jobName)
+              .withPriority(priority)
+              .startAt(new Date(startTime))
+              .build());
+    }
+    return triggers;
+  }
+
+  public static class BlockingJob implements Job {
+
+    @Override
+    public void execute(JobExecutionContext context) {
+
+      try {
+        Thread.sleep(500L);
+      } catch (InterruptedException ignore) {
+      }
+    }
+  }
+
+  public static class RecordingJob implements Job {
+
+    @Override
+    public void execute(JobExecutionContext context) {
+
+      started.add(context.getJobDetail().getName());
+    }
+  }
+}
@@ -0,0 +1,140 @@
+package org.quartz.core;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.quartz.builders.JobBuilder;
+import org.quartz.builders.SimpleTriggerBuilder;
+import org.quartz.jobs.JobDetail;
+import org.quartz.triggers.OperableTrigger;
+import org.quartz.triggers.Trigger.CompletedExecutionInstruction;
+
+/**
+ * Measures the latency of the scheduler thread's acquire + fire round trip against a {@link
+ * RAMJobStore}, first on a quiet store and then while 32 threads hammer it with reads (as a
+ * dashboard polling <code>getAllJobsAndTriggers</code> does) and job completions. The jobs do not
+ * allow concurrent execution, so every completion takes the store's lock to unblock its job, as
+ * the acquisitions do.
+ *
+ * <p>Run with <code>main</code>; arguments are optional: [jobs] [triggersPerJob] [rounds].
+ */
+public class RAMJobStoreContentionBenchmark {
+
+  private static final int HAMMER_THREADS = 32;
+
+  public static void main(String[] args) throws Exception {
+
+    int jobs = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+    int triggersPerJob = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+    int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 200000;
+
+    final RAMJobStore store = new RAMJobStore();
+    store.initialize(new NoOpSchedulerSignaler());
+
+    final JobDetail[] jobDetails = new JobDetail[jobs];
+    final OperableTrigger[] triggers = new OperableTrigger[jobs * triggersPerJob];
+    Date start = new Date();
+    for (int j = 0; j < jobs; j++) {
+      jobDetails[j] =
+          JobBuilder.newJobBuilder().withIdentity("job-" + j).isConcurrencyAllowed(false).build();
+      store.storeJob(jobDetails[j], false);
+      for (int t = 0; t < triggersPerJob; t++) {
+        OperableTrigger trigger =
+            SimpleTriggerBuilder.simpleTriggerBuilder()
+                .withIdentity("trigger-" + j + "-" + t)
+                .forJob("job-" + j)
+                .startAt(start)
+                .withIntervalInMilliseconds(3600000L)
+                .repeatForever()
+                .build();
+        trigger.computeFirstFireTime(null);
+        store.storeTrigger(trigger, false);
+        triggers[j * triggersPerJob + t] = trigger;
+      }
+    }
+
+    System.out.println(
+        "RAMJobStore with " + jobs + " jobs, " + triggers.length + " triggers, "
+            + rounds + " rounds");
+
+    measure("warm-up", store, rounds);
+    measure("quiet", store, rounds);
+
+    final AtomicBoolean running = new AtomicBoolean(true);
+    final AtomicLong hammerOps = new AtomicLong();
+    Thread[] hammers = new Thread[HAMMER_THREADS];
+    for (int i = 0; i < HAMMER_THREADS; i++) {
+      final boolean reader = i % 2 == 0;
+      final Random random = new Random(i);
+      hammers[i] =
+          new Thread("hammer-" + i) {
+
+            @Override
+            public void run() {
+
+              long ops = 0;
+              while (running.get()) {
+                int j = random.nextInt(jobDetails.length);
+                OperableTrigger trigger = triggers[random.nextInt(triggers.length)];
+                if (reader) {
+                  store.retrieveJob(jobDetails[j].getName());
+                  store.retrieveTrigger(trigger.getName());
+                  store.getTriggersForJob(jobDetails[j].getName());
+                  if (ops % 1000 == 0) {
+                    store.getJobKeys();
+                  }
+                } else {
+                  store.triggeredJobComplete(
+                      trigger, jobDetails[j], CompletedExecutionInstruction.NOOP);
+                }
+                ops++;
+              }
+              hammerOps.addAndGet(ops);
+            }
+          };
+      hammers[i].start();
+    }
+
+    long hammerStart = System.nanoTime();
+    measure("32 threads reading/completing", store, rounds);
+    running.set(false);
+    for (Thread hammer : hammers) {
+      hammer.join();
+    }
+    long hammerMillis = (System.nanoTime() - hammerStart) / 1000000L;
+    System.out.println(
+        "hammer threads: " + (hammerOps.get() * 1000L / Math.max(1, hammerMillis)) + " ops/s");
+  }
+
+  private static void measure(String label, RAMJobStore store, int rounds) {
+
+    long[] samples = new long[rounds];
+    long noLaterThan = System.currentTimeMillis() + 10L * 365 * 24 * 3600000L;
+    for (int i = 0; i < rounds; i++) {
+      long t0 = System.nanoTime();
+      List<OperableTrigger> acquired = store.acquireNextTriggers(noLaterThan, 1, 0L);
+      List<TriggerFiredResult> fired = store.triggersFired(acquired);
+      samples[i] = System.nanoTime() - t0;
+      // complete the jobs fired, as the worker threads would, so that they do not stay blocked
+      for (TriggerFiredResult result : fired) {
+        TriggerFiredBundle bundle = result.getTriggerFiredBundle();
+        if (bundle != null) {
+          store.triggeredJobComplete(
+              bundle.getTrigger(), bundle.getJobDetail(), CompletedExecutionInstruction.NOOP);
+        }
+      }
+    }
+    Arrays.sort(samples);
+    System.out.println(
+        String.format(
+            "%-32s acquire+fire latency (us): p50=%.1f p99=%.1f p99.9=%.1f max=%.1f",
+            label,
+            samples[rounds / 2] / 1000.0,
+            samples[(int) (rounds * 0.99)] / 1000.0,
+            samples[(int) (rounds * 0.999)] / 1000.0,
+            samples[rounds - 1] / 1000.0));
+  }
+}
@@ -0,0 +1,76 @@
+package org.quartz.core;
+
+import java.util.Date;
+import org.quartz.builders.JobBuilder;
+import org.quartz.builders.SimpleTriggerBuilder;
+import org.quartz.triggers.OperableTrigger;
+import org.quartz.triggers.Trigger;
+
+/**
+ * Deletes 10k jobs out of a {@link RAMJobStore} holding 500k triggers, the way <code>
+ * QuartzScheduler.deleteJob</code> does it: look up the job's triggers, unschedule each of them and
+ * finally remove the job.
+ *
+ * <p>Run with <code>main</code>; arguments are optional: [jobs] [triggersPerJob] [jobsToDelete].
+ */
+public class RAMJobStoreDeleteJobsBenchmark {
+
+  public static void main(String[] args) throws Exception {
+
+    int jobs = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+    int triggersPerJob = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+    int jobsToDelete = args.length > 2 ? Integer.parseInt(args[2]) : 10000;
+
+    RAMJobStore store = new RAMJobStore();
+    store.initialize(new NoOpSchedulerSignaler());
+
+    long t0 = System.nanoTime();
+    Date start = new Date(System.currentTimeMillis() + 60000L);
+    for (int j = 0; j < jobs; j++) {
+      store.storeJob(JobBuilder.newJobBuilder().withIdentity("job-" + j).build(), false);
+      for (int t = 0; t < triggersPerJob; t++) {
+        OperableTrigger trigger =
+            SimpleTriggerBuilder.simpleTriggerBuilder()
+                .withIdentity("trigger-" + j + "-" + t)
+                .forJob("job-" + j)
+                .startAt(new Date(start.getTime() + (j * triggersPerJob + t) * 1000L))
+                .build();
+        trigger.computeFirstFireTime(null);
+        store.storeTrigger(trigger, false);
+      }
+    }
+    System.out.println(
+        "stored "
+            + jobs
+            + " jobs with "
+            + (jobs * triggersPerJob)
+            + " triggers in "
+            + (System.nanoTime() - t0) / 1000000L
+            + " ms");
+
+    t0 = System.nanoTime();
+    int deletedTriggers = 0;
+    int stride = jobs / jobsToDelete;
+    for (int j = 0; j < jobs && j / stride < jobsToDelete; j += stride) {
+      String jobKey = "job-" + j;
+      for (Trigger trigger : store.getTriggersForJob(jobKey)) {
+        if (store.removeTrigger(trigger.getName())) {
+          deletedTriggers++;
+        }
+      }
+      store.removeJob(jobKey);
+    }
+    long millis = (System.nanoTime() - t0) / 1000000L;
+
+    System.out.println(
+        "deleted "
+            + jobsToDelete
+            + " jobs ("
+            + deletedTriggers
+            + " triggers) in "
+            + millis
+            + " ms; "
+            + store.getJobKeys().size()
+            + " jobs left");
+  }
+}
@@ -0,0 +1,214 @@
+package org.quartz.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Date;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.quartz.builders.JobBuilder;
+import org.quartz.builders.SimpleTriggerBuilder;
+import org.quartz.jobs.JobDataMap;
+import org.quartz.jobs.JobDetail;
+import org.quartz.triggers.OperableTrigger;
+import org.quartz.triggers.Trigger;
+import org.quartz.triggers.Trigger.CompletedExecutionInstruction;
+
+public class RAMJobStoreTest {
+
+  private RAMJobStore store;
+
+  @Before
+  public void setup() {
+
+    store = new RAMJobStore();
+    store.initialize(new NoOpSchedulerSignaler());
+  }
+
+  private OperableTrigger newTrigger(String name, String jobName, long fireTime) {
+
+    OperableTrigger trigger =
+        SimpleTriggerBuilder.simpleTriggerBuilder()
+            .withIdentity(name)
+            .forJob(jobName)
+            .startAt(new Date(fireTime))
+            .build();
+    trigger.computeFirstFireTime(null);
+    return trigger;
+  }
+
+  @Test
+  public void shouldIndexTriggersByJob() throws Exception {
+
+    long now = System.currentTimeMillis();
+    store.storeJob(JobBuilder.newJobBuilder().withIdentity("job1").build(), false);
+    store.storeJob(JobBuilder.newJobBuilder().withIdentity("job2").build(), false);
+    store.storeTrigger(newTrigger("t1", "job1", now + 1000), false);
+    store.storeTrigger(newTrigger("t2", "job1", now + 2000), false);
+    store.storeTrigger(newTrigger("t3", "job2", now + 3000), false);
+
+    assertEquals(2, store.getTriggersForJob("job1").size());
+    assertEquals(1, store.getTriggersForJob("job2").size());
+    assertEquals(now + 1000, store.getEarliestNextFireTime());
+
+    assertTrue(store.removeTrigger("t1"));
+    assertFalse(store.removeTrigger("t1"));
+    List<Trigger> job1Triggers = store.getTriggersForJob("job1");
+    assertEquals(1, job1Triggers.size());
+    assertEquals("t2", job1Triggers.get(0).getName());
+    assertEquals(now + 2000, store.getEarliestNextFireTime());
+
+    assertTrue(store.replaceTrigger("t2", newTrigger("t4", "job1", now + 500)));
+    assertNull(store.retrieveTrigger("t2"));
+    assertNotNull(store.retrieveTrigger("t4"));
+    assertEquals(1, store.getTriggersForJob("job1").size());
+    assertEquals(now + 500, store.getEarliestNextFireTime());
+
+    assertTrue(store.removeJob("job1"));
+    assertTrue(store.getTriggersForJob("job1").isEmpty());
+    assertNull(store.retrieveTrigger("t4"));
+    assertEquals(now + 3000, store.getEarliestNextFireTime());
+  }
+
+  @Test
+  public void shouldAcquireInFireTimeOrder() throws Exception {
+
+    acquireInFireTimeOrder();
+  }
+
+  @Test
+  public void shouldAcquireInFireTimeOrderWithTimingWheel() throws Exception {
+
+    store.setUseTimingWheel(true);
+    acquireInFireTimeOrder();
+  }
+
+  private void acquireInFireTimeOrder() throws Exception {
+
+    long now = System.currentTimeMillis();
+    store.storeJob(JobBuilder.newJobBuilder().withIdentity("job").build(), false);
+    store.storeTrigger(newTrigger("late", "job", now + 2000), false);
+    store.storeTrigger(newTrigger("early", "job", now + 1000), false);
+
+    List<OperableTrigger> acquired = store.acquireNextTriggers(now + 5000, 10, 0L);
+    assertEquals(2, acquired.size());
+    assertEquals("early", acquired.get(0).getName());
+    assertEquals("late", acquired.get(1).getName());
+    assertEquals(Long.MAX_VALUE, store.getEarliestNextFireTime());
+
+    store.releaseAcquiredTrigger(acquired.get(1));
+    assertEquals(now + 2000, store.getEarliestNextFireTime());
+  }
+
+  @Test
+  public void shouldHandOutCopiesThatCannotCorruptTheStore() throws Exception {
+
+    JobDataMap jobData = new JobDataMap();
+    jobData.put("key", "value");
+    JobDetail job = JobBuilder.newJobBuilder().withIdentity("job").usingJobData(jobData).build();
+    store.storeJob(job, false);
+    long now = System.currentTimeMillis();
+    store.storeTrigger(newTrigger("t1", "job", now), false);
+    store.storeTrigger(newTrigger("t2", "job", now + 1000), false);
+
+    // a job may still write to its own JobDataMap, as before
+    store.retrieveJob("job").getJobDataMap().put("key", "changed");
+    jobData.put("key", "changed");
+    assertEquals("value", store.retrieveJob("job").getJobDataMap().get("key"));
+
+    // moving a trigger handed out does not move it in the store's time index
+    store.retrieveTrigger("t1").setNextFireTime(new Date(now + 5000));
+    for (Trigger trigger : store.getTriggersForJob("job")) {
+      ((OperableTrigger) trigger).setNextFireTime(new Date(now + 5000));
+    }
+    assertEquals(now, store.getEarliestNextFireTime());
+
+    List<OperableTrigger> acquired = store.acquireNextTriggers(now + 2000, 2, 0L);
+    assertEquals("t1", acquired.get(0).getName());
+    assertEquals("t2", acquired.get(1).getName());
+    assertNotNull(acquired.get(0).getFireInstanceId());
+    acquired.get(0).setPriority(1);
+
+    TriggerFiredBundle bundle =
+        store.triggersFired(acquired.subList(0, 1)).get(0).getTriggerFiredBundle();
+    assertSame(acquired.get(0), bundle.getTrigger());
+    assertEquals(new Date(now), bundle.getTrigger().getPreviousFireTime());
+    bundle.getJobDetail().getJobDataMap().put("key", "changed");
+    assertEquals("value", store.retrieveJob("job").getJobDataMap().get("key"));
+    assertEquals(Trigger.DEFAULT_PRIORITY, store.retrieveTrigger("t1").getPriority());
+    assertEquals(new Date(now), store.retrieveTrigger("t1").getPreviousFireTime());
+  }
+
+  @Test
+  public void shouldBlockNonConcurrentJobs() throws Exception {
+
+    long now = System.currentTimeMillis();
+    store.storeJob(
+        JobBuilder.newJobBuilder().withIdentity("job").isConcurrencyAllowed(false).build(), false);
+    store.storeTrigger(newTrigger("t1", "job", now), false);
+    store.storeTrigger(newTrigger("t2", "job", now + 10), false);
+    store.storeTrigger(newTrigger("t3", "job", now + 20), false);
+
+    List<OperableTrigger> acquired = store.acquireNextTriggers(now, 1, 0L);
+    TriggerFiredBundle bundle = store.triggersFired(acquired).get(0).getTriggerFiredBundle();
+
+    // the other triggers come due while the job runs and are set aside
+    assertTrue(store.acquireNextTriggers(now + 1000, 10, 0L).isEmpty());
+    assertEquals(Long.MAX_VALUE, store.getEarliestNextFireTime());
+    assertTrue(store.removeTrigger("t3"));
+
+    store.triggeredJobComplete(
+        bundle.getTrigger(), bundle.getJobDetail(), CompletedExecutionInstruction.NOOP);
+    assertEquals(now + 10, store.getEarliestNextFireTime());
+    acquired = store.acquireNextTriggers(now + 1000, 10, 0L);
+    assertEquals(1, acquired.size());
+    assertEquals("t2", acquired.get(0).getName());
+  }
+
+  @Test
+  public void shouldEvictFinishedTriggers() throws Exception {
+
+    // evictions are run by the test, not by the sweeper
+    store.shutdown();
+    store.setFinishedTriggerRetentionCount(2);
+
+    long now = System.currentTimeMillis();
+    store.storeJob(
+        JobBuilder.newJobBuilder().withIdentity("job").isConcurrencyAllowed(true).build(), false);
+    for (int i = 0; i < 8; i++) {
+      store.storeTrigger(newTrigger("t" + i, "job", now + i), false);
+    }
+
+    List<OperableTrigger> acquired = store.acquireNextTriggers(now + 1000, 6, 0L);
+    List<TriggerFiredResult> fired = store.triggersFired(acquired);
+    for (int i = 0; i < fired.size(); i++) {
+      TriggerFiredBundle bundle = fired.get(i).getTriggerFiredBundle();
+      store.triggeredJobComplete(
+          bundle.getTrigger(),
+          bundle.getJobDetail(),
+          i == 0
+              ? CompletedExecutionInstruction.SET_TRIGGER_ERROR
+              : CompletedExecutionInstruction.SET_TRIGGER_COMPLETE);
+    }
+    // a finished trigger replaced meanwhile is not evicted
+    store.replaceTrigger("t1", newTrigger("t1", "job", now + 1));
+
+    assertEquals(3, store.evictFinishedTriggers());
+    assertEquals(3, store.getEvictedTriggerCount());
+    assertNull(store.retrieveTrigger("t0"));
+    assertNull(store.retrieveTrigger("t3"));
+    assertNotNull(store.retrieveTrigger("t4"));
+    assertEquals(5, store.getTriggersForJob("job").size());
+    assertEquals(0, store.evictFinishedTriggers());
+
+    store.setFinishedTriggerRetentionTime(0L);
+    assertEquals(2, store.evictFinishedTriggers());
+    assertEquals(3, store.getTriggersForJob("job").size());
+    assertEquals(now + 1, store.getEarliestNextFireTime());
+  }
+}
@@ -0,0 +1,146 @@
+package org.quartz.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.quartz.builders.JobBuilder;
+import org.quartz.builders.SimpleTriggerBuilder;
+import org.quartz.exceptions.JobExecutionException;
+import org.quartz.jobs.Job;
+import org.quartz.jobs.JobDetail;
+import org.quartz.listeners.JobListener;
+import org.quartz.listeners.ListenerManagerImpl;
+import org.quartz.triggers.OperableTrigger;
+
+public class RateLimitTest {
+
+  private static final ConcurrentLinkedQueue<Long> startTimes = new ConcurrentLinkedQueue<Long>();
+
+  private static final AtomicInteger vetoes = new AtomicInteger();
+
+  @Test
+  public void shouldDeferStartsBeyondTheGlobalLimit() throws Exception {
+
+    SchedulerFactory schedulerFactory = new SchedulerFactory();
+    schedulerFactory.setRateLimit(50, 1, RateLimitPolicy.DEFER);
+    ExtendedScheduler scheduler = (ExtendedScheduler) schedulerFactory.getScheduler(4);
+    try {
+      fire20Triggers(scheduler, JobBuilder.newJobBuilder(RecordingJob.class));
+      awaitStarts(20);
+
+      long first = Long.MAX_VALUE;
+      long last = Long.MIN_VALUE;
+      for (long startTime : startTimes) {
+        first = Math.min(first, startTime);
+        last = Math.max(last, startTime);
+      }
+      // 19 starts after the first, 20 ms apart
+      assertTrue((last - first) / 1000000L + " ms", last - first >= 340000000L);
+      assertTrue(scheduler.getRateLimiter().getDeferredCount() > 0);
+      assertEquals(0L, scheduler.getRateLimiter().getDroppedCount());
+    } finally {
+      scheduler.shutdown();
+    }
+  }
+
+  @Test
+  public void shouldDropStartsBeyondTheJobsLimit() throws Exception {
+
+    ExtendedScheduler scheduler = (ExtendedScheduler) new SchedulerFactory().getScheduler(4);
+    try {
+      ((ListenerManagerImpl) scheduler.getListenerManager())
+          .addJobListener(new VetoCountingListener());
+      fire20Triggers(
+          scheduler,
+          JobBuilder.newJobBuilder(RecordingJob.class)
+              .withRateLimit(1, 5, RateLimitPolicy.DROP));
+
+      long deadline = System.currentTimeMillis() + 10000L;
+      while (startTimes.size() + vetoes.get() < 20 && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+
+      // the burst, and maybe one more if a second passed meanwhile
+      assertTrue(startTimes.size() + " started", startTimes.size() >= 5 && startTimes.size() <= 6);
+      assertEquals(20 - startTimes.size(), vetoes.get());
+      assertEquals(vetoes.get(), scheduler.getRateLimiter().getDroppedCount());
+    } finally {
+      scheduler.shutdown();
+    }
+  }
+
+  private static void fire20Triggers(ExtendedScheduler scheduler, JobBuilder jobBuilder)
+      throws Exception {
+
+    long start = System.currentTimeMillis() + 500L;
+    List<OperableTrigger> triggers = new ArrayList<OperableTrigger>();
+    for (int i = 0; i < 20; i++) {
+      triggers.add(
+          SimpleTriggerBuilder.simpleTriggerBuilder()
+              .withIdentity("trigger-" + i)
+              .forJob("job")
+              .startAt(new Date(start))
+              .build());
+    }
+    Map<JobDetail, List<OperableTrigger>> triggersAndJobs =
+        new LinkedHashMap<JobDetail, List<OperableTrigger>>();
+    triggersAndJobs.put(
+        jobBuilder.withIdentity("job").isConcurrencyAllowed(true).build(), triggers);
+    startTimes.clear();
+    vetoes.set(0);
+    scheduler.scheduleJobs(triggersAndJobs, false);
+    scheduler.start();
+    // the jobs of jobs.xml on the test classpath would take permits of the global limit
+    scheduler.deleteJob("SampleJob2");
+    scheduler.deleteJob("SampleJob3");
+  }
+
+  private static void awaitStarts(int count) throws InterruptedException {
+
+    long deadline = System.currentTimeMillis() + 10000L;
+    while (startTimes.size() < count && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(count, startTimes.size());
+  }
+
+  public static class RecordingJob implements Job {
+
+    @Override
+    public void execute(JobExecutionContext context) {
+
+      startTimes.add(System.nanoTime());
+    }
+  }
+
+  private static class VetoCountingListener implements JobListener {
+
+    @Override
+    public String getName() {
+
+      return "VetoCountingListener";
+    }
+
+    @Override
+    public void jobToBeExecuted(JobExecutionContext context) {}
+
+    @Override
+    public void jobExecutionVetoed(JobExecutionContext context) {
+
+      if ("job".equals(context.getJobDetail().getName())) {
+        vetoes.incrementAndGet();
+      }
+    }
+
+    @Override
+    public void jobWasExecuted(JobExecutionContext context, JobExecutionException jobException) {}
+  }
+}
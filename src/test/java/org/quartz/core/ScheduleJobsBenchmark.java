@@ -0,0 +1,81 @@
+package org.quartz.core;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.knowm.sundial.jobs.SampleJob1;
+import org.quartz.builders.CronTriggerBuilder;
+import org.quartz.builders.JobBuilder;
+import org.quartz.jobs.JobDetail;
+import org.quartz.triggers.OperableTrigger;
+
+/**
+ * Compares registering cron triggers with one <code>scheduleJob</code> call each against one
+ * <code>scheduleJobs</code> call for all of them. The triggers are spread over 1000 jobs.
+ *
+ * <p>Run with <code>main</code>; arguments are optional: [triggers].
+ */
+public class ScheduleJobsBenchmark {
+
+  public static void main(String[] args) throws Exception {
+
+    int triggers = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+
+    // twice, so the second round runs warmed up
+    for (int round = 0; round < 2; round++) {
+      ExtendedScheduler scheduler = (ExtendedScheduler) new SchedulerFactory().getScheduler(10);
+      Map<JobDetail, List<OperableTrigger>> triggersAndJobs = build(triggers);
+      long t0 = System.nanoTime();
+      for (Map.Entry<JobDetail, List<OperableTrigger>> entry : triggersAndJobs.entrySet()) {
+        scheduler.addJob(entry.getKey());
+        for (OperableTrigger trigger : entry.getValue()) {
+          scheduler.scheduleJob(trigger);
+        }
+      }
+      report("scheduleJob per trigger", triggers, t0);
+      scheduler.shutdown();
+
+      scheduler = (ExtendedScheduler) new SchedulerFactory().getScheduler(10);
+      triggersAndJobs = build(triggers);
+      t0 = System.nanoTime();
+      scheduler.scheduleJobs(triggersAndJobs, false);
+      report("scheduleJobs", triggers, t0);
+      scheduler.shutdown();
+    }
+  }
+
+  private static Map<JobDetail, List<OperableTrigger>> build(int triggers) throws Exception {
+
+    Map<JobDetail, List<OperableTrigger>> triggersAndJobs =
+        new LinkedHashMap<JobDetail, List<OperableTrigger>>();
+    List<List<OperableTrigger>> lists = new ArrayList<List<OperableTrigger>>();
+    for (int j = 0; j < 1000; j++) {
+      List<OperableTrigger> list = new ArrayList<OperableTrigger>();
+      triggersAndJobs.put(
+          JobBuilder.newJobBuilder(SampleJob1.class).withIdentity("job-" + j).build(), list);
+      lists.add(list);
+    }
+    // parsing a cron expression is not what is measured, so copy one of 60 parsed ones
+    OperableTrigger[] prototypes = new OperableTrigger[60];
+    for (int m = 0; m < prototypes.length; m++) {
+      prototypes[m] =
+          CronTriggerBuilder.cronTriggerBuilder("0 " + m + " * * * ?")
+              .withIdentity("prototype")
+              .build();
+    }
+    for (int i = 0; i < triggers; i++) {
+      OperableTrigger trigger = (OperableTrigger) prototypes[i % 60].clone();
+      trigger.setName("trigger-" + i);
+      trigger.setJobName("job-" + (i % 1000));
+      lists.get(i % 1000).add(trigger);
+    }
+    return triggersAndJobs;
+  }
+
+  private static void report(String what, int triggers, long t0) {
+
+    System.out.println(
+        what + ": " + triggers + " triggers in " + (System.nanoTime() - t0) / 1000000L + " ms");
+  }
+}
@@ -0,0 +1,139 @@
+package org.quartz.core;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.quartz.QuartzScheduler;
+import org.quartz.builders.CronTriggerBuilder;
+import org.quartz.builders.JobBuilder;
+import org.quartz.jobs.Job;
+import org.quartz.jobs.JobDetail;
+import org.quartz.listeners.SchedulerListener;
+import org.quartz.listeners.SchedulerListenerSupport;
+import org.quartz.triggers.OperableTrigger;
+import org.quartz.triggers.Trigger;
+
+public class ScheduleJobsTest {
+
+  @Test
+  public void shouldNotifyBatchListenersOncePerBatch() throws Exception {
+
+    QuartzScheduler scheduler = (QuartzScheduler) new SchedulerFactory().getScheduler(1);
+    try {
+      final List<Integer> batchSizes = new ArrayList<Integer>();
+      scheduler.addInternalSchedulerListener(
+          new SchedulerListenerSupport() {
+
+            @Override
+            public void jobScheduled(Trigger trigger) {
+
+              batchSizes.add(1);
+            }
+
+            @Override
+            public void jobsScheduled(List<JobDetail> jobDetails, List<Trigger> triggers) {
+
+              batchSizes.add(triggers.size());
+            }
+          });
+      // a listener written for the plain interface is told of each job and trigger
+      final List<String> calls = new ArrayList<String>();
+      scheduler.addInternalSchedulerListener(
+          (SchedulerListener)
+              Proxy.newProxyInstance(
+                  getClass().getClassLoader(),
+                  new Class<?>[] {SchedulerListener.class},
+                  new InvocationHandler() {
+
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args)
+                        throws Exception {
+
+                      if (method.getDeclaringClass() == Object.class) {
+                        return method.invoke(this, args);
+                      }
+                      calls.add(method.getName());
+                      return null;
+                    }
+                  }));
+
+      scheduler.scheduleJobs(batch(2, 3), false);
+
+      assertEquals(1, batchSizes.size());
+      assertEquals(6, batchSizes.get(0).intValue());
+      assertEquals(2, count(calls, "jobAdded"));
+      assertEquals(6, count(calls, "jobScheduled"));
+      assertEquals(3, scheduler.getTriggersOfJob("job1").size());
+    } finally {
+      scheduler.shutdown();
+    }
+  }
+
+  @Test
+  public void shouldTellSupportSubclassesOfEachJobAndTrigger() throws Exception {
+
+    QuartzScheduler scheduler = (QuartzScheduler) new SchedulerFactory().getScheduler(1);
+    try {
+      final List<String> triggerNames = new ArrayList<String>();
+      scheduler.addInternalSchedulerListener(
+          new SchedulerListenerSupport() {
+
+            @Override
+            public void jobScheduled(Trigger trigger) {
+
+              triggerNames.add(trigger.getName());
+            }
+          });
+
+      scheduler.scheduleJobs(batch(2, 3), false);
+
+      assertEquals(6, triggerNames.size());
+      assertEquals("trigger0-0", triggerNames.get(0));
+    } finally {
+      scheduler.shutdown();
+    }
+  }
+
+  private static Map<JobDetail, List<OperableTrigger>> batch(int jobs, int triggersPerJob)
+      throws Exception {
+
+    Map<JobDetail, List<OperableTrigger>> triggersAndJobs =
+        new LinkedHashMap<JobDetail, List<OperableTrigger>>();
+    for (int j = 0; j < jobs; j++) {
+      List<OperableTrigger> triggers = new ArrayList<OperableTrigger>();
+      for (int i = 0; i < triggersPerJob; i++) {
+        triggers.add(
+            CronTriggerBuilder.cronTriggerBuilder("0 0 12 * * ?")
+                .withIdentity("trigger" + j + "-" + i)
+                .build());
+      }
+      triggersAndJobs.put(
+          JobBuilder.newJobBuilder(NoOpJob.class).withIdentity("job" + j).build(), triggers);
+    }
+    return triggersAndJobs;
+  }
+
+  private static int count(List<String> calls, String name) {
+
+    int count = 0;
+    for (String call : calls) {
+      if (call.equals(name)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  public static class NoOpJob implements Job {
+
+    @Override
+    public void execute(JobExecutionContext context) {}
+  }
+}
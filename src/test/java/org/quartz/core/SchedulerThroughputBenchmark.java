@@ -0,0 +1,112 @@
+package org.quartz.core;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.quartz.builders.JobBuilder;
+import org.quartz.builders.SimpleTriggerBuilder;
+import org.quartz.jobs.Job;
+import org.quartz.jobs.JobDetail;
+import org.quartz.triggers.OperableTrigger;
+
+/**
+ * Offers a scheduler a steady load of 10k, 50k and 100k fires per second, and measures the rate at
+ * which it actually runs the jobs, with one scheduler thread and with several. The triggers fire
+ * once each, evenly spread over a few seconds, for 1000 jobs that do nothing but count.
+ *
+ * <p>Run with <code>main</code>; arguments are optional: [scheduler threads] [seconds] [worker
+ * threads].
+ */
+public class SchedulerThroughputBenchmark {
+
+  private static final AtomicLong executions = new AtomicLong();
+
+  public static void main(String[] args) throws Exception {
+
+    int schedulerThreads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+    int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+    int workers = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+    System.out.println(
+        Runtime.getRuntime().availableProcessors() + " cores, " + workers + " workers");
+
+    // twice, so the second round runs warmed up
+    for (int round = 0; round < 2; round++) {
+      for (int rate : new int[] {10000, 50000, 100000}) {
+        for (int threads : new int[] {1, schedulerThreads}) {
+          run(rate, threads, seconds, workers);
+        }
+      }
+    }
+  }
+
+  private static void run(int rate, int threads, int seconds, int workers) throws Exception {
+
+    SchedulerFactory schedulerFactory = new SchedulerFactory();
+    schedulerFactory.setSchedulerThreadCount(threads);
+    ExtendedScheduler scheduler = (ExtendedScheduler) schedulerFactory.getScheduler(workers);
+
+    int fires = rate * seconds;
+    long start = System.currentTimeMillis() + 2000L;
+    Map<JobDetail, List<OperableTrigger>> triggersAndJobs =
+        new LinkedHashMap<JobDetail, List<OperableTrigger>>();
+    List<List<OperableTrigger>> lists = new ArrayList<List<OperableTrigger>>();
+    for (int j = 0; j < 1000; j++) {
+      List<OperableTrigger> list = new ArrayList<OperableTrigger>();
+      triggersAndJobs.put(
+          JobBuilder.newJobBuilder(CountingJob.class)
+              .withIdentity("job-" + j)
+              .isConcurrencyAllowed(true)
+              .build(),
+          list);
+      lists.add(list);
+    }
+    for (int i = 0; i < fires; i++) {
+      lists
+          .get(i % 1000)
+          .add(
+              SimpleTriggerBuilder.simpleTriggerBuilder()
+                  .withIdentity("trigger-" + i)
+                  .forJob("job-" + (i % 1000))
+                  .startAt(new Date(start + i * 1000L / rate))
+                  .build());
+    }
+    scheduler.scheduleJobs(triggersAndJobs, false);
+    executions.set(0);
+    scheduler.start();
+
+    // wait for the last execution, or until it clearly falls behind for good
+    long deadline = start + seconds * 1000L * 20;
+    while (executions.get() < fires && System.currentTimeMillis() < deadline) {
+      Thread.sleep(1);
+    }
+    long millis = System.currentTimeMillis() - start;
+    long executed = executions.get();
+    scheduler.shutdown();
+
+    System.out.println(
+        rate
+            + " fires/s offered, "
+            + threads
+            + " scheduler thread(s): "
+            + executed
+            + " of "
+            + fires
+            + " jobs run in "
+            + millis
+            + " ms, "
+            + (executed * 1000L / Math.max(1L, millis))
+            + " fires/s");
+  }
+
+  public static class CountingJob implements Job {
+
+    @Override
+    public void execute(JobExecutionContext context) {
+
+      executions.incrementAndGet();
+    }
+  }
+}
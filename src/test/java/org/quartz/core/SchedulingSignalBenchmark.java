@@ -0,0 +1,76 @@
+package org.quartz.core;
+
+import java.util.Date;
+import org.quartz.builders.JobBuilder;
+import org.quartz.builders.SimpleTriggerBuilder;
+import org.quartz.jobs.Job;
+import org.quartz.triggers.OperableTrigger;
+
+/**
+ * Registers and unregisters triggers at a high rate with a running scheduler, whose scheduler
+ * thread holds a trigger due in ten seconds, and counts how often the scheduler thread acquires
+ * triggers meanwhile. The triggers registered all fire later than the one held, so none of them is
+ * worth giving it up for.
+ *
+ * <p>Run with <code>main</code>; the argument is optional: [triggers].
+ */
+public class SchedulingSignalBenchmark {
+
+  public static void main(String[] args) throws Exception {
+
+    int triggers = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+
+    // twice, so the second round runs warmed up
+    for (int round = 0; round < 2; round++) {
+      ExtendedScheduler scheduler = (ExtendedScheduler) new SchedulerFactory().getScheduler(10);
+      scheduler.addJob(
+          JobBuilder.newJobBuilder(NoOpJob.class)
+              .withIdentity("job")
+              .isConcurrencyAllowed(true)
+              .build());
+      long held = System.currentTimeMillis() + 10000L;
+      scheduler.scheduleJob(trigger("held", held));
+      scheduler.start();
+      Thread.sleep(200);
+      long acquisitions = scheduler.getAcquisitionMetrics().getAcquisitionCount();
+
+      long t0 = System.nanoTime();
+      for (int i = 0; i < triggers; i++) {
+        scheduler.scheduleJob(trigger("trigger-" + i, held + 10000L + i));
+        if (i % 2 == 1) {
+          scheduler.unscheduleJob("trigger-" + (i - 1));
+        }
+      }
+      long nanos = System.nanoTime() - t0;
+      acquisitions = scheduler.getAcquisitionMetrics().getAcquisitionCount() - acquisitions;
+      scheduler.shutdown();
+
+      System.out.println(
+          triggers
+              + " triggers scheduled and "
+              + triggers / 2
+              + " unscheduled in "
+              + nanos / 1000000L
+              + " ms, "
+              + (long) (triggers * 1.5 / (nanos / 1e9))
+              + " changes/s, "
+              + acquisitions
+              + " acquisitions meanwhile");
+    }
+  }
+
+  private static OperableTrigger trigger(String name, long startTime) {
+
+    return SimpleTriggerBuilder.simpleTriggerBuilder()
+        .withIdentity(name)
+        .forJob("job")
+        .startAt(new Date(startTime))
+        .build();
+  }
+
+  public static class NoOpJob implements Job {
+
+    @Override
+    public void execute(JobExecutionContext context) {}
+  }
+}
@@ -0,0 +1,132 @@
+package org.quartz.core;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.quartz.builders.JobBuilder;
+import org.quartz.builders.SimpleTriggerBuilder;
+import org.quartz.triggers.OperableTrigger;
+import org.quartz.triggers.Trigger.CompletedExecutionInstruction;
+
+/**
+ * Measures a {@link ShardedRAMJobStore} with 1, 4, 16 and 64 shards. First a number of threads,
+ * each with jobs of its own, store and remove triggers concurrently; then all triggers are
+ * acquired, fired and completed in batches through the merge of the shards.
+ *
+ * <p>Run with <code>main</code>; arguments are optional: [threads] [triggers per thread] [batch
+ * size].
+ */
+public class ShardedRAMJobStoreBenchmark {
+
+  public static void main(String[] args) throws Exception {
+
+    final int threads =
+        args.length > 0
+            ? Integer.parseInt(args[0])
+            : Math.max(4, Runtime.getRuntime().availableProcessors());
+    final int triggersPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 50000;
+    int batchSize = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+    System.out.println(
+        threads
+            + " threads on "
+            + Runtime.getRuntime().availableProcessors()
+            + " cores, "
+            + triggersPerThread
+            + " triggers each");
+
+    // twice, so the second round runs warmed up
+    for (int round = 0; round < 2; round++) {
+      for (int shardCount : new int[] {1, 4, 16, 64}) {
+        final ShardedRAMJobStore store = new ShardedRAMJobStore(shardCount);
+        store.initialize(new NoOpSchedulerSignaler());
+        for (int j = 0; j < 1000; j++) {
+          store.storeJob(
+              JobBuilder.newJobBuilder()
+                  .withIdentity("job-" + j)
+                  .isConcurrencyAllowed(true)
+                  .build(),
+              false);
+        }
+        final long start = System.currentTimeMillis() + 3600000L;
+
+        final CountDownLatch done = new CountDownLatch(threads);
+        long t0 = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+          final int thread = t;
+          new Thread(
+                  new Runnable() {
+
+                    @Override
+                    public void run() {
+
+                      try {
+                        // store every trigger, remove every other one again
+                        for (int i = 0; i < triggersPerThread; i++) {
+                          store.storeTrigger(trigger(thread, i, threads, start), false);
+                          if (i % 2 == 1) {
+                            store.removeTrigger("trigger-" + thread + "-" + (i - 1));
+                          }
+                        }
+                      } catch (Exception e) {
+                        e.printStackTrace();
+                      } finally {
+                        done.countDown();
+                      }
+                    }
+                  })
+              .start();
+        }
+        done.await();
+        report(shardCount, "stored or removed", threads * (triggersPerThread * 3 / 2), t0);
+
+        t0 = System.nanoTime();
+        int fired = 0;
+        while (true) {
+          List<OperableTrigger> acquired =
+              store.acquireNextTriggers(start + triggersPerThread, batchSize, 0L);
+          if (acquired.isEmpty()) {
+            break;
+          }
+          for (TriggerFiredResult result : store.triggersFired(acquired)) {
+            TriggerFiredBundle bundle = result.getTriggerFiredBundle();
+            store.triggeredJobComplete(
+                bundle.getTrigger(),
+                bundle.getJobDetail(),
+                CompletedExecutionInstruction.DELETE_TRIGGER);
+            fired++;
+          }
+        }
+        report(shardCount, "acquired, fired and completed", fired, t0);
+        store.shutdown();
+      }
+    }
+  }
+
+  private static OperableTrigger trigger(int thread, int i, int threads, long start) {
+
+    OperableTrigger trigger =
+        SimpleTriggerBuilder.simpleTriggerBuilder()
+            .withIdentity("trigger-" + thread + "-" + i)
+            .forJob("job-" + (thread + threads * (i % (1000 / threads))))
+            .startAt(new Date(start + i))
+            .build();
+    trigger.computeFirstFireTime(null);
+    return trigger;
+  }
+
+  private static void report(int shardCount, String what, int triggers, long t0) {
+
+    long nanos = System.nanoTime() - t0;
+    System.out.println(
+        shardCount
+            + " shards: "
+            + triggers
+            + " triggers "
+            + what
+            + " in "
+            + nanos / 1000000L
+            + " ms, "
+            + (long) (triggers / (nanos / 1e9))
+            + " triggers/s");
+  }
+}
@@ -0,0 +1,142 @@
+package org.quartz.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.quartz.builders.JobBuilder;
+import org.quartz.builders.SimpleTriggerBuilder;
+import org.quartz.exceptions.ObjectAlreadyExistsException;
+import org.quartz.triggers.OperableTrigger;
+import org.quartz.triggers.Trigger.CompletedExecutionInstruction;
+
+public class ShardedRAMJobStoreTest {
+
+  private ShardedRAMJobStore store;
+
+  @Before
+  public void setup() throws Exception {
+
+    store = new ShardedRAMJobStore(8);
+    store.initialize(new NoOpSchedulerSignaler());
+  }
+
+  private OperableTrigger newTrigger(String name, String jobName, long fireTime, int priority) {
+
+    OperableTrigger trigger =
+        SimpleTriggerBuilder.simpleTriggerBuilder()
+            .withIdentity(name)
+            .forJob(jobName)
+            .startAt(new Date(fireTime))
+            .withPriority(priority)
+            .build();
+    trigger.computeFirstFireTime(null);
+    return trigger;
+  }
+
+  @Test
+  public void shouldAcquireInFireTimeOrderAcrossShards() throws Exception {
+
+    long now = System.currentTimeMillis() + 60000L;
+    RAMJobStore single = new RAMJobStore();
+    single.initialize(new NoOpSchedulerSignaler());
+    for (int j = 0; j < 20; j++) {
+      store.storeJob(
+          JobBuilder.newJobBuilder().withIdentity("job" + j).isConcurrencyAllowed(true).build(),
+          false);
+      single.storeJob(
+          JobBuilder.newJobBuilder().withIdentity("job" + j).isConcurrencyAllowed(true).build(),
+          false);
+    }
+    for (int i = 0; i < 200; i++) {
+      // many triggers at the same time, told apart by priority and name
+      long fireTime = now + (i * 7) % 13;
+      store.storeTrigger(newTrigger("t" + i, "job" + (i % 20), fireTime, i % 3), false);
+      single.storeTrigger(newTrigger("t" + i, "job" + (i % 20), fireTime, i % 3), false);
+    }
+
+    List<String> expected = new ArrayList<String>();
+    for (OperableTrigger trigger : single.acquireNextTriggers(now + 100, 200, 0L)) {
+      expected.add(trigger.getName());
+    }
+    List<String> names = new ArrayList<String>();
+    for (int batch : new int[] {1, 5, 30, 200}) {
+      for (OperableTrigger trigger : store.acquireNextTriggers(now + 100, batch, 0L)) {
+        names.add(trigger.getName());
+      }
+    }
+    assertEquals(expected, names);
+    assertTrue(store.acquireNextTriggers(now + 100, 10, 0L).isEmpty());
+  }
+
+  @Test
+  public void shouldKeepTriggerNamesUniqueAcrossShards() throws Exception {
+
+    long now = System.currentTimeMillis();
+    for (int j = 0; j < 16; j++) {
+      store.storeJob(JobBuilder.newJobBuilder().withIdentity("job" + j).build(), false);
+    }
+    store.storeTrigger(newTrigger("t", "job0", now + 1000, 5), false);
+    for (int j = 1; j < 16; j++) {
+      try {
+        store.storeTrigger(newTrigger("t", "job" + j, now + 1000, 5), false);
+        fail();
+      } catch (ObjectAlreadyExistsException e) {
+        // expected
+      }
+    }
+
+    // replacing moves it to the shard of the other job
+    store.storeTrigger(newTrigger("t", "job7", now + 2000, 5), true);
+    assertEquals("job7", store.retrieveTrigger("t").getJobName());
+    assertTrue(store.getTriggersForJob("job0").isEmpty());
+    assertEquals(now + 2000, store.getEarliestNextFireTime());
+
+    assertTrue(store.replaceTrigger("t", newTrigger("u", "job7", now + 500, 5)));
+    assertNull(store.retrieveTrigger("t"));
+    assertNotNull(store.retrieveTrigger("u"));
+    assertTrue(store.removeTrigger("u"));
+    assertFalse(store.removeTrigger("u"));
+    assertEquals(16, store.getJobKeys().size());
+    assertEquals(Long.MAX_VALUE, store.getEarliestNextFireTime());
+  }
+
+  @Test
+  public void shouldFireAndCompleteInTheJobsShard() throws Exception {
+
+    long now = System.currentTimeMillis();
+    for (int j = 0; j < 4; j++) {
+      store.storeJob(
+          JobBuilder.newJobBuilder().withIdentity("job" + j).isConcurrencyAllowed(false).build(),
+          false);
+      store.storeTrigger(newTrigger("a" + j, "job" + j, now, 5), false);
+      store.storeTrigger(newTrigger("b" + j, "job" + j, now + 1, 5), false);
+    }
+
+    List<OperableTrigger> acquired = store.acquireNextTriggers(now, 10, 0L);
+    assertEquals(4, acquired.size());
+    List<TriggerFiredResult> fired = store.triggersFired(acquired);
+    assertEquals(4, fired.size());
+    for (int i = 0; i < fired.size(); i++) {
+      assertEquals(
+          acquired.get(i).getName(), fired.get(i).getTriggerFiredBundle().getTrigger().getName());
+    }
+    // the other triggers of the running jobs are blocked
+    assertTrue(store.acquireNextTriggers(now + 1000, 10, 0L).isEmpty());
+
+    for (TriggerFiredResult result : fired) {
+      TriggerFiredBundle bundle = result.getTriggerFiredBundle();
+      store.triggeredJobComplete(
+          bundle.getTrigger(), bundle.getJobDetail(), CompletedExecutionInstruction.DELETE_TRIGGER);
+    }
+    assertEquals(4, store.acquireNextTriggers(now + 1000, 10, 0L).size());
+  }
+}
@@ -0,0 +1,98 @@
+package org.quartz.core;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Measures how long a <code>{@link SimpleThreadPool}</code> and a <code>{@link HandoffThreadPool}
+ * </code> take to hand a job to a worker thread, one job at a time on an idle pool, and how many
+ * no-op jobs per second they get through when a single thread feeds them as the scheduler thread
+ * does, blocking for an available thread before each.
+ *
+ * <p>Run with <code>main</code>; arguments are optional: [jobs] [threads].
+ */
+public class ThreadPoolHandoffBenchmark {
+
+  public static void main(String[] args) throws Exception {
+
+    int jobCount = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+    int threadCount = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+    // twice, so the second round runs warmed up
+    for (int round = 0; round < 2; round++) {
+      SimpleThreadPool simpleThreadPool = new SimpleThreadPool();
+      simpleThreadPool.setThreadCount(threadCount);
+      simpleThreadPool.setThreadNamePrefix("Simple");
+      run("SimpleThreadPool", simpleThreadPool, jobCount);
+      run("HandoffThreadPool", new HandoffThreadPool(threadCount), jobCount);
+    }
+  }
+
+  private static void run(String name, ThreadPool threadPool, int jobCount) throws Exception {
+
+    threadPool.initialize();
+    try {
+      FireLatenessMetrics handoffLatency = new FireLatenessMetrics();
+      int latencyJobs = jobCount / 20;
+      for (int i = 0; i < latencyJobs; i++) {
+        CountDownLatch done = new CountDownLatch(1);
+        long handedAt = System.nanoTime();
+        threadPool.runInThread(new TimedShell(handoffLatency, handedAt, done));
+        done.await();
+      }
+
+      CountDownLatch done = new CountDownLatch(jobCount);
+      long t0 = System.nanoTime();
+      for (int i = 0; i < jobCount; i++) {
+        threadPool.blockForAvailableThreads();
+        threadPool.runInThread(new TimedShell(null, 0L, done));
+      }
+      done.await();
+      long nanos = System.nanoTime() - t0;
+
+      System.out.println(
+          name
+              + ": handoff p50 "
+              + handoffLatency.getLatenessPercentileMicros(0.5)
+              + " us, p99 "
+              + handoffLatency.getLatenessPercentileMicros(0.99)
+              + " us, max "
+              + handoffLatency.getMaxLatenessMicros()
+              + " us; "
+              + jobCount
+              + " jobs in "
+              + nanos / 1000000L
+              + " ms, "
+              + (long) (jobCount / (nanos / 1e9))
+              + " jobs/s");
+    } finally {
+      threadPool.shutdown();
+    }
+  }
+
+  /** A shell that records how long after its handoff it started, and counts down when done. */
+  private static class TimedShell extends JobRunShell {
+
+    private final FireLatenessMetrics handoffLatency;
+
+    private final long handedAt;
+
+    private final CountDownLatch done;
+
+    TimedShell(FireLatenessMetrics handoffLatency, long handedAt, CountDownLatch done) {
+
+      super(null, null);
+      this.handoffLatency = handoffLatency;
+      this.handedAt = handedAt;
+      this.done = done;
+    }
+
+    @Override
+    public void run() {
+
+      if (handoffLatency != null) {
+        handoffLatency.recordLateness(System.nanoTime() - handedAt);
+      }
+      done.countDown();
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package org.quartz.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import org.quartz.triggers.SimpleTriggerImpl;
+
+public class TimingWheelTriggerTimeIndexTest {
+
+  private static final long[] SPREADS = {5L, 2000L, 120000L, 7200000L, 5L * 86400000L};
+
+  private TriggerWrapper newWrapper(String name, long fireTime, int priority) {
+
+    SimpleTriggerImpl trigger = new SimpleTriggerImpl();
+    trigger.setName(name);
+    trigger.setJobName("job");
+    trigger.setPriority(priority);
+    trigger.setNextFireTime(new Date(fireTime));
+    return new TriggerWrapper(trigger);
+  }
+
+  @Test
+  public void shouldKeepPriorityOrderWithinATick() {
+
+    TimingWheelTriggerTimeIndex index = new TimingWheelTriggerTimeIndex();
+    long time = 1500000000123L;
+    index.add(newWrapper("b", time, 5));
+    index.add(newWrapper("a", time, 5));
+    index.add(newWrapper("c", time, 10));
+    index.add(newWrapper("d", time - 1, 1));
+
+    assertEquals("d", index.pollFirst(time).key);
+    assertEquals("c", index.pollFirst(time).key);
+    assertEquals("a", index.pollFirst(time).key);
+    assertEquals("b", index.pollFirst(time).key);
+    assertNull(index.pollFirst(time));
+  }
+
+  @Test
+  public void shouldOrderLikeTheTreeSetIndex() {
+
+    Random random = new Random(42);
+    TimingWheelTriggerTimeIndex wheel = new TimingWheelTriggerTimeIndex();
+    TreeSetTriggerTimeIndex tree = new TreeSetTriggerTimeIndex();
+    List<TriggerWrapper> present = new ArrayList<TriggerWrapper>();
+    long now = 1500000000000L;
+
+    for (int i = 0; i < 50000; i++) {
+      int op = random.nextInt(10);
+      if (op < 5) {
+        long spread = SPREADS[random.nextInt(SPREADS.length)];
+        long time = now - 1000L + (long) (random.nextDouble() * spread);
+        TriggerWrapper tw = newWrapper("t" + i, time, random.nextInt(3));
+        assertEquals(tree.add(tw), wheel.add(tw));
+        present.add(tw);
+      } else if (op < 7 && !present.isEmpty()) {
+        TriggerWrapper tw = present.remove(random.nextInt(present.size()));
+        assertEquals(tree.remove(tw), wheel.remove(tw));
+      } else {
+        now += random.nextInt(5000);
+        TriggerWrapper expected = tree.pollFirst(now);
+        assertSame(expected, wheel.pollFirst(now));
+        if (expected != null) {
+          present.remove(expected);
+        }
+      }
+      assertEquals(tree.size(), wheel.size());
+      assertSame(tree.first(), wheel.first());
+    }
+
+    TriggerWrapper tw;
+    while ((tw = tree.pollFirst(Long.MAX_VALUE)) != null) {
+      assertSame(tw, wheel.pollFirst(Long.MAX_VALUE));
+    }
+    assertEquals(0, wheel.size());
+    assertNull(wheel.first());
+  }
+}
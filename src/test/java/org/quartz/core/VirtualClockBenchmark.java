@@ -0,0 +1,96 @@
+package org.quartz.core;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.quartz.builders.JobBuilder;
+import org.quartz.builders.SimpleTriggerBuilder;
+import org.quartz.jobs.Job;
+import org.quartz.jobs.JobDetail;
+import org.quartz.triggers.OperableTrigger;
+
+/**
+ * Replays a day of a schedule of one-off triggers, spread evenly over the day, on a <code>
+ * {@link VirtualClock}</code>, and measures how long it takes in real time.
+ *
+ * <p>Run with <code>main</code>; the argument is optional: [triggers].
+ */
+public class VirtualClockBenchmark {
+
+  private static final long DAY = 24 * 60 * 60 * 1000L;
+
+  private static final AtomicInteger executions = new AtomicInteger();
+
+  public static void main(String[] args) throws Exception {
+
+    int triggerCount = args.length > 0 ? Integer.parseInt(args[0]) : 300000;
+
+    // twice, so the second round runs warmed up
+    for (int round = 0; round < 2; round++) {
+      long start = 1767225600000L; // 2026-01-01T00:00:00Z
+      VirtualClock clock = new VirtualClock(start);
+      Clock.setClock(clock);
+      try {
+        ExtendedScheduler scheduler = (ExtendedScheduler) new SchedulerFactory().getScheduler(10);
+
+        List<OperableTrigger> triggers = new ArrayList<OperableTrigger>();
+        for (int i = 0; i < triggerCount; i++) {
+          triggers.add(
+              SimpleTriggerBuilder.simpleTriggerBuilder()
+                  .withIdentity("trigger-" + i)
+                  .forJob("job")
+                  .startAt(new Date(start + 1 + i * DAY / triggerCount))
+                  .build());
+        }
+        Map<JobDetail, List<OperableTrigger>> triggersAndJobs =
+            new LinkedHashMap<JobDetail, List<OperableTrigger>>();
+        triggersAndJobs.put(
+            JobBuilder.newJobBuilder(CountingJob.class)
+                .withIdentity("job")
+                .isConcurrencyAllowed(true)
+                .build(),
+            triggers);
+        executions.set(0);
+        scheduler.scheduleJobs(triggersAndJobs, false);
+        scheduler.start();
+        // the jobs of jobs.xml on the test classpath would only add their own fires
+        scheduler.deleteJob("SampleJob2");
+        scheduler.deleteJob("SampleJob3");
+
+        long t0 = System.nanoTime();
+        clock.advanceTo(start + DAY + 1);
+        clock.awaitTime(start + DAY + 1, 600000L);
+        while (executions.get() < triggerCount) {
+          Thread.sleep(1);
+        }
+        long nanos = System.nanoTime() - t0;
+        scheduler.shutdown();
+
+        System.out.println(
+            "a day of "
+                + triggerCount
+                + " triggers replayed in "
+                + nanos / 1000000L
+                + " ms, "
+                + (long) (triggerCount / (nanos / 1e9))
+                + " fires/s, "
+                + scheduler.getFireLatenessMetrics().getMaxLatenessMicros() / 1000L
+                + " ms max virtual lateness");
+      } finally {
+        Clock.setClock(Clock.SYSTEM_CLOCK);
+      }
+    }
+  }
+
+  public static class CountingJob implements Job {
+
+    @Override
+    public void execute(JobExecutionContext context) {
+
+      executions.incrementAndGet();
+    }
+  }
+}
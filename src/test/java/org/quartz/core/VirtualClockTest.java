@@ -0,0 +1,108 @@
+package org.quartz.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.quartz.builders.JobBuilder;
+import org.quartz.builders.SimpleTriggerBuilder;
+import org.quartz.jobs.Job;
+import org.quartz.jobs.JobDetail;
+import org.quartz.triggers.OperableTrigger;
+
+public class VirtualClockTest {
+
+  private static final long START = 1767225600000L; // 2026-01-01T00:00:00Z
+
+  private static final long MINUTE = 60000L;
+
+  private static final long DAY = 24 * 60 * MINUTE;
+
+  private static final List<Long> scheduledFireTimes = new ArrayList<Long>();
+
+  @Test
+  public void shouldReplayADayInOrder() throws Exception {
+
+    VirtualClock clock = new VirtualClock(START);
+    Clock.setClock(clock);
+    try {
+      ExtendedScheduler scheduler = (ExtendedScheduler) new SchedulerFactory().getScheduler(1);
+
+      List<OperableTrigger> triggers = new ArrayList<OperableTrigger>();
+      triggers.add(
+          SimpleTriggerBuilder.simpleTriggerBuilder()
+              .withIdentity("every-minute")
+              .forJob("job")
+              .withIntervalInMilliseconds(MINUTE)
+              .withRepeatCount(24 * 60 - 1)
+              .startAt(new Date(START + MINUTE))
+              .build());
+      triggers.add(
+          SimpleTriggerBuilder.simpleTriggerBuilder()
+              .withIdentity("every-7-minutes")
+              .forJob("job")
+              .withIntervalInMilliseconds(7 * MINUTE)
+              .withRepeatCount(24 * 60 / 7 - 1)
+              .startAt(new Date(START + 7 * MINUTE))
+              .build());
+      Map<JobDetail, List<OperableTrigger>> triggersAndJobs =
+          new LinkedHashMap<JobDetail, List<OperableTrigger>>();
+      triggersAndJobs.put(
+          JobBuilder.newJobBuilder(RecordingJob.class)
+              .withIdentity("job")
+              .isConcurrencyAllowed(true)
+              .build(),
+          triggers);
+      synchronized (scheduledFireTimes) {
+        scheduledFireTimes.clear();
+      }
+      scheduler.scheduleJobs(triggersAndJobs, false);
+      scheduler.start();
+      // the clock stands still until advanced, so the jobs of jobs.xml go before they fire twice
+      scheduler.deleteJob("SampleJob2");
+      scheduler.deleteJob("SampleJob3");
+
+      long t0 = System.currentTimeMillis();
+      clock.advanceTo(START + DAY + MINUTE);
+      assertTrue(clock.awaitTime(START + DAY + MINUTE, 60000L));
+      int expected = 24 * 60 + 24 * 60 / 7;
+      while (executionCount() < expected && System.currentTimeMillis() - t0 < 60000L) {
+        Thread.sleep(10);
+      }
+      scheduler.shutdown();
+
+      synchronized (scheduledFireTimes) {
+        assertEquals(expected, scheduledFireTimes.size());
+        for (int i = 1; i < scheduledFireTimes.size(); i++) {
+          assertTrue(scheduledFireTimes.get(i - 1) <= scheduledFireTimes.get(i));
+        }
+        assertEquals(START + DAY, (long) scheduledFireTimes.get(expected - 1));
+      }
+    } finally {
+      Clock.setClock(Clock.SYSTEM_CLOCK);
+    }
+  }
+
+  private static int executionCount() {
+
+    synchronized (scheduledFireTimes) {
+      return scheduledFireTimes.size();
+    }
+  }
+
+  public static class RecordingJob implements Job {
+
+    @Override
+    public void execute(JobExecutionContext context) {
+
+      synchronized (scheduledFireTimes) {
+        scheduledFireTimes.add(context.getScheduledFireTime().getTime());
+      }
+    }
+  }
+}
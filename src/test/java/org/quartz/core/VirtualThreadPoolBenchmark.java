@@ -0,0 +1,109 @@
+package org.quartz.core;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Runs 10,000 jobs at once that each sleep, as a job blocked on I/O does, on a <code>
+ * {@link VirtualThreadPool}</code> capped at 10,000 and on a <code>{@link SimpleThreadPool}</code>
+ * of 200 threads, and measures how long each pool takes to get through them. The jobs then sleep
+ * inside <code>synchronized</code> on the virtual thread pool, to count the pinnings it detects.
+ *
+ * <p>Run with <code>main</code>; arguments are optional: [jobs] [sleep milliseconds].
+ */
+public class VirtualThreadPoolBenchmark {
+
+  public static void main(String[] args) throws Exception {
+
+    int jobCount = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+    long sleep = args.length > 1 ? Long.parseLong(args[1]) : 100L;
+
+    // twice, so the second round runs warmed up
+    for (int round = 0; round < 2; round++) {
+      VirtualThreadPool virtualThreadPool = new VirtualThreadPool(jobCount);
+      run(
+          virtualThreadPool.isVirtual() ? "VirtualThreadPool" : "VirtualThreadPool (platform)",
+          virtualThreadPool,
+          jobCount,
+          sleep,
+          false);
+      SimpleThreadPool simpleThreadPool = new SimpleThreadPool();
+      simpleThreadPool.setThreadCount(200);
+      simpleThreadPool.setThreadNamePrefix("Simple");
+      run("SimpleThreadPool of 200", simpleThreadPool, jobCount, sleep, false);
+    }
+    VirtualThreadPool virtualThreadPool = new VirtualThreadPool(jobCount);
+    run("VirtualThreadPool, synchronized", virtualThreadPool, jobCount, sleep, true);
+    // the flight recorder streams its events about once a second
+    Thread.sleep(2000L);
+    System.out.println("pinnings detected: " + virtualThreadPool.getPinnedCount());
+    virtualThreadPool.shutdown();
+  }
+
+  private static void run(
+      String name, ThreadPool threadPool, int jobCount, long sleep, boolean synchronize)
+      throws Exception {
+
+    threadPool.initialize();
+    try {
+      CountDownLatch done = new CountDownLatch(jobCount);
+      long t0 = System.nanoTime();
+      for (int i = 0; i < jobCount; i++) {
+        threadPool.blockForAvailableThreads();
+        threadPool.runInThread(new SleepingShell(sleep, synchronize, done));
+      }
+      done.await();
+      long nanos = System.nanoTime() - t0;
+
+      System.out.println(
+          name
+              + ": "
+              + jobCount
+              + " jobs sleeping "
+              + sleep
+              + " ms in "
+              + nanos / 1000000L
+              + " ms, "
+              + (long) (jobCount / (nanos / 1e9))
+              + " jobs/s");
+    } finally {
+      // the pinnings are counted once the flight recorder streams its events
+      if (!synchronize) {
+        threadPool.shutdown();
+      }
+    }
+  }
+
+  /** A shell that sleeps, optionally holding its own monitor, and counts down when done. */
+  private static class SleepingShell extends JobRunShell {
+
+    private final long sleep;
+
+    private final boolean synchronize;
+
+    private final CountDownLatch done;
+
+    SleepingShell(long sleep, boolean synchronize, CountDownLatch done) {
+
+      super(null, null);
+      this.sleep = sleep;
+      this.synchronize = synchronize;
+      this.done = done;
+    }
+
+    @Override
+    public void run() {
+
+      try {
+        if (synchronize) {
+          synchronized (this) {
+            Thread.sleep(sleep);
+          }
+        } else {
+          Thread.sleep(sleep);
+        }
+      } catch (InterruptedException ignore) {
+      }
+      done.countDown();
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package org.quartz.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class VirtualThreadPoolTest {
+
+  @Test
+  public void shouldCapTheJobsRunningAtOnce() throws Exception {
+
+    VirtualThreadPool threadPool = new VirtualThreadPool(5);
+    threadPool.initialize();
+    try {
+      AtomicInteger running = new AtomicInteger();
+      AtomicInteger maxRunning = new AtomicInteger();
+      CountDownLatch done = new CountDownLatch(50);
+      for (int i = 0; i < 50; i++) {
+        threadPool.runInThread(new CountingShell(running, maxRunning, done));
+      }
+      assertTrue(done.await(10, TimeUnit.SECONDS));
+
+      assertEquals(5, maxRunning.get());
+    } finally {
+      threadPool.shutdown();
+    }
+  }
+
+  /** A shell that sleeps a little, and records how many shells ran at once. */
+  private static class CountingShell extends JobRunShell {
+
+    private final AtomicInteger running;
+
+    private final AtomicInteger maxRunning;
+
+    private final CountDownLatch done;
+
+    CountingShell(AtomicInteger running, AtomicInteger maxRunning, CountDownLatch done) {
+
+      super(null, null);
+      this.running = running;
+      this.maxRunning = maxRunning;
+      this.done = done;
+    }
+
+    @Override
+    public void run() {
+
+      int now = running.incrementAndGet();
+      int max = maxRunning.get();
+      while (now > max && !maxRunning.compareAndSet(max, now)) {
+        max = maxRunning.get();
+      }
+      try {
+        Thread.sleep(20L);
+      } catch (InterruptedException ignore) {
+      }
+      running.decrementAndGet();
+      done.countDown();
+    }
+  }
+}